@@ -0,0 +1,63 @@
+package org.jboss.jandex;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// compares reading plain and compressed index files, see `IndexWriter(OutputStream, boolean)`
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(5)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class IndexReaderBenchmark {
+    @Param({ "false", "true" })
+    private boolean compressed;
+
+    private byte[] data;
+
+    @Setup
+    public void setup() throws IOException {
+        // a good part of Jandex itself, so that the index is not trivially small
+        Class<?>[] classes = { Index.class, IndexReader.class, IndexWriter.class, Indexer.class, IndexerOptions.class,
+                IndexView.class, CompositeIndex.class, StackedIndex.class, NameTable.class, ClassSummary.class,
+                ClassInfo.class, MethodInfo.class, FieldInfo.class, RecordComponentInfo.class, MethodParameterInfo.class,
+                AnnotationInstance.class, AnnotationValue.class, AnnotationTarget.class, AnnotationOverlay.class,
+                AnnotationTransformation.class, EquivalenceKey.class, DotName.class, Type.class, ClassType.class,
+                ParameterizedType.class, TypeVariable.class, TypeVariableReference.class, UnresolvedTypeVariable.class,
+                WildcardType.class, ArrayType.class, PrimitiveType.class, VoidType.class, TypeTarget.class };
+        Index index = Index.of(classes);
+        if (index.getKnownClasses().size() != classes.length) {
+            throw new IllegalStateException("Expected " + classes.length + " classes in the index, found "
+                    + index.getKnownClasses().size());
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new IndexWriter(out, compressed).write(index);
+        data = out.toByteArray();
+    }
+
+    @Benchmark
+    public Index readFromStream() throws IOException {
+        return new IndexReader(new ByteArrayInputStream(data)).read();
+    }
+
+    @Benchmark
+    public Index readFromBytes() throws IOException {
+        return IndexReader.fromBytes(data).read();
+    }
+}
@@ -6,6 +6,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 /**
  * Annotation overlay allows overriding annotation information from an index. This is useful when
@@ -197,6 +198,95 @@ public interface AnnotationOverlay {
      */
     Collection<AnnotationInstance> annotations(Declaration declaration);
 
+    /**
+     * Computes the annotations of all declarations in the {@linkplain #index() index} at once and stores
+     * them in this annotation overlay, so that subsequent inspections of any declaration only look up
+     * the stored annotations. This is useful when (nearly) all declarations are going to be inspected
+     * anyway, such as during a discovery phase of a framework. Classes of the index are processed
+     * in chunks on given {@code executor}, such as a {@link java.util.concurrent.ForkJoinPool ForkJoinPool},
+     * and this method waits until all of them are processed.
+     * <p>
+     * The annotation transformations are applied to all classes, fields, methods, method parameters
+     * (except in the {@linkplain Builder#compatibleMode() compatible mode}) and record components of all
+     * classes present in the index, potentially concurrently, so they must be thread-safe. The result
+     * of inspecting a declaration is the same as without materializing.
+     * <p>
+     * Materializing is only possible when the annotation overlay caches the annotations of all declarations,
+     * which is the default.
+     *
+     * @param executor the executor to run the transformations on, must not be {@code null}
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     * @throws IllegalStateException if the annotation overlay was built with a {@linkplain Builder#maximumCacheSize(int)
+     *         limited cache}
+     * @since 3.7
+     */
+    void materialize(Executor executor) throws InterruptedException;
+
+    /**
+     * Returns the statistics of the cache of annotations computed by this annotation overlay.
+     * The statistics are a snapshot; they are not updated when the overlay is used further.
+     *
+     * @return the cache statistics, never {@code null}
+     * @see Builder#maximumCacheSize(int)
+     * @since 3.7
+     */
+    CacheStatistics cacheStatistics();
+
+    /**
+     * Statistics of the cache of annotations computed by an annotation overlay. A cache hit means that
+     * the annotations of a declaration were found in the cache, a cache miss means that the annotation
+     * transformations had to be applied to the declaration.
+     *
+     * @since 3.7
+     */
+    final class CacheStatistics {
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount;
+        private final int size;
+
+        CacheStatistics(long hitCount, long missCount, long evictionCount, int size) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.size = size;
+        }
+
+        /**
+         * @return the number of lookups that found the annotations of a declaration in the cache
+         */
+        public long hitCount() {
+            return hitCount;
+        }
+
+        /**
+         * @return the number of lookups that had to compute the annotations of a declaration
+         */
+        public long missCount() {
+            return missCount;
+        }
+
+        /**
+         * @return the number of declarations that were evicted from the cache because it was full
+         */
+        public long evictionCount() {
+            return evictionCount;
+        }
+
+        /**
+         * @return the number of declarations whose annotations are currently cached
+         */
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public String toString() {
+            return "CacheStatistics{hits=" + hitCount + ", misses=" + missCount + ", evictions=" + evictionCount
+                    + ", size=" + size + "}";
+        }
+    }
+
     /**
      * The builder for an annotation overlay.
      */
@@ -207,6 +297,7 @@ public interface AnnotationOverlay {
         private boolean compatibleMode;
         private boolean runtimeAnnotationsOnly;
         private boolean inheritedAnnotations;
+        private int maximumCacheSize = -1;
 
         Builder(IndexView index, Collection<AnnotationTransformation> annotationTransformations) {
             this.index = index;
@@ -254,14 +345,55 @@ public interface AnnotationOverlay {
             return this;
         }
 
+        /**
+         * Limits the number of declarations whose annotations the built annotation overlay shall cache.
+         * By default, the annotations of all inspected declarations are cached for the lifetime
+         * of the overlay, which is appropriate when the overlay is short-lived. For long-lived overlays
+         * of large indices, the cache may be limited; when it is full, the annotations of the least
+         * recently used declarations are evicted and computed again when they are needed.
+         * <p>
+         * When the maximum size is 0, nothing is cached and the annotation transformations are applied
+         * on each inspection of a declaration, which is appropriate for a single pass over the index.
+         * <p>
+         * When the annotations of a declaration are not cached, the annotation transformations may be
+         * applied to the declaration multiple times, and annotation instances added by the transformations
+         * may be returned as equal, but not identical, objects.
+         *
+         * @param maximumSize the maximum number of cached declarations, must not be negative
+         * @return this builder
+         * @see AnnotationOverlay#cacheStatistics()
+         * @since 3.7
+         */
+        public Builder maximumCacheSize(int maximumSize) {
+            if (maximumSize < 0) {
+                throw new IllegalArgumentException("maximumSize cannot be negative");
+            }
+            maximumCacheSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * When called, the built annotation overlay shall not cache the annotations of declarations at all.
+         * This is equivalent to {@link #maximumCacheSize(int) maximumCacheSize(0)}.
+         *
+         * @return this builder
+         * @since 3.7
+         */
+        public Builder noCache() {
+            return maximumCacheSize(0);
+        }
+
         /**
          * Builds and returns an annotation overlay based on the configuration of this builder.
          *
          * @return the annotation overlay, never {@code null}
          */
         public AnnotationOverlay build() {
+            AnnotationOverlayCache cache = maximumCacheSize < 0
+                    ? AnnotationOverlayCache.unbounded()
+                    : AnnotationOverlayCache.bounded(maximumCacheSize);
             return new AnnotationOverlayImpl(index, compatibleMode, runtimeAnnotationsOnly, inheritedAnnotations,
-                    annotationTransformations);
+                    annotationTransformations, cache);
         }
     }
 }
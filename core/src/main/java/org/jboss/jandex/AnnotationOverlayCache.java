@@ -0,0 +1,170 @@
+package org.jboss.jandex;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Cache of annotations of declarations computed by an annotation overlay, keyed by the {@link EquivalenceKey}
+ * of the declaration. The overlay may use one of three policies: caching all declarations, caching a bounded
+ * number of declarations with least recently used eviction, or not caching at all.
+ * <p>
+ * All implementations are thread-safe and record the number of cache hits, misses and evictions.
+ */
+abstract class AnnotationOverlayCache {
+    final LongAdder hits = new LongAdder();
+    final LongAdder misses = new LongAdder();
+    final LongAdder evictions = new LongAdder();
+
+    static AnnotationOverlayCache unbounded() {
+        return new Unbounded();
+    }
+
+    static AnnotationOverlayCache bounded(int maximumSize) {
+        return maximumSize == 0 ? new None() : new Bounded(maximumSize);
+    }
+
+    static AnnotationOverlayCache none() {
+        return new None();
+    }
+
+    /**
+     * Returns the cached annotations for given {@code key}, or computes them using given {@code loader}
+     * and caches them, if this cache retains anything. The {@code loader} may be invoked multiple times
+     * for the same key, either concurrently or after the previously computed value was evicted, but
+     * as long as the value is cached, all threads observe the same value.
+     */
+    abstract Collection<AnnotationInstance> get(EquivalenceKey key,
+            Function<EquivalenceKey, Collection<AnnotationInstance>> loader);
+
+    abstract int size();
+
+    /**
+     * Returns whether this cache retains all values it ever computed.
+     */
+    boolean retainsAll() {
+        return false;
+    }
+
+    final AnnotationOverlay.CacheStatistics statistics() {
+        return new AnnotationOverlay.CacheStatistics(hits.sum(), misses.sum(), evictions.sum(), size());
+    }
+
+    private static final class Unbounded extends AnnotationOverlayCache {
+        private final ConcurrentHashMap<EquivalenceKey, Collection<AnnotationInstance>> map = new ConcurrentHashMap<>();
+
+        @Override
+        Collection<AnnotationInstance> get(EquivalenceKey key,
+                Function<EquivalenceKey, Collection<AnnotationInstance>> loader) {
+            // optimistic `get` to avoid `computeIfAbsent` for most calls
+            Collection<AnnotationInstance> result = map.get(key);
+            if (result != null) {
+                hits.increment();
+                return result;
+            }
+            misses.increment();
+            return map.computeIfAbsent(key, loader);
+        }
+
+        @Override
+        int size() {
+            return map.size();
+        }
+
+        @Override
+        boolean retainsAll() {
+            return true;
+        }
+    }
+
+    // the keys are distributed among a number of segments, each of which is a small LRU cache guarded
+    // by its own lock, so that concurrent lookups of different declarations rarely contend
+    private static final class Bounded extends AnnotationOverlayCache {
+        private static final int MAX_SEGMENTS = 16;
+
+        private final Segment[] segments;
+        private final int mask;
+
+        Bounded(int maximumSize) {
+            int count = Math.min(MAX_SEGMENTS, Integer.highestOneBit(maximumSize));
+            this.segments = new Segment[count];
+            this.mask = count - 1;
+            // the sum of segment capacities is exactly `maximumSize`
+            for (int i = 0; i < count; i++) {
+                segments[i] = new Segment(maximumSize / count + (i < maximumSize % count ? 1 : 0));
+            }
+        }
+
+        @Override
+        Collection<AnnotationInstance> get(EquivalenceKey key,
+                Function<EquivalenceKey, Collection<AnnotationInstance>> loader) {
+            int hash = key.hashCode();
+            Segment segment = segments[(hash ^ (hash >>> 16)) & mask];
+            Collection<AnnotationInstance> result;
+            synchronized (segment) {
+                result = segment.get(key);
+            }
+            if (result != null) {
+                hits.increment();
+                return result;
+            }
+            misses.increment();
+
+            // computed outside of the lock, the loader may be slow
+            Collection<AnnotationInstance> computed = loader.apply(key);
+            synchronized (segment) {
+                result = segment.putIfAbsent(key, computed);
+            }
+            return result != null ? result : computed;
+        }
+
+        @Override
+        int size() {
+            int result = 0;
+            for (Segment segment : segments) {
+                synchronized (segment) {
+                    result += segment.size();
+                }
+            }
+            return result;
+        }
+
+        private final class Segment extends LinkedHashMap<EquivalenceKey, Collection<AnnotationInstance>> {
+            // never serialized, `LinkedHashMap` just happens to be `Serializable`
+            private static final long serialVersionUID = 1L;
+
+            private final int capacity;
+
+            Segment(int capacity) {
+                super(16, 0.75f, true);
+                this.capacity = capacity;
+            }
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<EquivalenceKey, Collection<AnnotationInstance>> eldest) {
+                if (size() > capacity) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        }
+    }
+
+    private static final class None extends AnnotationOverlayCache {
+        @Override
+        Collection<AnnotationInstance> get(EquivalenceKey key,
+                Function<EquivalenceKey, Collection<AnnotationInstance>> loader) {
+            misses.increment();
+            return loader.apply(key);
+        }
+
+        @Override
+        int size() {
+            return 0;
+        }
+    }
+}
@@ -2,31 +2,42 @@ package org.jboss.jandex;
 
 import java.lang.annotation.Annotation;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
 import org.jboss.jandex.AnnotationTransformation.TransformationContext;
 
 class AnnotationOverlayImpl implements AnnotationOverlay {
+    private static final int MATERIALIZE_CHUNK_SIZE = 256;
+
     final IndexView index;
     final boolean compatibleMode;
     final boolean runtimeAnnotationsOnly;
     final boolean inheritedAnnotations;
     final List<AnnotationTransformation> transformations;
-    final Map<EquivalenceKey, Collection<AnnotationInstance>> overlay = new ConcurrentHashMap<>();
+    // transformations that support given declaration kind; computed once during construction,
+    // so transformations added later by the mutable overlay are not included
+    private final EnumMap<AnnotationTarget.Kind, Dispatch> transformationsByKind;
+    final AnnotationOverlayCache overlay;
 
     AnnotationOverlayImpl(IndexView index, boolean compatibleMode, boolean runtimeAnnotationsOnly, boolean inheritedAnnotations,
-            Collection<AnnotationTransformation> annotationTransformations) {
+            Collection<AnnotationTransformation> annotationTransformations, AnnotationOverlayCache overlay) {
         this.index = index;
+        this.overlay = overlay;
         this.compatibleMode = compatibleMode;
         this.runtimeAnnotationsOnly = runtimeAnnotationsOnly;
         this.inheritedAnnotations = inheritedAnnotations;
@@ -45,6 +56,16 @@ class AnnotationOverlayImpl implements AnnotationOverlay {
             }
         });
         this.transformations = transformations;
+        this.transformationsByKind = new EnumMap<>(AnnotationTarget.Kind.class);
+        for (AnnotationTarget.Kind kind : AnnotationTarget.Kind.values()) {
+            List<AnnotationTransformation> supported = new ArrayList<>();
+            for (AnnotationTransformation transformation : transformations) {
+                if (transformation.supports(kind)) {
+                    supported.add(transformation);
+                }
+            }
+            transformationsByKind.put(kind, new Dispatch(supported));
+        }
     }
 
     @Override
@@ -241,21 +262,96 @@ class AnnotationOverlayImpl implements AnnotationOverlay {
         return result;
     }
 
-    Collection<AnnotationInstance> getAnnotationsFor(Declaration declaration) {
-        EquivalenceKey key = EquivalenceKey.of(declaration);
-        // optimistic `get` to avoid `computeIfAbsent` for most calls
-        Collection<AnnotationInstance> result = overlay.get(key);
-        if (result != null) {
-            return result;
+    @Override
+    public final CacheStatistics cacheStatistics() {
+        return overlay.statistics();
+    }
+
+    @Override
+    public final void materialize(Executor executor) throws InterruptedException {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor cannot be null");
+        }
+        if (!overlay.retainsAll()) {
+            throw new IllegalStateException("Materializing requires an unbounded cache");
+        }
+
+        ClassInfo[] classes = index.getKnownClasses().toArray(new ClassInfo[0]);
+        List<FutureTask<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < classes.length; i += MATERIALIZE_CHUNK_SIZE) {
+            int chunkStart = i;
+            int chunkEnd = Math.min(i + MATERIALIZE_CHUNK_SIZE, classes.length);
+            FutureTask<Void> task = new FutureTask<>(() -> {
+                for (int j = chunkStart; j < chunkEnd; j++) {
+                    materialize(classes[j]);
+                }
+                return null;
+            });
+            tasks.add(task);
+            executor.execute(task);
         }
-        return overlay.computeIfAbsent(key, new Function<EquivalenceKey, Collection<AnnotationInstance>>() {
+
+        try {
+            for (FutureTask<Void> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            cancel(tasks);
+            throw e;
+        } catch (ExecutionException e) {
+            cancel(tasks);
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private void materialize(ClassInfo clazz) {
+        getAnnotationsFor(clazz);
+        for (FieldInfo field : clazz.fieldsInDeclarationOrder()) {
+            getAnnotationsFor(field);
+        }
+        for (MethodInfo method : clazz.methodsInDeclarationOrder()) {
+            getAnnotationsFor(method);
+            // in the compatible mode, method parameters are part of methods
+            if (!compatibleMode) {
+                for (MethodParameterInfo parameter : method.parameters()) {
+                    getAnnotationsFor(parameter);
+                }
+            }
+        }
+        for (RecordComponentInfo recordComponent : clazz.recordComponentsInDeclarationOrder()) {
+            getAnnotationsFor(recordComponent);
+        }
+    }
+
+    private static void cancel(List<FutureTask<Void>> tasks) {
+        for (FutureTask<Void> task : tasks) {
+            task.cancel(false);
+        }
+    }
+
+    Collection<AnnotationInstance> getAnnotationsFor(Declaration declaration) {
+        return overlay.get(EquivalenceKey.of(declaration), new Function<EquivalenceKey, Collection<AnnotationInstance>>() {
             @Override
             public Collection<AnnotationInstance> apply(EquivalenceKey ignored) {
                 Collection<AnnotationInstance> original = getOriginalAnnotations(declaration);
+                Dispatch dispatch = transformationsByKind.get(declaration.kind());
+                BitSet candidates = dispatch.candidates(original);
+                if (candidates.isEmpty()) {
+                    return original;
+                }
+
                 TransformationContextImpl transformationContext = new TransformationContextImpl(declaration, original);
-                for (AnnotationTransformation transformation : transformations) {
-                    if (transformation.supports(declaration.kind())) {
-                        transformation.apply(transformationContext);
+                for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                    dispatch.transformations[i].apply(transformationContext);
+                    if (transformationContext.modified()) {
+                        // annotations added by the transformation may trigger subsequent transformations
+                        dispatch.addTriggered(candidates, transformationContext.annotations);
                     }
                 }
 
@@ -309,6 +405,63 @@ class AnnotationOverlayImpl implements AnnotationOverlay {
         return Collections.unmodifiableList(result);
     }
 
+    /**
+     * Transformations that support a single declaration kind, in the order of priority, together with
+     * a dispatch table that allows only invoking transformations that may apply to given declaration.
+     * Transformations built using {@link AnnotationTransformation.Builder} whose predicates require
+     * an annotation of certain names to be present are only invoked when an annotation of one of those
+     * names is present. Other transformations are always invoked.
+     */
+    private static final class Dispatch {
+        final AnnotationTransformation[] transformations;
+        // indices of transformations that are always invoked
+        private final BitSet untriggered;
+        // indices of transformations that are only invoked when an annotation of given name is present
+        private final Map<DotName, BitSet> triggered;
+
+        Dispatch(List<AnnotationTransformation> transformations) {
+            this.transformations = transformations.toArray(new AnnotationTransformation[0]);
+            this.untriggered = new BitSet(this.transformations.length);
+            this.triggered = new HashMap<>();
+            for (int i = 0; i < this.transformations.length; i++) {
+                AnnotationTransformation transformation = this.transformations[i];
+                DotName[] triggerNames = transformation instanceof AnnotationTransformation.Builder.BuiltTransformation
+                        ? ((AnnotationTransformation.Builder.BuiltTransformation) transformation).triggerNames
+                        : null;
+                if (triggerNames == null) {
+                    untriggered.set(i);
+                } else {
+                    for (DotName triggerName : triggerNames) {
+                        triggered.computeIfAbsent(triggerName, ignored -> new BitSet()).set(i);
+                    }
+                }
+            }
+        }
+
+        // the result must only be modified when there are triggered transformations,
+        // otherwise it is the shared set of untriggered transformations
+        BitSet candidates(Collection<AnnotationInstance> annotations) {
+            if (triggered.isEmpty()) {
+                return untriggered;
+            }
+            BitSet result = (BitSet) untriggered.clone();
+            addTriggered(result, annotations);
+            return result;
+        }
+
+        void addTriggered(BitSet candidates, Collection<AnnotationInstance> annotations) {
+            if (triggered.isEmpty()) {
+                return;
+            }
+            for (AnnotationInstance annotation : annotations) {
+                BitSet transformations = triggered.get(annotation.name());
+                if (transformations != null) {
+                    candidates.or(transformations);
+                }
+            }
+        }
+    }
+
     private static final class TransformationContextImpl implements TransformationContext {
         private final Declaration declaration;
         private final Collection<AnnotationInstance> originalAnnotations;
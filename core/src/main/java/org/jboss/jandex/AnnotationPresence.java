@@ -0,0 +1,108 @@
+package org.jboss.jandex;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bitmaps of annotations present in classes of an index, used to answer queries for classes that
+ * contain any or all of given annotations. Each class of the index is assigned an ordinal and each
+ * annotation name is mapped to a bitmap of ordinals of classes in which the annotation is present,
+ * as in {@link ClassInfo#hasAnnotation(DotName)}. Queries are then answered by combining bitmaps
+ * of the requested annotations.
+ * <p>
+ * The results are returned in the iteration order of the classes passed to the constructor.
+ *
+ * <p>
+ * <b>Thread-Safety</b>
+ * </p>
+ * This class is immutable and can be shared between threads without safe publication.
+ */
+final class AnnotationPresence {
+    private final ClassInfo[] classes;
+    private final Map<DotName, long[]> bitmaps;
+
+    AnnotationPresence(Collection<ClassInfo> classes) {
+        this.classes = classes.toArray(new ClassInfo[0]);
+
+        int words = (this.classes.length + 63) >>> 6;
+        Map<DotName, long[]> bitmaps = new HashMap<>();
+        for (int i = 0; i < this.classes.length; i++) {
+            for (Map.Entry<DotName, List<AnnotationInstance>> entry : this.classes[i].annotationsMap().entrySet()) {
+                if (!entry.getValue().isEmpty()) {
+                    long[] bitmap = bitmaps.computeIfAbsent(entry.getKey(), ignored -> new long[words]);
+                    bitmap[i >>> 6] |= 1L << i;
+                }
+            }
+        }
+        this.bitmaps = DotNameMap.of(bitmaps);
+    }
+
+    Collection<ClassInfo> withAny(Collection<DotName> annotationNames) {
+        long[] result = null;
+        for (DotName annotationName : annotationNames) {
+            long[] bitmap = bitmaps.get(annotationName);
+            if (bitmap == null) {
+                continue;
+            }
+            if (result == null) {
+                result = bitmap.clone();
+            } else {
+                for (int i = 0; i < result.length; i++) {
+                    result[i] |= bitmap[i];
+                }
+            }
+        }
+        return classesOf(result);
+    }
+
+    Collection<ClassInfo> withAll(Collection<DotName> annotationNames) {
+        if (annotationNames.isEmpty()) {
+            return new ImmutableArrayList<>(classes);
+        }
+
+        long[] result = null;
+        for (DotName annotationName : annotationNames) {
+            long[] bitmap = bitmaps.get(annotationName);
+            if (bitmap == null) {
+                return Collections.emptyList();
+            }
+            if (result == null) {
+                result = bitmap.clone();
+            } else {
+                for (int i = 0; i < result.length; i++) {
+                    result[i] &= bitmap[i];
+                }
+            }
+        }
+        return classesOf(result);
+    }
+
+    private Collection<ClassInfo> classesOf(long[] bitmap) {
+        if (bitmap == null) {
+            return Collections.emptyList();
+        }
+
+        int count = 0;
+        for (long word : bitmap) {
+            count += Long.bitCount(word);
+        }
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+
+        ClassInfo[] result = new ClassInfo[count];
+        int position = 0;
+        for (int i = 0; i < bitmap.length; i++) {
+            long word = bitmap[i];
+            while (word != 0) {
+                result[position++] = classes[(i << 6) + Long.numberOfTrailingZeros(word)];
+                // clear the lowest set bit
+                word &= word - 1;
+            }
+        }
+        return new ImmutableArrayList<>(result);
+    }
+}
@@ -269,6 +269,9 @@ public interface AnnotationTransformation {
 
         private int priority;
         private Predicate<TransformationContext> predicate;
+        // when not `null`, the transformation only applies if the current set of annotations contains
+        // an annotation of one of these names; the smallest such set is kept
+        private DotName[] triggerNames;
 
         Builder(AnnotationTarget.Kind kind) {
             this.kind = kind;
@@ -288,17 +291,13 @@ public interface AnnotationTransformation {
         }
 
         @SafeVarargs
-        private static Predicate<AnnotationInstance> annotationPredicate(Class<? extends Annotation>... classes) {
+        private static DotName[] annotationNames(Class<? extends Annotation>... classes) {
             Objects.requireNonNull(classes);
-            return annotation -> {
-                String annotationName = annotation.name().toString();
-                for (Class<? extends Annotation> clazz : classes) {
-                    if (annotationName.equals(clazz.getName())) {
-                        return true;
-                    }
-                }
-                return false;
-            };
+            DotName[] result = new DotName[classes.length];
+            for (int i = 0; i < classes.length; i++) {
+                result[i] = DotName.createSimple(classes[i]);
+            }
+            return result;
         }
 
         private static Predicate<AnnotationInstance> annotationPredicate(DotName... classes) {
@@ -325,8 +324,7 @@ public interface AnnotationTransformation {
          */
         @SafeVarargs
         public final THIS whenAnyMatch(Class<? extends Annotation>... classes) {
-            Objects.requireNonNull(classes);
-            return whenAnyMatch(annotationPredicate(classes));
+            return whenAnyMatch(annotationNames(classes));
         }
 
         /**
@@ -340,6 +338,9 @@ public interface AnnotationTransformation {
          */
         public final THIS whenAnyMatch(DotName... classes) {
             Objects.requireNonNull(classes);
+            if (triggerNames == null || classes.length < triggerNames.length) {
+                triggerNames = classes.clone();
+            }
             return whenAnyMatch(annotationPredicate(classes));
         }
 
@@ -390,8 +391,7 @@ public interface AnnotationTransformation {
          */
         @SafeVarargs
         public final THIS whenAllMatch(Class<? extends Annotation>... classes) {
-            Objects.requireNonNull(classes);
-            return whenAllMatch(annotationPredicate(classes));
+            return whenAllMatch(annotationNames(classes));
         }
 
         /**
@@ -455,8 +455,7 @@ public interface AnnotationTransformation {
          */
         @SafeVarargs
         public final THIS whenNoneMatch(Class<? extends Annotation>... classes) {
-            Objects.requireNonNull(classes);
-            return whenNoneMatch(annotationPredicate(classes));
+            return whenNoneMatch(annotationNames(classes));
         }
 
         /**
@@ -535,31 +534,45 @@ public interface AnnotationTransformation {
          */
         public AnnotationTransformation transform(Consumer<TransformationContext> transformation) {
             Objects.requireNonNull(transformation);
-
-            return new AnnotationTransformation() {
-                @Override
-                public int priority() {
-                    return priority;
-                }
-
-                @Override
-                public boolean supports(AnnotationTarget.Kind kind) {
-                    return Builder.this.kind == null || Builder.this.kind == kind;
-                }
-
-                @Override
-                public void apply(TransformationContext context) {
-                    if (predicate == null || predicate.test(context)) {
-                        transformation.accept(context);
-                    }
-                }
-            };
+            return new BuiltTransformation(this, transformation, triggerNames);
         }
 
         @SuppressWarnings("unchecked")
         THIS self() {
             return (THIS) this;
         }
+
+        static final class BuiltTransformation implements AnnotationTransformation {
+            private final Builder<?> builder;
+            private final Consumer<TransformationContext> transformation;
+            // predicates are only ever added to the builder, so the trigger names remain valid
+            // even if the builder is used further
+            final DotName[] triggerNames;
+
+            BuiltTransformation(Builder<?> builder, Consumer<TransformationContext> transformation,
+                    DotName[] triggerNames) {
+                this.builder = builder;
+                this.transformation = transformation;
+                this.triggerNames = triggerNames;
+            }
+
+            @Override
+            public int priority() {
+                return builder.priority;
+            }
+
+            @Override
+            public boolean supports(AnnotationTarget.Kind kind) {
+                return builder.kind == null || builder.kind == kind;
+            }
+
+            @Override
+            public void apply(TransformationContext context) {
+                if (builder.predicate == null || builder.predicate.test(context)) {
+                    transformation.accept(context);
+                }
+            }
+        }
     }
 
     /**
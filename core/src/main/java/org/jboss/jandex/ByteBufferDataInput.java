@@ -0,0 +1,352 @@
+package org.jboss.jandex;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes index data or class file data directly from a {@link ByteBuffer}, starting at given
+ * position. Compared to a {@link PackedDataInputStream} on top of a buffered stream, this avoids
+ * the per-byte overhead of stream reads: packed integers are decoded with an unrolled loop and
+ * strings are decoded in bulk. If the buffer is backed by an accessible array, the array is
+ * accessed directly.
+ * <p>
+ * The buffer passed to the constructor is not modified; this input maintains its own position.
+ * Its content must not be modified while it is being read.
+ *
+ * <p>
+ * <b>Thread-Safety</b>
+ * </p>
+ * This class is not thread-safe can <b>not</b> be shared between threads.
+ */
+final class ByteBufferDataInput implements PackedDataInput {
+    // if not `null`, the buffer is accessed through this array, otherwise through `buffer`
+    private final byte[] array;
+    private final int arrayOffset;
+    private final ByteBuffer buffer;
+    // the buffer passed to the constructor, for creating other inputs on the same data
+    private final ByteBuffer source;
+    private final int limit;
+    private int position;
+
+    ByteBufferDataInput(ByteBuffer buffer, int position) {
+        if (buffer.hasArray()) {
+            this.array = buffer.array();
+            this.arrayOffset = buffer.arrayOffset();
+            this.buffer = null;
+        } else {
+            this.array = null;
+            this.arrayOffset = 0;
+            this.buffer = buffer.duplicate();
+        }
+        this.source = buffer;
+        this.limit = buffer.limit();
+        this.position = position;
+    }
+
+    ByteBuffer source() {
+        return source;
+    }
+
+    int position() {
+        return position;
+    }
+
+    // the backing array, or `null` if the buffer isn't backed by an accessible array;
+    // position `p` of this input is at index `arrayOffset() + p` of the array
+    byte[] array() {
+        return array;
+    }
+
+    int arrayOffset() {
+        return arrayOffset;
+    }
+
+    private void require(int length) throws EOFException {
+        if (length < 0 || limit - position < length) {
+            throw new EOFException();
+        }
+    }
+
+    private byte get(int index) {
+        return array != null ? array[arrayOffset + index] : buffer.get(index);
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        if (position >= limit) {
+            throw new EOFException();
+        }
+        return get(position++);
+    }
+
+    @Override
+    public int readPackedU32() throws IOException {
+        // see PackedDataOutputStream.writePackedU32, at most 5 bytes; the common case of short
+        // values is handled without a loop and without bounds checks on each byte
+        if (limit - position < 5) {
+            return readPackedU32Slow();
+        }
+
+        int p = position;
+        byte b = get(p++);
+        if (b >= 0) {
+            position = p;
+            return b;
+        }
+        int result = b & 0x7F;
+        b = get(p++);
+        result = (result << 7) | (b & 0x7F);
+        if (b >= 0) {
+            position = p;
+            return result;
+        }
+        b = get(p++);
+        result = (result << 7) | (b & 0x7F);
+        if (b >= 0) {
+            position = p;
+            return result;
+        }
+        b = get(p++);
+        result = (result << 7) | (b & 0x7F);
+        if (b >= 0) {
+            position = p;
+            return result;
+        }
+        b = get(p++);
+        result = (result << 7) | (b & 0x7F);
+        if (b >= 0) {
+            position = p;
+            return result;
+        }
+        position = p;
+        throw new IOException("Malformed packed integer");
+    }
+
+    private int readPackedU32Slow() throws IOException {
+        byte b;
+        int i = 0;
+
+        do {
+            b = readByte();
+            i = (i << 7) | (b & 0x7F);
+        } while ((b & 0x80) == 0x80);
+
+        return i;
+    }
+
+    @Override
+    public String readUTF() throws IOException {
+        int length = readUnsignedShort();
+        require(length);
+
+        byte[] bytes;
+        int offset;
+        if (array != null) {
+            bytes = array;
+            offset = arrayOffset + position;
+        } else {
+            bytes = new byte[length];
+            offset = 0;
+            ByteBuffer buffer = this.buffer;
+            buffer.position(position);
+            buffer.get(bytes, 0, length);
+        }
+        position += length;
+
+        // fast path, ASCII only
+        int end = offset + length;
+        int i = offset;
+        while (i < end && bytes[i] >= 0) {
+            i++;
+        }
+        if (i == end) {
+            return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+        }
+
+        // modified UTF-8, see `DataInput.readUTF()`
+        char[] chars = new char[length];
+        int count = 0;
+        for (int j = offset; j < i; j++) {
+            chars[count++] = (char) bytes[j];
+        }
+        while (i < end) {
+            int c = bytes[i] & 0xFF;
+            if (c < 0x80) {
+                chars[count++] = (char) c;
+                i++;
+            } else if ((c & 0xE0) == 0xC0) {
+                if (i + 2 > end) {
+                    throw new UTFDataFormatException("Malformed input: partial character at end");
+                }
+                int c2 = bytes[i + 1];
+                if ((c2 & 0xC0) != 0x80) {
+                    throw new UTFDataFormatException("Malformed input around byte " + (i - offset));
+                }
+                chars[count++] = (char) (((c & 0x1F) << 6) | (c2 & 0x3F));
+                i += 2;
+            } else if ((c & 0xF0) == 0xE0) {
+                if (i + 3 > end) {
+                    throw new UTFDataFormatException("Malformed input: partial character at end");
+                }
+                int c2 = bytes[i + 1];
+                int c3 = bytes[i + 2];
+                if ((c2 & 0xC0) != 0x80 || (c3 & 0xC0) != 0x80) {
+                    throw new UTFDataFormatException("Malformed input around byte " + (i - offset));
+                }
+                chars[count++] = (char) (((c & 0x0F) << 12) | ((c2 & 0x3F) << 6) | (c3 & 0x3F));
+                i += 3;
+            } else {
+                throw new UTFDataFormatException("Malformed input around byte " + (i - offset));
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+    @Override
+    public void readFully(byte[] b) throws IOException {
+        readFully(b, 0, b.length);
+    }
+
+    @Override
+    public void readFully(byte[] b, int off, int len) throws IOException {
+        require(len);
+        if (array != null) {
+            System.arraycopy(array, arrayOffset + position, b, off, len);
+        } else {
+            ByteBuffer buffer = this.buffer;
+            buffer.position(position);
+            buffer.get(b, off, len);
+        }
+        position += len;
+    }
+
+    @Override
+    public int skipBytes(int n) {
+        int skipped = Math.max(0, Math.min(n, limit - position));
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+        return readByte() & 0xFF;
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        require(2);
+        int p = position;
+        position = p + 2;
+        return (short) (((get(p) & 0xFF) << 8) | (get(p + 1) & 0xFF));
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+        return readShort() & 0xFFFF;
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        return (char) readShort();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        require(4);
+        int p = position;
+        position = p + 4;
+        return ((get(p) & 0xFF) << 24)
+                | ((get(p + 1) & 0xFF) << 16)
+                | ((get(p + 2) & 0xFF) << 8)
+                | (get(p + 3) & 0xFF);
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        long high = readInt() & 0xFFFFFFFFL;
+        long low = readInt() & 0xFFFFFFFFL;
+        return (high << 32) | low;
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    @Override
+    public String readLine() {
+        // same as `DataInputStream.readLine()`: each byte is a character, a line is terminated
+        // by `\n`, `\r`, `\r\n` or the end of input
+        if (position >= limit) {
+            return null;
+        }
+
+        StringBuilder result = new StringBuilder();
+        while (position < limit) {
+            int c = get(position++) & 0xFF;
+            if (c == '\n') {
+                break;
+            }
+            if (c == '\r') {
+                if (position < limit && get(position) == '\n') {
+                    position++;
+                }
+                break;
+            }
+            result.append((char) c);
+        }
+        return result.toString();
+    }
+
+    @Override
+    public InputStream remaining() {
+        return new InputStream() {
+            @Override
+            public int read() {
+                return position < limit ? get(position++) & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (len == 0) {
+                    return 0;
+                }
+                if (position >= limit) {
+                    return -1;
+                }
+                len = Math.min(len, limit - position);
+                readFully(b, off, len);
+                return len;
+            }
+
+            @Override
+            public long skip(long n) {
+                return skipBytes((int) Math.min(n, Integer.MAX_VALUE));
+            }
+
+            @Override
+            public int available() {
+                return limit - position;
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        // nothing to close
+    }
+}
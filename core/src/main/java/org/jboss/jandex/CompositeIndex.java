@@ -24,9 +24,13 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 
@@ -34,6 +38,9 @@ import java.util.Set;
  * Composite annotation index. Represents an aggregation of multiple <code>Index</code> instances.
  * An example application is a Java EE deployment, which can contain multiple nested jars, each with
  * their own index.
+ * <p>
+ * Queries are delegated to all aggregated indices on each call. When there are many aggregated
+ * indices and the composite index is queried often, it may be {@linkplain #flatten() flattened}.
  *
  * @author John Bailey
  * @author Stuart Douglas
@@ -62,6 +69,167 @@ public class CompositeIndex implements IndexView {
         return create(list);
     }
 
+    /**
+     * Returns an {@link Index} that contains the same information as this composite index, merged into
+     * a single set of maps. The {@code ClassInfo}, {@code AnnotationInstance} and {@code ModuleInfo} objects
+     * of the aggregated indices are shared, not copied.
+     * <p>
+     * Each query on a composite index visits all aggregated indices and allocates a new collection
+     * for the result, which is costly when there are many of them. A flattened index answers each query
+     * with a single lookup instead, and it caches the results of queries on the class hierarchy
+     * like any other {@code Index}. Flattening visits all classes of all aggregated indices once,
+     * so it pays off when the index is queried many times.
+     * <p>
+     * Like in this composite index, if a class of the same name is present in multiple aggregated indices,
+     * the first one is returned from {@link Index#getClassByName(DotName)}, while the annotations and
+     * hierarchy information of all of them are retained. Unlike in this composite index,
+     * {@link Index#getKnownClasses()} returns each class name only once. Later changes to the
+     * aggregated indices, such as lazily loaded classes, are not reflected in the flattened index.
+     *
+     * @return the flattened index, never {@code null}
+     * @since 3.7
+     */
+    public Index flatten() {
+        Flattener flattener = new Flattener();
+        for (IndexView index : indexes) {
+            flattener.add(index);
+        }
+        return flattener.complete();
+    }
+
+    private static final class Flattener {
+        private final Map<DotName, List<AnnotationInstance>> annotations = new HashMap<>();
+        // sets of `ClassInfo`s are effectively identity sets, because `ClassInfo` doesn't override `equals()`
+        private final Map<DotName, Set<ClassInfo>> subclasses = new HashMap<>();
+        private final Map<DotName, Set<ClassInfo>> subinterfaces = new HashMap<>();
+        private final Map<DotName, Set<ClassInfo>> implementors = new HashMap<>();
+        private final Map<DotName, ClassInfo> classes = new HashMap<>();
+        private final Map<DotName, ModuleInfo> modules = new HashMap<>();
+        // users of each class, deduplicated by name like in `getKnownUsers()`
+        private final Map<DotName, Map<DotName, ClassInfo>> users = new HashMap<>();
+
+        void add(IndexView view) {
+            if (view instanceof CompositeIndex) {
+                for (IndexView index : ((CompositeIndex) view).indexes) {
+                    add(index);
+                }
+            } else if (view instanceof Index) {
+                add((Index) view);
+            } else {
+                derive(view);
+            }
+        }
+
+        private void add(Index index) {
+            for (Map.Entry<DotName, AnnotationInstance[]> entry : index.annotations.entrySet()) {
+                Collections.addAll(list(annotations, entry.getKey()), entry.getValue());
+            }
+            addAll(subclasses, index.subclasses);
+            addAll(subinterfaces, index.subinterfaces);
+            addAll(implementors, index.implementors);
+            for (ClassInfo clazz : index.classes.values()) {
+                classes.putIfAbsent(clazz.name(), clazz);
+            }
+            for (ModuleInfo module : index.modules.values()) {
+                modules.putIfAbsent(module.name(), module);
+            }
+            for (Map.Entry<DotName, ClassInfo[]> entry : index.users.entrySet()) {
+                addUsers(entry.getKey(), Arrays.asList(entry.getValue()));
+            }
+        }
+
+        // the maps of other views are not accessible, so they are rebuilt from the classes, like in `Index.update()`
+        private void derive(IndexView view) {
+            for (ClassInfo clazz : view.getKnownClasses()) {
+                classes.putIfAbsent(clazz.name(), clazz);
+                addAnnotations(clazz);
+                if (clazz.superName() != null) {
+                    set(subclasses, clazz.superName()).add(clazz);
+                }
+                for (DotName interfaceName : clazz.interfaceNames()) {
+                    set(implementors, interfaceName).add(clazz);
+                    if (Modifier.isInterface(clazz.flags())) {
+                        set(subinterfaces, interfaceName).add(clazz);
+                    }
+                }
+            }
+            for (ModuleInfo module : view.getKnownModules()) {
+                modules.putIfAbsent(module.name(), module);
+                addAnnotations(module.moduleInfoClass());
+            }
+
+            // users can't be found from the classes, only the names of used classes known to the view are queried
+            Set<DotName> usedClasses = new HashSet<>();
+            collectUsedClasses(view, usedClasses);
+            for (DotName usedClass : usedClasses) {
+                addUsers(usedClass, view.getKnownUsers(usedClass));
+            }
+        }
+
+        private void addAnnotations(ClassInfo clazz) {
+            for (Map.Entry<DotName, List<AnnotationInstance>> entry : clazz.annotationsMap().entrySet()) {
+                list(annotations, entry.getKey()).addAll(entry.getValue());
+            }
+        }
+
+        private void addUsers(DotName usedClass, Collection<ClassInfo> users) {
+            if (users.isEmpty()) {
+                return;
+            }
+            Map<DotName, ClassInfo> byName = this.users.computeIfAbsent(usedClass, ignored -> new LinkedHashMap<>());
+            for (ClassInfo user : users) {
+                byName.putIfAbsent(user.name(), user);
+            }
+        }
+
+        private static void collectUsedClasses(IndexView view, Set<DotName> result) {
+            if (view instanceof Index) {
+                result.addAll(((Index) view).users.keySet());
+            } else if (view instanceof LazyIndex) {
+                result.addAll(((LazyIndex) view).users.keySet());
+            } else if (view instanceof StackedIndex) {
+                for (IndexView index : ((StackedIndex) view).stack) {
+                    collectUsedClasses(index, result);
+                }
+            } else if (view instanceof CompositeIndex) {
+                for (IndexView index : ((CompositeIndex) view).indexes) {
+                    collectUsedClasses(index, result);
+                }
+            }
+        }
+
+        Index complete() {
+            Map<DotName, List<ClassInfo>> users = new HashMap<>();
+            for (Map.Entry<DotName, Map<DotName, ClassInfo>> entry : this.users.entrySet()) {
+                users.put(entry.getKey(), new ArrayList<>(entry.getValue().values()));
+            }
+            return Index.create(annotations, lists(subclasses), lists(subinterfaces), lists(implementors), classes,
+                    modules, users);
+        }
+
+        private static <T> List<T> list(Map<DotName, List<T>> map, DotName key) {
+            return map.computeIfAbsent(key, ignored -> new ArrayList<>());
+        }
+
+        private static Set<ClassInfo> set(Map<DotName, Set<ClassInfo>> map, DotName key) {
+            return map.computeIfAbsent(key, ignored -> new LinkedHashSet<>());
+        }
+
+        private static void addAll(Map<DotName, Set<ClassInfo>> map, Map<DotName, ClassInfo[]> additions) {
+            for (Map.Entry<DotName, ClassInfo[]> entry : additions.entrySet()) {
+                Collections.addAll(set(map, entry.getKey()), entry.getValue());
+            }
+        }
+
+        private static Map<DotName, List<ClassInfo>> lists(Map<DotName, Set<ClassInfo>> map) {
+            Map<DotName, List<ClassInfo>> result = new HashMap<>();
+            for (Map.Entry<DotName, Set<ClassInfo>> entry : map.entrySet()) {
+                result.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+            }
+            return result;
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,263 @@
+package org.jboss.jandex;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable map with {@link DotName} keys, used for the internal tables of an index. Compared to
+ * a {@code HashMap}, it doesn't allocate an entry object per mapping: keys and values are stored
+ * in flat arrays using open addressing with linear probing. Hash codes of keys are stored alongside
+ * the keys, so that a lookup only needs to call {@link DotName#equals(Object)} when the hash codes
+ * match, and the identity of keys is checked first, which is the common case for interned names.
+ * The {@code null} key is permitted for compatibility with {@link Index#create(Map, Map, Map, Map)} and friends;
+ * it is stored in a dedicated slot after the hash table.
+ * <p>
+ * Iteration order is stable: for the same set of keys, it is always the same, regardless of the iteration
+ * order of the source map. This is important for reproducibility, because the iteration order of an index
+ * determines the layout of the index file written from it.
+ *
+ * <p>
+ * <b>Thread-Safety</b>
+ * </p>
+ * This class is immutable and can be shared between threads without safe publication.
+ *
+ * @param <V> the type of values
+ */
+final class DotNameMap<V> extends AbstractMap<DotName, V> {
+    // the last slot is reserved for the `null` key, the others form a hash table
+    private final DotName[] keys;
+    private final Object[] values;
+    private final int[] hashes;
+    private final int mask;
+    private final boolean hasNullKey;
+    private final int size;
+
+    private DotNameMap(Map<DotName, V> map) {
+        int capacity = 2;
+        // load factor at most 0.75, there's always at least one empty slot
+        while (capacity * 3 < map.size() * 4) {
+            capacity <<= 1;
+        }
+
+        this.keys = new DotName[capacity + 1];
+        this.values = new Object[capacity + 1];
+        this.hashes = new int[capacity + 1];
+        this.size = map.size();
+
+        int mask = capacity - 1;
+        this.mask = mask;
+        // with linear probing, the slots of colliding keys depend on the insertion order, so the keys
+        // are inserted in a canonical order: by their home slot, then by hash code, then by name
+        @SuppressWarnings("unchecked")
+        Map.Entry<DotName, V>[] entries = (Map.Entry<DotName, V>[]) map.entrySet().toArray(new Map.Entry<?, ?>[0]);
+        int count = 0;
+        boolean hasNullKey = false;
+        for (Map.Entry<DotName, V> entry : entries) {
+            if (entry.getKey() == null) {
+                hasNullKey = true;
+                values[capacity] = entry.getValue();
+            } else {
+                entries[count++] = entry;
+            }
+        }
+        this.hasNullKey = hasNullKey;
+        Arrays.sort(entries, 0, count, (e1, e2) -> {
+            int h1 = e1.getKey().hashCode();
+            int h2 = e2.getKey().hashCode();
+            int result = Integer.compare(spread(h1) & mask, spread(h2) & mask);
+            if (result == 0) {
+                result = Integer.compare(h1, h2);
+            }
+            return result != 0 ? result : e1.getKey().compareTo(e2.getKey());
+        });
+        for (int j = 0; j < count; j++) {
+            Map.Entry<DotName, V> entry = entries[j];
+            DotName key = entry.getKey();
+            int hash = key.hashCode();
+            int i = spread(hash) & mask;
+            while (keys[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = entry.getValue();
+            hashes[i] = hash;
+        }
+    }
+
+    /**
+     * Returns an immutable map with the same mappings as given {@code map}. If the {@code map}
+     * is already a {@code DotNameMap}, it is returned as is.
+     */
+    static <V> Map<DotName, V> of(Map<DotName, V> map) {
+        if (map instanceof DotNameMap) {
+            return map;
+        }
+        if (map.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return new DotNameMap<>(map);
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private int indexOf(Object key) {
+        if (key == null) {
+            return hasNullKey ? mask + 1 : -1;
+        }
+        if (!(key instanceof DotName)) {
+            return -1;
+        }
+        int hash = key.hashCode();
+        int i = spread(hash) & mask;
+        DotName candidate;
+        while ((candidate = keys[i]) != null) {
+            if (candidate == key || (hashes[i] == hash && candidate.equals(key))) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int i = indexOf(key);
+        return i >= 0 ? (V) values[i] : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super DotName, ? super V> action) {
+        for (int i = 0; i <= mask; i++) {
+            if (keys[i] != null) {
+                action.accept(keys[i], (V) values[i]);
+            }
+        }
+        if (hasNullKey) {
+            action.accept(null, (V) values[mask + 1]);
+        }
+    }
+
+    @Override
+    public Set<DotName> keySet() {
+        return new AbstractSet<DotName>() {
+            @Override
+            public Iterator<DotName> iterator() {
+                return new SlotIterator<DotName>() {
+                    @Override
+                    DotName at(int slot) {
+                        return keys[slot];
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return containsKey(o);
+            }
+        };
+    }
+
+    @Override
+    public Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new SlotIterator<V>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    V at(int slot) {
+                        return (V) values[slot];
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<DotName, V>> entrySet() {
+        return new AbstractSet<Entry<DotName, V>>() {
+            @Override
+            public Iterator<Entry<DotName, V>> iterator() {
+                return new SlotIterator<Entry<DotName, V>>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    Entry<DotName, V> at(int slot) {
+                        return new SimpleImmutableEntry<>(keys[slot], (V) values[slot]);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private abstract class SlotIterator<T> implements Iterator<T> {
+        private int next = advance(0);
+
+        abstract T at(int slot);
+
+        private int advance(int from) {
+            while (from <= mask && keys[from] == null) {
+                from++;
+            }
+            // the slot after the hash table is only occupied if the `null` key is present
+            return from > mask && !hasNullKey ? keys.length : from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < keys.length;
+        }
+
+        @Override
+        public T next() {
+            if (next >= keys.length) {
+                throw new NoSuchElementException();
+            }
+            int current = next;
+            next = advance(current + 1);
+            return at(current);
+        }
+    }
+}
@@ -65,6 +65,11 @@ final class FieldInternal {
         this.annotations = annotations;
     }
 
+    // shallow copy, see `Indexer.unshareMembers()`
+    FieldInternal(FieldInternal other) {
+        this(other.name, other.type, other.flags, other.annotations);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -0,0 +1,75 @@
+package org.jboss.jandex;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable set backed by an array of distinct elements. Small sets are searched linearly,
+ * larger sets build a hash-based lookup structure on first call to {@link #contains(Object)}.
+ *
+ * @param <T> the type of elements
+ */
+final class ImmutableArraySet<T> extends AbstractSet<T> {
+    private static final int LINEAR_SEARCH_THRESHOLD = 16;
+
+    private final T[] array;
+
+    // populated lazily
+    private volatile Set<Object> lookup;
+
+    ImmutableArraySet(T[] array) {
+        this.array = array;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < array.length;
+            }
+
+            @Override
+            public T next() {
+                if (next >= array.length) {
+                    throw new NoSuchElementException();
+                }
+                return array[next++];
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return array.length;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (array.length <= LINEAR_SEARCH_THRESHOLD) {
+            for (T element : array) {
+                if (element.equals(o)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        Set<Object> lookup = this.lookup;
+        if (lookup == null) {
+            this.lookup = lookup = new HashSet<>(Arrays.asList(array));
+        }
+        return lookup.contains(o);
+    }
+
+    @Override
+    public Object[] toArray() {
+        return Arrays.copyOf(array, array.length, Object[].class);
+    }
+}
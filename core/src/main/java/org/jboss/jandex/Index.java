@@ -27,6 +27,7 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Modifier;
+import java.nio.file.Path;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -35,11 +36,16 @@ import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
@@ -59,6 +65,10 @@ import java.util.jar.JarFile;
  * <li>All implementors for each interface known to this index</li>
  * <li>All users of each class known to this index</li>
  * </ol>
+ * <p>
+ * Transitive closures of the class hierarchy, as returned by {@link #getAllKnownSubclasses(DotName)},
+ * {@link #getAllKnownSubinterfaces(DotName)} and {@link #getAllKnownImplementors(DotName)}, are computed
+ * on first request and cached, so repeated queries for the same name return the same immutable set.
  *
  * @author Jason T. Greene
  *
@@ -67,6 +77,7 @@ public final class Index implements IndexView {
     private static final List<AnnotationInstance> EMPTY_ANNOTATION_LIST = Collections.emptyList();
     private static final List<ClassInfo> EMPTY_CLASSINFO_LIST = Collections.emptyList();
 
+    // all maps below are `DotNameMap`s (or empty maps), see the constructor
     final Map<DotName, AnnotationInstance[]> annotations;
     final Map<DotName, ClassInfo[]> subclasses;
     final Map<DotName, ClassInfo[]> subinterfaces;
@@ -78,17 +89,24 @@ public final class Index implements IndexView {
     // populated lazily
     volatile Map<DotName, Collection<ClassInfo>> classesInPackage;
     volatile Map<DotName, Set<DotName>> subpackages;
+    volatile AnnotationPresence annotationPresence;
+
+    // transitive closures of the class hierarchy, populated lazily on first query for given name;
+    // empty results are not cached, so that queries for unknown names don't grow the caches
+    private volatile ConcurrentMap<DotName, Set<ClassInfo>> allSubclasses;
+    private volatile ConcurrentMap<DotName, Set<ClassInfo>> allSubinterfaces;
+    private volatile ConcurrentMap<DotName, Set<ClassInfo>> allImplementors;
 
     Index(Map<DotName, AnnotationInstance[]> annotations, Map<DotName, ClassInfo[]> subclasses,
             Map<DotName, ClassInfo[]> subinterfaces, Map<DotName, ClassInfo[]> implementors,
             Map<DotName, ClassInfo> classes, Map<DotName, ModuleInfo> modules, Map<DotName, ClassInfo[]> users) {
-        this.annotations = annotations;
-        this.classes = classes;
-        this.subclasses = subclasses;
-        this.subinterfaces = subinterfaces;
-        this.implementors = implementors;
-        this.modules = modules;
-        this.users = users;
+        this.annotations = DotNameMap.of(annotations);
+        this.classes = DotNameMap.of(classes);
+        this.subclasses = DotNameMap.of(subclasses);
+        this.subinterfaces = DotNameMap.of(subinterfaces);
+        this.implementors = DotNameMap.of(implementors);
+        this.modules = DotNameMap.of(modules);
+        this.users = DotNameMap.of(users);
     }
 
     /**
@@ -191,6 +209,128 @@ public final class Index implements IndexView {
                 unfold(users, ClassInfo.class));
     }
 
+    /**
+     * Creates an updated version of given {@code previous} index. All classes whose names are present
+     * in {@code removed} are removed from the {@code previous} index and all classes from {@code changes}
+     * are added. Classes in {@code retained} are reused as is. Arrays of map values that are not affected
+     * by the update are shared with the {@code previous} index.
+     *
+     * @param previous the index to update
+     * @param changes the index of added or modified classes
+     * @param retained classes of the {@code previous} index that are neither removed nor modified
+     * @param removed names of removed or modified classes
+     * @return the updated index
+     * @see Indexer#completeUpdate(Index, Collection)
+     */
+    static Index update(Index previous, Index changes, Map<DotName, ClassInfo> retained, Set<DotName> removed) {
+        // classes of the previous index that are removed or replaced
+        Set<ClassInfo> stale = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (ClassInfo clazz : previous.classes.values()) {
+            if (retained.get(clazz.name()) != clazz) {
+                stale.add(clazz);
+            }
+        }
+
+        Map<DotName, ModuleInfo> modules = new HashMap<>(previous.modules);
+        for (ModuleInfo module : previous.modules.values()) {
+            if (!changes.modules.isEmpty() || removed.contains(module.moduleInfoClass().name())) {
+                modules.remove(module.name());
+                stale.add(module.moduleInfoClass());
+            }
+        }
+        modules.putAll(changes.modules);
+
+        Map<DotName, Set<AnnotationInstance>> staleAnnotations = new HashMap<>();
+        Map<DotName, Set<ClassInfo>> staleSubclasses = new HashMap<>();
+        Map<DotName, Set<ClassInfo>> staleSubinterfaces = new HashMap<>();
+        Map<DotName, Set<ClassInfo>> staleImplementors = new HashMap<>();
+        for (ClassInfo clazz : stale) {
+            for (Map.Entry<DotName, List<AnnotationInstance>> entry : clazz.annotationsMap().entrySet()) {
+                identitySet(staleAnnotations, entry.getKey()).addAll(entry.getValue());
+            }
+            if (clazz.superName() != null) {
+                identitySet(staleSubclasses, clazz.superName()).add(clazz);
+            }
+            for (DotName interfaceName : clazz.interfaceNames()) {
+                identitySet(staleImplementors, interfaceName).add(clazz);
+                if (Modifier.isInterface(clazz.flags())) {
+                    identitySet(staleSubinterfaces, interfaceName).add(clazz);
+                }
+            }
+        }
+
+        Map<DotName, Set<ClassInfo>> staleUsers = new HashMap<>();
+        if (!stale.isEmpty()) {
+            // unlike above, users of a class can't be found from the class itself
+            for (Map.Entry<DotName, ClassInfo[]> entry : previous.users.entrySet()) {
+                for (ClassInfo user : entry.getValue()) {
+                    if (stale.contains(user)) {
+                        identitySet(staleUsers, entry.getKey()).add(user);
+                    }
+                }
+            }
+        }
+
+        Map<DotName, ClassInfo> classes = new HashMap<>(retained);
+        classes.putAll(changes.classes);
+
+        return new Index(update(previous.annotations, staleAnnotations, changes.annotations),
+                update(previous.subclasses, staleSubclasses, changes.subclasses),
+                update(previous.subinterfaces, staleSubinterfaces, changes.subinterfaces),
+                update(previous.implementors, staleImplementors, changes.implementors),
+                classes,
+                modules,
+                update(previous.users, staleUsers, changes.users));
+    }
+
+    private static <T> Set<T> identitySet(Map<DotName, Set<T>> map, DotName key) {
+        Set<T> set = map.get(key);
+        if (set == null) {
+            set = Collections.newSetFromMap(new IdentityHashMap<>());
+            map.put(key, set);
+        }
+        return set;
+    }
+
+    private static <T> Map<DotName, T[]> update(Map<DotName, T[]> previous, Map<DotName, Set<T>> removals,
+            Map<DotName, T[]> additions) {
+        if (removals.isEmpty() && additions.isEmpty()) {
+            return previous;
+        }
+
+        Map<DotName, T[]> result = new HashMap<>(previous);
+        for (Map.Entry<DotName, Set<T>> entry : removals.entrySet()) {
+            T[] values = result.get(entry.getKey());
+            if (values == null) {
+                continue;
+            }
+            Set<T> removed = entry.getValue();
+            int count = 0;
+            T[] remaining = values.clone();
+            for (T value : values) {
+                if (!removed.contains(value)) {
+                    remaining[count++] = value;
+                }
+            }
+            if (count == 0) {
+                result.remove(entry.getKey());
+            } else {
+                result.put(entry.getKey(), Arrays.copyOf(remaining, count));
+            }
+        }
+        for (Map.Entry<DotName, T[]> entry : additions.entrySet()) {
+            T[] values = result.get(entry.getKey());
+            if (values == null) {
+                result.put(entry.getKey(), entry.getValue());
+            } else {
+                T[] merged = Arrays.copyOf(values, values.length + entry.getValue().length);
+                System.arraycopy(entry.getValue(), 0, merged, values.length, entry.getValue().length);
+                result.put(entry.getKey(), merged);
+            }
+        }
+        return result;
+    }
+
     /**
      * Constructs an Index of the passed classes.
      *
@@ -219,7 +359,8 @@ public final class Index implements IndexView {
 
     /**
      * Constructs an Index of the passed files and directories. Files may be class files or JAR files.
-     * Directories are scanned for class files, but <i>not</i> recursively.
+     * Directories are scanned for class files, but <i>not</i> recursively. The files are closed
+     * before this method returns, so they may be deleted or overwritten right afterwards.
      *
      * @param files class files, JAR files or directories containing class files to index
      * @return the index
@@ -249,6 +390,14 @@ public final class Index implements IndexView {
                     indexer.index(in);
                 }
             } else if (file.isFile() && file.getName().endsWith(".jar")) {
+                try (JarScanner jar = JarScanner.open(file)) {
+                    if (jar != null) {
+                        while (jar.nextClass()) {
+                            jar.index(indexer);
+                        }
+                        continue;
+                    }
+                }
                 try (JarFile jarFile = new JarFile(file)) {
                     Enumeration<JarEntry> entries = jarFile.entries();
                     while (entries.hasMoreElements()) {
@@ -268,6 +417,27 @@ public final class Index implements IndexView {
         return indexer.complete();
     }
 
+    /**
+     * Constructs an Index of all class files in given {@code directory} and its subdirectories. Class files
+     * are parsed on the threads of given {@code executor}; the resulting index is always the same for the same
+     * directory tree. See {@link ParallelIndexer#indexDirectory(Path)} for details.
+     *
+     * @param directory the directory containing class files to index, must not be {@code null}
+     * @param executor the executor to parse class files, must not be {@code null}
+     * @return the index
+     * @throws IOException if walking the directory tree fails or a class file can't be read or indexed
+     * @throws IllegalArgumentException if {@code directory} is {@code null} or not a directory
+     * @since 3.7
+     */
+    public static Index ofDirectory(Path directory, Executor executor) throws IOException {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor cannot be null");
+        }
+        ParallelIndexer indexer = new ParallelIndexer(executor);
+        indexer.indexDirectory(directory);
+        return indexer.complete();
+    }
+
     /**
      * Creates a temporary {@link Indexer}, indexes given {@code clazz}, and returns
      * the corresponding {@link ClassInfo}.
@@ -382,10 +552,19 @@ public final class Index implements IndexView {
 
     @Override
     public Collection<ClassInfo> getAllKnownSubclasses(DotName className) {
-        final Set<ClassInfo> allKnown = new HashSet<ClassInfo>();
+        ConcurrentMap<DotName, Set<ClassInfo>> cache = allSubclasses;
+        if (cache == null) {
+            allSubclasses = cache = new ConcurrentHashMap<>();
+        }
+        Set<ClassInfo> result = cached(cache, className);
+        if (result != null) {
+            return result;
+        }
+
+        final Set<ClassInfo> allKnown = new LinkedHashSet<ClassInfo>();
         final Set<DotName> processedClasses = new HashSet<DotName>();
         getAllKnownSubClasses(className, allKnown, processedClasses);
-        return allKnown;
+        return cache(cache, className, allKnown);
     }
 
     private void getAllKnownSubClasses(DotName className, Set<ClassInfo> allKnown, Set<DotName> processedClasses) {
@@ -428,7 +607,16 @@ public final class Index implements IndexView {
      */
     @Override
     public Collection<ClassInfo> getAllKnownSubinterfaces(DotName interfaceName) {
-        Set<ClassInfo> result = new HashSet<>();
+        ConcurrentMap<DotName, Set<ClassInfo>> cache = allSubinterfaces;
+        if (cache == null) {
+            allSubinterfaces = cache = new ConcurrentHashMap<>();
+        }
+        Set<ClassInfo> cached = cached(cache, interfaceName);
+        if (cached != null) {
+            return cached;
+        }
+
+        Set<ClassInfo> result = new LinkedHashSet<>();
 
         Queue<DotName> worklist = new ArrayDeque<>();
         Set<DotName> alreadyProcessed = new HashSet<>();
@@ -446,7 +634,7 @@ public final class Index implements IndexView {
             }
         }
 
-        return result;
+        return cache(cache, interfaceName, result);
     }
 
     @Override
@@ -494,7 +682,16 @@ public final class Index implements IndexView {
      */
     @Override
     public Set<ClassInfo> getAllKnownImplementors(final DotName interfaceName) {
-        final Set<ClassInfo> allKnown = new HashSet<ClassInfo>();
+        ConcurrentMap<DotName, Set<ClassInfo>> cache = allImplementors;
+        if (cache == null) {
+            allImplementors = cache = new ConcurrentHashMap<>();
+        }
+        Set<ClassInfo> result = cached(cache, interfaceName);
+        if (result != null) {
+            return result;
+        }
+
+        final Set<ClassInfo> allKnown = new LinkedHashSet<ClassInfo>();
         final Set<DotName> subInterfacesToProcess = new HashSet<DotName>();
         final Set<DotName> processedClasses = new HashSet<DotName>();
         subInterfacesToProcess.add(interfaceName);
@@ -505,7 +702,25 @@ public final class Index implements IndexView {
             processedClasses.add(name);
             getKnownImplementors(name, allKnown, subInterfacesToProcess, processedClasses);
         }
-        return allKnown;
+        return cache(cache, interfaceName, allKnown);
+    }
+
+    private static Set<ClassInfo> cached(ConcurrentMap<DotName, Set<ClassInfo>> cache, DotName name) {
+        return name != null ? cache.get(name) : null;
+    }
+
+    // racing threads may compute the same closure, but only one is retained
+    private static Set<ClassInfo> cache(ConcurrentMap<DotName, Set<ClassInfo>> cache, DotName name,
+            Set<ClassInfo> closure) {
+        if (closure.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<ClassInfo> result = new ImmutableArraySet<>(closure.toArray(new ClassInfo[0]));
+        if (name == null) {
+            return result;
+        }
+        Set<ClassInfo> existing = cache.putIfAbsent(name, result);
+        return existing != null ? existing : result;
     }
 
     private void getKnownImplementors(DotName name, Set<ClassInfo> allKnown, Set<DotName> subInterfacesToProcess,
@@ -620,6 +835,39 @@ public final class Index implements IndexView {
         return result != null ? Collections.unmodifiableSet(result) : Collections.emptySet();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<ClassInfo> getKnownClassesWithAnyAnnotation(Collection<DotName> annotationNames) {
+        if (annotationNames == null) {
+            throw new IllegalArgumentException("annotationNames cannot be null");
+        }
+        return annotationPresence().withAny(annotationNames);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<ClassInfo> getKnownClassesWithAllAnnotations(Collection<DotName> annotationNames) {
+        if (annotationNames == null) {
+            throw new IllegalArgumentException("annotationNames cannot be null");
+        }
+        return annotationPresence().withAll(annotationNames);
+    }
+
+    private AnnotationPresence annotationPresence() {
+        if (annotationPresence == null) {
+            synchronized (this) {
+                if (annotationPresence == null) {
+                    annotationPresence = new AnnotationPresence(classes.values());
+                }
+            }
+        }
+        return annotationPresence;
+    }
+
     // ---
 
     /**
@@ -21,6 +21,13 @@ package org.jboss.jandex;
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executor;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 /**
  * Reads a Jandex index file and returns the saved index. See {@link Indexer}
@@ -45,9 +52,15 @@ public final class IndexReader {
      * The latest index version supported by this version of Jandex.
      */
     private static final int MAGIC = 0xBABE1F15;
-    private PackedDataInputStream input;
+    // set in the version byte when the rest of the index is compressed, see IndexWriterV2.write()
+    private static final int COMPRESSED = 0x80;
+    private PackedDataInput input;
     private int version = -1;
+    private boolean compressed;
+    // only present when reading a compressed index
+    private Inflater inflater;
     private IndexReaderImpl reader;
+    private final SharedNameTable sharedNames;
 
     /**
      * Constructs a new IndedReader using the passed stream. The stream is not
@@ -57,6 +70,65 @@ public final class IndexReader {
      */
     public IndexReader(InputStream input) {
         this.input = new PackedDataInputStream(new BufferedInputStream(input));
+        this.sharedNames = null;
+    }
+
+    /**
+     * Constructs a new IndexReader using the passed stream. The stream is not
+     * read from until the read method is called. Names, strings and types read
+     * from the stream are deduplicated using given {@code sharedNames} table, so
+     * that the resulting index shares these objects with other indices read or
+     * created using the same table.
+     *
+     * @param input a stream which points to a jandex index file
+     * @param sharedNames the shared name table, must not be {@code null}
+     * @since 3.7
+     */
+    public IndexReader(InputStream input, SharedNameTable sharedNames) {
+        if (sharedNames == null) {
+            throw new IllegalArgumentException("sharedNames cannot be null");
+        }
+        this.input = new PackedDataInputStream(new BufferedInputStream(input));
+        this.sharedNames = sharedNames;
+    }
+
+    private IndexReader(PackedDataInput input) {
+        this.input = input;
+        this.sharedNames = null;
+    }
+
+    /**
+     * Returns a reader that decodes the index data in given {@code buffer}, starting at its current
+     * position. The buffer may be a heap buffer, a direct buffer or a memory-mapped file. Compared to
+     * reading from a stream, the data are decoded directly from the buffer, which is considerably faster
+     * for large indices. The buffer's position is not changed and its content must not be modified
+     * until the index is read.
+     *
+     * @param buffer a buffer which contains jandex index data, must not be {@code null}
+     * @return a reader of the index data in the buffer, never {@code null}
+     * @since 3.7
+     */
+    public static IndexReader fromBuffer(ByteBuffer buffer) {
+        if (buffer == null) {
+            throw new IllegalArgumentException("buffer cannot be null");
+        }
+        return new IndexReader(new ByteBufferDataInput(buffer, buffer.position()));
+    }
+
+    /**
+     * Returns a reader that decodes the index data in given {@code data} array. Compared to reading
+     * from a stream, the data are decoded directly from the array, which is considerably faster
+     * for large indices. The array must not be modified until the index is read.
+     *
+     * @param data an array which contains jandex index data, must not be {@code null}
+     * @return a reader of the index data in the array, never {@code null}
+     * @since 3.7
+     */
+    public static IndexReader fromBytes(byte[] data) {
+        if (data == null) {
+            throw new IllegalArgumentException("data cannot be null");
+        }
+        return fromBuffer(ByteBuffer.wrap(data));
     }
 
     /**
@@ -73,15 +145,145 @@ public final class IndexReader {
             readVersion();
         }
 
+        try {
+            return reader.read();
+        } finally {
+            endInflater();
+        }
+    }
+
+    /**
+     * Read the index at the associated stream of this reader, decoding independent parts of the index
+     * on given {@code executor}, such as a {@link java.util.concurrent.ForkJoinPool ForkJoinPool}.
+     * The shared tables of names, strings and types are decoded sequentially, after which the methods,
+     * fields and record components are decoded in parallel, followed by the classes. The resulting
+     * index is the same as the one returned by {@link #read()}. This method can be called multiple times
+     * if the data contains multiple index files.
+     * <p>
+     * Decoding in parallel requires the index data to be present in memory, so it is only done by readers
+     * created using {@link #fromBuffer(ByteBuffer)} or {@link #fromBytes(byte[])}, and only for uncompressed
+     * indices in the format version 14 or later, which store offsets of all entries. Note that this version is
+     * not written by default, see {@link IndexWriter#write(Index, int)}. Otherwise, the index is read
+     * sequentially on the calling thread, exactly like {@link #read()} does.
+     *
+     * @param executor the executor to run decoding tasks, must not be {@code null}
+     * @return the Index contained in the data
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if the data do not point to Jandex index data
+     * @throws UnsupportedVersion if the index data is tagged with a version not known to this reader
+     * @since 3.7
+     */
+    public Index read(Executor executor) throws IOException {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor cannot be null");
+        }
+        if (version == -1) {
+            readVersion();
+        }
+
+        try {
+            return reader.read(executor);
+        } finally {
+            endInflater();
+        }
+    }
+
+    /**
+     * Read the index at the associated stream of this reader and pass its classes, their members
+     * and annotations, and its modules to given {@code visitor} as they are decoded, instead of
+     * building an {@link Index}. This is useful when the index only needs to be processed once,
+     * for example to collect all instances of a few annotations, because the reader doesn't keep
+     * the classes after they are visited. Classes for which {@link IndexVisitor#visitClass(ClassInfo)}
+     * returns {@code false} are skipped without decoding their members and annotations, where the index
+     * format allows that.
+     * <p>
+     * The tables of names, strings and types shared by all classes are still decoded before the first class
+     * is visited. For indices in the format version 14 or later read from a buffer (see {@link #fromBuffer(ByteBuffer)}),
+     * the methods, fields and record components are decoded when their class is visited; otherwise, they are
+     * decoded before the first class is visited, because they precede the classes in the index data. Indices
+     * in the format versions 2 and 3 are read completely before they are visited.
+     *
+     * @param visitor the visitor to pass the contents of the index to, must not be {@code null}
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if the stream does not point to Jandex index data
+     * @throws UnsupportedVersion if the index data is tagged with a version not known to this reader
+     * @since 3.7
+     */
+    public void accept(IndexVisitor visitor) throws IOException {
+        if (visitor == null) {
+            throw new IllegalArgumentException("visitor cannot be null");
+        }
+        if (version == -1) {
+            readVersion();
+        }
+
+        try {
+            reader.accept(visitor);
+        } finally {
+            endInflater();
+        }
+    }
+
+    /**
+     * Maps the index file at given {@code path} into memory and returns an index view that reads
+     * classes, including their methods, fields and annotations, only when they are first accessed.
+     * This is typically much faster and uses much less memory than {@link #read()} when only a small
+     * part of the index is used. The file must not be modified as long as the index view is in use.
+     * <p>
+     * If the file contains multiple indices, only the first one is read. Indices in the format
+     * versions 2 and 3 and compressed indices are read eagerly.
+     *
+     * @param path path to a jandex index file, must not be {@code null}
+     * @return an index view backed by the memory-mapped index file, never {@code null}
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if the file does not contain Jandex index data
+     * @throws UnsupportedVersion if the index data is tagged with a version not known to this reader
+     * @since 3.7
+     */
+    public static IndexView readLazily(Path path) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("path cannot be null");
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return readLazily(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Returns an index view backed by the index data in given {@code buffer}, starting at its
+     * current position. Classes, including their methods, fields and annotations, are only read
+     * from the buffer when they are first accessed. The buffer's position is not changed and
+     * its content must not be modified as long as the index view is in use.
+     * <p>
+     * Indices in the format versions 2 and 3 and compressed indices are read eagerly.
+     *
+     * @param buffer a buffer which contains jandex index data, must not be {@code null}
+     * @return an index view backed by the buffer, never {@code null}
+     * @throws IOException if the index data is incomplete
+     * @throws IllegalArgumentException if the buffer does not contain Jandex index data
+     * @throws UnsupportedVersion if the index data is tagged with a version not known to this reader
+     * @since 3.7
+     */
+    public static IndexView readLazily(ByteBuffer buffer) throws IOException {
+        if (buffer == null) {
+            throw new IllegalArgumentException("buffer cannot be null");
+        }
+        IndexReader reader = fromBuffer(buffer);
+        int version = reader.getIndexVersion();
+        if (!reader.compressed && version >= IndexReaderV2.MIN_VERSION && version <= IndexReaderV2.MAX_VERSION) {
+            // magic and version
+            int position = buffer.position() + 5;
+            return new IndexReaderV2(buffer, position, version).readLazily();
+        }
         return reader.read();
     }
 
     private void initReader(int version) throws IOException {
         IndexReaderImpl reader;
         if (version >= IndexReaderV1.MIN_VERSION && version <= IndexReaderV1.MAX_VERSION) {
-            reader = new IndexReaderV1(input, version);
+            reader = new IndexReaderV1(input, version, sharedNames);
         } else if (version >= IndexReaderV2.MIN_VERSION && version <= IndexReaderV2.MAX_VERSION) {
-            reader = new IndexReaderV2(input, version);
+            reader = new IndexReaderV2(input, version, sharedNames);
         } else {
             input.close();
             throw new UnsupportedVersion("Can't read index version " + version
@@ -109,13 +311,46 @@ public final class IndexReader {
         return version;
     }
 
+    /**
+     * Returns whether the index data are compressed. Compressed index data are decompressed while
+     * they are being read, so they can't be read lazily or in parallel.
+     *
+     * @return whether the index data are compressed
+     * @throws IOException If the index could not be read
+     * @since 3.7
+     * @see IndexWriter#IndexWriter(java.io.OutputStream, boolean)
+     */
+    public boolean isCompressed() throws IOException {
+        if (version == -1) {
+            readVersion();
+        }
+
+        return compressed;
+    }
+
     private void readVersion() throws IOException {
         if (input.readInt() != MAGIC) {
             input.close();
             throw new IllegalArgumentException("Not a jandex index");
         }
 
-        version = input.readUnsignedByte();
+        int versionByte = input.readUnsignedByte();
+        if ((versionByte & COMPRESSED) != 0) {
+            // the rest of the index is a single deflate stream, which is decompressed while reading
+            compressed = true;
+            inflater = new Inflater();
+            input = new PackedDataInputStream(new BufferedInputStream(
+                    new InflaterInputStream(input.remaining(), inflater, 8192)));
+        }
+        version = versionByte & ~COMPRESSED;
         initReader(version);
     }
+
+    private void endInflater() {
+        // releases native resources of the inflater early, a compressed index contains a single index
+        if (inflater != null) {
+            inflater.end();
+            inflater = null;
+        }
+    }
 }
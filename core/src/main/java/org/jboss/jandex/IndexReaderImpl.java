@@ -18,6 +18,8 @@
 package org.jboss.jandex;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * A common base class for index reader implementations.
@@ -26,4 +28,42 @@ import java.io.IOException;
  */
 abstract class IndexReaderImpl {
     abstract Index read() throws IOException;
+
+    Index read(Executor executor) throws IOException {
+        return read();
+    }
+
+    /**
+     * Passes the contents of the index to given {@code visitor}. Implementations that can't decode
+     * classes one by one read the whole index first.
+     */
+    void accept(IndexVisitor visitor) throws IOException {
+        Index index = read();
+        for (ClassInfo clazz : index.getKnownClasses()) {
+            if (visitor.visitClass(clazz)) {
+                visitClassContents(visitor, clazz);
+            }
+        }
+        for (ModuleInfo module : index.getKnownModules()) {
+            visitor.visitModule(module);
+        }
+    }
+
+    static void visitClassContents(IndexVisitor visitor, ClassInfo clazz) {
+        for (FieldInfo field : clazz.fieldsInDeclarationOrder()) {
+            visitor.visitField(field);
+        }
+        for (RecordComponentInfo recordComponent : clazz.recordComponentsInDeclarationOrder()) {
+            visitor.visitRecordComponent(recordComponent);
+        }
+        for (MethodInfo method : clazz.methodsInDeclarationOrder()) {
+            visitor.visitMethod(method);
+        }
+        for (List<AnnotationInstance> instances : clazz.annotationsMap().values()) {
+            for (AnnotationInstance instance : instances) {
+                visitor.visitAnnotation(instance);
+            }
+        }
+        visitor.visitClassEnd(clazz);
+    }
 }
@@ -64,11 +64,13 @@ final class IndexReaderV1 extends IndexReaderImpl {
     private static final int AVALUE_ARRAY = 12;
     private static final int AVALUE_NESTED = 13;
 
-    private final PackedDataInputStream input;
+    private final PackedDataInput input;
     private final int version;
     private DotName[] classTable;
     private String[] stringTable;
     private HashMap<DotName, List<AnnotationInstance>> masterAnnotations;
+    // optional, names and strings read from the index are interned here when present
+    private final SharedNameTable sharedNames;
 
     /**
      * Constructs a new IndedReader using the passed stream. The stream is not
@@ -76,9 +78,10 @@ final class IndexReaderV1 extends IndexReaderImpl {
      *
      * @param input a stream which points to a jandex index file
      */
-    IndexReaderV1(PackedDataInputStream input, int version) {
+    IndexReaderV1(PackedDataInput input, int version, SharedNameTable sharedNames) {
         this.input = input;
         this.version = version;
+        this.sharedNames = sharedNames;
     }
 
     /**
@@ -92,7 +95,7 @@ final class IndexReaderV1 extends IndexReaderImpl {
      */
     Index read() throws IOException {
         try {
-            PackedDataInputStream stream = this.input;
+            PackedDataInput stream = this.input;
             masterAnnotations = new HashMap<DotName, List<AnnotationInstance>>();
             readClassTable(stream);
             readStringTable(stream);
@@ -104,7 +107,7 @@ final class IndexReaderV1 extends IndexReaderImpl {
         }
     }
 
-    private Index readClasses(PackedDataInputStream stream) throws IOException {
+    private Index readClasses(PackedDataInput stream) throws IOException {
         int entries = stream.readPackedU32();
         HashMap<DotName, List<ClassInfo>> subclasses = new HashMap<DotName, List<ClassInfo>>();
         HashMap<DotName, List<ClassInfo>> implementors = new HashMap<DotName, List<ClassInfo>>();
@@ -131,7 +134,10 @@ final class IndexReaderV1 extends IndexReaderImpl {
             Type superClassType = superName == null ? null : ClassType.create(superName);
             ClassInfo clazz = new ClassInfo(name, superClassType, flags, interfaceTypes, hasNoArgsConstructor);
             classes.put(name, clazz);
-            addClassToMap(subclasses, superName, clazz);
+            // like the Indexer, classes without a superclass are not recorded as subclasses of anything
+            if (superName != null) {
+                addClassToMap(subclasses, superName, clazz);
+            }
             for (Type interfaceName : interfaces) {
                 addClassToMap(implementors, interfaceName.name(), clazz);
             }
@@ -142,7 +148,7 @@ final class IndexReaderV1 extends IndexReaderImpl {
         return Index.create(masterAnnotations, subclasses, implementors, classes, users);
     }
 
-    private void readAnnotations(PackedDataInputStream stream, Map<DotName, List<AnnotationInstance>> annotations,
+    private void readAnnotations(PackedDataInput stream, Map<DotName, List<AnnotationInstance>> annotations,
             ClassInfo clazz) throws IOException {
         int numAnnotations = stream.readPackedU32();
         for (int j = 0; j < numAnnotations; j++) {
@@ -188,7 +194,7 @@ final class IndexReaderV1 extends IndexReaderImpl {
         }
     }
 
-    private AnnotationValue[] readAnnotationValues(PackedDataInputStream stream) throws IOException {
+    private AnnotationValue[] readAnnotationValues(PackedDataInput stream) throws IOException {
         int numValues = stream.readPackedU32();
         AnnotationValue[] values = new AnnotationValue[numValues];
 
@@ -252,7 +258,7 @@ final class IndexReaderV1 extends IndexReaderImpl {
         return values;
     }
 
-    private MethodInfo readMethod(ClassInfo clazz, PackedDataInputStream stream) throws IOException {
+    private MethodInfo readMethod(ClassInfo clazz, PackedDataInput stream) throws IOException {
         String name = stringTable[stream.readPackedU32()];
         int numArgs = stream.readPackedU32();
         List<Type> args = new ArrayList<Type>(numArgs);
@@ -289,22 +295,22 @@ final class IndexReaderV1 extends IndexReaderImpl {
         list.add(currentClass);
     }
 
-    private Type readType(PackedDataInputStream stream) throws IOException {
+    private Type readType(PackedDataInput stream) throws IOException {
         Type.Kind kind = Type.Kind.fromOrdinal(stream.readByte());
         DotName name = classTable[stream.readPackedU32()];
         return Type.create(name, kind);
     }
 
-    private void readStringTable(PackedDataInputStream stream) throws IOException {
+    private void readStringTable(PackedDataInput stream) throws IOException {
         int entries = stream.readPackedU32();
         stringTable = new String[entries];
 
         for (int i = 0; i < entries; i++) {
-            stringTable[i] = stream.readUTF();
+            stringTable[i] = sharedNames != null ? sharedNames.intern(stream.readUTF()) : stream.readUTF();
         }
     }
 
-    private void readClassTable(PackedDataInputStream stream) throws IOException {
+    private void readClassTable(PackedDataInput stream) throws IOException {
         int entries = stream.readPackedU32();
         int lastDepth = -1;
         DotName curr = null;
@@ -320,7 +326,8 @@ final class IndexReaderV1 extends IndexReaderImpl {
                     curr = curr.prefix();
             }
 
-            classTable[i] = curr = new DotName(curr, local, true, false);
+            curr = new DotName(curr, local, true, false);
+            classTable[i] = curr = sharedNames != null ? sharedNames.intern(curr) : curr;
             lastDepth = depth;
         }
     }
@@ -19,7 +19,9 @@
 package org.jboss.jandex;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -30,6 +32,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 /**
  * Reads a Jandex index file and returns the saved index. See {@link Indexer}
@@ -50,7 +55,7 @@ import java.util.Set;
  */
 final class IndexReaderV2 extends IndexReaderImpl {
     static final int MIN_VERSION = 6;
-    static final int MAX_VERSION = 13;
+    static final int MAX_VERSION = 14;
     private static final byte NULL_TARGET_TAG = 0;
     private static final byte FIELD_TAG = 1;
     private static final byte METHOD_TAG = 2;
@@ -77,9 +82,16 @@ final class IndexReaderV2 extends IndexReaderImpl {
     private static final int AVALUE_ARRAY = 12;
     private static final int AVALUE_NESTED = 13;
     private static final int HAS_ENCLOSING_METHOD = 1;
+    // number of entries decoded by a single task when reading in parallel
+    private static final int CHUNK_SIZE = 256;
 
-    private final PackedDataInputStream input;
+    private final PackedDataInput input;
     private final int version;
+    // only present when reading from a buffer, see readLazily() and read(Executor)
+    private final ByteBuffer data;
+    private final ByteBufferDataInput dataInput;
+    // optional, names, strings and types read from the index are interned here when present
+    private final SharedNameTable sharedNames;
     private byte[][] byteTable;
     private String[] stringTable;
     private DotName[] nameTable;
@@ -90,15 +102,40 @@ final class IndexReaderV2 extends IndexReaderImpl {
     private FieldInternal[] fieldTable;
     private RecordComponentInternal[] recordComponentTable;
     private HashMap<DotName, Set<DotName>> users;
+    // offsets of not-yet-read entries, only present when reading lazily
+    private int[] methodOffsets;
+    private int[] fieldOffsets;
+    private int[] recordComponentOffsets;
+    private DotName[] skippedAnnotationNames;
 
-    IndexReaderV2(PackedDataInputStream input, int version) {
+    IndexReaderV2(PackedDataInput input, int version, SharedNameTable sharedNames) {
         this.input = input;
         this.version = version;
+        if (input instanceof ByteBufferDataInput) {
+            this.dataInput = (ByteBufferDataInput) input;
+            this.data = dataInput.source();
+        } else {
+            this.dataInput = null;
+            this.data = null;
+        }
+        this.sharedNames = sharedNames;
+    }
+
+    IndexReaderV2(ByteBuffer data, int position, int version) {
+        this.dataInput = new ByteBufferDataInput(data, position);
+        this.input = dataInput;
+        this.version = version;
+        this.data = data;
+        this.sharedNames = null;
     }
 
     Index read() throws IOException {
         try {
-            PackedDataInputStream stream = this.input;
+            PackedDataInput stream = this.input;
+            if (version >= 14) {
+                // the directory is only needed when reading lazily
+                skipBytes(stream, stream.readPackedU32());
+            }
             int annotationsSize = stream.readPackedU32();
             int implementorsSize = stream.readPackedU32();
             int subinterfacesSize = 0;
@@ -112,43 +149,778 @@ final class IndexReaderV2 extends IndexReaderImpl {
                 users = new HashMap<DotName, Set<DotName>>(usersSize);
             }
 
-            readByteTable(stream);
-            readStringTable(stream);
-            readNameTable(stream);
+            readSharedTables(stream, usersSize);
+            readMethodTable(stream);
+            readFieldTable(stream);
+            if (version >= 10) {
+                readRecordComponentTable(stream);
+            }
+            return readClasses(stream, annotationsSize, implementorsSize, subinterfacesSize, subclassesSize);
+        } finally {
+            releaseTables();
+        }
+    }
+
+    /**
+     * Reads the index like {@link #read()}, but decodes the method, field and record component tables
+     * and the classes in chunks on given {@code executor}. The shared tables depend on each other,
+     * so they are still read sequentially, before everything else. Afterwards, the method, field
+     * and record component entries only refer to the shared tables and are decoded concurrently
+     * at the offsets stored in the directory. Finally, the class entries, which refer to the method,
+     * field and record component entries, are decoded concurrently and merged in the order in which
+     * they are stored, so the resulting index is the same as the one produced by {@link #read()}.
+     * <p>
+     * This relies on the same property of the format as {@link #readLazily()}: the entry of each
+     * annotation is written inline in the entry that first refers to it, which is the only entry
+     * that refers to it, apart from class entries.
+     * <p>
+     * Requires version 14 or later and the index data in a buffer; otherwise, the index is read
+     * sequentially.
+     */
+    @Override
+    Index read(Executor executor) throws IOException {
+        if (data == null || version < 14) {
+            return read();
+        }
+
+        try {
+            PackedDataInput stream = this.input;
+            int directoryLength = stream.readPackedU32();
+            int directoryOffset = dataInput.position();
+            skipBytes(stream, directoryLength);
+            int bodyOffset = dataInput.position();
+
+            int annotationsSize = stream.readPackedU32();
+            int implementorsSize = stream.readPackedU32();
+            int subinterfacesSize = stream.readPackedU32();
+            int subclassesSize = stream.readPackedU32();
+            int usersSize = stream.readPackedU32();
+            users = new HashMap<DotName, Set<DotName>>(usersSize);
+
+            readSharedTables(stream, usersSize);
+
+            // see IndexWriterV2.writeDirectory
+            PackedDataInput directory = streamAt(directoryOffset);
+            int[] methodOffsets = readOffsets(directory, bodyOffset);
+            int[] fieldOffsets = readOffsets(directory, bodyOffset);
+            int[] recordComponentOffsets = readOffsets(directory, bodyOffset);
+            int modulesOffset = bodyOffset + directory.readPackedU32();
+            int[] classOffsets = new int[directory.readPackedU32()];
+            for (int i = 0; i < classOffsets.length; i++) {
+                // name, flags, supertype and interfaces
+                skipPackedU32(directory, 4);
+                classOffsets[i] = bodyOffset + directory.readPackedU32();
+            }
+            // the class directory is sorted by name, but the result must follow the order of the class entries
+            Arrays.sort(classOffsets);
+
+            // entries of each table are stored one after another, so a chunk of entries is read
+            // using a single stream that starts at the offset of its first entry
+
+            MethodInternal[] methodTable = this.methodTable = new MethodInternal[methodOffsets.length];
+            FieldInternal[] fieldTable = this.fieldTable = new FieldInternal[fieldOffsets.length];
+            RecordComponentInternal[] recordComponentTable = this.recordComponentTable = new RecordComponentInternal[
+                    recordComponentOffsets.length];
+            List<FutureTask<Void>> tasks = new ArrayList<>();
+            submitChunks(executor, tasks, 1, methodOffsets.length, (start, end) -> {
+                PackedDataInput chunkStream = streamAt(methodOffsets[start]);
+                for (int i = start; i < end; i++) {
+                    methodTable[i] = readMethodEntry(chunkStream);
+                }
+            });
+            submitChunks(executor, tasks, 1, fieldOffsets.length, (start, end) -> {
+                PackedDataInput chunkStream = streamAt(fieldOffsets[start]);
+                for (int i = start; i < end; i++) {
+                    fieldTable[i] = readFieldEntry(chunkStream);
+                }
+            });
+            submitChunks(executor, tasks, 1, recordComponentOffsets.length, (start, end) -> {
+                PackedDataInput chunkStream = streamAt(recordComponentOffsets[start]);
+                for (int i = start; i < end; i++) {
+                    recordComponentTable[i] = readRecordComponentEntry(chunkStream);
+                }
+            });
+            awaitChunks(tasks);
+
+            ClassInfo[] classes = new ClassInfo[classOffsets.length];
+            // each chunk collects annotations of its classes separately, see below
+            List<Map<DotName, List<AnnotationInstance>>> chunkAnnotations = new ArrayList<>(
+                    Collections.<Map<DotName, List<AnnotationInstance>>> nCopies(
+                            (classes.length + CHUNK_SIZE - 1) / CHUNK_SIZE, null));
+            tasks.clear();
+            submitChunks(executor, tasks, 0, classes.length, (start, end) -> {
+                Map<DotName, List<AnnotationInstance>> annotations = new HashMap<>();
+                PackedDataInput chunkStream = streamAt(classOffsets[start]);
+                for (int i = start; i < end; i++) {
+                    classes[i] = readClassEntry(chunkStream, annotations);
+                }
+                chunkAnnotations.set(start / CHUNK_SIZE, annotations);
+            });
+            awaitChunks(tasks);
+
+            // the annotation lists of each chunk are in the order of classes, so merging the chunks
+            // in order yields the same lists as reading sequentially
+            HashMap<DotName, List<AnnotationInstance>> masterAnnotations = new HashMap<DotName, List<AnnotationInstance>>(
+                    annotationsSize);
+            for (Map<DotName, List<AnnotationInstance>> annotations : chunkAnnotations) {
+                for (Entry<DotName, List<AnnotationInstance>> entry : annotations.entrySet()) {
+                    addToMaster(masterAnnotations, entry.getKey(), entry.getValue());
+                }
+            }
+
+            ByteBufferDataInput modulesStream = new ByteBufferDataInput(data, modulesOffset);
+            Map<DotName, ModuleInfo> modules = readModules(modulesStream, masterAnnotations);
+            // the modules are the last part of the index, so that another index may follow
+            skipBytes(stream, modulesStream.position() - dataInput.position());
 
-            typeTable = new Type[stream.readPackedU32() + 1];
-            typeListTable = new Type[stream.readPackedU32() + 1][];
-            annotationTable = new AnnotationInstance[stream.readPackedU32() + 1];
+            return createIndex(classes, masterAnnotations, implementorsSize, subinterfacesSize, subclassesSize,
+                    modules);
+        } finally {
+            releaseTables();
+        }
+    }
+
+    /**
+     * Passes the classes, their members and annotations, and the modules to given {@code visitor} as they
+     * are decoded, without building an {@link Index}. The shared tables are read first, like in {@link #read()}.
+     * <p>
+     * When the index data are in a buffer and the version is 14 or later, the method, field and record component
+     * entries are only read on demand, like in {@link #readLazily()}, and the class entries are read at the offsets
+     * stored in the directory, so the entries of skipped classes are not decoded at all. Otherwise, the method,
+     * field and record component tables are read eagerly, and the rest of the entry of a skipped class is skipped
+     * like in {@link #skipClasses(PackedDataInput)}.
+     */
+    @Override
+    void accept(IndexVisitor visitor) throws IOException {
+        try {
+            PackedDataInput stream = this.input;
+            int directoryOffset = -1;
+            if (version >= 14) {
+                int directoryLength = stream.readPackedU32();
+                if (data != null) {
+                    directoryOffset = dataInput.position();
+                }
+                skipBytes(stream, directoryLength);
+            }
+            int bodyOffset = data != null ? dataInput.position() : -1;
 
-            readTypeTable(stream);
-            readTypeListTable(stream);
+            // sizes of annotations, implementors, subinterfaces and subclasses maps are not needed
+            skipPackedU32(stream, version >= 11 ? 4 : 3);
+            int usersSize = 0;
             if (version >= 10) {
-                readUsers(stream, usersSize);
+                usersSize = stream.readPackedU32();
+            }
+            readSharedTables(stream, usersSize);
+
+            if (directoryOffset >= 0) {
+                // see IndexWriterV2.writeDirectory
+                PackedDataInput directory = streamAt(directoryOffset);
+                methodOffsets = readOffsets(directory, bodyOffset);
+                methodTable = new MethodInternal[methodOffsets.length];
+                fieldOffsets = readOffsets(directory, bodyOffset);
+                fieldTable = new FieldInternal[fieldOffsets.length];
+                recordComponentOffsets = readOffsets(directory, bodyOffset);
+                recordComponentTable = new RecordComponentInternal[recordComponentOffsets.length];
+                int modulesOffset = bodyOffset + directory.readPackedU32();
+                int[] classOffsets = new int[directory.readPackedU32()];
+                for (int i = 0; i < classOffsets.length; i++) {
+                    // name, flags, supertype and interfaces
+                    skipPackedU32(directory, 4);
+                    classOffsets[i] = bodyOffset + directory.readPackedU32();
+                }
+                // the class directory is sorted by name, but classes are visited in the order of the class entries
+                Arrays.sort(classOffsets);
+
+                for (int classOffset : classOffsets) {
+                    PackedDataInput classStream = streamAt(classOffset);
+                    ClassInfo clazz = readClassHeader(classStream);
+                    if (visitor.visitClass(clazz)) {
+                        readClassBody(classStream, clazz, null);
+                        visitClassContents(visitor, clazz);
+                    }
+                }
+
+                ByteBufferDataInput modulesStream = new ByteBufferDataInput(data, modulesOffset);
+                visitModules(visitor, readModules(modulesStream, null));
+                // the modules are the last part of the index, so that another index may follow
+                skipBytes(stream, modulesStream.position() - dataInput.position());
+                return;
             }
+
             readMethodTable(stream);
             readFieldTable(stream);
             if (version >= 10) {
                 readRecordComponentTable(stream);
             }
-            return readClasses(stream, annotationsSize, implementorsSize, subinterfacesSize, subclassesSize);
+            skippedAnnotationNames = new DotName[annotationTable.length];
+            int classesSize = stream.readPackedU32();
+            for (int i = 0; i < classesSize; i++) {
+                ClassInfo clazz = readClassHeader(stream);
+                if (visitor.visitClass(clazz)) {
+                    readClassBody(stream, clazz, null);
+                    visitClassContents(visitor, clazz);
+                } else {
+                    skipClassBody(stream, null, i);
+                }
+            }
+            if (version >= 10) {
+                visitModules(visitor, readModules(stream, null));
+            }
+        } finally {
+            releaseTables();
+            methodOffsets = null;
+            fieldOffsets = null;
+            recordComponentOffsets = null;
+            skippedAnnotationNames = null;
+        }
+    }
+
+    private static void visitModules(IndexVisitor visitor, Map<DotName, ModuleInfo> modules) {
+        for (ModuleInfo module : modules.values()) {
+            visitor.visitModule(module);
+        }
+    }
+
+    private void releaseTables() {
+        byteTable = null;
+        stringTable = null;
+        nameTable = null;
+        typeTable = null;
+        typeListTable = null;
+        annotationTable = null;
+        methodTable = null;
+        fieldTable = null;
+        recordComponentTable = null;
+        users = null;
+    }
+
+    private interface Chunk {
+        void read(int start, int end) throws IOException;
+    }
+
+    private static void submitChunks(Executor executor, List<FutureTask<Void>> tasks, int start, int end, Chunk chunk) {
+        for (int i = start; i < end; i += CHUNK_SIZE) {
+            int chunkStart = i;
+            int chunkEnd = Math.min(i + CHUNK_SIZE, end);
+            FutureTask<Void> task = new FutureTask<>(() -> {
+                chunk.read(chunkStart, chunkEnd);
+                return null;
+            });
+            tasks.add(task);
+            executor.execute(task);
+        }
+    }
+
+    private static void awaitChunks(List<FutureTask<Void>> tasks) throws IOException {
+        try {
+            for (FutureTask<Void> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            cancel(tasks);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the index to be read");
+        } catch (ExecutionException e) {
+            cancel(tasks);
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static void cancel(List<FutureTask<Void>> tasks) {
+        for (FutureTask<Void> task : tasks) {
+            task.cancel(false);
+        }
+    }
+
+    /**
+     * Reads the index lazily. The shared tables (bytes, strings, names, types, type lists and users)
+     * and the modules are read eagerly, while the method, field and record component entries
+     * and the classes are only read on demand by the resulting {@link LazyIndex}. Reading a class
+     * entry in turn reads the method, field and record component entries it refers to.
+     * <p>
+     * Since version 14, offsets of all entries are stored in the directory that precedes the index body.
+     * For older versions, the method, field and record component tables and the classes are skipped
+     * to find the offsets.
+     * <p>
+     * This relies on the fact that annotations on a non-null target are unique and not shared,
+     * so the entry of each annotation is written inline in the method, field, record component
+     * or class entry that first refers to it, which is always read before any other use.
+     */
+    LazyIndex readLazily() throws IOException {
+        if (data == null) {
+            throw new IllegalStateException("Lazy reading requires index data in a buffer");
+        }
+
+        PackedDataInput stream = this.input;
+        int directoryOffset = -1;
+        int bodyOffset = -1;
+        if (version >= 14) {
+            int directoryLength = stream.readPackedU32();
+            directoryOffset = dataInput.position();
+            skipBytes(stream, directoryLength);
+            bodyOffset = dataInput.position();
+        }
+
+        // sizes of annotations, implementors, subinterfaces and subclasses maps are not needed
+        skipPackedU32(stream, version >= 11 ? 4 : 3);
+        int usersSize = 0;
+        users = new HashMap<DotName, Set<DotName>>();
+        if (version >= 10) {
+            usersSize = stream.readPackedU32();
+        }
+
+        readSharedTables(stream, usersSize);
+        if (version >= 14) {
+            return readDirectory(streamAt(directoryOffset), bodyOffset);
+        }
+
+        skippedAnnotationNames = new DotName[annotationTable.length];
+        try {
+            methodTable = new MethodInternal[stream.readPackedU32() + 1];
+            methodOffsets = new int[methodTable.length];
+            for (int i = 1; i < methodTable.length; i++) {
+                methodOffsets[i] = dataInput.position();
+                skipMethodEntry(stream);
+            }
+
+            fieldTable = new FieldInternal[stream.readPackedU32() + 1];
+            fieldOffsets = new int[fieldTable.length];
+            for (int i = 1; i < fieldTable.length; i++) {
+                fieldOffsets[i] = dataInput.position();
+                skipPackedU32(stream, 3);
+                skipAnnotations(stream);
+            }
+
+            if (version >= 10) {
+                recordComponentTable = new RecordComponentInternal[stream.readPackedU32() + 1];
+                recordComponentOffsets = new int[recordComponentTable.length];
+                for (int i = 1; i < recordComponentTable.length; i++) {
+                    recordComponentOffsets[i] = dataInput.position();
+                    skipPackedU32(stream, 2);
+                    skipAnnotations(stream);
+                }
+            }
+
+            return skipClasses(stream);
         } finally {
-            byteTable = null;
-            stringTable = null;
-            nameTable = null;
-            typeTable = null;
-            typeListTable = null;
-            annotationTable = null;
-            methodTable = null;
-            fieldTable = null;
-            recordComponentTable = null;
-            users = null;
+            skippedAnnotationNames = null;
+        }
+    }
+
+    /**
+     * Reads the class entry at given {@code offset}. Only used when reading lazily, the caller
+     * must make sure that each class entry is read at most once and not concurrently.
+     */
+    ClassInfo readClassAt(int offset) throws IOException {
+        return readClassEntry(streamAt(offset), null);
+    }
+
+    private PackedDataInput streamAt(int offset) {
+        return new ByteBufferDataInput(data, offset);
+    }
+
+    // see IndexWriterV2.writeDirectory
+    private LazyIndex readDirectory(PackedDataInput stream, int bodyOffset) throws IOException {
+        methodOffsets = readOffsets(stream, bodyOffset);
+        methodTable = new MethodInternal[methodOffsets.length];
+        fieldOffsets = readOffsets(stream, bodyOffset);
+        fieldTable = new FieldInternal[fieldOffsets.length];
+        recordComponentOffsets = readOffsets(stream, bodyOffset);
+        recordComponentTable = new RecordComponentInternal[recordComponentOffsets.length];
+        int modulesOffset = bodyOffset + stream.readPackedU32();
+
+        int classesSize = stream.readPackedU32();
+        DotName[] classNames = new DotName[classesSize];
+        int[] classOffsets = new int[classesSize];
+        short[] classFlags = new short[classesSize];
+        Type[] superTypes = new Type[classesSize];
+        Type[][] interfaceTypes = new Type[classesSize][];
+        for (int i = 0; i < classesSize; i++) {
+            classNames[i] = nameTable[stream.readPackedU32()];
+            classFlags[i] = (short) stream.readPackedU32();
+            superTypes[i] = typeTable[stream.readPackedU32()];
+            interfaceTypes[i] = typeListTable[stream.readPackedU32()];
+            classOffsets[i] = bodyOffset + stream.readPackedU32();
         }
+
+        int annotationsSize = stream.readPackedU32();
+        Map<DotName, int[]> annotations = new HashMap<>(annotationsSize);
+        for (int i = 0; i < annotationsSize; i++) {
+            DotName annotationName = nameTable[stream.readPackedU32()];
+            int[] positions = new int[stream.readPackedU32()];
+            int last = 0;
+            for (int j = 0; j < positions.length; j++) {
+                positions[j] = last = last + stream.readPackedU32();
+            }
+            annotations.put(annotationName, positions);
+        }
+
+        Map<DotName, List<AnnotationInstance>> moduleAnnotations = new HashMap<>();
+        Map<DotName, ModuleInfo> modules = readModules(streamAt(modulesOffset), moduleAnnotations);
+
+        return createLazyIndex(classNames, classOffsets, classFlags, superTypes, interfaceTypes, annotations,
+                modules, moduleAnnotations);
     }
 
-    private void readUsers(PackedDataInputStream stream, int usersSize) throws IOException {
+    private static int[] readOffsets(PackedDataInput stream, int bodyOffset) throws IOException {
+        // Null holds the first slot
+        int[] offsets = new int[stream.readPackedU32() + 1];
+        int last = bodyOffset;
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] = last = last + stream.readPackedU32();
+        }
+        return offsets;
+    }
+
+    private LazyIndex skipClasses(PackedDataInput stream) throws IOException {
+        int classesSize = stream.readPackedU32();
+        DotName[] classNames = new DotName[classesSize];
+        int[] classOffsets = new int[classesSize];
+        short[] classFlags = new short[classesSize];
+        Type[] superTypes = new Type[classesSize];
+        Type[][] interfaceTypes = new Type[classesSize][];
+        Map<DotName, List<Integer>> annotations = new HashMap<>();
+
+        for (int i = 0; i < classesSize; i++) {
+            // see readClassEntry
+            classOffsets[i] = dataInput.position();
+            classNames[i] = nameTable[stream.readPackedU32()];
+            classFlags[i] = (short) stream.readPackedU32();
+            if (version >= 11) {
+                stream.readBoolean();
+            }
+            superTypes[i] = typeTable[stream.readPackedU32()];
+            stream.readPackedU32();
+            interfaceTypes[i] = typeListTable[stream.readPackedU32()];
+
+            boolean hasEnclosingMethod = false;
+            boolean hasNesting = false;
+            if (version >= 9) {
+                int nestingMask = stream.readUnsignedByte();
+                if (nestingMask > 0) {
+                    hasNesting = true;
+                    hasEnclosingMethod = ((nestingMask & 2) == 2);
+                }
+            } else {
+                hasEnclosingMethod = hasNesting = true;
+            }
+            if (hasNesting) {
+                skipPackedU32(stream, version >= 13 ? 3 : 2);
+                if (hasEnclosingMethod && (version >= 9 || stream.readUnsignedByte() == HAS_ENCLOSING_METHOD)) {
+                    skipPackedU32(stream, 4);
+                }
+            }
+            if (version >= 11) {
+                skipPackedU32(stream, stream.readPackedU32());
+            }
+            if (version >= 12) {
+                skipPackedU32(stream, stream.readPackedU32());
+            }
+
+            skipClassBody(stream, annotations, i);
+        }
+
+        Map<DotName, List<AnnotationInstance>> moduleAnnotations = new HashMap<>();
+        Map<DotName, ModuleInfo> modules = (version >= 10) ? readModules(stream, moduleAnnotations)
+                : Collections.<DotName, ModuleInfo> emptyMap();
+
+        // the class directory is sorted by class name, like in version 14+
+        Integer[] sorted = new Integer[classesSize];
+        for (int i = 0; i < classesSize; i++) {
+            sorted[i] = i;
+        }
+        Arrays.sort(sorted, (a, b) -> classNames[a].compareTo(classNames[b]));
+        int[] sortedPositions = new int[classesSize];
+        for (int i = 0; i < classesSize; i++) {
+            sortedPositions[sorted[i]] = i;
+        }
+
+        Map<DotName, int[]> sortedAnnotations = new HashMap<>(annotations.size());
+        for (Entry<DotName, List<Integer>> entry : annotations.entrySet()) {
+            int[] positions = new int[entry.getValue().size()];
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = sortedPositions[entry.getValue().get(i)];
+            }
+            Arrays.sort(positions);
+            sortedAnnotations.put(entry.getKey(), positions);
+        }
+
+        return createLazyIndex(reorder(classNames, sorted), reorder(classOffsets, sorted), reorder(classFlags, sorted),
+                reorder(superTypes, sorted), reorder(interfaceTypes, sorted), sortedAnnotations, modules,
+                moduleAnnotations);
+    }
+
+    /**
+     * Skips the part of a class entry that follows {@link #readClassHeader(PackedDataInput)}. The entries
+     * of annotations on members must have been read or skipped before. If {@code annotations} is not
+     * {@code null}, given {@code position} is added to it for each annotation name present in the class.
+     */
+    private void skipClassBody(PackedDataInput stream, Map<DotName, List<Integer>> annotations, int position)
+            throws IOException {
+        int size = stream.readPackedU32();
+
+        // fields, methods and record components, each followed by positions
+        skipPackedU32(stream, stream.readPackedU32());
+        skipPackedU32(stream, version >= 10 ? 1 : 0);
+        skipPackedU32(stream, stream.readPackedU32());
+        skipPackedU32(stream, version >= 10 ? 1 : 0);
+        if (version >= 10) {
+            skipPackedU32(stream, stream.readPackedU32());
+            skipPackedU32(stream, 1);
+        }
+
+        for (int j = 0; j < size; j++) {
+            int count = stream.readPackedU32();
+            for (int k = 0; k < count; k++) {
+                DotName annotationName = skipAnnotationReference(stream, stream.readPackedU32());
+                if (k == 0 && annotations != null) {
+                    addPositionToMap(annotations, annotationName, position);
+                }
+            }
+        }
+    }
+
+    private static <T> T[] reorder(T[] array, Integer[] order) {
+        T[] result = Arrays.copyOf(array, array.length);
+        for (int i = 0; i < order.length; i++) {
+            result[i] = array[order[i]];
+        }
+        return result;
+    }
+
+    private static int[] reorder(int[] array, Integer[] order) {
+        int[] result = new int[array.length];
+        for (int i = 0; i < order.length; i++) {
+            result[i] = array[order[i]];
+        }
+        return result;
+    }
+
+    private static short[] reorder(short[] array, Integer[] order) {
+        short[] result = new short[array.length];
+        for (int i = 0; i < order.length; i++) {
+            result[i] = array[order[i]];
+        }
+        return result;
+    }
+
+    private LazyIndex createLazyIndex(DotName[] classNames, int[] classOffsets, short[] classFlags, Type[] superTypes,
+            Type[][] interfaceTypes, Map<DotName, int[]> annotations, Map<DotName, ModuleInfo> modules,
+            Map<DotName, List<AnnotationInstance>> moduleAnnotations) {
+        Map<DotName, List<Integer>> subclasses = new HashMap<>();
+        Map<DotName, List<Integer>> subinterfaces = new HashMap<>();
+        Map<DotName, List<Integer>> implementors = new HashMap<>();
+        for (int i = 0; i < classNames.length; i++) {
+            if (superTypes[i] != null) {
+                addPositionToMap(subclasses, superTypes[i].name(), i);
+            }
+            for (Type interfaceType : interfaceTypes[i]) {
+                if (Modifier.isInterface(classFlags[i])) {
+                    addPositionToMap(subinterfaces, interfaceType.name(), i);
+                }
+                // interfaces are intentionally added to implementors, see readClasses
+                addPositionToMap(implementors, interfaceType.name(), i);
+            }
+        }
+
+        return new LazyIndex(this, classNames, classOffsets, annotations, LazyIndex.toArrays(subclasses),
+                LazyIndex.toArrays(subinterfaces), LazyIndex.toArrays(implementors), users, modules, moduleAnnotations);
+    }
+
+    private static void addPositionToMap(Map<DotName, List<Integer>> map, DotName name, int position) {
+        List<Integer> list = map.get(name);
+        if (list == null) {
+            list = new ArrayList<>();
+            map.put(name, list);
+        }
+        list.add(position);
+    }
+
+    private static void skipBytes(PackedDataInput stream, int length) throws IOException {
+        while (length > 0) {
+            int skipped = stream.skipBytes(length);
+            if (skipped <= 0) {
+                // throws EOFException at the end of the stream
+                stream.readByte();
+                skipped = 1;
+            }
+            length -= skipped;
+        }
+    }
+
+    private static void skipPackedU32(PackedDataInput stream, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            stream.readPackedU32();
+        }
+    }
+
+    private void skipMethodEntry(PackedDataInput stream) throws IOException {
+        // see readMethodEntry
+        skipPackedU32(stream, version >= 11 ? 8 : 7);
+        if (version >= 7 && stream.readByte() > 0) {
+            skipAnnotationValue(stream);
+        }
+        if (version >= 8) {
+            skipPackedU32(stream, stream.readPackedU32());
+        }
+        skipAnnotations(stream);
+    }
+
+    private void skipAnnotations(PackedDataInput stream) throws IOException {
+        int size = stream.readPackedU32();
+        for (int i = 0; i < size; i++) {
+            skipAnnotationReference(stream, stream.readPackedU32());
+        }
+    }
+
+    private DotName skipAnnotationReference(PackedDataInput stream, int reference) throws IOException {
+        AnnotationInstance annotation = annotationTable[reference];
+        if (annotation != null) {
+            return annotation.name();
+        }
+        DotName name = skippedAnnotationNames[reference];
+        if (name == null) {
+            name = skippedAnnotationNames[reference] = skipAnnotationEntry(stream);
+        }
+        return name;
+    }
+
+    private DotName skipAnnotationEntry(PackedDataInput stream) throws IOException {
+        // see readAnnotationEntry
+        DotName name = nameTable[stream.readPackedU32()];
+        byte tag = stream.readByte();
+        switch (tag) {
+            case NULL_TARGET_TAG:
+            case CLASS_TAG:
+            case FIELD_TAG:
+            case METHOD_TAG:
+            case RECORD_COMPONENT_TAG:
+                break;
+            case METHOD_PARAMETER_TAG:
+                skipPackedU32(stream, 1);
+                break;
+            case EMPTY_TYPE_TAG:
+            case CLASS_EXTENDS_TYPE_TAG:
+            case TYPE_PARAMETER_TAG:
+            case METHOD_PARAMETER_TYPE_TAG:
+            case THROWS_TYPE_TAG:
+                skipPackedU32(stream, 2);
+                break;
+            case TYPE_PARAMETER_BOUND_TAG:
+                skipPackedU32(stream, 3);
+                break;
+            default:
+                throw new IllegalStateException("Invalid tag: " + tag);
+        }
+        skipAnnotationValues(stream);
+        if (version >= 11) {
+            stream.readBoolean();
+        }
+        return name;
+    }
+
+    private void skipAnnotationValues(PackedDataInput stream) throws IOException {
+        int numValues = stream.readPackedU32();
+        for (int i = 0; i < numValues; i++) {
+            skipAnnotationValue(stream);
+        }
+    }
+
+    private void skipAnnotationValue(PackedDataInput stream) throws IOException {
+        // see readAnnotationValue
+        stream.readPackedU32();
+        int tag = stream.readByte();
+        switch (tag) {
+            case AVALUE_BYTE:
+            case AVALUE_BOOLEAN:
+                stream.readByte();
+                break;
+            case AVALUE_SHORT:
+            case AVALUE_INT:
+            case AVALUE_CHAR:
+            case AVALUE_STRING:
+            case AVALUE_CLASS:
+                skipPackedU32(stream, 1);
+                break;
+            case AVALUE_FLOAT:
+                stream.readInt();
+                break;
+            case AVALUE_DOUBLE:
+            case AVALUE_LONG:
+                stream.readLong();
+                break;
+            case AVALUE_ENUM:
+                skipPackedU32(stream, 2);
+                break;
+            case AVALUE_ARRAY:
+                skipAnnotationValues(stream);
+                break;
+            case AVALUE_NESTED:
+                skipAnnotationReference(stream, stream.readPackedU32());
+                break;
+            default:
+                throw new IllegalStateException("Invalid annotation value tag:" + tag);
+        }
+    }
+
+    private MethodInternal method(int reference) throws IOException {
+        MethodInternal method = methodTable[reference];
+        if (method == null && methodOffsets != null) {
+            method = methodTable[reference] = readMethodEntry(streamAt(methodOffsets[reference]));
+        }
+        return method;
+    }
+
+    private FieldInternal field(int reference) throws IOException {
+        FieldInternal field = fieldTable[reference];
+        if (field == null && fieldOffsets != null) {
+            field = fieldTable[reference] = readFieldEntry(streamAt(fieldOffsets[reference]));
+        }
+        return field;
+    }
+
+    private RecordComponentInternal recordComponent(int reference) throws IOException {
+        RecordComponentInternal recordComponent = recordComponentTable[reference];
+        if (recordComponent == null && recordComponentOffsets != null) {
+            recordComponent = recordComponentTable[reference] = readRecordComponentEntry(
+                    streamAt(recordComponentOffsets[reference]));
+        }
+        return recordComponent;
+    }
+
+    private void readSharedTables(PackedDataInput stream, int usersSize) throws IOException {
+        readByteTable(stream);
+        readStringTable(stream);
+        readNameTable(stream);
+
+        typeTable = new Type[stream.readPackedU32() + 1];
+        typeListTable = new Type[stream.readPackedU32() + 1][];
+        annotationTable = new AnnotationInstance[stream.readPackedU32() + 1];
+
+        readTypeTable(stream);
+        readTypeListTable(stream);
+        if (version >= 10) {
+            readUsers(stream, usersSize);
+        }
+    }
+
+    private void readUsers(PackedDataInput stream, int usersSize) throws IOException {
         for (int i = 0; i < usersSize; i++) {
             DotName user = nameTable[stream.readPackedU32()];
             int usesCount = stream.readPackedU32();
+            if (users == null) {
+                // not needed, see accept()
+                skipPackedU32(stream, usesCount);
+                continue;
+            }
             Set<DotName> uses = new HashSet<DotName>(usesCount);
             for (int j = 0; j < usesCount; j++) {
                 uses.add(nameTable[stream.readPackedU32()]);
@@ -157,7 +929,7 @@ final class IndexReaderV2 extends IndexReaderImpl {
         }
     }
 
-    private void readByteTable(PackedDataInputStream stream) throws IOException {
+    private void readByteTable(PackedDataInput stream) throws IOException {
         // Null is the implicit first entry
         int size = stream.readPackedU32() + 1;
         byte[][] byteTable = this.byteTable = new byte[size][];
@@ -168,16 +940,16 @@ final class IndexReaderV2 extends IndexReaderImpl {
         }
     }
 
-    private void readStringTable(PackedDataInputStream stream) throws IOException {
+    private void readStringTable(PackedDataInput stream) throws IOException {
         // Null is the implicit first entry
         int size = stream.readPackedU32() + 1;
         String[] stringTable = this.stringTable = new String[size];
         for (int i = 1; i < size; i++) {
-            stringTable[i] = stream.readUTF();
+            stringTable[i] = sharedNames != null ? sharedNames.intern(stream.readUTF()) : stream.readUTF();
         }
     }
 
-    private void readNameTable(PackedDataInputStream stream) throws IOException {
+    private void readNameTable(PackedDataInput stream) throws IOException {
         // Null is the implicit first entry
         int entries = stream.readPackedU32() + 1;
         int lastDepth = -1;
@@ -194,7 +966,7 @@ final class IndexReaderV2 extends IndexReaderImpl {
                 int prefixPosition = prefixOffset == 0 ? 0 : i - prefixOffset;
                 DotName prefix = nameTable[prefixPosition];
                 String local = stringTable[stream.readPackedU32()];
-                nameTable[i] = new DotName(prefix, local, true, inner);
+                nameTable[i] = internName(new DotName(prefix, local, true, inner));
             } else {
                 int depth = stream.readPackedU32();
                 boolean inner = (depth & 1) == 1;
@@ -209,18 +981,27 @@ final class IndexReaderV2 extends IndexReaderImpl {
                     }
                 }
 
-                nameTable[i] = curr = new DotName(curr, local, true, inner);
+                nameTable[i] = curr = internName(new DotName(curr, local, true, inner));
                 lastDepth = depth;
             }
         }
     }
 
-    private void readTypeTable(PackedDataInputStream stream) throws IOException {
+    private DotName internName(DotName name) {
+        return sharedNames != null ? sharedNames.intern(name) : name;
+    }
+
+    private void readTypeTable(PackedDataInput stream) throws IOException {
         Map<TypeVariableReference, Integer> references = new IdentityHashMap<>();
 
         // Null is the implicit first entry
         for (int i = 1; i < typeTable.length; i++) {
             typeTable[i] = readTypeEntry(stream, references);
+            if (sharedNames != null) {
+                // types that contain type variable references are not shared,
+                // so it doesn't matter that references aren't patched yet
+                typeTable[i] = sharedNames.intern(typeTable[i]);
+            }
         }
 
         // patch type variable references (see IndexWriterV2#addType)
@@ -244,7 +1025,7 @@ final class IndexReaderV2 extends IndexReaderImpl {
         return array.length;
     }
 
-    private void readTypeListTable(PackedDataInputStream stream) throws IOException {
+    private void readTypeListTable(PackedDataInput stream) throws IOException {
         // Null is the implicit first entry
         Type[][] typeListTable = this.typeListTable;
         // Already emitted entries are omitted as gaps in the table portion
@@ -253,7 +1034,7 @@ final class IndexReaderV2 extends IndexReaderImpl {
         }
     }
 
-    private AnnotationInstance[] readAnnotations(PackedDataInputStream stream, AnnotationTarget target) throws IOException {
+    private AnnotationInstance[] readAnnotations(PackedDataInput stream, AnnotationTarget target) throws IOException {
         int size = stream.readPackedU32();
         if (size == 0) {
             return AnnotationInstance.EMPTY_ARRAY;
@@ -271,7 +1052,7 @@ final class IndexReaderV2 extends IndexReaderImpl {
         return annotations;
     }
 
-    private AnnotationValue[] readAnnotationValues(PackedDataInputStream stream) throws IOException {
+    private AnnotationValue[] readAnnotationValues(PackedDataInput stream) throws IOException {
         int numValues = stream.readPackedU32();
         AnnotationValue[] values = numValues > 0 ? new AnnotationValue[numValues] : AnnotationValue.EMPTY_ARRAY;
 
@@ -283,7 +1064,7 @@ final class IndexReaderV2 extends IndexReaderImpl {
         return values;
     }
 
-    private AnnotationValue readAnnotationValue(PackedDataInputStream stream) throws IOException {
+    private AnnotationValue readAnnotationValue(PackedDataInput stream) throws IOException {
         String name = stringTable[stream.readPackedU32()];
         int tag = stream.readByte();
         AnnotationValue value;
@@ -341,7 +1122,7 @@ final class IndexReaderV2 extends IndexReaderImpl {
         return value;
     }
 
-    private AnnotationInstance readAnnotationEntry(PackedDataInputStream stream, AnnotationTarget caller) throws IOException {
+    private AnnotationInstance readAnnotationEntry(PackedDataInput stream, AnnotationTarget caller) throws IOException {
         DotName name = nameTable[stream.readPackedU32()];
         AnnotationTarget target = readAnnotationTarget(stream, caller);
         AnnotationValue[] values = readAnnotationValues(stream);
@@ -352,7 +1133,7 @@ final class IndexReaderV2 extends IndexReaderImpl {
         return AnnotationInstance.create(name, visible, target, values);
     }
 
-    private Type[] readTypeListReference(PackedDataInputStream stream) throws IOException {
+    private Type[] readTypeListReference(PackedDataInput stream) throws IOException {
         int reference = stream.readPackedU32();
         Type[] types = typeListTable[reference];
         if (types != null) {
@@ -362,7 +1143,7 @@ final class IndexReaderV2 extends IndexReaderImpl {
         return typeListTable[reference] = readTypeListEntry(stream);
     }
 
-    private Type[] readTypeListEntry(PackedDataInputStream stream) throws IOException {
+    private Type[] readTypeListEntry(PackedDataInput stream) throws IOException {
         int size = stream.readPackedU32();
         if (size == 0) {
             return Type.EMPTY_ARRAY;
@@ -373,10 +1154,10 @@ final class IndexReaderV2 extends IndexReaderImpl {
             types[i] = typeTable[stream.readPackedU32()];
         }
 
-        return types;
+        return sharedNames != null ? sharedNames.intern(types) : types;
     }
 
-    private Type readTypeEntry(PackedDataInputStream stream, Map<TypeVariableReference, Integer> references)
+    private Type readTypeEntry(PackedDataInput stream, Map<TypeVariableReference, Integer> references)
             throws IOException {
         Type.Kind kind = Type.Kind.fromOrdinal(stream.readUnsignedByte());
 
@@ -446,7 +1227,7 @@ final class IndexReaderV2 extends IndexReaderImpl {
         throw new IllegalStateException("Unrecognized type: " + kind);
     }
 
-    private AnnotationTarget readAnnotationTarget(PackedDataInputStream stream, AnnotationTarget caller) throws IOException {
+    private AnnotationTarget readAnnotationTarget(PackedDataInput stream, AnnotationTarget caller) throws IOException {
         byte tag = stream.readByte();
         switch (tag) {
             case NULL_TARGET_TAG:
@@ -496,7 +1277,7 @@ final class IndexReaderV2 extends IndexReaderImpl {
         throw new IllegalStateException("Invalid tag: " + tag);
     }
 
-    private void readMethodTable(PackedDataInputStream stream) throws IOException {
+    private void readMethodTable(PackedDataInput stream) throws IOException {
         // Null holds the first slot
         int size = stream.readPackedU32() + 1;
         methodTable = new MethodInternal[size];
@@ -506,7 +1287,7 @@ final class IndexReaderV2 extends IndexReaderImpl {
 
     }
 
-    private void readFieldTable(PackedDataInputStream stream) throws IOException {
+    private void readFieldTable(PackedDataInput stream) throws IOException {
         // Null holds the first slot
         int size = stream.readPackedU32() + 1;
         fieldTable = new FieldInternal[size];
@@ -515,7 +1296,7 @@ final class IndexReaderV2 extends IndexReaderImpl {
         }
     }
 
-    private void readRecordComponentTable(PackedDataInputStream stream) throws IOException {
+    private void readRecordComponentTable(PackedDataInput stream) throws IOException {
         // Null holds the first slot
         int size = stream.readPackedU32() + 1;
         recordComponentTable = new RecordComponentInternal[size];
@@ -524,7 +1305,7 @@ final class IndexReaderV2 extends IndexReaderImpl {
         }
     }
 
-    private MethodInternal readMethodEntry(PackedDataInputStream stream) throws IOException {
+    private MethodInternal readMethodEntry(PackedDataInput stream) throws IOException {
         byte[] name = byteTable[stream.readPackedU32()];
         short flags = (short) stream.readPackedU32();
         Type[] typeParameters = typeListTable[stream.readPackedU32()];
@@ -565,7 +1346,7 @@ final class IndexReaderV2 extends IndexReaderImpl {
         return methodInternal;
     }
 
-    private FieldInternal readFieldEntry(PackedDataInputStream stream) throws IOException {
+    private FieldInternal readFieldEntry(PackedDataInput stream) throws IOException {
         byte[] name = byteTable[stream.readPackedU32()];
         short flags = (short) stream.readPackedU32();
         Type type = typeTable[stream.readPackedU32()];
@@ -577,7 +1358,7 @@ final class IndexReaderV2 extends IndexReaderImpl {
         return fieldInternal;
     }
 
-    private RecordComponentInternal readRecordComponentEntry(PackedDataInputStream stream) throws IOException {
+    private RecordComponentInternal readRecordComponentEntry(PackedDataInput stream) throws IOException {
         byte[] name = byteTable[stream.readPackedU32()];
         Type type = typeTable[stream.readPackedU32()];
 
@@ -588,8 +1369,15 @@ final class IndexReaderV2 extends IndexReaderImpl {
         return recordComponentInternal;
     }
 
-    private ClassInfo readClassEntry(PackedDataInputStream stream,
+    private ClassInfo readClassEntry(PackedDataInput stream,
             Map<DotName, List<AnnotationInstance>> masterAnnotations) throws IOException {
+        ClassInfo clazz = readClassHeader(stream);
+        readClassBody(stream, clazz, masterAnnotations);
+        return clazz;
+    }
+
+    // reads the part of a class entry that precedes its members and annotations
+    private ClassInfo readClassHeader(PackedDataInput stream) throws IOException {
         DotName name = nameTable[stream.readPackedU32()];
         short flags = (short) stream.readPackedU32();
         boolean hasNoArgsConstructor = false;
@@ -648,11 +1436,6 @@ final class IndexReaderV2 extends IndexReaderImpl {
             }
         }
 
-        int size = stream.readPackedU32();
-
-        Map<DotName, List<AnnotationInstance>> annotations = size > 0
-                ? new HashMap<DotName, List<AnnotationInstance>>(size)
-                : Collections.<DotName, List<AnnotationInstance>> emptyMap();
         ClassInfo clazz = new ClassInfo(name, superType, flags, interfaceTypes);
         clazz.setHasNoArgsConstructor(hasNoArgsConstructor);
         clazz.setTypeParameters(typeParameters);
@@ -670,6 +1453,17 @@ final class IndexReaderV2 extends IndexReaderImpl {
         if (permittedSubclasses != null) {
             clazz.setPermittedSubclasses(permittedSubclasses);
         }
+        clazz.setAnnotations(Collections.<DotName, List<AnnotationInstance>> emptyMap());
+        return clazz;
+    }
+
+    private void readClassBody(PackedDataInput stream, ClassInfo clazz,
+            Map<DotName, List<AnnotationInstance>> masterAnnotations) throws IOException {
+        int size = stream.readPackedU32();
+
+        Map<DotName, List<AnnotationInstance>> annotations = size > 0
+                ? new HashMap<DotName, List<AnnotationInstance>>(size)
+                : Collections.<DotName, List<AnnotationInstance>> emptyMap();
 
         FieldInternal[] fields = readClassFields(stream, clazz);
         clazz.setFieldArray(fields);
@@ -696,16 +1490,16 @@ final class IndexReaderV2 extends IndexReaderImpl {
             if (instances.size() > 0) {
                 DotName annotationName = instances.get(0).name();
                 annotations.put(annotationName, instances);
-                addToMaster(masterAnnotations, annotationName, instances);
+                if (masterAnnotations != null) {
+                    addToMaster(masterAnnotations, annotationName, instances);
+                }
             }
         }
 
         clazz.setAnnotations(annotations);
-
-        return clazz;
     }
 
-    private ModuleInfo readModuleEntry(PackedDataInputStream stream, ClassInfo moduleInfoClass) throws IOException {
+    private ModuleInfo readModuleEntry(PackedDataInput stream, ClassInfo moduleInfoClass) throws IOException {
         DotName moduleName = nameTable[stream.readPackedU32()];
         short moduleFlags = (short) stream.readPackedU32();
         String moduleVersion = stringTable[stream.readPackedU32()];
@@ -774,7 +1568,7 @@ final class IndexReaderV2 extends IndexReaderImpl {
         return module;
     }
 
-    private List<DotName> readDotNames(PackedDataInputStream stream) throws IOException {
+    private List<DotName> readDotNames(PackedDataInput stream) throws IOException {
         int size = stream.readPackedU32();
         List<DotName> names = Utils.listOfCapacity(size);
 
@@ -814,35 +1608,35 @@ final class IndexReaderV2 extends IndexReaderImpl {
         list.add(currentClass);
     }
 
-    private FieldInternal[] readClassFields(PackedDataInputStream stream, ClassInfo clazz) throws IOException {
+    private FieldInternal[] readClassFields(PackedDataInput stream, ClassInfo clazz) throws IOException {
         int len = stream.readPackedU32();
         FieldInternal[] fields = len > 0 ? new FieldInternal[len] : FieldInternal.EMPTY_ARRAY;
         for (int i = 0; i < len; i++) {
-            FieldInternal field = fieldTable[stream.readPackedU32()];
+            FieldInternal field = field(stream.readPackedU32());
             updateAnnotationTargetInfo(field.annotationArray(), clazz);
             fields[i] = field;
         }
         return fields;
     }
 
-    private RecordComponentInternal[] readClassRecordComponents(PackedDataInputStream stream, ClassInfo clazz)
+    private RecordComponentInternal[] readClassRecordComponents(PackedDataInput stream, ClassInfo clazz)
             throws IOException {
         int len = stream.readPackedU32();
         RecordComponentInternal[] recordComponents = len > 0 ? new RecordComponentInternal[len]
                 : RecordComponentInternal.EMPTY_ARRAY;
         for (int i = 0; i < len; i++) {
-            RecordComponentInternal recordComponent = recordComponentTable[stream.readPackedU32()];
+            RecordComponentInternal recordComponent = recordComponent(stream.readPackedU32());
             updateAnnotationTargetInfo(recordComponent.annotationArray(), clazz);
             recordComponents[i] = recordComponent;
         }
         return recordComponents;
     }
 
-    private MethodInternal[] readClassMethods(PackedDataInputStream stream, ClassInfo clazz) throws IOException {
+    private MethodInternal[] readClassMethods(PackedDataInput stream, ClassInfo clazz) throws IOException {
         int len = stream.readPackedU32();
         MethodInternal[] methods = len > 0 ? new MethodInternal[len] : MethodInternal.EMPTY_ARRAY;
         for (int i = 0; i < len; i++) {
-            MethodInternal method = methodTable[stream.readPackedU32()];
+            MethodInternal method = method(stream.readPackedU32());
             updateAnnotationTargetInfo(method.annotationArray(), clazz);
             methods[i] = method;
 
@@ -874,7 +1668,7 @@ final class IndexReaderV2 extends IndexReaderImpl {
         }
     }
 
-    private ClassInfo.EnclosingMethodInfo readEnclosingMethod(PackedDataInputStream stream) throws IOException {
+    private ClassInfo.EnclosingMethodInfo readEnclosingMethod(PackedDataInput stream) throws IOException {
         if (version < 9 && stream.readUnsignedByte() != HAS_ENCLOSING_METHOD) {
             return null;
         }
@@ -886,19 +1680,34 @@ final class IndexReaderV2 extends IndexReaderImpl {
         return new ClassInfo.EnclosingMethodInfo(eName, returnType, parameters, eClass);
     }
 
-    private Index readClasses(PackedDataInputStream stream,
+    private Index readClasses(PackedDataInput stream,
             int annotationsSize, int implementorsSize, int subinterfacesSize, int subclassesSize) throws IOException {
         int classesSize = stream.readPackedU32();
-        HashMap<DotName, ClassInfo> classes = new HashMap<DotName, ClassInfo>(classesSize);
+        HashMap<DotName, List<AnnotationInstance>> masterAnnotations = new HashMap<DotName, List<AnnotationInstance>>(
+                annotationsSize);
+        ClassInfo[] classes = new ClassInfo[classesSize];
+        for (int i = 0; i < classesSize; i++) {
+            classes[i] = readClassEntry(stream, masterAnnotations);
+        }
+
+        Map<DotName, ModuleInfo> modules = (version >= 10) ? readModules(stream, masterAnnotations)
+                : Collections.<DotName, ModuleInfo> emptyMap();
+
+        return createIndex(classes, masterAnnotations, implementorsSize, subinterfacesSize, subclassesSize, modules);
+    }
+
+    private Index createIndex(ClassInfo[] classArray, Map<DotName, List<AnnotationInstance>> masterAnnotations,
+            int implementorsSize, int subinterfacesSize, int subclassesSize, Map<DotName, ModuleInfo> modules) {
+        HashMap<DotName, ClassInfo> classes = new HashMap<DotName, ClassInfo>(classArray.length);
         HashMap<DotName, List<ClassInfo>> subclasses = new HashMap<DotName, List<ClassInfo>>(subclassesSize);
         HashMap<DotName, List<ClassInfo>> subinterfaces = new HashMap<DotName, List<ClassInfo>>(subinterfacesSize);
         HashMap<DotName, List<ClassInfo>> implementors = new HashMap<DotName, List<ClassInfo>>(implementorsSize);
-        HashMap<DotName, List<AnnotationInstance>> masterAnnotations = new HashMap<DotName, List<AnnotationInstance>>(
-                annotationsSize);
 
-        for (int i = 0; i < classesSize; i++) {
-            ClassInfo clazz = readClassEntry(stream, masterAnnotations);
-            addClassToMap(subclasses, clazz.superName(), clazz);
+        for (ClassInfo clazz : classArray) {
+            // like the Indexer, classes without a superclass are not recorded as subclasses of anything
+            if (clazz.superName() != null) {
+                addClassToMap(subclasses, clazz.superName(), clazz);
+            }
             for (Type interfaceType : clazz.interfaceTypeArray()) {
                 if (Modifier.isInterface(clazz.flags())) {
                     addClassToMap(subinterfaces, interfaceType.name(), clazz);
@@ -923,13 +1732,10 @@ final class IndexReaderV2 extends IndexReaderImpl {
             users = Collections.emptyMap();
         }
 
-        Map<DotName, ModuleInfo> modules = (version >= 10) ? readModules(stream, masterAnnotations)
-                : Collections.<DotName, ModuleInfo> emptyMap();
-
         return Index.create(masterAnnotations, subclasses, subinterfaces, implementors, classes, modules, users);
     }
 
-    private Map<DotName, ModuleInfo> readModules(PackedDataInputStream stream,
+    private Map<DotName, ModuleInfo> readModules(PackedDataInput stream,
             Map<DotName, List<AnnotationInstance>> masterAnnotations) throws IOException {
 
         int modulesSize = stream.readPackedU32();
@@ -18,7 +18,10 @@
 
 package org.jboss.jandex;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -704,4 +707,66 @@ public interface IndexView {
     default Set<DotName> getSubpackages(String packageName) {
         return getSubpackages(DotName.createSimple(packageName));
     }
+
+    /**
+     * Returns all {@linkplain ClassInfo classes} known to this index that contain an annotation
+     * of any of given names. As in {@link ClassInfo#hasAnnotation(DotName)}, annotations declared
+     * on the class as well as on its members, method parameters and types are considered.
+     * If {@code annotationNames} is empty, returns an empty collection.
+     * <p>
+     * In the default {@link Index} implementation, this information is not stored in the index initially.
+     * Instead, a bitmap of annotations present in each class is constructed on demand (on the first
+     * invocation of this method or {@link #getKnownClassesWithAllAnnotations(Collection)}) and the query
+     * is answered using bit operations.
+     *
+     * @param annotationNames names of the annotations, must not be {@code null}
+     * @return immutable collection of classes that contain any of given annotations, never {@code null}
+     * @since 3.7
+     */
+    default Collection<ClassInfo> getKnownClassesWithAnyAnnotation(Collection<DotName> annotationNames) {
+        if (annotationNames == null) {
+            throw new IllegalArgumentException("annotationNames cannot be null");
+        }
+        List<ClassInfo> result = new ArrayList<>();
+        for (ClassInfo clazz : getKnownClasses()) {
+            for (DotName annotationName : annotationNames) {
+                if (clazz.hasAnnotation(annotationName)) {
+                    result.add(clazz);
+                    break;
+                }
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Returns all {@linkplain ClassInfo classes} known to this index that contain an annotation
+     * of each of given names. As in {@link ClassInfo#hasAnnotation(DotName)}, annotations declared
+     * on the class as well as on its members, method parameters and types are considered.
+     * If {@code annotationNames} is empty, returns all known classes.
+     * <p>
+     * In the default {@link Index} implementation, this information is not stored in the index initially.
+     * Instead, a bitmap of annotations present in each class is constructed on demand (on the first
+     * invocation of this method or {@link #getKnownClassesWithAnyAnnotation(Collection)}) and the query
+     * is answered using bit operations.
+     *
+     * @param annotationNames names of the annotations, must not be {@code null}
+     * @return immutable collection of classes that contain all given annotations, never {@code null}
+     * @since 3.7
+     */
+    default Collection<ClassInfo> getKnownClassesWithAllAnnotations(Collection<DotName> annotationNames) {
+        if (annotationNames == null) {
+            throw new IllegalArgumentException("annotationNames cannot be null");
+        }
+        List<ClassInfo> result = new ArrayList<>();
+        outer: for (ClassInfo clazz : getKnownClasses()) {
+            for (DotName annotationName : annotationNames) {
+                if (!clazz.hasAnnotation(annotationName)) {
+                    continue outer;
+                }
+            }
+            result.add(clazz);
+        }
+        return Collections.unmodifiableList(result);
+    }
 }
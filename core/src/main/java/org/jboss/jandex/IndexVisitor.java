@@ -0,0 +1,84 @@
+package org.jboss.jandex;
+
+/**
+ * A visitor of the contents of a persistent index, see {@link IndexReader#accept(IndexVisitor)}. Instead of building
+ * an {@link Index}, the reader passes classes, their members and annotations to the visitor as they are decoded,
+ * so that processing the whole index once doesn't require keeping all of it in memory.
+ * <p>
+ * For each class, {@link #visitClass(ClassInfo)} is called first, followed by {@link #visitField(FieldInfo)}
+ * for each field, {@link #visitRecordComponent(RecordComponentInfo)} for each record component,
+ * {@link #visitMethod(MethodInfo)} for each method, {@link #visitAnnotation(AnnotationInstance)} for each
+ * annotation instance declared anywhere in the class, and finally {@link #visitClassEnd(ClassInfo)}. If
+ * {@code visitClass} returns {@code false}, the members and annotations of the class are skipped and the
+ * remaining methods are not called for the class. After all classes, {@link #visitModule(ModuleInfo)} is
+ * called for each module.
+ * <p>
+ * All methods have empty default implementations, and {@code visitClass} visits all classes by default.
+ * The objects passed to the visitor are the same objects an {@code Index} read from the same data would
+ * contain, and the visitor may retain them.
+ *
+ * @since 3.7
+ */
+public interface IndexVisitor {
+    /**
+     * Called for each class in the index. When this method is called, the class name, flags, superclass,
+     * interfaces, type parameters and nesting information are known, but the members and annotations
+     * of the class may not be known yet.
+     *
+     * @param clazz the class, never {@code null}
+     * @return whether the members and annotations of the class should be visited
+     */
+    default boolean visitClass(ClassInfo clazz) {
+        return true;
+    }
+
+    /**
+     * Called for each field of a visited class.
+     *
+     * @param field the field, never {@code null}
+     */
+    default void visitField(FieldInfo field) {
+    }
+
+    /**
+     * Called for each record component of a visited class.
+     *
+     * @param recordComponent the record component, never {@code null}
+     */
+    default void visitRecordComponent(RecordComponentInfo recordComponent) {
+    }
+
+    /**
+     * Called for each method of a visited class.
+     *
+     * @param method the method, never {@code null}
+     */
+    default void visitMethod(MethodInfo method) {
+    }
+
+    /**
+     * Called for each annotation instance declared in a visited class, including annotations
+     * on its members, method parameters and types, like {@link ClassInfo#annotations()}.
+     *
+     * @param annotation the annotation instance, never {@code null}
+     */
+    default void visitAnnotation(AnnotationInstance annotation) {
+    }
+
+    /**
+     * Called after all members and annotations of a visited class were visited. At this point,
+     * the class is complete.
+     *
+     * @param clazz the class, never {@code null}
+     */
+    default void visitClassEnd(ClassInfo clazz) {
+    }
+
+    /**
+     * Called for each module in the index, after all classes.
+     *
+     * @param module the module, never {@code null}
+     */
+    default void visitModule(ModuleInfo module) {
+    }
+}
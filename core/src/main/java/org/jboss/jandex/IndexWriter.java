@@ -44,6 +44,7 @@ import java.io.OutputStream;
 public final class IndexWriter {
 
     private final OutputStream out;
+    private final boolean compressed;
 
     /**
      * Constructs an IndexWriter using the specified stream
@@ -51,19 +52,37 @@ public final class IndexWriter {
      * @param out a stream to write an index to
      */
     public IndexWriter(OutputStream out) {
+        this(out, false);
+    }
+
+    /**
+     * Constructs an IndexWriter using the specified stream. If {@code compressed} is {@code true},
+     * the index data following the index file header are compressed using the deflate algorithm
+     * and a flag is set in the header, so that {@link IndexReader} decompresses them while reading.
+     * Compressed index files are considerably smaller, at the cost of slower reading, and they
+     * can't be read lazily or in parallel. They can only be read by Jandex 3.7 or later and only
+     * index versions 6 and later may be compressed.
+     *
+     * @param out a stream to write an index to
+     * @param compressed whether the index data should be compressed
+     * @since 3.7
+     */
+    public IndexWriter(OutputStream out, boolean compressed) {
         this.out = out;
+        this.compressed = compressed;
     }
 
     /**
      * Writes the specified index to the associated output stream. This may be called multiple times in order
-     * to write multiple indexes. The default version of index file is used.
+     * to write multiple indexes. The default version of index file is used, which is currently 13, so that
+     * the index can be read by older Jandex versions. To write a newer version, use {@link #write(Index, int)}.
      *
      * @param index the index to write to the stream
      * @return the number of bytes written to the stream
      * @throws IOException if the underlying stream fails
      */
     public int write(Index index) throws IOException {
-        return write(index, IndexWriterV2.MAX_VERSION);
+        return write(index, IndexWriterV2.DEFAULT_VERSION);
     }
 
     /**
@@ -84,6 +103,13 @@ public final class IndexWriter {
     /**
      * Writes the specified index to the associated output stream. This may be called multiple times in order
      * to write multiple indexes.
+     * <p>
+     * The index format version 14 adds a directory of all entries, which allows reading the index
+     * {@linkplain IndexReader#readLazily(java.nio.file.Path) lazily} and
+     * {@linkplain IndexReader#read(java.util.concurrent.Executor) in parallel} without decoding it first.
+     * It can only be read by Jandex 3.7 or later. Because the directory precedes the entries it points to,
+     * the index data are first written to a buffer in memory, which needs about as much additional memory
+     * as the size of the uncompressed index.
      *
      * @param index the index to write to the stream
      * @param version the index file version
@@ -105,11 +131,16 @@ public final class IndexWriter {
 
     private IndexWriterImpl getWriter(int version) {
         if (version >= IndexWriterV1.MIN_VERSION && version <= IndexWriterV1.MAX_VERSION) {
+            if (compressed) {
+                throw new UnsupportedVersion("Can't write compressed index version " + version
+                        + "; this IndexWriter only supports compressing index versions "
+                        + IndexWriterV2.MIN_VERSION + "-" + IndexWriterV2.MAX_VERSION);
+            }
             return new IndexWriterV1(out, version);
         }
 
         if (version >= IndexWriterV2.MIN_VERSION && version <= IndexWriterV2.MAX_VERSION) {
-            return new IndexWriterV2(out, version);
+            return new IndexWriterV2(out, version, compressed);
         }
 
         return null;
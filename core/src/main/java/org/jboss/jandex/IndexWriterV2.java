@@ -19,9 +19,11 @@
 package org.jboss.jandex;
 
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
@@ -31,6 +33,8 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 
 /**
  * Writes a Jandex index file to a stream. The write process is somewhat more
@@ -52,12 +56,16 @@ import java.util.TreeMap;
  * @author Jason T. Greene
  *
  */
-final class IndexWriterV2 extends IndexWriterImpl {
+class IndexWriterV2 extends IndexWriterImpl {
     static final int MIN_VERSION = 6;
-    static final int MAX_VERSION = 13;
+    static final int MAX_VERSION = 14;
+    // version 14 can't be read by Jandex 3.6 and older, so it is only written on request
+    static final int DEFAULT_VERSION = 13;
 
     // babelfish (no h)
     private static final int MAGIC = 0xBABE1F15;
+    // set in the version byte when the rest of the index is compressed
+    private static final int COMPRESSED = 0x80;
     private static final byte NULL_TARGET_TAG = 0;
     private static final byte FIELD_TAG = 1;
     private static final byte METHOD_TAG = 2;
@@ -88,15 +96,24 @@ final class IndexWriterV2 extends IndexWriterImpl {
     private static final int NO_NESTING = 0;
     private static final int HAS_NESTING = 1;
 
-    private final OutputStream out;
-    private final int version;
+    final OutputStream out;
+    final boolean compressed;
+    final int version;
 
     private NameTable names;
     private HashMap<DotName, Integer> nameTable;
     private TreeMap<String, DotName> sortedNameTable;
-    private ReferenceTable<AnnotationInstance> annotationTable;
-    private ReferenceTable<Type> typeTable;
-    private ReferenceTable<Type[]> typeListTable;
+    ReferenceTable<AnnotationInstance> annotationTable;
+    ReferenceTable<Type> typeTable;
+    ReferenceTable<Type[]> typeListTable;
+
+    // offsets of entries relative to the start of the index body, only recorded for version 14+
+    private int[] methodOffsets;
+    private int[] fieldOffsets;
+    private int[] recordComponentOffsets;
+    private ClassInfo[] classesWritten;
+    private int[] classOffsets;
+    private int modulesOffset;
 
     static class ReferenceEntry {
         private int index;
@@ -110,9 +127,36 @@ final class IndexWriterV2 extends IndexWriterImpl {
     static class ReferenceTable<T> {
         private IdentityHashMap<T, ReferenceEntry> references = new IdentityHashMap<T, ReferenceEntry>();
         private List<T> table = new ArrayList<T>();
-        private int counter = 1;
+        private int counter;
+        // when not `null`, equal references share a single entry, so that the written index doesn't depend
+        // on whether equal objects were deduplicated in memory (for example, when merging indices created
+        // by multiple indexers, or when an indexer uses a shared name table concurrently with others)
+        private final StrongInternPool<T> canonical;
+
+        ReferenceTable() {
+            this(1, null);
+        }
+
+        ReferenceTable(StrongInternPool<T> canonical) {
+            this(1, canonical);
+        }
+
+        // positions start at `counter`, which allows a table to continue where another one ended
+        ReferenceTable(int counter) {
+            this(counter, null);
+        }
+
+        ReferenceTable(int counter, StrongInternPool<T> canonical) {
+            this.counter = counter;
+            this.canonical = canonical;
+        }
+
+        private T canonical(T reference) {
+            return canonical != null ? canonical.intern(reference) : reference;
+        }
 
         void addReference(T reference) {
+            reference = canonical(reference);
             if (references.containsKey(reference)) {
                 return;
             }
@@ -122,8 +166,12 @@ final class IndexWriterV2 extends IndexWriterImpl {
             table.add(reference);
         }
 
+        boolean contains(T reference) {
+            return references.containsKey(canonical(reference));
+        }
+
         private ReferenceEntry getReferenceEntry(T reference) {
-            ReferenceEntry entry = references.get(reference);
+            ReferenceEntry entry = references.get(canonical(reference));
             if (entry == null) {
                 throw new IllegalStateException("Missing in reference table: " + reference);
             }
@@ -154,6 +202,10 @@ final class IndexWriterV2 extends IndexWriterImpl {
         int size() {
             return references.size();
         }
+
+        int nextPosition() {
+            return counter;
+        }
     }
 
     /**
@@ -163,8 +215,20 @@ final class IndexWriterV2 extends IndexWriterImpl {
      * @param version the index file version
      */
     IndexWriterV2(OutputStream out, int version) {
+        this(out, version, false);
+    }
+
+    /**
+     * Constructs an IndexWriter using the specified stream
+     *
+     * @param out a stream to write an index to
+     * @param version the index file version
+     * @param compressed whether the index data following the header should be compressed
+     */
+    IndexWriterV2(OutputStream out, int version, boolean compressed) {
         this.out = out;
         this.version = version;
+        this.compressed = compressed;
     }
 
     /**
@@ -183,9 +247,68 @@ final class IndexWriterV2 extends IndexWriterImpl {
                     + IndexWriterV2.MIN_VERSION + "-" + IndexWriterV2.MAX_VERSION);
         }
 
-        PackedDataOutputStream stream = new PackedDataOutputStream(new BufferedOutputStream(out));
-        stream.writeInt(MAGIC);
-        stream.writeByte(version);
+        return write(stream -> writeData(stream, index));
+    }
+
+    interface DataWriter {
+        void write(PackedDataOutputStream stream) throws IOException;
+    }
+
+    /**
+     * Writes the index file header, followed by the index data written by given {@code data},
+     * which are compressed if requested.
+     *
+     * @return the number of bytes written to the stream
+     */
+    int write(DataWriter data) throws IOException {
+        PackedDataOutputStream headerStream = new PackedDataOutputStream(new BufferedOutputStream(out));
+        headerStream.writeInt(MAGIC);
+        headerStream.writeByte(compressed ? version | COMPRESSED : version);
+
+        if (!compressed) {
+            data.write(headerStream);
+            headerStream.flush();
+            return headerStream.size();
+        }
+
+        // everything after the header is a single deflate stream, see IndexReader.readVersion()
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            DeflaterOutputStream deflaterStream = new DeflaterOutputStream(headerStream, deflater, 8192);
+            PackedDataOutputStream stream = new PackedDataOutputStream(new BufferedOutputStream(deflaterStream));
+            data.write(stream);
+            stream.flush();
+            deflaterStream.finish();
+        } finally {
+            deflater.end();
+        }
+        headerStream.flush();
+        return headerStream.size();
+    }
+
+    private void writeData(PackedDataOutputStream stream, Index index) throws IOException {
+        if (version >= 14) {
+            // the directory precedes the body, but offsets are only known after writing the body,
+            // so the whole body is buffered in memory
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            PackedDataOutputStream bodyStream = new PackedDataOutputStream(body);
+            writeBody(bodyStream, index);
+            bodyStream.flush();
+
+            ByteArrayOutputStream directory = new ByteArrayOutputStream();
+            PackedDataOutputStream directoryStream = new PackedDataOutputStream(directory);
+            writeDirectory(directoryStream, index);
+            directoryStream.flush();
+
+            stream.writePackedU32(directory.size());
+            directory.writeTo(stream);
+            body.writeTo(stream);
+        } else {
+            writeBody(stream, index);
+        }
+    }
+
+    private void writeBody(PackedDataOutputStream stream, Index index) throws IOException {
         stream.writePackedU32(index.annotations.size());
         stream.writePackedU32(index.implementors.size());
         if (version >= 11) {
@@ -219,11 +342,79 @@ final class IndexWriterV2 extends IndexWriterImpl {
         writeClasses(stream, index);
 
         if (version >= 10) {
+            modulesOffset = stream.size();
             writeModules(stream, index);
         }
+    }
+
+    /**
+     * Writes the directory of the index body, which allows reading the index lazily.
+     * It contains:
+     * <ul>
+     * <li>offsets of all method, field and record component entries</li>
+     * <li>offset of the modules section</li>
+     * <li>class directory, sorted by class name; each entry contains the class name,
+     * flags, superclass type, interface types and offset of the class entry</li>
+     * <li>annotation directory, sorted by annotation name; each entry contains the annotation
+     * name and positions of all classes in the class directory that contain the annotation</li>
+     * </ul>
+     * All offsets are relative to the start of the body. All names and types are references
+     * to the tables in the body.
+     */
+    private void writeDirectory(PackedDataOutputStream stream, Index index) throws IOException {
+        writeOffsets(stream, methodOffsets);
+        writeOffsets(stream, fieldOffsets);
+        writeOffsets(stream, recordComponentOffsets);
+        stream.writePackedU32(modulesOffset);
+
+        int classesCount = classesWritten.length;
+        Integer[] sorted = new Integer[classesCount];
+        for (int i = 0; i < classesCount; i++) {
+            sorted[i] = i;
+        }
+        Arrays.sort(sorted, (a, b) -> classesWritten[a].name().compareTo(classesWritten[b].name()));
+
+        TreeMap<DotName, List<Integer>> annotations = new TreeMap<>();
+        stream.writePackedU32(classesCount);
+        for (int i = 0; i < classesCount; i++) {
+            ClassInfo clazz = classesWritten[sorted[i]];
+            stream.writePackedU32(positionOf(clazz.name()));
+            stream.writePackedU32(clazz.flags());
+            stream.writePackedU32(clazz.superClassType() == null ? 0 : positionOf(clazz.superClassType()));
+            stream.writePackedU32(positionOf(clazz.interfaceTypeArray()));
+            stream.writePackedU32(classOffsets[sorted[i]]);
+
+            for (Entry<DotName, List<AnnotationInstance>> entry : clazz.annotationsMap().entrySet()) {
+                if (!entry.getValue().isEmpty()) {
+                    annotations.computeIfAbsent(entry.getKey(), ignored -> new ArrayList<>()).add(i);
+                }
+            }
+        }
+
+        stream.writePackedU32(annotations.size());
+        for (Entry<DotName, List<Integer>> entry : annotations.entrySet()) {
+            stream.writePackedU32(positionOf(entry.getKey()));
+            stream.writePackedU32(entry.getValue().size());
+            int last = 0;
+            for (int position : entry.getValue()) {
+                stream.writePackedU32(position - last);
+                last = position;
+            }
+        }
+    }
+
+    static void writeOffsets(PackedDataOutputStream stream, int[] offsets) throws IOException {
+        if (offsets == null) {
+            stream.writePackedU32(0);
+            return;
+        }
 
-        stream.flush();
-        return stream.size();
+        stream.writePackedU32(offsets.length);
+        int last = 0;
+        for (int offset : offsets) {
+            stream.writePackedU32(offset - last);
+            last = offset;
+        }
     }
 
     private void writeUsersTable(PackedDataOutputStream stream, Map<DotName, ClassInfo[]> users) throws IOException {
@@ -240,7 +431,7 @@ final class IndexWriterV2 extends IndexWriterImpl {
         }
     }
 
-    private void writeStringTable(PackedDataOutputStream stream) throws IOException {
+    void writeStringTable(PackedDataOutputStream stream) throws IOException {
         StrongInternPool<String> stringPool = names.stringPool();
         stream.writePackedU32(stringPool.size());
         Iterator<String> iterator = stringPool.iterator();
@@ -250,7 +441,7 @@ final class IndexWriterV2 extends IndexWriterImpl {
         }
     }
 
-    private void writeByteTable(PackedDataOutputStream stream) throws IOException {
+    void writeByteTable(PackedDataOutputStream stream) throws IOException {
         StrongInternPool<byte[]> bytePool = names.bytePool();
         stream.writePackedU32(bytePool.size());
         Iterator<byte[]> iterator = bytePool.iterator();
@@ -268,7 +459,7 @@ final class IndexWriterV2 extends IndexWriterImpl {
         }
     }
 
-    private void writeTypeListTable(PackedDataOutputStream stream) throws IOException {
+    void writeTypeListTable(PackedDataOutputStream stream) throws IOException {
         List<Type[]> typeLists = typeListTable.list();
         for (Type[] types : typeLists) {
             if (markWritten(types)) {
@@ -288,44 +479,59 @@ final class IndexWriterV2 extends IndexWriterImpl {
         StrongInternPool<MethodInternal> methodPool = names.methodPool();
         stream.writePackedU32(methodPool.size());
         Iterator<MethodInternal> iterator = methodPool.iterator();
-        while (iterator.hasNext()) {
+        int[] offsets = version >= 14 ? new int[methodPool.size()] : null;
+        for (int i = 0; iterator.hasNext(); i++) {
+            if (offsets != null) {
+                offsets[i] = stream.size();
+            }
             writeMethodEntry(stream, iterator.next());
         }
+        methodOffsets = offsets;
     }
 
     private void writeFieldTable(PackedDataOutputStream stream) throws IOException {
         StrongInternPool<FieldInternal> fieldPool = names.fieldPool();
         stream.writePackedU32(fieldPool.size());
         Iterator<FieldInternal> iterator = fieldPool.iterator();
-        while (iterator.hasNext()) {
+        int[] offsets = version >= 14 ? new int[fieldPool.size()] : null;
+        for (int i = 0; iterator.hasNext(); i++) {
+            if (offsets != null) {
+                offsets[i] = stream.size();
+            }
             writeFieldEntry(stream, iterator.next());
         }
+        fieldOffsets = offsets;
     }
 
     private void writeRecordComponentTable(PackedDataOutputStream stream) throws IOException {
         StrongInternPool<RecordComponentInternal> recordComponentPool = names.recordComponentPool();
         stream.writePackedU32(recordComponentPool.size());
         Iterator<RecordComponentInternal> iterator = recordComponentPool.iterator();
-        while (iterator.hasNext()) {
+        int[] offsets = version >= 14 ? new int[recordComponentPool.size()] : null;
+        for (int i = 0; iterator.hasNext(); i++) {
+            if (offsets != null) {
+                offsets[i] = stream.size();
+            }
             writeRecordComponentEntry(stream, iterator.next());
         }
+        recordComponentOffsets = offsets;
     }
 
-    private void writeFieldEntry(PackedDataOutputStream stream, FieldInternal field) throws IOException {
+    void writeFieldEntry(PackedDataOutputStream stream, FieldInternal field) throws IOException {
         stream.writePackedU32(positionOf(field.nameBytes()));
         stream.writePackedU32(field.flags());
         stream.writePackedU32(positionOf(field.type()));
         writeAnnotations(stream, field.annotationArray());
     }
 
-    private void writeRecordComponentEntry(PackedDataOutputStream stream, RecordComponentInternal recordComponent)
+    void writeRecordComponentEntry(PackedDataOutputStream stream, RecordComponentInternal recordComponent)
             throws IOException {
         stream.writePackedU32(positionOf(recordComponent.nameBytes()));
         stream.writePackedU32(positionOf(recordComponent.type()));
         writeAnnotations(stream, recordComponent.annotationArray());
     }
 
-    private void writeMethodEntry(PackedDataOutputStream stream, MethodInternal method) throws IOException {
+    void writeMethodEntry(PackedDataOutputStream stream, MethodInternal method) throws IOException {
         stream.writePackedU32(positionOf(method.nameBytes()));
         stream.writePackedU32(method.flags());
         stream.writePackedU32(positionOf(method.typeParameterArray()));
@@ -429,7 +635,7 @@ final class IndexWriterV2 extends IndexWriterImpl {
         stream.writePackedU32(type == null ? 0 : positionOf(type));
     }
 
-    private void writeNameTable(PackedDataOutputStream stream) throws IOException {
+    void writeNameTable(PackedDataOutputStream stream) throws IOException {
         stream.writePackedU32(nameTable.size());
 
         // Zero is reserved for null
@@ -467,7 +673,7 @@ final class IndexWriterV2 extends IndexWriterImpl {
         }
     }
 
-    private int positionOf(String string) {
+    int positionOf(String string) {
         int pos = names.positionOf(string);
         if (pos < 1) {
             throw new IllegalStateException("Intern tables incomplete");
@@ -476,7 +682,7 @@ final class IndexWriterV2 extends IndexWriterImpl {
         return pos;
     }
 
-    private int positionOf(byte[] bytes) {
+    int positionOf(byte[] bytes) {
         int pos = names.positionOf(bytes);
         if (pos < 1) {
             throw new IllegalStateException("Intern tables incomplete");
@@ -484,7 +690,7 @@ final class IndexWriterV2 extends IndexWriterImpl {
         return pos;
     }
 
-    private int positionOf(MethodInternal method) {
+    int positionOf(MethodInternal method) {
         int pos = names.positionOf(method);
         if (pos < 1) {
             throw new IllegalStateException("Intern tables incomplete");
@@ -492,7 +698,7 @@ final class IndexWriterV2 extends IndexWriterImpl {
         return pos;
     }
 
-    private int positionOf(FieldInternal field) {
+    int positionOf(FieldInternal field) {
         int pos = names.positionOf(field);
         if (pos < 1) {
             throw new IllegalStateException("Intern tables incomplete");
@@ -500,7 +706,7 @@ final class IndexWriterV2 extends IndexWriterImpl {
         return pos;
     }
 
-    private int positionOf(RecordComponentInternal recordComponent) {
+    int positionOf(RecordComponentInternal recordComponent) {
         int pos = names.positionOf(recordComponent);
         if (pos < 1) {
             throw new IllegalStateException("Intern tables incomplete");
@@ -508,7 +714,7 @@ final class IndexWriterV2 extends IndexWriterImpl {
         return pos;
     }
 
-    private int positionOf(DotName className) {
+    int positionOf(DotName className) {
         Integer i = nameTable.get(className);
         if (i == null)
             throw new IllegalStateException("Class not found in class table: " + className);
@@ -516,11 +722,11 @@ final class IndexWriterV2 extends IndexWriterImpl {
         return i.intValue();
     }
 
-    private int positionOf(Type type) {
+    int positionOf(Type type) {
         return typeTable.positionOf(type);
     }
 
-    private int positionOf(Type[] types) {
+    int positionOf(Type[] types) {
         return typeListTable.positionOf(types);
     }
 
@@ -539,7 +745,17 @@ final class IndexWriterV2 extends IndexWriterImpl {
     private void writeClasses(PackedDataOutputStream stream, Index index) throws IOException {
         Collection<ClassInfo> classes = index.getKnownClasses();
         stream.writePackedU32(classes.size());
+        if (version >= 14) {
+            classesWritten = new ClassInfo[classes.size()];
+            classOffsets = new int[classes.size()];
+        }
+        int i = 0;
         for (ClassInfo clazz : classes) {
+            if (classOffsets != null) {
+                classesWritten[i] = clazz;
+                classOffsets[i] = stream.size();
+                i++;
+            }
             writeClassEntry(stream, clazz);
         }
     }
@@ -555,7 +771,7 @@ final class IndexWriterV2 extends IndexWriterImpl {
         }
     }
 
-    private void writeClassEntry(PackedDataOutputStream stream, ClassInfo clazz) throws IOException {
+    void writeClassEntry(PackedDataOutputStream stream, ClassInfo clazz) throws IOException {
         stream.writePackedU32(positionOf(clazz.name()));
         stream.writePackedU32(clazz.flags());
         if (version >= 11) {
@@ -656,7 +872,7 @@ final class IndexWriterV2 extends IndexWriterImpl {
         }
     }
 
-    private void writeModuleEntry(PackedDataOutputStream stream, ModuleInfo module) throws IOException {
+    void writeModuleEntry(PackedDataOutputStream stream, ModuleInfo module) throws IOException {
         stream.writePackedU32(positionOf(module.name()));
         stream.writePackedU32(module.flags());
         stream.writePackedU32(module.version() == null ? 0 : positionOf(module.version()));
@@ -837,7 +1053,7 @@ final class IndexWriterV2 extends IndexWriterImpl {
         }
     }
 
-    private void writeTypeEntry(PackedDataOutputStream stream, Type type) throws IOException {
+    void writeTypeEntry(PackedDataOutputStream stream, Type type) throws IOException {
         if (version < 11 && type.kind() == Type.Kind.TYPE_VARIABLE_REFERENCE) {
             // Jandex 2 doesn't have the concept of type variable references
             stream.writeByte(Type.Kind.UNRESOLVED_TYPE_VARIABLE.ordinal());
@@ -903,8 +1119,8 @@ final class IndexWriterV2 extends IndexWriterImpl {
         sortedNameTable = new TreeMap<String, DotName>();
 
         annotationTable = new ReferenceTable<AnnotationInstance>();
-        typeTable = new ReferenceTable<Type>();
-        typeListTable = new ReferenceTable<Type[]>();
+        typeTable = new ReferenceTable<Type>(StrongInternPool.forTypes());
+        typeListTable = new ReferenceTable<Type[]>(StrongInternPool.forTypeArrays());
         names = new NameTable();
 
         // Build the stringPool for all strings
@@ -929,7 +1145,7 @@ final class IndexWriterV2 extends IndexWriterImpl {
         }
     }
 
-    private void addClass(ClassInfo clazz) {
+    void addClass(ClassInfo clazz) {
         addClassName(clazz.name());
         if (clazz.superName() != null)
             addClassName(clazz.superName());
@@ -961,13 +1177,13 @@ final class IndexWriterV2 extends IndexWriterImpl {
         }
 
         addMethodList(clazz.methodArray());
-        names.intern(clazz.methodPositionArray());
+        addBytes(clazz.methodPositionArray());
 
         addFieldList(clazz.fieldArray());
-        names.intern(clazz.fieldPositionArray());
+        addBytes(clazz.fieldPositionArray());
 
         addRecordComponentList(clazz.recordComponentArray());
-        names.intern(clazz.recordComponentPositionArray());
+        addBytes(clazz.recordComponentPositionArray());
 
         for (Entry<DotName, List<AnnotationInstance>> entry : clazz.annotationsMap().entrySet()) {
             addClassName(entry.getKey());
@@ -978,7 +1194,7 @@ final class IndexWriterV2 extends IndexWriterImpl {
         }
     }
 
-    private void addModule(ModuleInfo module) {
+    void addModule(ModuleInfo module) {
         addClassName(module.name());
         addNullableString(module.version());
         DotName mainClass = module.mainClass();
@@ -1033,8 +1249,8 @@ final class IndexWriterV2 extends IndexWriterImpl {
 
     private void deepIntern(FieldInternal field) {
         addType(field.type());
-        names.intern(field.nameBytes());
-        names.intern(field);
+        addBytes(field.nameBytes());
+        addMember(field);
     }
 
     private void addMethodList(MethodInternal[] methods) {
@@ -1055,10 +1271,10 @@ final class IndexWriterV2 extends IndexWriterImpl {
             buildAValueEntries(defaultValue);
         }
         for (byte[] parameterName : method.parameterNamesBytes()) {
-            names.intern(parameterName);
+            addBytes(parameterName);
         }
-        names.intern(method.nameBytes());
-        names.intern(method);
+        addBytes(method.nameBytes());
+        addMember(method);
     }
 
     private void addRecordComponentList(RecordComponentInternal[] recordComponents) {
@@ -1069,8 +1285,8 @@ final class IndexWriterV2 extends IndexWriterImpl {
 
     private void deepIntern(RecordComponentInternal recordComponent) {
         addType(recordComponent.type());
-        names.intern(recordComponent.nameBytes());
-        names.intern(recordComponent);
+        addBytes(recordComponent.nameBytes());
+        addMember(recordComponent);
     }
 
     private void addEnclosingMethod(ClassInfo.EnclosingMethodInfo enclosingMethod) {
@@ -1092,7 +1308,7 @@ final class IndexWriterV2 extends IndexWriterImpl {
         typeListTable.addReference(types);
     }
 
-    private void addType(Type type) {
+    void addType(Type type) {
         if (type == null) {
             return;
         }
@@ -1163,6 +1379,23 @@ final class IndexWriterV2 extends IndexWriterImpl {
         }
     }
 
+    void addBytes(byte[] bytes) {
+        names.intern(bytes);
+    }
+
+    // adds a method, field or record component to the table of its kind
+    void addMember(MethodInternal method) {
+        names.intern(method);
+    }
+
+    void addMember(FieldInternal field) {
+        names.intern(field);
+    }
+
+    void addMember(RecordComponentInternal recordComponent) {
+        names.intern(recordComponent);
+    }
+
     private String addNullableString(String name) {
         if (name != null) {
             return addString(name);
@@ -1170,7 +1403,7 @@ final class IndexWriterV2 extends IndexWriterImpl {
         return null;
     }
 
-    private String addString(String name) {
+    String addString(String name) {
         return names.intern(name);
     }
 
@@ -1180,7 +1413,7 @@ final class IndexWriterV2 extends IndexWriterImpl {
         }
     }
 
-    private void addClassName(DotName name) {
+    void addClassName(DotName name) {
         if (!nameTable.containsKey(name)) {
             addString(name.local());
             nameTable.put(name, null);
@@ -21,14 +21,17 @@ package org.jboss.jandex;
 import static org.jboss.jandex.ClassInfo.EnclosingMethodInfo;
 
 import java.io.ByteArrayInputStream;
+import java.io.DataInput;
 import java.io.DataInputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Deque;
@@ -66,6 +69,7 @@ import java.util.Set;
  * <p>
  * <b>Thread-Safety</b> This class is not thread-safe can <b>not</b> be
  * shared between threads. The index it produces however is thread-safe.
+ * To index class files on multiple threads, use {@link ParallelIndexer}.
  *
  * @author Jason T. Greene
  *
@@ -307,23 +311,16 @@ public final class Indexer {
         return minLength;
     }
 
-    private static void skipFully(InputStream s, long n) throws IOException {
-        long skipped;
-        long total = 0;
+    private static void skipFully(DataInput data, long n) throws IOException {
+        while (n > 0) {
+            int skipped = data.skipBytes((int) Math.min(n, Integer.MAX_VALUE));
 
-        while (total < n) {
-            skipped = s.skip(n - total);
-            if (skipped < 0)
-                throw new EOFException();
-            total += skipped;
-
-            // Skip is not guaranteed to distinguish between EOF and nothing-read
-            if (skipped == 0) {
-                if (s.read() < 0) {
-                    throw new EOFException();
-                }
-                total++;
+            // skipBytes is not guaranteed to distinguish between EOF and nothing-skipped
+            if (skipped <= 0) {
+                data.readByte(); // throws EOFException at the end of data
+                skipped = 1;
             }
+            n -= skipped;
         }
     }
 
@@ -393,8 +390,12 @@ public final class Indexer {
     // Class lifespan fields
     private int constantPoolSize;
     private byte[] constantPool;
+    // whether `constantPool` is the array that contains the class file, which must not be reused
+    private boolean constantPoolInPlace;
     private int[] constantPoolOffsets;
     private byte[] constantPoolAnnoAttrributes;
+    // whether the constant pool contains a descriptor of one of the `prefilterDescriptors`
+    private boolean prefilterMatched;
 
     // note that for reproducibility, we have to establish a predictable iteration order for all `Map`s
     // below that we iterate upon (fortunately, that's not too many)
@@ -429,9 +430,103 @@ public final class Indexer {
     // iteration: `DotName` has predictable `equals`/`hashCode`, which implies predictable iteration order
     // iteration: the `Set`s in map values must be linked sets for predictable iteration order
     private Map<DotName, Set<ClassInfo>> users;
+    // classes of a previous index that are retained when completing an update, see `completeUpdate()`
+    private Map<DotName, ClassInfo> retainedClasses;
+    // name tables of indexers whose state was transferred to this indexer, see `mergeFrom()`
+    private IdentityHashMap<ClassInfo, NameTable> mergedNames;
     private NameTable names;
     private GenericSignatureParser signatureParser;
     private final TmpObjects tmpObjects = new TmpObjects();
+    // optional, shared with other indexers and index readers
+    private final SharedNameTable sharedNames;
+    private final IndexerOptions options;
+    // bit set of the `HAS_*` attribute kinds that are not analyzed, see `IndexerOptions`
+    private final int skippedAttributes;
+    // descriptors of the annotations from `IndexerOptions.prefilterAnnotations()`, `null` if there are none
+    private final byte[][] prefilterDescriptors;
+
+    /**
+     * Creates an indexer that deduplicates names, strings and types only within the index it produces.
+     */
+    public Indexer() {
+        this(null, IndexerOptions.defaults());
+    }
+
+    /**
+     * Creates an indexer that deduplicates names, strings and types using given {@code sharedNames}
+     * table, so that the index it produces shares these objects with other indices created using
+     * the same table.
+     *
+     * @param sharedNames the shared name table, must not be {@code null}
+     * @since 3.7
+     */
+    public Indexer(SharedNameTable sharedNames) {
+        this(sharedNames, IndexerOptions.defaults());
+        if (sharedNames == null) {
+            throw new IllegalArgumentException("sharedNames cannot be null");
+        }
+    }
+
+    /**
+     * Creates an indexer that analyzes the information selected by given {@code options}. If {@code sharedNames}
+     * is not {@code null}, names, strings and types are deduplicated using that table, otherwise they are only
+     * deduplicated within the index this indexer produces.
+     *
+     * @param sharedNames the shared name table, may be {@code null}
+     * @param options the indexer options, must not be {@code null}
+     * @see #Indexer(SharedNameTable)
+     * @since 3.7
+     */
+    public Indexer(SharedNameTable sharedNames, IndexerOptions options) {
+        if (options == null) {
+            throw new IllegalArgumentException("options cannot be null");
+        }
+        this.sharedNames = sharedNames;
+        this.options = options;
+        this.skippedAttributes = skippedAttributes(options);
+        this.prefilterDescriptors = prefilterDescriptors(options);
+    }
+
+    private static byte[][] prefilterDescriptors(IndexerOptions options) {
+        if (options.prefilterAnnotations() == null) {
+            return null;
+        }
+        List<byte[]> result = new ArrayList<>();
+        for (DotName annotation : options.prefilterAnnotations()) {
+            result.add(Utils.toUTF8("L" + annotation.toString('/') + ";"));
+        }
+        return result.toArray(new byte[result.size()][]);
+    }
+
+    private boolean matchesPrefilter(byte[] buf, int offset, int len) {
+        if (len < 3 || buf[offset] != 'L' || buf[offset + len - 1] != ';') {
+            return false;
+        }
+        for (byte[] descriptor : prefilterDescriptors) {
+            if (descriptor.length == len && match(buf, offset, descriptor)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int skippedAttributes(IndexerOptions options) {
+        int result = 0;
+        if (!options.indexesParameterNames()) {
+            result |= 1 << HAS_METHOD_PARAMETERS | 1 << HAS_CODE | 1 << HAS_LOCAL_VARIABLE_TABLE;
+        }
+        if (!options.indexesTypeAnnotations()) {
+            result |= 1 << HAS_RUNTIME_TYPE_ANNOTATION | 1 << HAS_RUNTIME_INVISIBLE_TYPE_ANNOTATION;
+        }
+        if (!options.indexesGenericSignatures()) {
+            result |= 1 << HAS_SIGNATURE;
+        }
+        if (!options.indexesInvisibleAnnotations()) {
+            result |= 1 << HAS_RUNTIME_INVISIBLE_ANNOTATION | 1 << HAS_RUNTIME_INVISIBLE_PARAM_ANNOTATION
+                    | 1 << HAS_RUNTIME_INVISIBLE_TYPE_ANNOTATION;
+        }
+        return result;
+    }
 
     private void initIndexMaps() {
         if (masterAnnotations == null)
@@ -456,7 +551,7 @@ public final class Indexer {
             users = new HashMap<DotName, Set<ClassInfo>>();
 
         if (names == null)
-            names = new NameTable();
+            names = new NameTable(sharedNames);
 
         if (signatureParser == null) {
             signatureParser = new GenericSignatureParser(names);
@@ -478,7 +573,7 @@ public final class Indexer {
         methodParams = new IdentityHashMap<>();
     }
 
-    private void processMethodInfo(DataInputStream data) throws IOException {
+    private void processMethodInfo(DataInput data) throws IOException {
         int numMethods = data.readUnsignedShort();
         List<MethodInfo> methods = numMethods > 0 ? new ArrayList<MethodInfo>(numMethods)
                 : Collections.<MethodInfo> emptyList();
@@ -516,7 +611,7 @@ public final class Indexer {
         this.methods = methods;
     }
 
-    private void processFieldInfo(DataInputStream data) throws IOException {
+    private void processFieldInfo(DataInput data) throws IOException {
         int numFields = data.readUnsignedShort();
         List<FieldInfo> fields = numFields > 0 ? new ArrayList<FieldInfo>(numFields) : Collections.<FieldInfo> emptyList();
         for (int i = 0; i < numFields; i++) {
@@ -533,7 +628,7 @@ public final class Indexer {
         this.fields = fields;
     }
 
-    private void processRecordComponents(DataInputStream data) throws IOException {
+    private void processRecordComponents(DataInput data) throws IOException {
         int numComponents = data.readUnsignedShort();
         List<RecordComponentInfo> recordComponents = numComponents > 0 ? new ArrayList<RecordComponentInfo>(numComponents)
                 : Collections.<RecordComponentInfo> emptyList();
@@ -550,7 +645,40 @@ public final class Indexer {
         this.recordComponents = recordComponents;
     }
 
-    private void processPermittedSubclasses(DataInputStream data, ClassInfo target) throws IOException {
+    // skips the fields or methods of a class
+    private static void skipMembers(DataInput data) throws IOException {
+        int numMembers = data.readUnsignedShort();
+        for (int i = 0; i < numMembers; i++) {
+            skipFully(data, 6); // 2 bytes for `access_flags` + 2 bytes for `name_index` + 2 bytes for `descriptor_index`
+            int numAttrs = data.readUnsignedShort();
+            for (int a = 0; a < numAttrs; a++) {
+                skipFully(data, 2); // `attribute_name_index`
+                skipFully(data, data.readInt() & 0xFFFFFFFFL);
+            }
+        }
+    }
+
+    // like `processAttributes`, but only for the class attributes that are recorded for stubs
+    private void processStubAttributes(DataInput data, ClassInfo target) throws IOException {
+        int numAttrs = data.readUnsignedShort();
+        byte[] constantPoolAnnoAttrributes = this.constantPoolAnnoAttrributes;
+        for (int a = 0; a < numAttrs; a++) {
+            int index = data.readUnsignedShort();
+            long attributeLen = data.readInt() & 0xFFFFFFFFL;
+            byte annotationAttribute = constantPoolAnnoAttrributes[index - 1];
+            if (annotationAttribute == HAS_SIGNATURE) {
+                processSignature(data, target);
+            } else if (annotationAttribute == HAS_INNER_CLASSES) {
+                processInnerClasses(data, target);
+            } else if (annotationAttribute == HAS_ENCLOSING_METHOD) {
+                processEnclosingMethod(data, target);
+            } else {
+                skipFully(data, attributeLen);
+            }
+        }
+    }
+
+    private void processPermittedSubclasses(DataInput data, ClassInfo target) throws IOException {
         int numPermittedSubclasses = data.readUnsignedShort();
         if (numPermittedSubclasses > 0) {
             Set<DotName> permittedSubclasses = new HashSet<>(numPermittedSubclasses);
@@ -562,7 +690,7 @@ public final class Indexer {
         }
     }
 
-    private void processAttributes(DataInputStream data, AnnotationTarget target) throws IOException {
+    private void processAttributes(DataInput data, AnnotationTarget target) throws IOException {
         int numAttrs = data.readUnsignedShort();
         byte[] constantPoolAnnoAttrributes = this.constantPoolAnnoAttrributes;
         for (int a = 0; a < numAttrs; a++) {
@@ -625,7 +753,7 @@ public final class Indexer {
         }
     }
 
-    private void processModule(DataInputStream data, ClassInfo target) throws IOException {
+    private void processModule(DataInput data, ClassInfo target) throws IOException {
         if (!target.isModule()) {
             throw new IllegalStateException("Module attribute appeared in a non-module class file");
         }
@@ -645,7 +773,7 @@ public final class Indexer {
         modules.put(moduleName, module);
     }
 
-    private List<ModuleInfo.RequiredModuleInfo> processModuleRequires(DataInputStream data) throws IOException {
+    private List<ModuleInfo.RequiredModuleInfo> processModuleRequires(DataInput data) throws IOException {
         int requiresCount = data.readUnsignedShort();
         List<ModuleInfo.RequiredModuleInfo> requires = Utils.listOfCapacity(requiresCount);
 
@@ -659,7 +787,7 @@ public final class Indexer {
         return requires;
     }
 
-    private List<ModuleInfo.ExportedPackageInfo> processModuleExports(DataInputStream data) throws IOException {
+    private List<ModuleInfo.ExportedPackageInfo> processModuleExports(DataInput data) throws IOException {
         int exportsCount = data.readUnsignedShort();
         List<ModuleInfo.ExportedPackageInfo> exports = Utils.listOfCapacity(exportsCount);
 
@@ -679,7 +807,7 @@ public final class Indexer {
         return exports;
     }
 
-    private List<ModuleInfo.OpenedPackageInfo> processModuleOpens(DataInputStream data) throws IOException {
+    private List<ModuleInfo.OpenedPackageInfo> processModuleOpens(DataInput data) throws IOException {
         int opensCount = data.readUnsignedShort();
         List<ModuleInfo.OpenedPackageInfo> opens = Utils.listOfCapacity(opensCount);
 
@@ -699,7 +827,7 @@ public final class Indexer {
         return opens;
     }
 
-    private List<DotName> processModuleUses(DataInputStream data) throws IOException {
+    private List<DotName> processModuleUses(DataInput data) throws IOException {
         int usesCount = data.readUnsignedShort();
         List<DotName> usesServices = Utils.listOfCapacity(usesCount);
 
@@ -710,7 +838,7 @@ public final class Indexer {
         return usesServices;
     }
 
-    private List<ModuleInfo.ProvidedServiceInfo> processModuleProvides(DataInputStream data) throws IOException {
+    private List<ModuleInfo.ProvidedServiceInfo> processModuleProvides(DataInput data) throws IOException {
         int providesCount = data.readUnsignedShort();
         List<ModuleInfo.ProvidedServiceInfo> provides = Utils.listOfCapacity(providesCount);
 
@@ -729,7 +857,7 @@ public final class Indexer {
         return provides;
     }
 
-    private void processModulePackages(DataInputStream data, ClassInfo target) throws IOException {
+    private void processModulePackages(DataInput data, ClassInfo target) throws IOException {
         if (!target.isModule()) {
             throw new IllegalStateException("ModulePackages attribute appeared in a non-module class file");
         }
@@ -744,7 +872,7 @@ public final class Indexer {
         this.modulePackages = packages;
     }
 
-    private void processModuleMainClass(DataInputStream data, ClassInfo target) throws IOException {
+    private void processModuleMainClass(DataInput data, ClassInfo target) throws IOException {
         if (!target.isModule()) {
             throw new IllegalStateException("ModuleMainClass attribute appeared in a non-module class file");
         }
@@ -752,7 +880,7 @@ public final class Indexer {
         this.moduleMainClass = decodeClassEntry(data.readUnsignedShort());
     }
 
-    private void processCode(DataInputStream data, MethodInfo target) throws IOException {
+    private void processCode(DataInput data, MethodInfo target) throws IOException {
         data.skipBytes(4); // 2 bytes for `maxStack` + 2 bytes for `maxLocals`
         long h = data.readUnsignedShort();
         long l = data.readUnsignedShort();
@@ -774,17 +902,17 @@ public final class Indexer {
         }
     }
 
-    private void processAnnotationDefault(DataInputStream data, MethodInfo target) throws IOException {
+    private void processAnnotationDefault(DataInput data, MethodInfo target) throws IOException {
         target.setDefaultValue(processAnnotationElementValue(target.name(), data));
     }
 
-    private void processAnnotations(DataInputStream data, AnnotationTarget target, boolean visible) throws IOException {
+    private void processAnnotations(DataInput data, AnnotationTarget target, boolean visible) throws IOException {
         int numAnnotations = data.readUnsignedShort();
         while (numAnnotations-- > 0)
             processAnnotation(data, target, visible);
     }
 
-    private void processInnerClasses(DataInputStream data, ClassInfo target) throws IOException {
+    private void processInnerClasses(DataInput data, ClassInfo target) throws IOException {
         int numClasses = data.readUnsignedShort();
         innerClasses = numClasses > 0 ? new HashMap<>(numClasses) : Collections.emptyMap();
         Set<DotName> memberClasses = new HashSet<>();
@@ -811,7 +939,7 @@ public final class Indexer {
         }
     }
 
-    private void processMethodParameters(DataInputStream data, MethodInfo target) throws IOException {
+    private void processMethodParameters(DataInput data, MethodInfo target) throws IOException {
         int numParameters = data.readUnsignedByte();
         if (target.parametersCount() > 255) {
             // the Kotlin compiler happily generates methods with more than 255 parameters,
@@ -832,7 +960,7 @@ public final class Indexer {
         }
     }
 
-    private void processLocalVariableTable(DataInputStream data, MethodInfo target) throws IOException {
+    private void processLocalVariableTable(DataInput data, MethodInfo target) throws IOException {
         int numVariables = data.readUnsignedShort();
         int numParameters = 0;
         for (int i = 0; i < numVariables; i++) {
@@ -877,7 +1005,7 @@ public final class Indexer {
         }
     }
 
-    private void processEnclosingMethod(DataInputStream data, ClassInfo target) throws IOException {
+    private void processEnclosingMethod(DataInput data, ClassInfo target) throws IOException {
         int classIndex = data.readUnsignedShort();
         int index = data.readUnsignedShort();
 
@@ -899,7 +1027,7 @@ public final class Indexer {
         target.setEnclosingMethod(method);
     }
 
-    private void processTypeAnnotations(DataInputStream data, AnnotationTarget target, boolean visible) throws IOException {
+    private void processTypeAnnotations(DataInput data, AnnotationTarget target, boolean visible) throws IOException {
         int numAnnotations = data.readUnsignedShort();
         List<TypeAnnotationState> annotations = new ArrayList<>(numAnnotations);
 
@@ -918,7 +1046,7 @@ public final class Indexer {
         }
     }
 
-    private TypeAnnotationState processTypeAnnotation(DataInputStream data, AnnotationTarget target, boolean visible)
+    private TypeAnnotationState processTypeAnnotation(DataInput data, AnnotationTarget target, boolean visible)
             throws IOException {
         int targetType = data.readUnsignedByte();
         TypeTarget typeTarget = null;
@@ -1950,7 +2078,7 @@ public final class Indexer {
         boolean bool;
     }
 
-    private ArrayList<PathElement> processTargetPath(DataInputStream data, BooleanHolder genericsRequired,
+    private ArrayList<PathElement> processTargetPath(DataInput data, BooleanHolder genericsRequired,
             BooleanHolder bridgeIncompatible) throws IOException {
         int numElements = data.readUnsignedByte();
 
@@ -1970,12 +2098,12 @@ public final class Indexer {
         return elements;
     }
 
-    private void skipTargetPath(DataInputStream data) throws IOException {
+    private void skipTargetPath(DataInput data) throws IOException {
         int numElements = data.readUnsignedByte();
         skipFully(data, numElements * 2);
     }
 
-    private void processExceptions(DataInputStream data, MethodInfo target) throws IOException {
+    private void processExceptions(DataInput data, MethodInfo target) throws IOException {
         int numExceptions = data.readUnsignedShort();
 
         Type[] exceptions = numExceptions <= 0 ? Type.EMPTY_ARRAY : new Type[numExceptions];
@@ -1989,7 +2117,7 @@ public final class Indexer {
         }
     }
 
-    private void processSignature(DataInputStream data, AnnotationTarget target) throws IOException {
+    private void processSignature(DataInput data, AnnotationTarget target) throws IOException {
         String signature = decodeUtf8Entry(data.readUnsignedShort());
         if (target instanceof ClassInfo) {
             classSignatureIndex = signatures.size();
@@ -2090,7 +2218,7 @@ public final class Indexer {
         recordComponent.setType(type);
     }
 
-    private AnnotationInstance processAnnotation(DataInputStream data, AnnotationTarget target, boolean visible)
+    private AnnotationInstance processAnnotation(DataInput data, AnnotationTarget target, boolean visible)
             throws IOException {
         String annotation = convertClassFieldDescriptor(decodeUtf8Entry(data.readUnsignedShort()));
         int valuePairs = data.readUnsignedShort();
@@ -2155,7 +2283,7 @@ public final class Indexer {
         return names.intern(type);
     }
 
-    private AnnotationValue processAnnotationElementValue(String name, DataInputStream data) throws IOException {
+    private AnnotationValue processAnnotationElementValue(String name, DataInput data) throws IOException {
         int tag = data.readUnsignedByte();
         switch (tag) {
             case 'B':
@@ -2202,7 +2330,7 @@ public final class Indexer {
 
     }
 
-    private void processClassInfo(DataInputStream data) throws IOException {
+    private void processClassInfo(DataInput data) throws IOException {
         short flags = (short) data.readUnsignedShort();
         DotName thisName = decodeClassEntry(data.readUnsignedShort());
         int superIndex = data.readUnsignedShort();
@@ -2267,13 +2395,13 @@ public final class Indexer {
         list.add(currentClass);
     }
 
-    private boolean isJDK11OrNewer(DataInputStream stream) throws IOException {
+    private boolean isJDK11OrNewer(DataInput stream) throws IOException {
         int minor = stream.readUnsignedShort();
         int major = stream.readUnsignedShort();
         return major > 45 || (major == 45 && minor >= 3);
     }
 
-    private void verifyMagic(DataInputStream stream) throws IOException {
+    private void verifyMagic(DataInput stream) throws IOException {
         final int magic;
         try {
             magic = stream.readInt();
@@ -2497,7 +2625,76 @@ public final class Indexer {
         }
     }
 
-    private boolean processConstantPool(DataInputStream stream) throws IOException {
+    // attributes that are skipped per the `IndexerOptions` are treated as unknown attributes
+    private byte attributeKind(byte[] buf, int offset, int len) {
+        byte kind = attributeNameKind(buf, offset, len);
+        return (skippedAttributes & 1 << kind) != 0 ? 0 : kind;
+    }
+
+    private static byte attributeNameKind(byte[] buf, int offset, int len) {
+        if (len == RUNTIME_ANNOTATIONS_LEN && match(buf, offset, RUNTIME_ANNOTATIONS)) {
+            return HAS_RUNTIME_ANNOTATION;
+        }
+        if (len == RUNTIME_PARAM_ANNOTATIONS_LEN && match(buf, offset, RUNTIME_PARAM_ANNOTATIONS)) {
+            return HAS_RUNTIME_PARAM_ANNOTATION;
+        }
+        if (len == RUNTIME_TYPE_ANNOTATIONS_LEN && match(buf, offset, RUNTIME_TYPE_ANNOTATIONS)) {
+            return HAS_RUNTIME_TYPE_ANNOTATION;
+        }
+        if (len == SIGNATURE_LEN && match(buf, offset, SIGNATURE)) {
+            return HAS_SIGNATURE;
+        }
+        if (len == EXCEPTIONS_LEN && match(buf, offset, EXCEPTIONS)) {
+            return HAS_EXCEPTIONS;
+        }
+        if (len == INNER_CLASSES_LEN && match(buf, offset, INNER_CLASSES)) {
+            return HAS_INNER_CLASSES;
+        }
+        if (len == ENCLOSING_METHOD_LEN && match(buf, offset, ENCLOSING_METHOD)) {
+            return HAS_ENCLOSING_METHOD;
+        }
+        if (len == ANNOTATION_DEFAULT_LEN && match(buf, offset, ANNOTATION_DEFAULT)) {
+            return HAS_ANNOTATION_DEFAULT;
+        }
+        if (len == METHOD_PARAMETERS_LEN && match(buf, offset, METHOD_PARAMETERS)) {
+            return HAS_METHOD_PARAMETERS;
+        }
+        if (len == LOCAL_VARIABLE_TABLE_LEN && match(buf, offset, LOCAL_VARIABLE_TABLE)) {
+            return HAS_LOCAL_VARIABLE_TABLE;
+        }
+        if (len == CODE_LEN && match(buf, offset, CODE)) {
+            return HAS_CODE;
+        }
+        if (len == MODULE_LEN && match(buf, offset, MODULE)) {
+            return HAS_MODULE;
+        }
+        if (len == MODULE_PACKAGES_LEN && match(buf, offset, MODULE_PACKAGES)) {
+            return HAS_MODULE_PACKAGES;
+        }
+        if (len == MODULE_MAIN_CLASS_LEN && match(buf, offset, MODULE_MAIN_CLASS)) {
+            return HAS_MODULE_MAIN_CLASS;
+        }
+        if (len == RECORD_LEN && match(buf, offset, RECORD)) {
+            return HAS_RECORD;
+        }
+        if (len == RUNTIME_INVISIBLE_ANNOTATIONS_LEN && match(buf, offset, RUNTIME_INVISIBLE_ANNOTATIONS)) {
+            return HAS_RUNTIME_INVISIBLE_ANNOTATION;
+        }
+        if (len == RUNTIME_INVISIBLE_PARAM_ANNOTATIONS_LEN
+                && match(buf, offset, RUNTIME_INVISIBLE_PARAM_ANNOTATIONS)) {
+            return HAS_RUNTIME_INVISIBLE_PARAM_ANNOTATION;
+        }
+        if (len == RUNTIME_INVISIBLE_TYPE_ANNOTATIONS_LEN
+                && match(buf, offset, RUNTIME_INVISIBLE_TYPE_ANNOTATIONS)) {
+            return HAS_RUNTIME_INVISIBLE_TYPE_ANNOTATION;
+        }
+        if (len == PERMITTED_SUBCLASSES_LEN && match(buf, offset, PERMITTED_SUBCLASSES)) {
+            return HAS_PERMITTED_SUBCLASSES;
+        }
+        return 0;
+    }
+
+    private boolean processConstantPool(DataInput stream) throws IOException {
         int size = stream.readUnsignedShort() - 1;
         byte[] buf = tmpObjects.borrowConstantPool(size);
         byte[] annoAttributes = tmpObjects.borrowConstantPoolAnnoAttributes(size);
@@ -2553,49 +2750,12 @@ public final class Indexer {
                     buf[offset++] = (byte) len;
 
                     stream.readFully(buf, offset, len);
-                    if (len == RUNTIME_ANNOTATIONS_LEN && match(buf, offset, RUNTIME_ANNOTATIONS)) {
-                        annoAttributes[pos] = HAS_RUNTIME_ANNOTATION;
-                        hasAnnotations = true;
-                    } else if (len == RUNTIME_PARAM_ANNOTATIONS_LEN && match(buf, offset, RUNTIME_PARAM_ANNOTATIONS)) {
-                        annoAttributes[pos] = HAS_RUNTIME_PARAM_ANNOTATION;
-                        hasAnnotations = true;
-                    } else if (len == RUNTIME_TYPE_ANNOTATIONS_LEN && match(buf, offset, RUNTIME_TYPE_ANNOTATIONS)) {
-                        annoAttributes[pos] = HAS_RUNTIME_TYPE_ANNOTATION;
-                    } else if (len == SIGNATURE_LEN && match(buf, offset, SIGNATURE)) {
-                        annoAttributes[pos] = HAS_SIGNATURE;
-                    } else if (len == EXCEPTIONS_LEN && match(buf, offset, EXCEPTIONS)) {
-                        annoAttributes[pos] = HAS_EXCEPTIONS;
-                    } else if (len == INNER_CLASSES_LEN && match(buf, offset, INNER_CLASSES)) {
-                        annoAttributes[pos] = HAS_INNER_CLASSES;
-                    } else if (len == ENCLOSING_METHOD_LEN && match(buf, offset, ENCLOSING_METHOD)) {
-                        annoAttributes[pos] = HAS_ENCLOSING_METHOD;
-                    } else if (len == ANNOTATION_DEFAULT_LEN && match(buf, offset, ANNOTATION_DEFAULT)) {
-                        annoAttributes[pos] = HAS_ANNOTATION_DEFAULT;
-                    } else if (len == METHOD_PARAMETERS_LEN && match(buf, offset, METHOD_PARAMETERS)) {
-                        annoAttributes[pos] = HAS_METHOD_PARAMETERS;
-                    } else if (len == LOCAL_VARIABLE_TABLE_LEN && match(buf, offset, LOCAL_VARIABLE_TABLE)) {
-                        annoAttributes[pos] = HAS_LOCAL_VARIABLE_TABLE;
-                    } else if (len == CODE_LEN && match(buf, offset, CODE)) {
-                        annoAttributes[pos] = HAS_CODE;
-                    } else if (len == MODULE_LEN && match(buf, offset, MODULE)) {
-                        annoAttributes[pos] = HAS_MODULE;
-                    } else if (len == MODULE_PACKAGES_LEN && match(buf, offset, MODULE_PACKAGES)) {
-                        annoAttributes[pos] = HAS_MODULE_PACKAGES;
-                    } else if (len == MODULE_MAIN_CLASS_LEN && match(buf, offset, MODULE_MAIN_CLASS)) {
-                        annoAttributes[pos] = HAS_MODULE_MAIN_CLASS;
-                    } else if (len == RECORD_LEN && match(buf, offset, RECORD)) {
-                        annoAttributes[pos] = HAS_RECORD;
-                    } else if (len == RUNTIME_INVISIBLE_ANNOTATIONS_LEN && match(buf, offset, RUNTIME_INVISIBLE_ANNOTATIONS)) {
-                        annoAttributes[pos] = HAS_RUNTIME_INVISIBLE_ANNOTATION;
-                    } else if (len == RUNTIME_INVISIBLE_PARAM_ANNOTATIONS_LEN
-                            && match(buf, offset, RUNTIME_INVISIBLE_PARAM_ANNOTATIONS)) {
-                        annoAttributes[pos] = HAS_RUNTIME_INVISIBLE_PARAM_ANNOTATION;
-                    } else if (len == RUNTIME_INVISIBLE_TYPE_ANNOTATIONS_LEN
-                            && match(buf, offset, RUNTIME_INVISIBLE_TYPE_ANNOTATIONS)) {
-                        annoAttributes[pos] = HAS_RUNTIME_INVISIBLE_TYPE_ANNOTATION;
-                    } else if (len == PERMITTED_SUBCLASSES_LEN && match(buf, offset, PERMITTED_SUBCLASSES)) {
-                        annoAttributes[pos] = HAS_PERMITTED_SUBCLASSES;
+                    annoAttributes[pos] = attributeKind(buf, offset, len);
+                    if (prefilterDescriptors != null && !prefilterMatched) {
+                        prefilterMatched = matchesPrefilter(buf, offset, len);
                     }
+                    hasAnnotations |= annoAttributes[pos] == HAS_RUNTIME_ANNOTATION
+                            || annoAttributes[pos] == HAS_RUNTIME_PARAM_ANNOTATION;
                     offset += len;
                     break;
                 default:
@@ -2612,6 +2772,71 @@ public final class Indexer {
         return hasAnnotations;
     }
 
+    // the constant pool is kept in the same format as in the class file, so when the class file
+    // is in an array, the entries are accessed in place instead of being copied
+    private boolean processConstantPoolInPlace(ByteBufferDataInput data) throws IOException {
+        byte[] array = data.array();
+        int arrayOffset = data.arrayOffset();
+        int size = data.readUnsignedShort() - 1;
+        byte[] annoAttributes = tmpObjects.borrowConstantPoolAnnoAttributes(size);
+        int[] offsets = tmpObjects.borrowConstantPoolOffsets(size);
+        boolean hasAnnotations = false;
+
+        for (int pos = 0; pos < size; pos++) {
+            offsets[pos] = arrayOffset + data.position();
+            int tag = data.readUnsignedByte();
+            switch (tag) {
+                case CONSTANT_CLASS:
+                case CONSTANT_STRING:
+                case CONSTANT_METHODTYPE:
+                case CONSTANT_MODULE:
+                case CONSTANT_PACKAGE:
+                    skipFully(data, 2);
+                    break;
+                case CONSTANT_FIELDREF:
+                case CONSTANT_METHODREF:
+                case CONSTANT_INTERFACEMETHODREF:
+                case CONSTANT_INTEGER:
+                case CONSTANT_INVOKEDYNAMIC:
+                case CONSTANT_DYNAMIC:
+                case CONSTANT_FLOAT:
+                case CONSTANT_NAMEANDTYPE:
+                    skipFully(data, 4);
+                    break;
+                case CONSTANT_LONG:
+                case CONSTANT_DOUBLE:
+                    skipFully(data, 8);
+                    pos++; // 8 byte constant pool entries take two "virtual" slots for some reason
+                    break;
+                case CONSTANT_METHODHANDLE:
+                    skipFully(data, 3);
+                    break;
+                case CONSTANT_UTF8:
+                    int len = data.readUnsignedShort();
+                    int start = arrayOffset + data.position();
+                    skipFully(data, len);
+                    annoAttributes[pos] = attributeKind(array, start, len);
+                    if (prefilterDescriptors != null && !prefilterMatched) {
+                        prefilterMatched = matchesPrefilter(array, start, len);
+                    }
+                    hasAnnotations |= annoAttributes[pos] == HAS_RUNTIME_ANNOTATION
+                            || annoAttributes[pos] == HAS_RUNTIME_PARAM_ANNOTATION;
+                    break;
+                default:
+                    throw new IllegalStateException(
+                            String.format(Locale.ROOT, "Unknown tag %s! pos = %s poolSize = %s", tag, pos, size));
+            }
+        }
+
+        constantPoolSize = size;
+        constantPool = array;
+        constantPoolInPlace = true;
+        constantPoolOffsets = offsets;
+        constantPoolAnnoAttrributes = annoAttributes;
+
+        return hasAnnotations;
+    }
+
     /**
      * Analyze and index the class file data of given {@code clazz}.
      * Each call adds information to the final complete index.
@@ -2673,6 +2898,67 @@ public final class Indexer {
             throw new IllegalArgumentException("stream cannot be null");
         }
         try (DataInputStream data = tmpObjects.dataInputStreamOf(stream)) {
+            return indexClassFile(data);
+        }
+    }
+
+    /**
+     * Analyze and index the class file data present in given {@code buffer}, starting at its current
+     * position. Each call adds information to the final complete index. The class file is parsed
+     * directly from the buffer; if the buffer is backed by an accessible array, the constant pool
+     * is not even copied. The position of the buffer is not modified and its content must not be
+     * modified while this method runs.
+     *
+     * @param buffer the buffer containing the class bytecode to index, must not be {@code null}
+     * @throws IOException if the class file data is corrupt or truncated
+     * @throws IllegalArgumentException if {@code buffer} is {@code null}
+     * @since 3.7
+     */
+    public void index(ByteBuffer buffer) throws IOException {
+        indexWithSummary(buffer);
+    }
+
+    /**
+     * Analyze and index the class file data present in given {@code data} array, starting at
+     * given {@code offset}. Each call adds information to the final complete index. The class file
+     * is parsed directly from the array without copying the constant pool. The content of the array
+     * must not be modified while this method runs.
+     *
+     * @param data the array containing the class bytecode to index, must not be {@code null}
+     * @param offset the offset of the class bytecode in {@code data}
+     * @param length the length of the class bytecode
+     * @throws IOException if the class file data is corrupt or truncated
+     * @throws IllegalArgumentException if {@code data} is {@code null}
+     * @throws IndexOutOfBoundsException if {@code offset} or {@code length} are out of bounds
+     * @since 3.7
+     */
+    public void index(byte[] data, int offset, int length) throws IOException {
+        if (data == null) {
+            throw new IllegalArgumentException("data cannot be null");
+        }
+        indexWithSummary(ByteBuffer.wrap(data, offset, length));
+    }
+
+    /**
+     * Analyze and index the class file data present in given {@code buffer}, starting at its current
+     * position. Same as {@link #index(ByteBuffer)}, except that this variant returns a summary of
+     * the just-indexed class.
+     *
+     * @param buffer the buffer containing the class bytecode to index, must not be {@code null}
+     * @return a summary of the just-indexed class
+     * @throws IOException if the class file data is corrupt or truncated
+     * @throws IllegalArgumentException if {@code buffer} is {@code null}
+     * @since 3.7
+     */
+    public ClassSummary indexWithSummary(ByteBuffer buffer) throws IOException {
+        if (buffer == null) {
+            throw new IllegalArgumentException("buffer cannot be null");
+        }
+        return indexClassFile(new ByteBufferDataInput(buffer, buffer.position()));
+    }
+
+    private ClassSummary indexClassFile(DataInput data) throws IOException {
+        try {
             verifyMagic(data);
 
             // Retroweaved classes may contain annotations
@@ -2683,8 +2969,28 @@ public final class Indexer {
             initIndexMaps();
             initClassFields();
 
-            processConstantPool(data);
+            if (data instanceof ByteBufferDataInput && ((ByteBufferDataInput) data).array() != null) {
+                processConstantPoolInPlace((ByteBufferDataInput) data);
+            } else {
+                processConstantPool(data);
+            }
             processClassInfo(data);
+            if (prefilterDescriptors != null && !prefilterMatched && !currentClass.isAnnotation()
+                    && !currentClass.isModule()) {
+                // only the class hierarchy is recorded, including the generic signature and nesting information,
+                // which are needed to resolve type variables in nested classes that are fully analyzed
+                skipMembers(data);
+                skipMembers(data);
+                processStubAttributes(data, currentClass);
+                applySignatures();
+
+                currentClass.setMethods(Collections.<MethodInfo> emptyList(), names);
+                currentClass.setFields(Collections.<FieldInfo> emptyList(), names);
+                currentClass.setRecordComponents(recordComponents, names);
+                currentClass.setAnnotations(classAnnotations);
+                return new ClassSummary(currentClass.name(), currentClass.superName(),
+                        currentClass.annotationsMap().keySet());
+            }
             processFieldInfo(data);
             processMethodInfo(data);
             processAttributes(data, currentClass);
@@ -2693,7 +2999,9 @@ public final class Indexer {
             adjustMethodParameters(); // must be called _after_ applying signatures and _before_ fixing type annotations
             resolveTypeAnnotations();
             updateTypeTargets();
-            resolveUsers();
+            if (options.indexesUsers()) {
+                resolveUsers();
+            }
 
             currentClass.setMethods(methods, names);
             currentClass.setFields(fields, names);
@@ -2709,12 +3017,16 @@ public final class Indexer {
             return new ClassSummary(currentClass.name(), currentClass.superName(), currentClass.annotationsMap().keySet());
         } finally {
             constantPoolSize = 0;
-            tmpObjects.returnConstantPool(constantPool);
+            if (!constantPoolInPlace) {
+                tmpObjects.returnConstantPool(constantPool);
+            }
             constantPool = null;
+            constantPoolInPlace = false;
             tmpObjects.returnConstantPoolOffsets(constantPoolOffsets);
             constantPoolOffsets = null;
             tmpObjects.returnConstantAnnoAttributes(constantPoolAnnoAttrributes);
             constantPoolAnnoAttrributes = null;
+            prefilterMatched = false;
 
             currentClass = null;
             classAnnotations = null;
@@ -2743,10 +3055,25 @@ public final class Indexer {
     public Index complete() {
         initIndexMaps(); // if no class was indexed before calling `complete()`
 
+        NameTable ownNames = names;
+        if (mergedNames != null) {
+            // classes indexed directly by this indexer
+            for (ClassInfo clazz : classes.values()) {
+                mergedNames.putIfAbsent(clazz, ownNames);
+            }
+        }
+
         // these 2 post-processing steps are separate so that when propagating type variables,
         // all type parameters are already fully propagated
-        propagateTypeParameterBounds();
-        propagateTypeVariables();
+        unshareMembers();
+        try {
+            propagateTypeParameterBounds();
+            propagateTypeVariables();
+        } finally {
+            names = ownNames;
+            mergedNames = null;
+        }
+        internMembers();
 
         try {
             Map<DotName, List<ClassInfo>> userLists = new HashMap<>();
@@ -2767,6 +3094,194 @@ public final class Indexer {
         }
     }
 
+    /**
+     * Completes, finalizes, and returns an updated version of given {@code previous} index after zero
+     * or more calls to {@code index()}. The resulting index contains all classes from the {@code previous}
+     * index, except of classes whose names are present in {@code removedClasses}, and all classes indexed
+     * by this indexer. Classes indexed by this indexer replace classes of the same name from the {@code previous}
+     * index, so both added and modified class files should be indexed. Future calls to {@code index()}
+     * will result in a new index.
+     * <p>
+     * The {@code ClassInfo} objects of classes that were neither removed nor modified are reused, as are
+     * all annotation instances they contain. Only the parts of the {@code previous} index that are affected
+     * by the removed or indexed classes are recomputed, which is typically much cheaper than indexing
+     * all classes again. The {@code previous} index is not modified and remains usable.
+     * <p>
+     * Note that when a class is modified, its nested classes are typically recompiled as well
+     * and should also be indexed again (or removed, if they no longer exist). Type variables
+     * of modified classes that refer to type parameters of unmodified enclosing classes are resolved
+     * against the {@code previous} index.
+     *
+     * @param previous the index to update, must not be {@code null}
+     * @param removedClasses names of classes that should be removed from the {@code previous} index,
+     *        must not be {@code null}
+     * @return the updated index
+     * @since 3.7
+     */
+    public Index completeUpdate(Index previous, Collection<DotName> removedClasses) {
+        if (previous == null) {
+            throw new IllegalArgumentException("Previous index cannot be null");
+        }
+        if (removedClasses == null) {
+            throw new IllegalArgumentException("Removed classes cannot be null");
+        }
+
+        initIndexMaps(); // if no class was indexed before calling `completeUpdate()`
+
+        Set<DotName> removed = new HashSet<>(removedClasses);
+        removed.addAll(classes.keySet());
+        Map<DotName, ClassInfo> retained = new HashMap<>(previous.classes);
+        retained.keySet().removeAll(removed);
+
+        retainedClasses = retained;
+        Index changes;
+        try {
+            changes = complete();
+        } finally {
+            retainedClasses = null;
+        }
+        return Index.update(previous, changes, retained, removed);
+    }
+
+    private ClassInfo lookupClass(DotName name) {
+        ClassInfo clazz = classes.get(name);
+        if (clazz == null && retainedClasses != null) {
+            clazz = retainedClasses.get(name);
+        }
+        return clazz;
+    }
+
+    /**
+     * Transfers the index lifespan state accumulated by given {@code other} indexer to this indexer,
+     * as if all classes indexed by {@code other} were indexed by this indexer after all classes
+     * indexed so far. The post-processing steps performed by {@link #complete()} are not executed;
+     * they are executed when this indexer is completed. The {@code other} indexer is reset
+     * and may be used to build a new index afterwards.
+     * <p>
+     * This is used by {@link ParallelIndexer} to merge per-thread partial results.
+     *
+     * @param other the indexer whose state should be transferred to this indexer
+     */
+    void mergeFrom(Indexer other) {
+        initIndexMaps();
+        if (other.classes == null) {
+            // nothing was indexed
+            return;
+        }
+
+        if (mergedNames == null) {
+            mergedNames = new IdentityHashMap<>();
+        }
+        for (ClassInfo clazz : other.classes.values()) {
+            mergedNames.put(clazz, other.names);
+        }
+
+        mergeLists(masterAnnotations, other.masterAnnotations);
+        mergeLists(subclasses, other.subclasses);
+        mergeLists(subinterfaces, other.subinterfaces);
+        mergeLists(implementors, other.implementors);
+        classes.putAll(other.classes);
+        modules.putAll(other.modules);
+        for (Map.Entry<DotName, Set<ClassInfo>> entry : other.users.entrySet()) {
+            Set<ClassInfo> usersOfClass = users.get(entry.getKey());
+            if (usersOfClass == null) {
+                users.put(entry.getKey(), entry.getValue());
+            } else {
+                usersOfClass.addAll(entry.getValue());
+            }
+        }
+
+        other.masterAnnotations = null;
+        other.subclasses = null;
+        other.subinterfaces = null;
+        other.implementors = null;
+        other.classes = null;
+        other.modules = null;
+        other.users = null;
+        other.names = null;
+        other.signatureParser = null;
+    }
+
+    /**
+     * Members are interned when their class is indexed, so equal members of different classes may share
+     * a single instance. Post-processing modifies members in place, so each class must have its own instances,
+     * otherwise types resolved in the context of one class would leak into another class. As a consequence,
+     * the result doesn't depend on which members were shared, for example when classes were indexed by multiple
+     * indexers whose results were {@linkplain #mergeFrom(Indexer) merged}.
+     * <p>
+     * Annotated members are never shared, because annotation instances are only equal if their targets
+     * are identical, so no annotation target ever refers to a copy created here.
+     */
+    private void unshareMembers() {
+        Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (ClassInfo clazz : classes.values()) {
+            MethodInternal[] methods = clazz.methodArray();
+            for (int i = 0; i < methods.length; i++) {
+                if (!seen.add(methods[i])) {
+                    methods[i] = new MethodInternal(methods[i]);
+                }
+            }
+            FieldInternal[] fields = clazz.fieldArray();
+            for (int i = 0; i < fields.length; i++) {
+                if (!seen.add(fields[i])) {
+                    fields[i] = new FieldInternal(fields[i]);
+                }
+            }
+            RecordComponentInternal[] recordComponents = clazz.recordComponentArray();
+            for (int i = 0; i < recordComponents.length; i++) {
+                if (!seen.add(recordComponents[i])) {
+                    recordComponents[i] = new RecordComponentInternal(recordComponents[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * After post-processing, members that are still equal may share a single instance again.
+     * See {@link #unshareMembers()}.
+     */
+    private void internMembers() {
+        for (ClassInfo clazz : classes.values()) {
+            MethodInternal[] methods = clazz.methodArray();
+            for (int i = 0; i < methods.length; i++) {
+                methods[i] = names.intern(methods[i]);
+            }
+            FieldInternal[] fields = clazz.fieldArray();
+            for (int i = 0; i < fields.length; i++) {
+                fields[i] = names.intern(fields[i]);
+            }
+            RecordComponentInternal[] recordComponents = clazz.recordComponentArray();
+            for (int i = 0; i < recordComponents.length; i++) {
+                recordComponents[i] = names.intern(recordComponents[i]);
+            }
+        }
+    }
+
+    /**
+     * Post-processing interns types, which may replace a type with an equal instance from the intern pool.
+     * Type annotation targets refer to type instances interned when the class was indexed, so to keep them
+     * consistent, types of a class must be interned in the same name table that was used when indexing it.
+     */
+    private void useNamesOf(ClassInfo clazz) {
+        if (mergedNames != null) {
+            NameTable classNames = mergedNames.get(clazz);
+            if (classNames != null) {
+                names = classNames;
+            }
+        }
+    }
+
+    private static <T> void mergeLists(Map<DotName, List<T>> target, Map<DotName, List<T>> source) {
+        for (Map.Entry<DotName, List<T>> entry : source.entrySet()) {
+            List<T> list = target.get(entry.getKey());
+            if (list == null) {
+                target.put(entry.getKey(), entry.getValue());
+            } else {
+                list.addAll(entry.getValue());
+            }
+        }
+    }
+
     private void propagateTypeParameterBounds() {
         // we need to process indexed classes such that class A is processed before class B
         // when B is enclosed in A (potentially indirectly)
@@ -2783,10 +3298,10 @@ public final class Indexer {
             int nestingLevel = 0;
             while (clazz != null) {
                 if (clazz.enclosingClass() != null) {
-                    clazz = classes.get(clazz.enclosingClass());
+                    clazz = lookupClass(clazz.enclosingClass());
                     nestingLevel++;
                 } else if (clazz.enclosingMethod() != null) {
-                    clazz = classes.get(clazz.enclosingMethod().enclosingClass());
+                    clazz = lookupClass(clazz.enclosingMethod().enclosingClass());
                     nestingLevel++;
                 } else {
                     clazz = null;
@@ -2811,6 +3326,7 @@ public final class Indexer {
         Deque<TypeVariable> sharedTypeVarStack = new ArrayDeque<>();
 
         for (ClassInfo clazz : classes) {
+            useNamesOf(clazz);
             propagateTypeParameterBounds(clazz, sharedTypeVarStack);
             for (MethodInfo method : clazz.methods()) {
                 propagateTypeParameterBounds(method, sharedTypeVarStack);
@@ -3036,12 +3552,12 @@ public final class Indexer {
             }
             if (!Modifier.isStatic(clazz.flags())) {
                 if (clazz.enclosingClass() != null) {
-                    ClassInfo enclosingClass = this.classes.get(clazz.enclosingClass());
+                    ClassInfo enclosingClass = lookupClass(clazz.enclosingClass());
                     if (enclosingClass != null) {
                         return resolveTypeParameter(enclosingClass, identifier);
                     }
                 } else if (clazz.enclosingMethod() != null) {
-                    ClassInfo enclosingClass = this.classes.get(clazz.enclosingMethod().enclosingClass());
+                    ClassInfo enclosingClass = lookupClass(clazz.enclosingMethod().enclosingClass());
                     if (enclosingClass != null) {
                         MethodInfo enclosingMethod = enclosingClass.method(clazz.enclosingMethod().name(),
                                 clazz.enclosingMethod().parametersArray());
@@ -3076,6 +3592,7 @@ public final class Indexer {
 
     private void propagateTypeVariables() {
         for (ClassInfo clazz : classes.values()) {
+            useNamesOf(clazz);
             if (clazz.superClassType() != null) {
                 clazz.setSuperClassType(propagateTypeVariables(clazz.superClassType(), clazz));
             }
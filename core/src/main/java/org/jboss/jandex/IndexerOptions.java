@@ -0,0 +1,224 @@
+package org.jboss.jandex;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Configures which parts of class files an {@link Indexer} analyzes. By default, the indexer analyzes
+ * all information Jandex can represent. Consumers that only need some of it, such as the class hierarchy
+ * and annotations, may let the indexer skip the rest. Skipped class file attributes are not parsed
+ * at all, which makes indexing faster and the resulting index smaller.
+ * <p>
+ * An index produced with some information skipped behaves as if the class files didn't contain that
+ * information. For example, if generic signatures are skipped, all types in the index are erased,
+ * and if parameter names are skipped, {@link MethodInfo#parameterName(int)} returns {@code null}.
+ *
+ * <p>
+ * <b>Thread-Safety</b>
+ * </p>
+ * This class is immutable and can be shared between threads.
+ *
+ * @see Indexer#Indexer(SharedNameTable, IndexerOptions)
+ * @since 3.7
+ */
+public final class IndexerOptions {
+    private static final IndexerOptions DEFAULT = new IndexerOptions(false, false, false, false, false, null);
+
+    private final boolean skipUsers;
+    private final boolean skipParameterNames;
+    private final boolean skipTypeAnnotations;
+    private final boolean skipGenericSignatures;
+    private final boolean skipInvisibleAnnotations;
+    // `null` if all classes are fully analyzed
+    private final Set<DotName> prefilterAnnotations;
+
+    private IndexerOptions(boolean skipUsers, boolean skipParameterNames, boolean skipTypeAnnotations,
+            boolean skipGenericSignatures, boolean skipInvisibleAnnotations, Set<DotName> prefilterAnnotations) {
+        this.skipUsers = skipUsers;
+        this.skipParameterNames = skipParameterNames;
+        this.skipTypeAnnotations = skipTypeAnnotations;
+        this.skipGenericSignatures = skipGenericSignatures;
+        this.skipInvisibleAnnotations = skipInvisibleAnnotations;
+        this.prefilterAnnotations = prefilterAnnotations;
+    }
+
+    /**
+     * Returns the default options, which let the indexer analyze all information.
+     *
+     * @return the default options, never {@code null}
+     */
+    public static IndexerOptions defaults() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns a new builder of indexer options. Unless configured otherwise, the built options
+     * let the indexer analyze all information.
+     *
+     * @return the builder, never {@code null}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return whether the indexer records the classes used by each indexed class, see {@link IndexView#getKnownUsers(DotName)}
+     */
+    public boolean indexesUsers() {
+        return !skipUsers;
+    }
+
+    /**
+     * @return whether the indexer records method parameter names
+     */
+    public boolean indexesParameterNames() {
+        return !skipParameterNames;
+    }
+
+    /**
+     * @return whether the indexer records type annotations
+     */
+    public boolean indexesTypeAnnotations() {
+        return !skipTypeAnnotations && !skipGenericSignatures;
+    }
+
+    /**
+     * @return whether the indexer records generic signatures
+     */
+    public boolean indexesGenericSignatures() {
+        return !skipGenericSignatures;
+    }
+
+    /**
+     * @return whether the indexer records annotations that are not retained at runtime
+     */
+    public boolean indexesInvisibleAnnotations() {
+        return !skipInvisibleAnnotations;
+    }
+
+    /**
+     * @return the annotations that a class must refer to in order to be fully analyzed, or {@code null}
+     *         if all classes are fully analyzed; see {@link Builder#prefilterAnnotations(Collection)}
+     */
+    public Set<DotName> prefilterAnnotations() {
+        return prefilterAnnotations;
+    }
+
+    @Override
+    public String toString() {
+        return "IndexerOptions[users=" + indexesUsers()
+                + ", parameterNames=" + indexesParameterNames()
+                + ", typeAnnotations=" + indexesTypeAnnotations()
+                + ", genericSignatures=" + indexesGenericSignatures()
+                + ", invisibleAnnotations=" + indexesInvisibleAnnotations()
+                + ", prefilterAnnotations=" + prefilterAnnotations + "]";
+    }
+
+    /**
+     * The builder for indexer options.
+     */
+    public static final class Builder {
+        private boolean skipUsers;
+        private boolean skipParameterNames;
+        private boolean skipTypeAnnotations;
+        private boolean skipGenericSignatures;
+        private boolean skipInvisibleAnnotations;
+        private Set<DotName> prefilterAnnotations;
+
+        Builder() {
+        }
+
+        /**
+         * When called, the indexer shall not record the classes used by each indexed class,
+         * so {@link IndexView#getKnownUsers(DotName)} always returns an empty collection.
+         *
+         * @return this builder
+         */
+        public Builder skipUsers() {
+            skipUsers = true;
+            return this;
+        }
+
+        /**
+         * When called, the indexer shall not record method parameter names. The {@code MethodParameters},
+         * {@code Code} and {@code LocalVariableTable} attributes are not parsed.
+         *
+         * @return this builder
+         */
+        public Builder skipParameterNames() {
+            skipParameterNames = true;
+            return this;
+        }
+
+        /**
+         * When called, the indexer shall not record type annotations. Declaration annotations
+         * are still recorded.
+         *
+         * @return this builder
+         */
+        public Builder skipTypeAnnotations() {
+            skipTypeAnnotations = true;
+            return this;
+        }
+
+        /**
+         * When called, the indexer shall not parse generic signatures, so all types in the index
+         * are erased and classes and methods have no type parameters. Since type annotations may
+         * refer to parts of generic types, type annotations are skipped as well.
+         *
+         * @return this builder
+         */
+        public Builder skipGenericSignatures() {
+            skipGenericSignatures = true;
+            return this;
+        }
+
+        /**
+         * When called, the indexer shall only record annotations that are retained at runtime,
+         * that is, annotations present in the {@code RuntimeVisible*Annotations} attributes.
+         *
+         * @return this builder
+         */
+        public Builder skipInvisibleAnnotations() {
+            skipInvisibleAnnotations = true;
+            return this;
+        }
+
+        /**
+         * When called, the indexer shall only fully analyze classes that refer to at least one of given
+         * {@code annotations} in their constant pool, as well as all annotation types and modules.
+         * All other classes are recorded as stubs that only contain the class name, access flags, superclass
+         * and interfaces including their generic signatures, type parameters and nesting information, so that
+         * they are still present in the class hierarchy and type variables of fully analyzed nested classes can
+         * be resolved. The stubs have no fields, methods or annotations, and they are not registered as users
+         * of other classes.
+         * <p>
+         * This is a cheap prefilter based on the annotation type descriptors present in the constant pool,
+         * which is read anyway. Classes that refer to one of the annotations in a different way, for example
+         * as a field type, are fully analyzed too. Annotations are matched by name only, so meta-annotations
+         * and {@linkplain java.lang.annotation.Inherited inherited} annotations are not taken into account.
+         *
+         * @param annotations names of the interesting annotation types, must not be {@code null}
+         * @return this builder
+         */
+        public Builder prefilterAnnotations(Collection<DotName> annotations) {
+            if (annotations == null) {
+                throw new IllegalArgumentException("annotations cannot be null");
+            }
+            prefilterAnnotations = Collections.unmodifiableSet(new HashSet<>(annotations));
+            return this;
+        }
+
+        /**
+         * Builds and returns the indexer options based on the configuration of this builder.
+         *
+         * @return the indexer options, never {@code null}
+         */
+        public IndexerOptions build() {
+            return new IndexerOptions(skipUsers, skipParameterNames, skipTypeAnnotations, skipGenericSignatures,
+                    skipInvisibleAnnotations, prefilterAnnotations);
+        }
+    }
+}
@@ -19,6 +19,7 @@
 package org.jboss.jandex;
 
 import java.io.*;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
@@ -128,11 +129,37 @@ public class JarIndexer {
      */
     public static Result createJarIndex(File jarFile, Indexer indexer, File outputFile, boolean modify, boolean newJar,
             boolean verbose, PrintStream infoStream, PrintStream errStream) throws IOException {
+        return createJarIndex(jarFile, indexer, outputFile, modify, newJar, verbose, false, infoStream, errStream);
+    }
+
+    /**
+     * Indexes a jar file and saves the result. If the modify flag is set, index is saved to META-INF/jandex.idx.
+     * Otherwise an external file is created with a similar name to the original file,
+     * concatenating <code>.idx</code> suffix.
+     *
+     * @param jarFile The file to index
+     * @param indexer The indexer to use
+     * @param outputFile The index file to write to
+     * @param modify If the original jar should be modified
+     * @param newJar If the new jar should be created
+     * @param verbose If we should print what we are doing to the specified info stream
+     * @param compressed If the index data should be compressed, see {@link IndexWriter#IndexWriter(OutputStream, boolean)}
+     * @param infoStream A print stream which will record verbose info, may be null
+     * @param errStream A print stream to print errors, must not be null
+     *
+     * @return indexing result
+     * @throws IOException for any I/o error
+     * @since 3.7
+     */
+    public static Result createJarIndex(File jarFile, Indexer indexer, File outputFile, boolean modify, boolean newJar,
+            boolean verbose, boolean compressed, PrintStream infoStream, PrintStream errStream) throws IOException {
         File tmpCopy = null;
         ZipOutputStream zo = null;
         OutputStream out;
 
-        JarFile jar = new JarFile(jarFile);
+        // the modified JAR is a copy of all entries of the original file, which requires the `JarFile`
+        JarScanner scanner = modify ? null : JarScanner.open(jarFile);
+        JarFile jar = scanner == null ? new JarFile(jarFile) : null;
 
         if (modify) {
             tmpCopy = File.createTempFile(jarFile.getName().substring(0, jarFile.getName().lastIndexOf('.')) + "00", "jmp");
@@ -149,7 +176,17 @@ public class JarIndexer {
         }
 
         try {
-            Enumeration<JarEntry> entries = jar.entries();
+            while (scanner != null && scanner.nextClass()) {
+                try {
+                    ClassSummary info = scanner.index(indexer);
+                    if (verbose && info != null && infoStream != null)
+                        printIndexEntryInfo(info, infoStream);
+                } catch (Exception e) {
+                    printIndexEntryError(scanner.entryName(), e, verbose, errStream);
+                }
+            }
+
+            Enumeration<JarEntry> entries = jar != null ? jar.entries() : Collections.<JarEntry> emptyEnumeration();
             while (entries.hasMoreElements()) {
                 JarEntry entry = entries.nextElement();
                 if (modify) {
@@ -180,10 +217,7 @@ public class JarIndexer {
                         if (verbose && info != null && infoStream != null)
                             printIndexEntryInfo(info, infoStream);
                     } catch (Exception e) {
-                        String message = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
-                        errStream.println("ERROR: Could not index " + entry.getName() + ": " + message);
-                        if (verbose)
-                            e.printStackTrace(errStream);
+                        printIndexEntryError(entry.getName(), e, verbose, errStream);
                     }
                 }
             }
@@ -192,7 +226,7 @@ public class JarIndexer {
                 zo.putNextEntry(new ZipEntry("META-INF/jandex.idx"));
             }
 
-            IndexWriter writer = new IndexWriter(out);
+            IndexWriter writer = new IndexWriter(out, compressed);
             Index index = indexer.complete();
             int bytes = writer.write(index);
 
@@ -209,7 +243,10 @@ public class JarIndexer {
             return new Result(index, modify ? "META-INF/jandex.idx" : outputFile.getPath(), bytes, outputFile);
         } finally {
             safeClose(out);
-            safeClose(jar);
+            if (scanner != null)
+                safeClose(scanner);
+            if (jar != null)
+                safeClose(jar);
             if (tmpCopy != null)
                 tmpCopy.delete();
         }
@@ -233,6 +270,13 @@ public class JarIndexer {
         infoStream.println("Indexed " + info.name() + " (" + info.annotationsCount() + " annotations)");
     }
 
+    private static void printIndexEntryError(String name, Exception e, boolean verbose, PrintStream errStream) {
+        String message = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+        errStream.println("ERROR: Could not index " + name + ": " + message);
+        if (verbose)
+            e.printStackTrace(errStream);
+    }
+
     private static void copy(InputStream in, OutputStream out) throws IOException {
         byte[] buf = new byte[8192];
         int len;
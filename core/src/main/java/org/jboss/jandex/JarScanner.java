@@ -0,0 +1,302 @@
+package org.jboss.jandex;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Scans the class files in a JAR or ZIP archive. The central directory is read into memory at once,
+ * and class files are read from the archive into a reusable buffer using positional reads, after which
+ * deflated class files are inflated into another reusable buffer. This way, indexing a large number of
+ * archives doesn't allocate a stream and a copy of each class file. The archive is deliberately not mapped
+ * into memory, because a mapped file can't be deleted or overwritten on some platforms until the mapping
+ * is garbage collected; the file is released as soon as this scanner is closed.
+ * <p>
+ * Class files are visited in the order of the central directory, which is the order in which
+ * {@link java.util.zip.ZipFile#entries()} enumerates them. Archives that use features this class
+ * doesn't support (ZIP64) are rejected by {@link #open(File)}, so that the caller can fall back
+ * to {@link java.util.jar.JarFile}.
+ *
+ * <p>
+ * <b>Thread-Safety</b>
+ * </p>
+ * This class is not thread-safe can <b>not</b> be shared between threads.
+ */
+final class JarScanner implements Closeable {
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int END_SIGNATURE = 0x06054b50;
+    private static final int END_SIZE = 22;
+    private static final int ZIP64_END_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_END_LOCATOR_SIZE = 20;
+    private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+
+    private static final int FLAG_ENCRYPTED = 1;
+    private static final int METHOD_STORED = 0;
+    private static final int METHOD_DEFLATED = 8;
+
+    private static final byte[] CLASS_SUFFIX = ".class".getBytes(StandardCharsets.US_ASCII);
+
+    private final FileChannel channel;
+    private final long fileSize;
+    // offset of the archive in the file, non-zero if the archive has a prefix (such as a launcher script)
+    private final long base;
+    // the whole central directory
+    private final ByteBuffer directory;
+    private final int entryCount;
+    private int entry;
+    private int nextEntryOffset;
+
+    // current entry
+    private int flags;
+    private int nameOffset;
+    private int nameLength;
+    private int method;
+    private int compressedSize;
+    private int size;
+    private int localHeaderOffset;
+
+    private final ByteBuffer header = ByteBuffer.allocate(LOCAL_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private Inflater inflater;
+    private byte[] input = new byte[8192];
+    private byte[] output = new byte[8192];
+
+    private JarScanner(FileChannel channel, long fileSize, long base, ByteBuffer directory, int entryCount) {
+        this.channel = channel;
+        this.fileSize = fileSize;
+        this.base = base;
+        this.directory = directory;
+        this.entryCount = entryCount;
+    }
+
+    /**
+     * Opens given {@code file} and reads its central directory. The file stays open until
+     * the returned scanner is closed.
+     *
+     * @param file the JAR or ZIP file
+     * @return the scanner, or {@code null} if the file is not an archive that this class supports
+     * @throws IOException if the file can't be read
+     */
+    static JarScanner open(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        JarScanner result = null;
+        try {
+            result = open(channel);
+            return result;
+        } finally {
+            if (result == null) {
+                channel.close();
+            }
+        }
+    }
+
+    private static JarScanner open(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        if (fileSize < END_SIZE) {
+            return null;
+        }
+        // the end of central directory record, possibly preceded by the ZIP64 locator
+        int tailSize = (int) Math.min(fileSize, ZIP64_END_LOCATOR_SIZE + END_SIZE + MAX_COMMENT_LENGTH);
+        long tailOffset = fileSize - tailSize;
+        ByteBuffer tail = ByteBuffer.allocate(tailSize).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, tail, tailOffset);
+
+        int end = findEnd(tail);
+        if (end < 0) {
+            return null;
+        }
+        int entryCount = tail.getShort(end + 10) & 0xFFFF;
+        long centralDirectorySize = tail.getInt(end + 12) & 0xFFFFFFFFL;
+        long centralDirectoryOffset = tail.getInt(end + 16) & 0xFFFFFFFFL;
+        boolean zip64 = end >= ZIP64_END_LOCATOR_SIZE
+                && tail.getInt(end - ZIP64_END_LOCATOR_SIZE) == ZIP64_END_LOCATOR_SIGNATURE;
+        if (zip64 || entryCount == 0xFFFF || centralDirectorySize == 0xFFFFFFFFL || centralDirectoryOffset == 0xFFFFFFFFL) {
+            return null;
+        }
+        long base = tailOffset + end - centralDirectorySize - centralDirectoryOffset;
+        if (base < 0 || centralDirectorySize > Integer.MAX_VALUE) {
+            return null;
+        }
+
+        ByteBuffer directory = ByteBuffer.allocate((int) centralDirectorySize).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, directory, base + centralDirectoryOffset);
+        return new JarScanner(channel, fileSize, base, directory, entryCount);
+    }
+
+    private static int findEnd(ByteBuffer buffer) {
+        int min = Math.max(0, buffer.limit() - END_SIZE - MAX_COMMENT_LENGTH);
+        for (int i = buffer.limit() - END_SIZE; i >= min; i--) {
+            int commentLength = buffer.getShort(i + 20) & 0xFFFF;
+            if (buffer.getInt(i) == END_SIGNATURE && i + END_SIZE + commentLength <= buffer.limit()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // reads the remaining bytes of given `buffer` from the `channel`, starting at given `position` of the file
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long offset = position - buffer.position();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of file");
+            }
+        }
+    }
+
+    /**
+     * Advances to the next class file in the archive.
+     *
+     * @return {@code true} if there is a next class file, {@code false} if all entries were visited
+     * @throws ZipException if the central directory is corrupt
+     */
+    boolean nextClass() throws IOException {
+        while (entry < entryCount) {
+            int offset = nextEntryOffset;
+            if (offset < 0 || directory.limit() - offset < CENTRAL_HEADER_SIZE
+                    || directory.getInt(offset) != CENTRAL_HEADER_SIGNATURE) {
+                throw new ZipException("Invalid central directory header");
+            }
+            int flags = directory.getShort(offset + 8) & 0xFFFF;
+            int nameLength = directory.getShort(offset + 28) & 0xFFFF;
+            int extraLength = directory.getShort(offset + 30) & 0xFFFF;
+            int commentLength = directory.getShort(offset + 32) & 0xFFFF;
+            int nameOffset = offset + CENTRAL_HEADER_SIZE;
+            if (directory.limit() - nameOffset < nameLength) {
+                throw new ZipException("Invalid central directory header");
+            }
+
+            entry++;
+            nextEntryOffset = nameOffset + nameLength + extraLength + commentLength;
+
+            if (!endsWith(nameOffset, nameLength, CLASS_SUFFIX)) {
+                continue;
+            }
+            this.flags = flags;
+            this.nameOffset = nameOffset;
+            this.nameLength = nameLength;
+            this.method = directory.getShort(offset + 10) & 0xFFFF;
+            this.compressedSize = directory.getInt(offset + 20);
+            this.size = directory.getInt(offset + 24);
+            this.localHeaderOffset = directory.getInt(offset + 42);
+            return true;
+        }
+        return false;
+    }
+
+    private boolean endsWith(int offset, int length, byte[] suffix) {
+        if (length < suffix.length) {
+            return false;
+        }
+        int start = offset + length - suffix.length;
+        for (int i = 0; i < suffix.length; i++) {
+            if (directory.get(start + i) != suffix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the name of the current entry
+     */
+    String entryName() {
+        byte[] name = new byte[nameLength];
+        ByteBuffer directory = this.directory.duplicate();
+        directory.position(nameOffset);
+        directory.get(name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Indexes the current class file using given {@code indexer}.
+     *
+     * @param indexer the indexer
+     * @return a summary of the indexed class, see {@link Indexer#indexWithSummary(ByteBuffer)}
+     * @throws IOException if the entry is corrupt or the class file can't be indexed
+     */
+    ClassSummary index(Indexer indexer) throws IOException {
+        if ((flags & FLAG_ENCRYPTED) != 0) {
+            throw new ZipException("Encrypted entries are not supported");
+        }
+        long headerOffset = base + (localHeaderOffset & 0xFFFFFFFFL);
+        if (headerOffset > fileSize - LOCAL_HEADER_SIZE) {
+            throw new ZipException("Invalid local file header");
+        }
+        header.clear();
+        readFully(channel, header, headerOffset);
+        if (header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+            throw new ZipException("Invalid local file header");
+        }
+        long dataOffset = headerOffset + LOCAL_HEADER_SIZE
+                + (header.getShort(26) & 0xFFFF) + (header.getShort(28) & 0xFFFF);
+        if (compressedSize < 0 || size < 0 || dataOffset + compressedSize > fileSize) {
+            throw new ZipException("Invalid entry size");
+        }
+
+        if (output.length < size) {
+            output = new byte[size];
+        }
+        if (method == METHOD_STORED) {
+            if (compressedSize != size) {
+                throw new ZipException("Invalid entry size");
+            }
+            readFully(channel, ByteBuffer.wrap(output, 0, size), dataOffset);
+        } else if (method == METHOD_DEFLATED) {
+            inflate(dataOffset);
+        } else {
+            throw new ZipException("Unsupported compression method " + method);
+        }
+        return indexer.indexWithSummary(ByteBuffer.wrap(output, 0, size));
+    }
+
+    private void inflate(long dataOffset) throws IOException {
+        if (input.length < compressedSize) {
+            input = new byte[compressedSize];
+        }
+        readFully(channel, ByteBuffer.wrap(input, 0, compressedSize), dataOffset);
+
+        Inflater inflater = this.inflater;
+        if (inflater == null) {
+            inflater = this.inflater = new Inflater(true);
+        } else {
+            inflater.reset();
+        }
+        inflater.setInput(input, 0, compressedSize);
+        try {
+            int inflated = 0;
+            while (inflated < size) {
+                int n = inflater.inflate(output, inflated, size - inflated);
+                if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += n;
+            }
+            if (inflated != size) {
+                throw new ZipException("Invalid entry size");
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (inflater != null) {
+            inflater.end();
+            inflater = null;
+        }
+        channel.close();
+    }
+}
@@ -0,0 +1,410 @@
+package org.jboss.jandex;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An index backed by serialized index data in a buffer, typically a memory-mapped index file.
+ * Only the shared tables (names, strings, types) and a directory of classes sorted by name are read eagerly;
+ * each {@link ClassInfo}, together with its methods, fields, record components and annotations,
+ * is only read from the buffer when it is first accessed.
+ *
+ * <p>
+ * <b>Thread-Safety</b>
+ * </p>
+ * This class is thread-safe. Reading class entries is serialized, already read classes
+ * are accessed without locking.
+ *
+ * @see IndexReader#readLazily(java.nio.file.Path)
+ * @since 3.7
+ */
+final class LazyIndex implements IndexView {
+    private static final int[] EMPTY_POSITIONS = new int[0];
+
+    private final IndexReaderV2 reader;
+    // sorted, positions in this array are used to refer to classes
+    private final DotName[] classNames;
+    private final int[] classOffsets;
+    private final AtomicReferenceArray<ClassInfo> classes;
+    private final Map<DotName, int[]> annotations;
+    private final Map<DotName, int[]> subclasses;
+    private final Map<DotName, int[]> subinterfaces;
+    private final Map<DotName, int[]> implementors; // note this also includes direct subinterfaces!
+    final Map<DotName, Set<DotName>> users;
+    private final Map<DotName, ModuleInfo> modules;
+    private final Map<DotName, List<AnnotationInstance>> moduleAnnotations;
+
+    // populated lazily
+    private volatile Map<DotName, int[]> classesInPackage;
+    private volatile Map<DotName, Set<DotName>> subpackages;
+
+    LazyIndex(IndexReaderV2 reader, DotName[] classNames, int[] classOffsets, Map<DotName, int[]> annotations,
+            Map<DotName, int[]> subclasses, Map<DotName, int[]> subinterfaces, Map<DotName, int[]> implementors,
+            Map<DotName, Set<DotName>> users, Map<DotName, ModuleInfo> modules,
+            Map<DotName, List<AnnotationInstance>> moduleAnnotations) {
+        this.reader = reader;
+        this.classNames = classNames;
+        this.classOffsets = classOffsets;
+        this.classes = new AtomicReferenceArray<>(classNames.length);
+        this.annotations = DotNameMap.of(annotations);
+        this.subclasses = DotNameMap.of(subclasses);
+        this.subinterfaces = DotNameMap.of(subinterfaces);
+        this.implementors = DotNameMap.of(implementors);
+        this.users = DotNameMap.of(users);
+        this.modules = DotNameMap.of(modules);
+        this.moduleAnnotations = moduleAnnotations;
+    }
+
+    static Map<DotName, int[]> toArrays(Map<DotName, List<Integer>> map) {
+        Map<DotName, int[]> result = new HashMap<>(map.size());
+        for (Map.Entry<DotName, List<Integer>> entry : map.entrySet()) {
+            List<Integer> list = entry.getValue();
+            int[] array = new int[list.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = list.get(i);
+            }
+            result.put(entry.getKey(), array);
+        }
+        return result;
+    }
+
+    private ClassInfo classAt(int position) {
+        ClassInfo clazz = classes.get(position);
+        if (clazz == null) {
+            synchronized (reader) {
+                clazz = classes.get(position);
+                if (clazz == null) {
+                    try {
+                        clazz = reader.readClassAt(classOffsets[position]);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Unable to read class " + classNames[position], e);
+                    }
+                    classes.set(position, clazz);
+                }
+            }
+        }
+        return clazz;
+    }
+
+    private List<ClassInfo> classesAt(int[] positions) {
+        if (positions == null || positions.length == 0) {
+            return Collections.emptyList();
+        }
+        ClassInfo[] result = new ClassInfo[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            result[i] = classAt(positions[i]);
+        }
+        return new ImmutableArrayList<>(result);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<ClassInfo> getKnownClasses() {
+        ClassInfo[] result = new ClassInfo[classNames.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = classAt(i);
+        }
+        return new ImmutableArrayList<>(result);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ClassInfo getClassByName(DotName className) {
+        if (className == null) {
+            // like `Index`, which looks the class up in a map
+            return null;
+        }
+        int position = Arrays.binarySearch(classNames, className);
+        return position >= 0 ? classAt(position) : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<ClassInfo> getKnownDirectSubclasses(DotName className) {
+        return classesAt(subclasses.get(className));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<ClassInfo> getAllKnownSubclasses(DotName className) {
+        Set<ClassInfo> allKnown = new HashSet<>();
+        Set<DotName> processedClasses = new HashSet<>();
+        getAllKnownSubClasses(className, allKnown, processedClasses);
+        return allKnown;
+    }
+
+    private void getAllKnownSubClasses(DotName className, Set<ClassInfo> allKnown, Set<DotName> processedClasses) {
+        Set<DotName> subClassesToProcess = new HashSet<>();
+        subClassesToProcess.add(className);
+        while (!subClassesToProcess.isEmpty()) {
+            Iterator<DotName> toProcess = subClassesToProcess.iterator();
+            DotName name = toProcess.next();
+            toProcess.remove();
+            processedClasses.add(name);
+            for (ClassInfo clazz : getKnownDirectSubclasses(name)) {
+                DotName subclassName = clazz.name();
+                if (!processedClasses.contains(subclassName)) {
+                    allKnown.add(clazz);
+                    subClassesToProcess.add(subclassName);
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<ClassInfo> getKnownDirectSubinterfaces(DotName interfaceName) {
+        return classesAt(subinterfaces.get(interfaceName));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<ClassInfo> getAllKnownSubinterfaces(DotName interfaceName) {
+        Set<ClassInfo> result = new HashSet<>();
+
+        Queue<DotName> worklist = new ArrayDeque<>();
+        Set<DotName> alreadyProcessed = new HashSet<>();
+
+        worklist.add(interfaceName);
+        while (!worklist.isEmpty()) {
+            DotName iface = worklist.remove();
+            if (!alreadyProcessed.add(iface)) {
+                continue;
+            }
+
+            for (ClassInfo directSubinterface : getKnownDirectSubinterfaces(iface)) {
+                result.add(directSubinterface);
+                worklist.add(directSubinterface.name());
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<ClassInfo> getKnownDirectImplementations(DotName interfaceName) {
+        List<ClassInfo> result = new ArrayList<>();
+        for (ClassInfo clazz : getKnownDirectImplementors(interfaceName)) {
+            if (!clazz.isInterface()) {
+                result.add(clazz);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<ClassInfo> getAllKnownImplementations(DotName interfaceName) {
+        // no difference here
+        return getAllKnownImplementors(interfaceName);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Deprecated
+    @Override
+    public Collection<ClassInfo> getKnownDirectImplementors(DotName interfaceName) {
+        return classesAt(implementors.get(interfaceName));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Deprecated
+    @Override
+    public Collection<ClassInfo> getAllKnownImplementors(DotName interfaceName) {
+        Set<ClassInfo> allKnown = new HashSet<>();
+        Set<DotName> subInterfacesToProcess = new HashSet<>();
+        Set<DotName> processedClasses = new HashSet<>();
+        subInterfacesToProcess.add(interfaceName);
+        while (!subInterfacesToProcess.isEmpty()) {
+            Iterator<DotName> toProcess = subInterfacesToProcess.iterator();
+            DotName name = toProcess.next();
+            toProcess.remove();
+            processedClasses.add(name);
+            for (ClassInfo clazz : getKnownDirectImplementors(name)) {
+                DotName className = clazz.name();
+                if (!processedClasses.contains(className)) {
+                    if (Modifier.isInterface(clazz.flags())) {
+                        subInterfacesToProcess.add(className);
+                    } else if (allKnown.add(clazz)) {
+                        processedClasses.add(className);
+                        getAllKnownSubClasses(className, allKnown, processedClasses);
+                    }
+                }
+            }
+        }
+        return allKnown;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<AnnotationInstance> getAnnotations(DotName annotationName) {
+        int[] positions = annotations.get(annotationName);
+        List<AnnotationInstance> fromModules = moduleAnnotations.get(annotationName);
+        if (positions == null && fromModules == null) {
+            return Collections.emptyList();
+        }
+
+        List<AnnotationInstance> result = new ArrayList<>();
+        for (int position : positions != null ? positions : EMPTY_POSITIONS) {
+            result.addAll(classAt(position).annotationsMap().get(annotationName));
+        }
+        if (fromModules != null) {
+            result.addAll(fromModules);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<AnnotationInstance> getAnnotationsWithRepeatable(DotName annotationName, IndexView index) {
+        ClassInfo annotationClass = index.getClassByName(annotationName);
+        if (annotationClass == null) {
+            throw new IllegalArgumentException("Index does not contain the annotation definition: " + annotationName);
+        }
+        if (!annotationClass.isAnnotation()) {
+            throw new IllegalArgumentException("Not an annotation type: " + annotationClass);
+        }
+        AnnotationInstance repeatable = annotationClass.declaredAnnotation(DotName.REPEATABLE_NAME);
+        if (repeatable == null) {
+            // Not a repeatable annotation
+            return getAnnotations(annotationName);
+        }
+        Type containing = repeatable.value().asClass();
+        return getAnnotationsWithRepeatable(annotationName, containing.name());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<AnnotationInstance> getAnnotationsWithRepeatable(DotName annotationName,
+            DotName containerAnnotationName) {
+        List<AnnotationInstance> instances = new ArrayList<>(getAnnotations(annotationName));
+        for (AnnotationInstance containingInstance : getAnnotations(containerAnnotationName)) {
+            for (AnnotationInstance nestedInstance : containingInstance.value().asNestedArray()) {
+                // We need to set the target of the containing instance
+                instances.add(AnnotationInstance.create(nestedInstance, containingInstance.target()));
+            }
+        }
+        return instances;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<ModuleInfo> getKnownModules() {
+        return modules.values();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ModuleInfo getModuleByName(DotName moduleName) {
+        return modules.get(moduleName);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<ClassInfo> getKnownUsers(DotName className) {
+        Set<DotName> usedBy = users.get(className);
+        if (usedBy == null) {
+            return Collections.emptyList();
+        }
+        List<ClassInfo> result = new ArrayList<>(usedBy.size());
+        for (DotName name : usedBy) {
+            result.add(getClassByName(name));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<ClassInfo> getClassesInPackage(DotName packageName) {
+        if (classesInPackage == null) {
+            synchronized (this) {
+                if (classesInPackage == null) {
+                    Map<DotName, List<Integer>> map = new HashMap<>();
+                    for (int i = 0; i < classNames.length; i++) {
+                        DotName pkg = classNames[i].packagePrefixName();
+                        map.computeIfAbsent(pkg, ignored -> new ArrayList<>()).add(i);
+                    }
+                    classesInPackage = toArrays(map);
+                }
+            }
+        }
+
+        return classesAt(classesInPackage.get(packageName));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<DotName> getSubpackages(DotName packageName) {
+        if (subpackages == null) {
+            synchronized (this) {
+                if (subpackages == null) {
+                    Map<DotName, Set<DotName>> map = new HashMap<>();
+                    for (DotName className : classNames) {
+                        DotName pkg = className.packagePrefixName();
+                        while (pkg != null) {
+                            DotName superPkg = pkg.packagePrefixName();
+                            if (superPkg != null) {
+                                map.computeIfAbsent(superPkg, ignored -> new HashSet<>()).add(pkg);
+                            }
+                            pkg = superPkg;
+                        }
+                    }
+                    subpackages = Collections.unmodifiableMap(map);
+                }
+            }
+        }
+
+        Set<DotName> result = subpackages.get(packageName);
+        return result != null ? Collections.unmodifiableSet(result) : Collections.emptySet();
+    }
+}
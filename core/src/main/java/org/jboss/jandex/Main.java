@@ -36,6 +36,7 @@ public class Main {
     private boolean verbose;
     private boolean dump;
     private boolean jarFile;
+    private boolean compress;
     private File outputFile;
     private File source;
     private Index index;
@@ -85,7 +86,8 @@ public class Main {
     private Index getIndex(long start) throws IOException {
         Indexer indexer = new Indexer();
         Result result = (source.isDirectory()) ? indexDirectory(source, indexer)
-                : JarIndexer.createJarIndex(source, indexer, outputFile, modify, jarFile, verbose);
+                : JarIndexer.createJarIndex(source, indexer, outputFile, modify, jarFile, verbose, compress, System.out,
+                        System.err);
 
         double time = (System.currentTimeMillis() - start) / 1000.00;
         System.out.printf(Locale.ROOT,
@@ -102,8 +104,8 @@ public class Main {
         long start = System.currentTimeMillis();
         Index index = reader.read();
         long end = System.currentTimeMillis() - start;
-        System.out.println("Dump index v" + reader.getIndexVersion() + " (current: v" + IndexWriterV2.MAX_VERSION
-                + ") file: " + source);
+        System.out.println("Dump index v" + reader.getIndexVersion() + " (current: v" + IndexWriterV2.DEFAULT_VERSION
+                + ")" + (reader.isCompressed() ? " compressed" : "") + " file: " + source);
         index.printAnnotations();
         index.printSubclasses();
 
@@ -123,7 +125,7 @@ public class Main {
         }
 
         FileOutputStream out = new FileOutputStream(outputFile);
-        IndexWriter writer = new IndexWriter(out);
+        IndexWriter writer = new IndexWriter(out, compress);
 
         try {
             Index index = indexer.complete();
@@ -181,7 +183,7 @@ public class Main {
     }
 
     private static void printUsage() {
-        System.out.println("Usage: jandex [-v] [-m] [-o file-name] <directory> | <jar>");
+        System.out.println("Usage: jandex [-v] [-m] [-c] [-o file-name] <directory> | <jar>");
         System.out.println("        -or-");
         System.out.println("       jandex [-d] <index-file-name>");
         System.out.println("Options:");
@@ -189,6 +191,7 @@ public class Main {
         System.out.println("  -m  modify directory or jar instead of creating an external index file");
         System.out.println("  -o  name the external index file file-name");
         System.out.println("  -j  export the index file to a jar file");
+        System.out.println("  -c  compress the index file");
         System.out.println("  -d  dump the index file index-file-name");
         System.out.println("\nThe default behavior, with no options specified, is to autogenerate an external index file");
     }
@@ -226,6 +229,10 @@ public class Main {
                     jarFile = true;
                     optionCount++;
                     break;
+                case 'c':
+                    compress = true;
+                    optionCount++;
+                    break;
                 case 'o':
                     if (i >= args.length)
                         throw new IllegalArgumentException("-o requires an output file name");
@@ -140,6 +140,24 @@ final class MethodInternal {
         this.descriptorParameterTypes = this.parameterTypes;
     }
 
+    // shallow copy, see `Indexer.unshareMembers()`
+    MethodInternal(MethodInternal other) {
+        this.name = other.name;
+        this.parameterNames = other.parameterNames;
+        this.parameterTypes = other.parameterTypes;
+        this.returnType = other.returnType;
+        this.exceptions = other.exceptions;
+        this.flags = other.flags;
+        if (other.extra != null) {
+            this.extra = new ExtraInfo();
+            this.extra.receiverType = other.extra.receiverType;
+            this.extra.typeParameters = other.extra.typeParameters;
+            this.extra.defaultValue = other.extra.defaultValue;
+            this.extra.annotations = other.extra.annotations;
+        }
+        this.descriptorParameterTypes = other.descriptorParameterTypes;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
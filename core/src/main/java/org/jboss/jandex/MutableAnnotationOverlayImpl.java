@@ -12,18 +12,14 @@ final class MutableAnnotationOverlayImpl extends AnnotationOverlayImpl implement
 
     MutableAnnotationOverlayImpl(IndexView index, boolean compatibleMode, boolean runtimeAnnotationsOnly,
             boolean inheritedAnnotations) {
-        super(index, compatibleMode, runtimeAnnotationsOnly, inheritedAnnotations, Collections.emptyList());
+        // the overlay state is kept in the cache, so it must never evict anything
+        super(index, compatibleMode, runtimeAnnotationsOnly, inheritedAnnotations, Collections.emptyList(),
+                AnnotationOverlayCache.unbounded());
     }
 
     @Override
     Collection<AnnotationInstance> getAnnotationsFor(Declaration declaration) {
-        EquivalenceKey key = EquivalenceKey.of(declaration);
-        // optimistic `get` to avoid `computeIfAbsent` for most calls
-        Collection<AnnotationInstance> result = overlay.get(key);
-        if (result != null) {
-            return result;
-        }
-        return overlay.computeIfAbsent(key, new Function<EquivalenceKey, Collection<AnnotationInstance>>() {
+        return overlay.get(EquivalenceKey.of(declaration), new Function<EquivalenceKey, Collection<AnnotationInstance>>() {
             @Override
             public Collection<AnnotationInstance> apply(EquivalenceKey ignored) {
                 return new HashSet<>(getOriginalAnnotations(declaration));
@@ -35,6 +35,20 @@ class NameTable {
     private StrongInternPool<FieldInternal> fieldPool = StrongInternPool.forFields();
     private StrongInternPool<RecordComponentInternal> recordComponentPool = StrongInternPool.forRecordComponents();
     private Map<String, DotName> names = new HashMap<String, DotName>();
+    // optional, names, strings and types are first interned here when present
+    private final SharedNameTable shared;
+
+    NameTable() {
+        this(null);
+    }
+
+    NameTable(SharedNameTable shared) {
+        this.shared = shared;
+    }
+
+    SharedNameTable shared() {
+        return shared;
+    }
 
     DotName convertToName(String name) {
         return convertToName(name, '.');
@@ -49,6 +63,9 @@ class NameTable {
         String local = intern(name.substring(loc + 1));
         DotName prefix = loc < 1 ? null : convertToName(intern(name.substring(0, loc)), delim);
         result = new DotName(prefix, local, true, loc > 0 && name.charAt(loc) == '$');
+        if (shared != null) {
+            result = shared.intern(result);
+        }
 
         names.put(name, result);
 
@@ -82,6 +99,9 @@ class NameTable {
     }
 
     String intern(String string) {
+        if (shared != null) {
+            string = shared.intern(string);
+        }
         return stringPool.intern(string);
     }
 
@@ -90,10 +110,16 @@ class NameTable {
     }
 
     Type intern(Type type) {
+        if (shared != null) {
+            type = shared.intern(type);
+        }
         return typePool.intern(type);
     }
 
     Type[] intern(Type[] types) {
+        if (shared != null) {
+            types = shared.intern(types);
+        }
         return typeListPool.intern(types);
     }
 
@@ -153,8 +179,8 @@ class NameTable {
         String name = dotName.toString(delim);
         DotName old = names.get(name);
         if (old == null) {
-            old = dotName;
-            names.put(name, dotName);
+            old = shared != null ? shared.intern(dotName) : dotName;
+            names.put(name, old);
         }
 
         return old;
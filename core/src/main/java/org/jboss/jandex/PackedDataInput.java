@@ -0,0 +1,33 @@
+package org.jboss.jandex;
+
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A source of index data that, in addition to the usual {@link DataInput} methods, reads integers
+ * that were packed by {@link PackedDataOutputStream}. Implemented by {@link PackedDataInputStream},
+ * which reads from an arbitrary stream, and by {@link ByteBufferDataInput}, which decodes directly
+ * from a buffer.
+ */
+interface PackedDataInput extends DataInput, Closeable {
+    /**
+     * Reads a packed unsigned integer. Every byte uses the first bit as a control bit to
+     * signal when there are additional bytes to be read. The remaining seven bits are data.
+     * Depending on the size of the number one to five bytes may be read.
+     *
+     * @return the unpacked integer
+     *
+     * @throws IOException
+     */
+    int readPackedU32() throws IOException;
+
+    /**
+     * Returns a stream of the data that were not yet read from this input. Reading from the stream
+     * advances this input, so the two should not be used alternately.
+     *
+     * @return a stream of the remaining data
+     */
+    InputStream remaining();
+}
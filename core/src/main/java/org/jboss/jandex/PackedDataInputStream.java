@@ -33,7 +33,7 @@ import java.io.InputStream;
  *
  * @author Jason T. Greene
  */
-class PackedDataInputStream extends DataInputStream {
+class PackedDataInputStream extends DataInputStream implements PackedDataInput {
 
     static final int MAX_1BYTE = 0x7F;
 
@@ -41,15 +41,7 @@ class PackedDataInputStream extends DataInputStream {
         super(in);
     }
 
-    /**
-     * Reads a packed unsigned integer. Every byte uses the first bit as a control bit to
-     * signal when there are additional bytes to be read. The remaining seven bits are data.
-     * Depending on the size of the number one to five bytes may be read.
-     *
-     * @return the unpacked integer
-     *
-     * @throws IOException
-     */
+    @Override
     public int readPackedU32() throws IOException {
         byte b;
         int i = 0;
@@ -61,4 +53,9 @@ class PackedDataInputStream extends DataInputStream {
 
         return i;
     }
+
+    @Override
+    public InputStream remaining() {
+        return this;
+    }
 }
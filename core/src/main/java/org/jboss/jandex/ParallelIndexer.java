@@ -0,0 +1,340 @@
+package org.jboss.jandex;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Analyzes and indexes class files on multiple threads. Class file data passed to this indexer
+ * is grouped into batches in the order of submission. Each batch is parsed by a separate {@link Indexer}
+ * on a thread provided by the {@link Executor}. When {@linkplain #complete() completing} the index,
+ * the partial results are merged in the order of submission and the post-processing steps that
+ * require knowledge of all indexed classes are performed. Therefore, the resulting index is the same
+ * as an index produced by a single {@code Indexer} that is given the same class files in the same order.
+ * When written using an {@link IndexWriter}, both indices produce identical bytes, regardless of the batch size.
+ * <p>
+ * Since batches are executed concurrently, the memory footprint during indexing is higher than with
+ * a single {@code Indexer}: each batch maintains its own intern tables and the class file data of
+ * all not-yet-processed batches is kept in memory.
+ *
+ * <p>
+ * <b>Thread-Safety</b> This class is not thread-safe and can <b>not</b> be shared between threads;
+ * a single thread is expected to submit class files and complete the index. The index it produces
+ * is thread-safe.
+ *
+ * @since 3.7
+ */
+public final class ParallelIndexer {
+    private static final int DEFAULT_BATCH_SIZE = 256;
+
+    private final Executor executor;
+    private final int batchSize;
+    private final SharedNameTable sharedNames;
+    private final IndexerOptions options;
+
+    private List<byte[]> currentBatch;
+    // same size as `currentBatch`, contains `null` for class files submitted without a summary request
+    private List<CompletableFuture<ClassSummary>> currentSummaries;
+    private List<FutureTask<Indexer>> batches = new ArrayList<>();
+
+    /**
+     * Creates a parallel indexer that executes indexing tasks using given {@code executor}.
+     *
+     * @param executor the executor to run indexing tasks, must not be {@code null}
+     */
+    public ParallelIndexer(Executor executor) {
+        this(executor, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a parallel indexer that executes indexing tasks using given {@code executor}.
+     * Each task indexes up to {@code batchSize} class files.
+     *
+     * @param executor the executor to run indexing tasks, must not be {@code null}
+     * @param batchSize the maximum number of class files indexed by a single task, must be positive
+     */
+    public ParallelIndexer(Executor executor, int batchSize) {
+        this(executor, batchSize, null);
+    }
+
+    /**
+     * Creates a parallel indexer that executes indexing tasks using given {@code executor}.
+     * Each task indexes up to {@code batchSize} class files. Names, strings and types are
+     * deduplicated using given {@code sharedNames} table, which also deduplicates them
+     * across batches.
+     *
+     * @param executor the executor to run indexing tasks, must not be {@code null}
+     * @param batchSize the maximum number of class files indexed by a single task, must be positive
+     * @param sharedNames the shared name table, may be {@code null}
+     * @see Indexer#Indexer(SharedNameTable)
+     */
+    public ParallelIndexer(Executor executor, int batchSize, SharedNameTable sharedNames) {
+        this(executor, batchSize, sharedNames, IndexerOptions.defaults());
+    }
+
+    /**
+     * Creates a parallel indexer that executes indexing tasks using given {@code executor}.
+     * Each task indexes up to {@code batchSize} class files, analyzing the information selected
+     * by given {@code options}. Names, strings and types are deduplicated using given
+     * {@code sharedNames} table, if any.
+     *
+     * @param executor the executor to run indexing tasks, must not be {@code null}
+     * @param batchSize the maximum number of class files indexed by a single task, must be positive
+     * @param sharedNames the shared name table, may be {@code null}
+     * @param options the indexer options, must not be {@code null}
+     * @see Indexer#Indexer(SharedNameTable, IndexerOptions)
+     */
+    public ParallelIndexer(Executor executor, int batchSize, SharedNameTable sharedNames, IndexerOptions options) {
+        this.executor = Objects.requireNonNull(executor);
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        if (options == null) {
+            throw new IllegalArgumentException("options cannot be null");
+        }
+        this.batchSize = batchSize;
+        this.sharedNames = sharedNames;
+        this.options = options;
+    }
+
+    /**
+     * Submits the class file data of given {@code clazz} for indexing.
+     *
+     * @param clazz a previously-loaded class, must not be {@code null}
+     * @throws IOException if reading the class file data fails
+     * @throws IllegalArgumentException if {@code clazz} is {@code null}
+     */
+    public void indexClass(Class<?> clazz) throws IOException {
+        if (clazz == null) {
+            throw new IllegalArgumentException("clazz cannot be null");
+        }
+        String resourceName = '/' + clazz.getName().replace('.', '/') + ".class";
+        try (InputStream resource = clazz.getResourceAsStream(resourceName)) {
+            index(resource);
+        }
+    }
+
+    /**
+     * Submits the class file data present in given input {@code stream} for indexing.
+     * The stream is read fully on the calling thread. Closing the input stream is the caller's
+     * responsibility.
+     *
+     * @param stream the class bytecode to index, must not be {@code null}
+     * @throws IOException if reading the stream fails
+     * @throws IllegalArgumentException if {@code stream} is {@code null}
+     */
+    public void index(InputStream stream) throws IOException {
+        if (stream == null) {
+            throw new IllegalArgumentException("stream cannot be null");
+        }
+        index(Utils.readFully(stream));
+    }
+
+    /**
+     * Submits all class files in given {@code directory} and its subdirectories for indexing. The directory
+     * tree is walked and the class files are read on the calling thread, while they are parsed on the threads
+     * of the executor. Symbolic links are followed. The class files are submitted in the order of their paths
+     * relative to {@code directory}, so the resulting index doesn't depend on the order in which the file system
+     * lists directory entries.
+     *
+     * @param directory the directory to index, must not be {@code null}
+     * @return the number of submitted class files
+     * @throws IOException if walking the directory tree or reading a class file fails
+     * @throws IllegalArgumentException if {@code directory} is {@code null} or not a directory
+     */
+    public int indexDirectory(Path directory) throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException("directory cannot be null");
+        }
+        if (!Files.isDirectory(directory)) {
+            throw new IllegalArgumentException("Not a directory: " + directory);
+        }
+        List<Path> classFiles = Utils.findClassFiles(directory);
+        for (Path classFile : classFiles) {
+            index(Files.readAllBytes(classFile));
+        }
+        return classFiles.size();
+    }
+
+    /**
+     * Submits given class file data for indexing. The array must not be modified afterwards.
+     * Corrupt class file data is not detected by this method; it is reported when
+     * {@linkplain #complete() completing} the index.
+     *
+     * @param classData the class bytecode to index, must not be {@code null}
+     * @throws IllegalArgumentException if {@code classData} is {@code null}
+     */
+    public void index(byte[] classData) {
+        if (classData == null) {
+            throw new IllegalArgumentException("classData cannot be null");
+        }
+        submit(classData, null);
+    }
+
+    /**
+     * Submits given class file data for indexing. The array must not be modified afterwards.
+     * <p>
+     * For reporting progress in batch indexers, this variant of {@code index} returns a future
+     * summary of the class. The future is completed once the class file is indexed, which is
+     * guaranteed to have happened when {@link #complete()} returns. If the class file data is corrupt,
+     * the future is completed exceptionally.
+     *
+     * @param classData the class bytecode to index, must not be {@code null}
+     * @return a future summary of the class
+     * @throws IllegalArgumentException if {@code classData} is {@code null}
+     */
+    public Future<ClassSummary> indexWithSummary(byte[] classData) {
+        if (classData == null) {
+            throw new IllegalArgumentException("classData cannot be null");
+        }
+        CompletableFuture<ClassSummary> summary = new CompletableFuture<>();
+        submit(classData, summary);
+        return summary;
+    }
+
+    /**
+     * Submits the class file data present in given input {@code stream} for indexing and returns a future
+     * summary of the class, see {@link #indexWithSummary(byte[])}. The stream is read fully on the calling thread.
+     * Closing the input stream is the caller's responsibility.
+     *
+     * @param stream the class bytecode to index, must not be {@code null}
+     * @return a future summary of the class
+     * @throws IOException if reading the stream fails
+     * @throws IllegalArgumentException if {@code stream} is {@code null}
+     */
+    public Future<ClassSummary> indexWithSummary(InputStream stream) throws IOException {
+        if (stream == null) {
+            throw new IllegalArgumentException("stream cannot be null");
+        }
+        return indexWithSummary(Utils.readFully(stream));
+    }
+
+    private void submit(byte[] classData, CompletableFuture<ClassSummary> summary) {
+        if (currentBatch == null) {
+            currentBatch = new ArrayList<>(batchSize);
+            currentSummaries = new ArrayList<>(batchSize);
+        }
+        currentBatch.add(classData);
+        currentSummaries.add(summary);
+        if (currentBatch.size() >= batchSize) {
+            submitCurrentBatch();
+        }
+    }
+
+    private void submitCurrentBatch() {
+        if (currentBatch == null || currentBatch.isEmpty()) {
+            return;
+        }
+
+        List<byte[]> batch = currentBatch;
+        List<CompletableFuture<ClassSummary>> summaries = currentSummaries;
+        currentBatch = null;
+        currentSummaries = null;
+        FutureTask<Indexer> task = new FutureTask<>(() -> {
+            Indexer indexer = newIndexer();
+            int i = 0;
+            try {
+                for (; i < batch.size(); i++) {
+                    ClassSummary summary = indexer.indexWithSummary(ByteBuffer.wrap(batch.get(i)));
+                    if (summaries.get(i) != null) {
+                        summaries.get(i).complete(summary);
+                    }
+                }
+            } catch (Throwable e) {
+                for (; i < batch.size(); i++) {
+                    if (summaries.get(i) != null) {
+                        summaries.get(i).completeExceptionally(e);
+                    }
+                }
+                throw e;
+            }
+            return indexer;
+        });
+        batches.add(task);
+        executor.execute(task);
+    }
+
+    /**
+     * Waits for all submitted class files to be indexed, merges the results and returns the index.
+     * Future calls to {@code index()} will result in a new index.
+     *
+     * @return the master index for all submitted class files
+     * @throws IOException if any class file data is corrupt
+     */
+    public Index complete() throws IOException {
+        return merge().complete();
+    }
+
+    /**
+     * Waits for all submitted class files to be indexed, merges the results and returns an updated
+     * version of given {@code previous} index. See {@link Indexer#completeUpdate(Index, Collection)}
+     * for details. Future calls to {@code index()} will result in a new index.
+     *
+     * @param previous the index to update, must not be {@code null}
+     * @param removedClasses names of classes that should be removed from the {@code previous} index,
+     *        must not be {@code null}
+     * @return the updated index
+     * @throws IOException if any class file data is corrupt
+     */
+    public Index completeUpdate(Index previous, Collection<DotName> removedClasses) throws IOException {
+        if (previous == null) {
+            throw new IllegalArgumentException("Previous index cannot be null");
+        }
+        if (removedClasses == null) {
+            throw new IllegalArgumentException("Removed classes cannot be null");
+        }
+        return merge().completeUpdate(previous, removedClasses);
+    }
+
+    private Indexer newIndexer() {
+        return new Indexer(sharedNames, options);
+    }
+
+    private Indexer merge() throws IOException {
+        submitCurrentBatch();
+
+        List<FutureTask<Indexer>> batches = this.batches;
+        this.batches = new ArrayList<>();
+
+        Indexer result = newIndexer();
+        try {
+            for (FutureTask<Indexer> batch : batches) {
+                result.mergeFrom(batch.get());
+            }
+        } catch (InterruptedException e) {
+            cancel(batches);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for indexing to finish");
+        } catch (ExecutionException e) {
+            cancel(batches);
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+        return result;
+    }
+
+    private static void cancel(List<FutureTask<Indexer>> batches) {
+        for (FutureTask<Indexer> batch : batches) {
+            batch.cancel(false);
+        }
+    }
+}
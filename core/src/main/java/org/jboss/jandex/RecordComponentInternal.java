@@ -60,6 +60,11 @@ final class RecordComponentInternal {
         this.annotations = annotations;
     }
 
+    // shallow copy, see `Indexer.unshareMembers()`
+    RecordComponentInternal(RecordComponentInternal other) {
+        this(other.name, other.type, other.annotations);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -0,0 +1,184 @@
+package org.jboss.jandex;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An intern table of names, strings and types that may be shared by multiple indexers and index readers.
+ * By default, each {@link Indexer} and each {@link IndexReader} deduplicates names, strings and types
+ * only within the index it produces. When many indices are loaded or created at once, for example to be
+ * combined into a {@link CompositeIndex}, the same {@link DotName}s, {@code String}s and {@link Type}s
+ * are present in many of them. Configuring the indexers and index readers with a single shared name table
+ * makes all the indices share one instance of each such object, which reduces memory consumption.
+ * <p>
+ * Types that carry type annotations or that contain references to type variables are never shared,
+ * because they are tied to a particular declaration in a particular index.
+ * <p>
+ * Using a shared name table doesn't affect the contents of the indices: an index written using an
+ * {@link IndexWriter} is identical to an index created without a shared name table, regardless of what
+ * the shared name table already contains and of what other indexers use it concurrently.
+ * <p>
+ * Note that the shared name table retains all objects that were ever interned in it. It should therefore
+ * not be kept beyond the lifetime of the indices that were created with it.
+ *
+ * <p>
+ * <b>Thread-Safety</b>
+ * </p>
+ * This class is thread-safe and is typically used by multiple indexers and index readers concurrently.
+ *
+ * @see Indexer#Indexer(SharedNameTable)
+ * @see IndexReader#IndexReader(java.io.InputStream, SharedNameTable)
+ * @since 3.7
+ */
+public final class SharedNameTable {
+    private final ConcurrentMap<String, String> strings = new ConcurrentHashMap<>();
+    private final ConcurrentMap<DotName, DotName> names = new ConcurrentHashMap<>();
+    private final ConcurrentMap<TypeKey, Type> types = new ConcurrentHashMap<>();
+    private final ConcurrentMap<TypeArrayKey, Type[]> typeLists = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an empty shared name table.
+     */
+    public SharedNameTable() {
+    }
+
+    /**
+     * Returns the number of distinct objects interned in this shared name table.
+     *
+     * @return the number of interned names, strings, types and lists of types
+     */
+    public int size() {
+        return strings.size() + names.size() + types.size() + typeLists.size();
+    }
+
+    String intern(String string) {
+        if (string == null) {
+            return null;
+        }
+        String existing = strings.putIfAbsent(string, string);
+        return existing != null ? existing : string;
+    }
+
+    /**
+     * Interns given componentized {@code name}. Simple names are returned as is, so that the structure
+     * of names produced by a single indexer or index reader stays consistent.
+     */
+    DotName intern(DotName name) {
+        if (name == null || !name.isComponentized()) {
+            return name;
+        }
+        DotName existing = names.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        existing = names.putIfAbsent(name, name);
+        return existing != null ? existing : name;
+    }
+
+    Type intern(Type type) {
+        if (!isShareable(type)) {
+            return type;
+        }
+        TypeKey key = new TypeKey(type);
+        Type existing = types.putIfAbsent(key, type);
+        return existing != null ? existing : type;
+    }
+
+    Type[] intern(Type[] types) {
+        if (types == null) {
+            return null;
+        }
+        for (Type type : types) {
+            if (!isShareable(type)) {
+                return types;
+            }
+        }
+        TypeArrayKey key = new TypeArrayKey(types);
+        Type[] existing = typeLists.putIfAbsent(key, types);
+        return existing != null ? existing : types;
+    }
+
+    private static boolean isShareable(Type type) {
+        if (type == null) {
+            return false;
+        }
+        if (type.annotationArray().length > 0) {
+            return false;
+        }
+
+        switch (type.kind()) {
+            case CLASS:
+            case PRIMITIVE:
+            case VOID:
+            case UNRESOLVED_TYPE_VARIABLE:
+                return true;
+            case ARRAY:
+                return isShareable(type.asArrayType().constituent());
+            case PARAMETERIZED_TYPE:
+                ParameterizedType parameterizedType = type.asParameterizedType();
+                if (parameterizedType.owner() != null && !isShareable(parameterizedType.owner())) {
+                    return false;
+                }
+                for (Type argument : parameterizedType.argumentsArray()) {
+                    if (!isShareable(argument)) {
+                        return false;
+                    }
+                }
+                return true;
+            case WILDCARD_TYPE:
+                return isShareable(type.asWildcardType().bound());
+            case TYPE_VARIABLE:
+                for (Type bound : type.asTypeVariable().boundArray()) {
+                    if (!isShareable(bound)) {
+                        return false;
+                    }
+                }
+                return true;
+            default:
+                // type variable references are mutable and identity-based
+                return false;
+        }
+    }
+
+    // keys use the interning equality, see `TypeInterning`
+
+    private static final class TypeKey {
+        private final Type type;
+        private final int hash;
+
+        TypeKey(Type type) {
+            this.type = type;
+            this.hash = type.internHashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof TypeKey && type.internEquals(((TypeKey) o).type);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class TypeArrayKey {
+        private final Type[] types;
+        private final int hash;
+
+        TypeArrayKey(Type[] types) {
+            this.types = types;
+            this.hash = TypeInterning.arrayHashCode(types);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof TypeArrayKey && TypeInterning.arrayEquals(types, ((TypeArrayKey) o).types);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
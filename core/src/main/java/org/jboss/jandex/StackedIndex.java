@@ -9,17 +9,31 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A stack of {@linkplain IndexView indexes} with overlay semantics. Overlaying is done on class
  * granularity. That is, if a class is present in multiple indexes on the stack, only the top-most
  * occurrence is considered; the other variants of the class present below on the stack are ignored.
+ * <p>
+ * Classes looked up by name and the results of transitive queries on the class hierarchy are cached,
+ * so repeated queries don't have to visit all indexes on the stack again. Since a stacked index is
+ * immutable, the caches are never invalidated; {@link #pushIndex(IndexView)} returns a new stacked index
+ * with empty caches. The indexes on the stack must not change while the stacked index is in use.
  *
  * @since 3.2.0
  */
 public final class StackedIndex implements IndexView {
     // note that the top-most index comes first (reverse order compared to the `create()` methods)
-    private final IndexView[] stack;
+    final IndexView[] stack;
+
+    // classes found by name and transitive closures of the class hierarchy, populated lazily on first query
+    // for given name; empty results are not cached, so that queries for unknown names don't grow the caches
+    private volatile ConcurrentMap<DotName, ClassInfo> classes;
+    private volatile ConcurrentMap<DotName, Collection<ClassInfo>> allSubclasses;
+    private volatile ConcurrentMap<DotName, Collection<ClassInfo>> allSubinterfaces;
+    private volatile ConcurrentMap<DotName, Collection<ClassInfo>> allImplementors;
 
     private StackedIndex(IndexView[] stack) {
         this.stack = stack;
@@ -99,9 +113,22 @@ public final class StackedIndex implements IndexView {
 
     @Override
     public ClassInfo getClassByName(DotName className) {
+        if (className == null) {
+            return null;
+        }
+        ConcurrentMap<DotName, ClassInfo> cache = classes;
+        if (cache == null) {
+            classes = cache = new ConcurrentHashMap<>();
+        }
+        ClassInfo cached = cache.get(className);
+        if (cached != null) {
+            return cached;
+        }
+
         for (IndexView index : stack) {
             ClassInfo result = index.getClassByName(className);
             if (result != null) {
+                cache.putIfAbsent(className, result);
                 return result;
             }
         }
@@ -124,6 +151,15 @@ public final class StackedIndex implements IndexView {
 
     @Override
     public Collection<ClassInfo> getAllKnownSubclasses(DotName className) {
+        ConcurrentMap<DotName, Collection<ClassInfo>> cache = allSubclasses;
+        if (cache == null) {
+            allSubclasses = cache = new ConcurrentHashMap<>();
+        }
+        Collection<ClassInfo> cached = cached(cache, className);
+        if (cached != null) {
+            return cached;
+        }
+
         List<ClassInfo> result = new ArrayList<>();
 
         Queue<DotName> worklist = new ArrayDeque<>();
@@ -134,15 +170,16 @@ public final class StackedIndex implements IndexView {
             DotName cls = worklist.remove();
             for (IndexView index : stack) {
                 for (ClassInfo directSubclass : index.getKnownDirectSubclasses(cls)) {
-                    worklist.add(directSubclass.name());
+                    // subclasses are found by name in all indexes, so each name is only processed once
                     if (seen.add(directSubclass.name())) {
+                        worklist.add(directSubclass.name());
                         result.add(directSubclass);
                     }
                 }
             }
         }
 
-        return Collections.unmodifiableList(result);
+        return cache(cache, className, result);
     }
 
     @Override
@@ -161,6 +198,15 @@ public final class StackedIndex implements IndexView {
 
     @Override
     public Collection<ClassInfo> getAllKnownSubinterfaces(DotName interfaceName) {
+        ConcurrentMap<DotName, Collection<ClassInfo>> cache = allSubinterfaces;
+        if (cache == null) {
+            allSubinterfaces = cache = new ConcurrentHashMap<>();
+        }
+        Collection<ClassInfo> cached = cached(cache, interfaceName);
+        if (cached != null) {
+            return cached;
+        }
+
         List<ClassInfo> result = new ArrayList<>();
 
         Queue<DotName> worklist = new ArrayDeque<>();
@@ -171,15 +217,15 @@ public final class StackedIndex implements IndexView {
             DotName iface = worklist.remove();
             for (IndexView index : stack) {
                 for (ClassInfo directSubinterface : index.getKnownDirectSubinterfaces(iface)) {
-                    worklist.add(directSubinterface.name());
                     if (seen.add(directSubinterface.name())) {
+                        worklist.add(directSubinterface.name());
                         result.add(directSubinterface);
                     }
                 }
             }
         }
 
-        return Collections.unmodifiableList(result);
+        return cache(cache, interfaceName, result);
     }
 
     @Override
@@ -218,10 +264,21 @@ public final class StackedIndex implements IndexView {
 
     @Override
     public Collection<ClassInfo> getAllKnownImplementors(DotName interfaceName) {
+        ConcurrentMap<DotName, Collection<ClassInfo>> cache = allImplementors;
+        if (cache == null) {
+            allImplementors = cache = new ConcurrentHashMap<>();
+        }
+        Collection<ClassInfo> cached = cached(cache, interfaceName);
+        if (cached != null) {
+            return cached;
+        }
+
         List<ClassInfo> result = new ArrayList<>();
 
         Queue<DotName> worklist = new ArrayDeque<>();
         Set<DotName> seen = new HashSet<>();
+        // an interface may be reachable through multiple subinterfaces, but it is only processed once
+        Set<DotName> seenInterfaces = new HashSet<>();
 
         worklist.add(interfaceName);
         while (!worklist.isEmpty()) {
@@ -229,7 +286,9 @@ public final class StackedIndex implements IndexView {
             for (IndexView index : stack) {
                 for (ClassInfo directImplementor : index.getKnownDirectImplementors(iface)) {
                     if (directImplementor.isInterface()) {
-                        worklist.add(directImplementor.name());
+                        if (seenInterfaces.add(directImplementor.name())) {
+                            worklist.add(directImplementor.name());
+                        }
                     } else if (seen.add(directImplementor.name())) {
                         result.add(directImplementor);
                     }
@@ -237,7 +296,25 @@ public final class StackedIndex implements IndexView {
             }
         }
 
-        return Collections.unmodifiableList(result);
+        return cache(cache, interfaceName, result);
+    }
+
+    private static Collection<ClassInfo> cached(ConcurrentMap<DotName, Collection<ClassInfo>> cache, DotName name) {
+        return name != null ? cache.get(name) : null;
+    }
+
+    // racing threads may compute the same closure, but only one is retained
+    private static Collection<ClassInfo> cache(ConcurrentMap<DotName, Collection<ClassInfo>> cache, DotName name,
+            List<ClassInfo> closure) {
+        if (closure.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Collection<ClassInfo> result = Collections.unmodifiableList(closure);
+        if (name == null) {
+            return result;
+        }
+        Collection<ClassInfo> existing = cache.putIfAbsent(name, result);
+        return existing != null ? existing : result;
     }
 
     @Override
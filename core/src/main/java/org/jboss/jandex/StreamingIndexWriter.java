@@ -0,0 +1,172 @@
+package org.jboss.jandex;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Writes a Jandex index file to a stream from classes that are added one by one, instead of from a complete
+ * {@link Index}. This allows writing an index of a very large number of classes, for example the classes
+ * of a whole application including its dependencies, without keeping all of them in memory at once:
+ * the classes may be indexed in batches, and each batch may be discarded after it is added to this writer.
+ * <p>
+ * The entries of added classes and their members are written to temporary files immediately; only the names,
+ * strings and types, which are shared by all classes, and a small directory record for each class are kept
+ * in memory. When all classes are added, {@link #finish()} writes the index to the output stream and deletes
+ * the temporary files. To keep only one instance of each name and type in memory, the batches should be indexed
+ * using a {@link SharedNameTable}.
+ * <p>
+ * The index is always written in the persistent format version 14, which can only be read by Jandex 3.7 or later.
+ * Other than that, it can be read with an {@link IndexReader} like any other index, including
+ * {@linkplain IndexReader#readLazily(Path) lazily}. Classes may be added in any order; for example, a nested class
+ * may be added before its enclosing class. The index contains the same information
+ * as an index of all classes written using the {@link IndexWriter}, except for the {@linkplain IndexView#getKnownUsers(DotName)
+ * users} of classes added using {@link #add(ClassInfo)}, see below. The index is larger, typically by about 10 %,
+ * because equal methods, fields and record components of different classes are not deduplicated.
+ * <p>
+ * The writer must be closed after use, which deletes the temporary files if {@code finish()} was not called.
+ *
+ * <p>
+ * <b>Thread-Safety</b>
+ * </p>
+ * This class is not thread-safe and can not be shared between concurrent threads.
+ *
+ * @see IndexWriter
+ * @since 3.7
+ */
+public final class StreamingIndexWriter implements Closeable {
+    private StreamingIndexWriterV2 writer;
+
+    /**
+     * Constructs a streaming writer that writes an uncompressed index to given stream, using temporary
+     * files in the default temporary-file directory.
+     *
+     * @param out a stream to write the index to, must not be {@code null}
+     * @throws IOException if the temporary files can't be created
+     */
+    public StreamingIndexWriter(OutputStream out) throws IOException {
+        this(out, false, null);
+    }
+
+    /**
+     * Constructs a streaming writer that writes an index to given stream, using temporary files
+     * in given directory.
+     *
+     * @param out a stream to write the index to, must not be {@code null}
+     * @param compressed whether the index should be compressed, see {@link IndexWriter#IndexWriter(OutputStream, boolean)}
+     * @param tempDirectory the directory in which the temporary files are created, or {@code null}
+     *        to use the default temporary-file directory
+     * @throws IOException if the temporary files can't be created
+     */
+    public StreamingIndexWriter(OutputStream out, boolean compressed, Path tempDirectory) throws IOException {
+        if (out == null) {
+            throw new IllegalArgumentException("out cannot be null");
+        }
+        this.writer = new StreamingIndexWriterV2(out, compressed, tempDirectory);
+    }
+
+    /**
+     * Adds a class to the index. The class is written to the temporary files immediately, so it
+     * must not be modified afterwards. A class of each name may only be added once.
+     * <p>
+     * The information about the {@linkplain IndexView#getKnownUsers(DotName) users} of classes is not
+     * part of the class, so it is not added. The written index doesn't contain any users of the added class,
+     * and the added class isn't recorded as a user of any other class. Use {@link #addAll(Index)} to add
+     * the users as well.
+     *
+     * @param clazz the class to add, must not be {@code null}
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if a class of the same name was already added
+     * @throws IllegalStateException if this writer was already finished or closed
+     */
+    public void add(ClassInfo clazz) throws IOException {
+        if (clazz == null) {
+            throw new IllegalArgumentException("clazz cannot be null");
+        }
+        writer().add(clazz);
+    }
+
+    /**
+     * Adds a module to the index.
+     *
+     * @param module the module to add, must not be {@code null}
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalStateException if this writer was already finished or closed
+     */
+    public void add(ModuleInfo module) throws IOException {
+        if (module == null) {
+            throw new IllegalArgumentException("module cannot be null");
+        }
+        writer().add(module);
+    }
+
+    /**
+     * Adds all classes and modules of given index to the index, as well as the information about
+     * the {@linkplain IndexView#getKnownUsers(DotName) users} of classes. This is typically used
+     * to add a batch of classes indexed by an {@link Indexer}.
+     *
+     * @param index the index whose contents should be added, must not be {@code null}
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if a class of the same name was already added
+     * @throws IllegalStateException if this writer was already finished or closed
+     */
+    public void addAll(Index index) throws IOException {
+        if (index == null) {
+            throw new IllegalArgumentException("index cannot be null");
+        }
+        StreamingIndexWriterV2 writer = writer();
+        for (ClassInfo clazz : index.getKnownClasses()) {
+            writer.add(clazz);
+        }
+        for (ModuleInfo module : index.getKnownModules()) {
+            writer.add(module);
+        }
+        if (index.users != null) {
+            for (Map.Entry<DotName, ClassInfo[]> entry : index.users.entrySet()) {
+                writer.addUsers(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Writes the index of all added classes and modules to the output stream and deletes
+     * the temporary files. No classes may be added afterwards. The output stream is not closed.
+     *
+     * @return the number of bytes written to the stream
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalStateException if this writer was already finished or closed
+     */
+    public int finish() throws IOException {
+        StreamingIndexWriterV2 writer = writer();
+        this.writer = null;
+        try {
+            return writer.finish();
+        } finally {
+            writer.delete();
+        }
+    }
+
+    /**
+     * Deletes the temporary files, unless they were already deleted by {@link #finish()}.
+     * The output stream is not closed.
+     *
+     * @throws IOException if the temporary files can't be deleted
+     */
+    @Override
+    public void close() throws IOException {
+        StreamingIndexWriterV2 writer = this.writer;
+        this.writer = null;
+        if (writer != null) {
+            writer.delete();
+        }
+    }
+
+    private StreamingIndexWriterV2 writer() {
+        if (writer == null) {
+            throw new IllegalStateException("The writer was already finished or closed");
+        }
+        return writer;
+    }
+}
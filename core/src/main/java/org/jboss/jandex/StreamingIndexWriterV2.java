@@ -0,0 +1,509 @@
+package org.jboss.jandex;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Writes an index in the persistent format version 14 from classes that are added one by one.
+ * The index body is assembled from several sections, all of which are known in full only
+ * after the last class is added. The tables of bytes, strings, names and types are kept in memory,
+ * because they are shared by all classes, while the entries of types, methods, fields, record components,
+ * classes and modules are written to temporary files as soon as a class is added. When finishing,
+ * the directory is built from a small record kept for each class, and the sections are copied
+ * to the output stream.
+ * <p>
+ * The format is the same as written by {@link IndexWriterV2}, except that the tables are in insertion
+ * order instead of sorted, and that methods, fields and record components are not deduplicated
+ * across classes. The annotation table is continued from one class to the next, so that each class
+ * has its own range of annotation positions and annotations of previous classes may be forgotten.
+ */
+final class StreamingIndexWriterV2 extends IndexWriterV2 {
+    private static final int VERSION = 14;
+
+    private final Map<ByteBuffer, Integer> byteTable = new LinkedHashMap<>();
+    private final Map<String, Integer> stringTable = new LinkedHashMap<>();
+    private final Map<DotName, Integer> nameTable = new LinkedHashMap<>();
+
+    // positions of members of the class that is currently being added
+    private final Map<Object, Integer> memberPositions = new IdentityHashMap<>();
+    private int methodsCount;
+    private int fieldsCount;
+    private int recordComponentsCount;
+    private int typesFlushed;
+
+    private final Set<DotName> classNames = new HashSet<>();
+    private final List<DirectoryEntry> directory = new ArrayList<>();
+    private final Map<DotName, Set<DotName>> users = new LinkedHashMap<>();
+    private final Set<DotName> annotations = new HashSet<>();
+    private final Set<DotName> implementors = new HashSet<>();
+    private final Set<DotName> subinterfaces = new HashSet<>();
+    private final Set<DotName> subclasses = new HashSet<>();
+    private int modulesCount;
+
+    private final Spill types;
+    private final Spill methods;
+    private final Spill fields;
+    private final Spill recordComponents;
+    private final Spill classes;
+    private final Spill modules;
+    private final Offsets methodOffsets = new Offsets();
+    private final Offsets fieldOffsets = new Offsets();
+    private final Offsets recordComponentOffsets = new Offsets();
+
+    // the class directory entry is all that is kept in memory for each class after it is added
+    private static final class DirectoryEntry {
+        final DotName name;
+        final int flags;
+        final int superClassType;
+        final int interfaceTypes;
+        final int offset;
+        final DotName[] annotations;
+
+        DirectoryEntry(DotName name, int flags, int superClassType, int interfaceTypes, int offset,
+                DotName[] annotations) {
+            this.name = name;
+            this.flags = flags;
+            this.superClassType = superClassType;
+            this.interfaceTypes = interfaceTypes;
+            this.offset = offset;
+            this.annotations = annotations;
+        }
+    }
+
+    // a section of the index body, written to a temporary file
+    private static final class Spill {
+        private final Path file;
+        private final PackedDataOutputStream stream;
+        private boolean closed;
+
+        Spill(Path tempDirectory) throws IOException {
+            file = tempDirectory == null
+                    ? Files.createTempFile("jandex-", ".tmp")
+                    : Files.createTempFile(tempDirectory, "jandex-", ".tmp");
+            stream = new PackedDataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+        }
+
+        int size() {
+            return stream.size();
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            close();
+            Files.copy(file, out);
+        }
+
+        void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                stream.close();
+            }
+        }
+
+        void delete() throws IOException {
+            try {
+                close();
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    // offsets of entries in a spill, delta-encoded like in the directory, see IndexWriterV2.writeOffsets()
+    private static final class Offsets {
+        private final ByteArrayOutputStream deltas = new ByteArrayOutputStream();
+        private final PackedDataOutputStream stream = new PackedDataOutputStream(deltas);
+        private int count;
+        private int last;
+
+        void add(int offset) throws IOException {
+            if (count > 0) {
+                stream.writePackedU32(offset - last);
+            }
+            last = offset;
+            count++;
+        }
+
+        // the first entry is always at the start of the spill, which is at `start` in the index body
+        void writeTo(PackedDataOutputStream out, int start) throws IOException {
+            out.writePackedU32(count);
+            if (count > 0) {
+                out.writePackedU32(start);
+                stream.flush();
+                deltas.writeTo(out);
+            }
+        }
+    }
+
+    StreamingIndexWriterV2(OutputStream out, boolean compressed, Path tempDirectory) throws IOException {
+        super(out, VERSION, compressed);
+        annotationTable = new ReferenceTable<>();
+        typeTable = new ReferenceTable<>(StrongInternPool.forTypes());
+        typeListTable = new ReferenceTable<>(StrongInternPool.forTypeArrays());
+
+        List<Spill> spills = new ArrayList<>();
+        try {
+            for (int i = 0; i < 6; i++) {
+                spills.add(new Spill(tempDirectory));
+            }
+        } catch (IOException e) {
+            for (Spill spill : spills) {
+                spill.delete();
+            }
+            throw e;
+        }
+        types = spills.get(0);
+        methods = spills.get(1);
+        fields = spills.get(2);
+        recordComponents = spills.get(3);
+        classes = spills.get(4);
+        modules = spills.get(5);
+    }
+
+    void add(ClassInfo clazz) throws IOException {
+        if (!classNames.add(clazz.name())) {
+            throw new IllegalArgumentException("Class " + clazz.name() + " was already added");
+        }
+
+        // annotation positions continue where the previous class ended
+        annotationTable = new ReferenceTable<>(annotationTable.nextPosition());
+        addClass(clazz);
+        flushTypes();
+        writeMembers(clazz);
+
+        List<DotName> annotationNames = new ArrayList<>();
+        for (Entry<DotName, List<AnnotationInstance>> entry : clazz.annotationsMap().entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                annotationNames.add(entry.getKey());
+                annotations.add(entry.getKey());
+            }
+        }
+        directory.add(new DirectoryEntry(clazz.name(), clazz.flags(),
+                clazz.superClassType() == null ? 0 : positionOf(clazz.superClassType()),
+                positionOf(clazz.interfaceTypeArray()), classes.size(),
+                annotationNames.toArray(new DotName[0])));
+
+        writeClassEntry(classes.stream, clazz);
+        memberPositions.clear();
+
+        if (clazz.superName() != null) {
+            subclasses.add(clazz.superName());
+        }
+        // like in the Indexer, superinterfaces of interfaces are also counted as implementors
+        implementors.addAll(clazz.interfaceNames());
+        if (clazz.isInterface()) {
+            subinterfaces.addAll(clazz.interfaceNames());
+        }
+    }
+
+    void add(ModuleInfo module) throws IOException {
+        annotationTable = new ReferenceTable<>(annotationTable.nextPosition());
+        addClass(module.moduleInfoClass());
+        addModule(module);
+        flushTypes();
+        writeMembers(module.moduleInfoClass());
+
+        writeClassEntry(modules.stream, module.moduleInfoClass());
+        writeModuleEntry(modules.stream, module);
+        memberPositions.clear();
+        modulesCount++;
+    }
+
+    void addUsers(DotName user, ClassInfo[] uses) {
+        addClassName(user);
+        Set<DotName> set = users.computeIfAbsent(user, ignored -> new LinkedHashSet<>());
+        for (ClassInfo use : uses) {
+            addClassName(use.name());
+            set.add(use.name());
+        }
+    }
+
+    private void flushTypes() throws IOException {
+        // types are only ever appended to the type table, so the new ones are at its end
+        List<Type> list = typeTable.list();
+        // a type variable reference may refer to a type variable of a class that wasn't added yet
+        // (such as the enclosing class), which must be present in the type table when the reference
+        // is written; adding it may add further types, which are also checked
+        for (int i = typesFlushed; i < list.size(); i++) {
+            Type type = list.get(i);
+            if (type.kind() == Type.Kind.TYPE_VARIABLE_REFERENCE) {
+                Type target = type.asTypeVariableReference().follow();
+                if (!typeTable.contains(target)) {
+                    addType(target);
+                }
+            }
+        }
+        for (int i = typesFlushed; i < list.size(); i++) {
+            writeTypeEntry(types.stream, list.get(i));
+        }
+        typesFlushed = list.size();
+    }
+
+    private void writeMembers(ClassInfo clazz) throws IOException {
+        for (MethodInternal method : clazz.methodArray()) {
+            memberPositions.put(method, ++methodsCount);
+            methodOffsets.add(methods.size());
+            writeMethodEntry(methods.stream, method);
+        }
+        for (FieldInternal field : clazz.fieldArray()) {
+            memberPositions.put(field, ++fieldsCount);
+            fieldOffsets.add(fields.size());
+            writeFieldEntry(fields.stream, field);
+        }
+        for (RecordComponentInternal recordComponent : clazz.recordComponentArray()) {
+            memberPositions.put(recordComponent, ++recordComponentsCount);
+            recordComponentOffsets.add(recordComponents.size());
+            writeRecordComponentEntry(recordComponents.stream, recordComponent);
+        }
+    }
+
+    int finish() throws IOException {
+        return write(this::writeData);
+    }
+
+    void delete() throws IOException {
+        IOException failure = null;
+        for (Spill spill : new Spill[] { types, methods, fields, recordComponents, classes, modules }) {
+            try {
+                spill.delete();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void writeData(PackedDataOutputStream stream) throws IOException {
+        ByteArrayOutputStream tables = new ByteArrayOutputStream();
+        PackedDataOutputStream tablesStream = new PackedDataOutputStream(tables);
+        tablesStream.writePackedU32(annotations.size());
+        tablesStream.writePackedU32(implementors.size());
+        tablesStream.writePackedU32(subinterfaces.size());
+        tablesStream.writePackedU32(subclasses.size());
+        tablesStream.writePackedU32(users.size());
+        writeByteTable(tablesStream);
+        writeStringTable(tablesStream);
+        writeNameTable(tablesStream);
+        tablesStream.writePackedU32(typeTable.size());
+        tablesStream.writePackedU32(typeListTable.size());
+        tablesStream.writePackedU32(annotationTable.nextPosition() - 1);
+        tablesStream.flush();
+
+        // type lists that were not written as part of a type entry, followed by users
+        ByteArrayOutputStream typeLists = new ByteArrayOutputStream();
+        PackedDataOutputStream typeListsStream = new PackedDataOutputStream(typeLists);
+        writeTypeListTable(typeListsStream);
+        for (Entry<DotName, Set<DotName>> entry : users.entrySet()) {
+            typeListsStream.writePackedU32(positionOf(entry.getKey()));
+            typeListsStream.writePackedU32(entry.getValue().size());
+            for (DotName use : entry.getValue()) {
+                typeListsStream.writePackedU32(positionOf(use));
+            }
+        }
+        typeListsStream.flush();
+
+        byte[] methodsCount = packed(this.methodsCount);
+        byte[] fieldsCount = packed(this.fieldsCount);
+        byte[] recordComponentsCount = packed(this.recordComponentsCount);
+        byte[] classesCount = packed(directory.size());
+        byte[] modulesCount = packed(this.modulesCount);
+
+        int methodsStart = tables.size() + types.size() + typeLists.size() + methodsCount.length;
+        int fieldsStart = methodsStart + methods.size() + fieldsCount.length;
+        int recordComponentsStart = fieldsStart + fields.size() + recordComponentsCount.length;
+        int classesStart = recordComponentsStart + recordComponents.size() + classesCount.length;
+        int modulesOffset = classesStart + classes.size();
+
+        ByteArrayOutputStream directory = new ByteArrayOutputStream();
+        PackedDataOutputStream directoryStream = new PackedDataOutputStream(directory);
+        methodOffsets.writeTo(directoryStream, methodsStart);
+        fieldOffsets.writeTo(directoryStream, fieldsStart);
+        recordComponentOffsets.writeTo(directoryStream, recordComponentsStart);
+        directoryStream.writePackedU32(modulesOffset);
+        writeClassDirectory(directoryStream, classesStart);
+        directoryStream.flush();
+
+        stream.writePackedU32(directory.size());
+        directory.writeTo(stream);
+        tables.writeTo(stream);
+        types.writeTo(stream);
+        typeLists.writeTo(stream);
+        stream.write(methodsCount);
+        methods.writeTo(stream);
+        stream.write(fieldsCount);
+        fields.writeTo(stream);
+        stream.write(recordComponentsCount);
+        recordComponents.writeTo(stream);
+        stream.write(classesCount);
+        classes.writeTo(stream);
+        stream.write(modulesCount);
+        modules.writeTo(stream);
+    }
+
+    // see IndexWriterV2.writeDirectory()
+    private void writeClassDirectory(PackedDataOutputStream stream, int classesStart) throws IOException {
+        directory.sort((a, b) -> a.name.compareTo(b.name));
+
+        TreeMap<DotName, List<Integer>> annotations = new TreeMap<>();
+        stream.writePackedU32(directory.size());
+        for (int i = 0; i < directory.size(); i++) {
+            DirectoryEntry entry = directory.get(i);
+            stream.writePackedU32(positionOf(entry.name));
+            stream.writePackedU32(entry.flags);
+            stream.writePackedU32(entry.superClassType);
+            stream.writePackedU32(entry.interfaceTypes);
+            stream.writePackedU32(classesStart + entry.offset);
+
+            for (DotName annotation : entry.annotations) {
+                annotations.computeIfAbsent(annotation, ignored -> new ArrayList<>()).add(i);
+            }
+        }
+
+        stream.writePackedU32(annotations.size());
+        for (Entry<DotName, List<Integer>> entry : annotations.entrySet()) {
+            stream.writePackedU32(positionOf(entry.getKey()));
+            stream.writePackedU32(entry.getValue().size());
+            int last = 0;
+            for (int position : entry.getValue()) {
+                stream.writePackedU32(position - last);
+                last = position;
+            }
+        }
+    }
+
+    private static byte[] packed(int value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(5);
+        PackedDataOutputStream stream = new PackedDataOutputStream(bytes);
+        stream.writePackedU32(value);
+        stream.flush();
+        return bytes.toByteArray();
+    }
+
+    @Override
+    void writeByteTable(PackedDataOutputStream stream) throws IOException {
+        stream.writePackedU32(byteTable.size());
+        for (ByteBuffer bytes : byteTable.keySet()) {
+            stream.writePackedU32(bytes.remaining());
+            stream.write(bytes.array());
+        }
+    }
+
+    @Override
+    void writeStringTable(PackedDataOutputStream stream) throws IOException {
+        stream.writePackedU32(stringTable.size());
+        for (String string : stringTable.keySet()) {
+            stream.writeUTF(string);
+        }
+    }
+
+    @Override
+    void writeNameTable(PackedDataOutputStream stream) throws IOException {
+        stream.writePackedU32(nameTable.size());
+        for (Entry<DotName, Integer> entry : nameTable.entrySet()) {
+            DotName name = entry.getKey();
+            // the prefix is always added before the name, so the offset is positive, see IndexWriterV2
+            int prefixOffset = name.prefix() == null ? 0 : entry.getValue() - positionOf(name.prefix());
+            stream.writePackedU32(prefixOffset << 1 | (name.isInner() ? 1 : 0));
+            stream.writePackedU32(positionOf(name.local()));
+        }
+    }
+
+    @Override
+    void addBytes(byte[] bytes) {
+        byteTable.putIfAbsent(ByteBuffer.wrap(bytes), byteTable.size() + 1);
+    }
+
+    // members are assigned positions when they are written, see writeMembers()
+    @Override
+    void addMember(MethodInternal method) {
+    }
+
+    @Override
+    void addMember(FieldInternal field) {
+    }
+
+    @Override
+    void addMember(RecordComponentInternal recordComponent) {
+    }
+
+    @Override
+    String addString(String name) {
+        stringTable.putIfAbsent(name, stringTable.size() + 1);
+        return name;
+    }
+
+    @Override
+    void addClassName(DotName name) {
+        if (nameTable.containsKey(name)) {
+            return;
+        }
+
+        DotName prefix = name.prefix();
+        if (prefix != null) {
+            addClassName(prefix);
+        }
+        addString(name.local());
+        nameTable.put(name, nameTable.size() + 1);
+    }
+
+    @Override
+    int positionOf(String string) {
+        return position(stringTable.get(string));
+    }
+
+    @Override
+    int positionOf(byte[] bytes) {
+        return position(byteTable.get(ByteBuffer.wrap(bytes)));
+    }
+
+    @Override
+    int positionOf(MethodInternal method) {
+        return position(memberPositions.get(method));
+    }
+
+    @Override
+    int positionOf(FieldInternal field) {
+        return position(memberPositions.get(field));
+    }
+
+    @Override
+    int positionOf(RecordComponentInternal recordComponent) {
+        return position(memberPositions.get(recordComponent));
+    }
+
+    @Override
+    int positionOf(DotName className) {
+        Integer position = nameTable.get(className);
+        if (position == null) {
+            throw new IllegalStateException("Class not found in class table: " + className);
+        }
+        return position;
+    }
+
+    private static int position(Integer position) {
+        if (position == null) {
+            throw new IllegalStateException("Intern tables incomplete");
+        }
+        return position;
+    }
+}
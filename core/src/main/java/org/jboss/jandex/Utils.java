@@ -20,15 +20,26 @@ package org.jboss.jandex;
 
 import java.io.BufferedInputStream;
 import java.io.DataInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Array;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
 
 /**
  * Common utilities
@@ -84,6 +95,49 @@ class Utils {
         return capacity > 0 ? new ArrayList<>(capacity) : Collections.emptyList();
     }
 
+    static byte[] readFully(InputStream in) throws IOException {
+        byte[] buf = new byte[Math.max(in.available(), 8192)];
+        int len = 0;
+        int n;
+        while ((n = in.read(buf, len, buf.length - len)) >= 0) {
+            len += n;
+            if (len == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length << 1);
+            }
+        }
+        return len == buf.length ? buf : Arrays.copyOf(buf, len);
+    }
+
+    /**
+     * Finds all class files in given {@code directory} and its subdirectories, following symbolic links.
+     * The class files are sorted by their path relative to {@code directory}, using {@code /} as a separator,
+     * so that the order doesn't depend on the file system.
+     */
+    static List<Path> findClassFiles(Path directory) throws IOException {
+        Map<String, Path> classFiles = new TreeMap<>();
+        Files.walkFileTree(directory, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+                new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        if (attrs.isRegularFile() && file.getFileName().toString().endsWith(".class")) {
+                            String relativePath = directory.relativize(file).toString();
+                            classFiles.put(relativePath.replace(file.getFileSystem().getSeparator(), "/"), file);
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+                        // a symbolic link that points to one of its parent directories
+                        if (e instanceof FileSystemLoopException) {
+                            return FileVisitResult.CONTINUE;
+                        }
+                        throw e;
+                    }
+                });
+        return new ArrayList<>(classFiles.values());
+    }
+
     static final class ReusableBufferedDataInputStream extends DataInputStream {
         private ReusableBufferedInputStream reusableBuffered = null;
 
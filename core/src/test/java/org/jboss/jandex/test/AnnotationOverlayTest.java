@@ -4,6 +4,8 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -14,9 +16,12 @@ import java.lang.annotation.RetentionPolicy;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jboss.jandex.AnnotationInstance;
 import org.jboss.jandex.AnnotationOverlay;
@@ -233,6 +238,14 @@ public class AnnotationOverlayTest {
     }
 
     private void assertOverlay(String expectedValues, AnnotationTransformation... transformations) throws IOException {
+        // -1 means the default, unbounded cache
+        for (int cacheSize : Arrays.asList(-1, 2, 0)) {
+            assertOverlay(expectedValues, cacheSize, transformations);
+        }
+    }
+
+    private void assertOverlay(String expectedValues, int cacheSize, AnnotationTransformation... transformations)
+            throws IOException {
         Index index = Index.of(AnnotatedSuperClass.class, AnnotatedClass.class, MyAnnotation.class,
                 MyOtherAnnotation.class, MyRepeatableAnnotation.class, MyRepeatableAnnotation.List.class,
                 MyClassRetainedAnnotation.class, MyInheritedAnnotation.class, MyNotInheritedAnnotation.class);
@@ -246,6 +259,9 @@ public class AnnotationOverlayTest {
                 if (runtimeAnnotationsOnly) {
                     builder.runtimeAnnotationsOnly();
                 }
+                if (cacheSize >= 0) {
+                    builder.maximumCacheSize(cacheSize);
+                }
                 AnnotationOverlay overlay = builder.build();
 
                 StringBuilder values = new StringBuilder();
@@ -334,6 +350,118 @@ public class AnnotationOverlayTest {
         }
     }
 
+    @Test
+    public void cacheStatistics() throws IOException {
+        Index index = Index.of(AnnotatedClass.class, MyAnnotation.class);
+        ClassInfo clazz = index.getClassByName(AnnotatedClass.class);
+        FieldInfo field = clazz.field("field");
+        MethodInfo method = clazz.firstMethod("method");
+        AnnotationTransformation transformation = AnnotationTransformation.forClasses()
+                .whenClass(AnnotatedClass.class)
+                .transform(ctx -> ctx.add(AnnotationInstance.builder(MyOtherAnnotation.class).value("C").build()));
+
+        AnnotationOverlay unbounded = AnnotationOverlay.builder(index, Collections.singletonList(transformation)).build();
+        Collection<AnnotationInstance> annotations = unbounded.annotations(clazz);
+        assertSame(annotations, unbounded.annotations(clazz));
+        Set<AnnotationInstance> expected = new HashSet<>(annotations);
+        unbounded.annotations(field);
+        unbounded.annotations(method);
+        AnnotationOverlay.CacheStatistics statistics = unbounded.cacheStatistics();
+        assertEquals(1, statistics.hitCount());
+        assertEquals(3, statistics.missCount());
+        assertEquals(0, statistics.evictionCount());
+        assertEquals(3, statistics.size());
+
+        AnnotationOverlay bounded = AnnotationOverlay.builder(index, Collections.singletonList(transformation))
+                .maximumCacheSize(2)
+                .build();
+        for (Declaration declaration : Arrays.asList(clazz, field, method, clazz)) {
+            assertTrue(bounded.hasAnnotation(declaration, MyAnnotation.DOT_NAME));
+        }
+        statistics = bounded.cacheStatistics();
+        assertEquals(4, statistics.hitCount() + statistics.missCount());
+        assertTrue(statistics.evictionCount() > 0);
+        assertTrue(statistics.size() <= 2);
+        assertEquals(expected, new HashSet<>(bounded.annotations(clazz)));
+
+        AnnotationOverlay none = AnnotationOverlay.builder(index, Collections.singletonList(transformation))
+                .noCache()
+                .build();
+        assertEquals(expected, new HashSet<>(none.annotations(clazz)));
+        assertEquals(expected, new HashSet<>(none.annotations(clazz)));
+        statistics = none.cacheStatistics();
+        assertEquals(0, statistics.hitCount());
+        assertEquals(2, statistics.missCount());
+        assertEquals(0, statistics.size());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> AnnotationOverlay.builder(index, Collections.emptyList()).maximumCacheSize(-1));
+    }
+
+    @Test
+    public void materialize() throws IOException, InterruptedException {
+        Index index = Index.of(AnnotatedSuperClass.class, AnnotatedClass.class, MyAnnotation.class);
+        ClassInfo clazz = index.getClassByName(AnnotatedClass.class);
+        MethodInfo method = clazz.firstMethod("method");
+        AtomicInteger applied = new AtomicInteger();
+        AnnotationTransformation transformation = AnnotationTransformation.forMethodParameters()
+                .transform(ctx -> {
+                    applied.incrementAndGet();
+                    ctx.remove(annotation -> annotation.name().equals(MyAnnotation.DOT_NAME));
+                });
+
+        AnnotationOverlay overlay = AnnotationOverlay.builder(index, Collections.singletonList(transformation)).build();
+        overlay.materialize(ForkJoinPool.commonPool());
+        // the 2 parameters of `method` are the only method parameters in the index
+        assertEquals(2, applied.get());
+        long misses = overlay.cacheStatistics().missCount();
+        assertEquals(misses, overlay.cacheStatistics().size());
+
+        assertTrue(overlay.hasAnnotation(clazz, MyAnnotation.DOT_NAME));
+        assertTrue(overlay.hasAnnotation(clazz.field("field"), MyAnnotation.DOT_NAME));
+        assertTrue(overlay.hasAnnotation(method, MyAnnotation.DOT_NAME));
+        for (MethodParameterInfo parameter : method.parameters()) {
+            assertFalse(overlay.hasAnnotation(parameter, MyAnnotation.DOT_NAME));
+        }
+        assertEquals(2, applied.get());
+        assertEquals(misses, overlay.cacheStatistics().missCount());
+
+        AnnotationOverlay bounded = AnnotationOverlay.builder(index, Collections.singletonList(transformation))
+                .maximumCacheSize(100)
+                .build();
+        assertThrows(IllegalStateException.class, () -> bounded.materialize(ForkJoinPool.commonPool()));
+        assertThrows(IllegalArgumentException.class, () -> overlay.materialize(null));
+    }
+
+    @Test
+    public void onlyTriggeredTransformationsInvoked() throws IOException, InterruptedException {
+        Index index = Index.of(AnnotatedSuperClass.class, AnnotatedClass.class, MyAnnotation.class,
+                MyOtherAnnotation.class, MyNotInheritedAnnotation.class);
+        AtomicInteger invoked = new AtomicInteger();
+        AnnotationTransformation adding = AnnotationTransformation.forClasses()
+                .priority(10)
+                .whenClass(AnnotatedClass.class)
+                .transform(ctx -> ctx.add(AnnotationInstance.builder(MyOtherAnnotation.class).value("added").build()));
+        AnnotationTransformation triggered = AnnotationTransformation.forClasses()
+                .priority(1)
+                .when(ctx -> {
+                    invoked.incrementAndGet();
+                    return true;
+                })
+                .whenAnyMatch(MyOtherAnnotation.class, MyNotInheritedAnnotation.class)
+                .transform(ctx -> ctx.remove(annotation -> annotation.name().equals(MyAnnotation.DOT_NAME)));
+
+        AnnotationOverlay overlay = AnnotationOverlay.builder(index, Arrays.asList(triggered, adding)).build();
+        overlay.materialize(ForkJoinPool.commonPool());
+        // `AnnotatedSuperClass` has `@MyNotInheritedAnnotation`, `AnnotatedClass` has `@MyOtherAnnotation`
+        // added by the other transformation
+        assertEquals(2, invoked.get());
+        ClassInfo clazz = index.getClassByName(AnnotatedClass.class);
+        assertFalse(overlay.hasAnnotation(clazz, MyAnnotation.DOT_NAME));
+        assertEquals("added", overlay.annotation(clazz, MyOtherAnnotation.DOT_NAME).value().asString());
+        assertTrue(overlay.hasAnnotation(clazz.field("field"), MyAnnotation.DOT_NAME));
+    }
+
     /**
      * Tests that accessing annotations on the {@code Object} class does not attempt
      * to retrieve the (non-existing) superclass.
@@ -0,0 +1,89 @@
+package org.jboss.jandex.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexReader;
+import org.jboss.jandex.MethodInfo;
+import org.jboss.jandex.test.util.IndexingUtil;
+import org.junit.jupiter.api.Test;
+
+public class BufferIndexReaderTest {
+    // non-ASCII string, including a NUL character and a supplementary character, which are encoded
+    // as multibyte sequences in modified UTF-8
+    static final String STRING = "a\u0000b\u00e9c\u20acd\ud83d\ude00e";
+
+    @MyAnnotation(STRING)
+    static class Unicode {
+        @MyOtherAnnotation("x")
+        List<String> field;
+
+        void method(@MyAnnotation("ascii") int param, long[] other) {
+        }
+    }
+
+    @Test
+    public void heapBuffer() throws IOException {
+        byte[] data = IndexingUtil.write(Index.of(Unicode.class, MyAnnotation.class, BufferIndexReaderTest.class));
+
+        verify(IndexReader.fromBytes(data).read());
+
+        // buffer that doesn't start at the beginning of its backing array
+        byte[] padded = new byte[data.length + 10];
+        System.arraycopy(data, 0, padded, 7, data.length);
+        ByteBuffer slice = ByteBuffer.wrap(padded, 5, data.length + 2).slice();
+        slice.position(2);
+        verify(IndexReader.fromBuffer(slice).read());
+        assertEquals(2, slice.position());
+    }
+
+    @Test
+    public void directBuffer() throws IOException {
+        byte[] data = IndexingUtil.write(Index.of(Unicode.class, MyAnnotation.class, BufferIndexReaderTest.class));
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(data.length + 3);
+        buffer.position(3);
+        buffer.put(data);
+        buffer.position(3);
+        verify(IndexReader.fromBuffer(buffer).read());
+        assertEquals(3, buffer.position());
+    }
+
+    @Test
+    public void sameAsStream() throws IOException {
+        byte[] data = IndexingUtil.write(Index.of(Unicode.class, MyAnnotation.class, BufferIndexReaderTest.class));
+
+        Index fromStream = new IndexReader(new ByteArrayInputStream(data)).read();
+        Index fromBytes = IndexReader.fromBytes(data).read();
+        assertEquals(Arrays.toString(IndexingUtil.write(fromStream)), Arrays.toString(IndexingUtil.write(fromBytes)));
+    }
+
+    @Test
+    public void truncatedData() throws IOException {
+        byte[] data = IndexingUtil.write(Index.of(Unicode.class));
+        assertThrows(IOException.class, () -> IndexReader.fromBytes(Arrays.copyOf(data, data.length / 2)).read());
+        assertThrows(IllegalArgumentException.class, () -> IndexReader.fromBytes(new byte[] { 1, 2, 3, 4, 5 }).read());
+        assertThrows(IllegalArgumentException.class, () -> IndexReader.fromBytes(null));
+        assertThrows(IllegalArgumentException.class, () -> IndexReader.fromBuffer(null));
+    }
+
+    private static void verify(Index index) {
+        ClassInfo clazz = index.getClassByName(Unicode.class);
+        assertNotNull(clazz);
+        assertEquals(STRING, clazz.declaredAnnotation(MyAnnotation.DOT_NAME).value().asString());
+        assertNotNull(clazz.field("field"));
+        MethodInfo method = clazz.firstMethod("method");
+        assertNotNull(method);
+        assertEquals("ascii", method.parameters().get(0).annotation(MyAnnotation.DOT_NAME).value().asString());
+        assertEquals(3, index.getKnownClasses().size());
+    }
+}
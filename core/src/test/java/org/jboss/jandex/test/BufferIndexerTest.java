@@ -0,0 +1,115 @@
+package org.jboss.jandex.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.ClassSummary;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.Indexer;
+import org.jboss.jandex.MethodInfo;
+import org.jboss.jandex.test.util.IndexingUtil;
+import org.junit.jupiter.api.Test;
+
+public class BufferIndexerTest {
+    // non-ASCII string constant, stored in modified UTF-8 in the constant pool
+    static final String STRING = "a\u0000b\u00e9c\u20acd\ud83d\ude00e";
+
+    @MyAnnotation(STRING)
+    static class Annotated<T extends Comparable<T>> {
+        static final long LONG = 42L;
+        static final double DOUBLE = 4.2;
+
+        @MyOtherAnnotation("field")
+        List<@MyAnnotation("type") String> field;
+
+        @MyRepeatableAnnotation("a")
+        @MyRepeatableAnnotation("b")
+        <U extends T> U method(@MyAnnotation("param") int param, Map<String, ? super U> map) throws IOException {
+            Runnable r = () -> System.out.println(STRING);
+            r.run();
+            return null;
+        }
+    }
+
+    private static final Class<?>[] CLASSES = { Annotated.class, MyAnnotation.class, Indexer.class, Map.class };
+
+    @Test
+    public void sameAsStream() throws IOException {
+        Indexer fromStream = new Indexer();
+        Indexer fromArray = new Indexer();
+        Indexer fromHeapBuffer = new Indexer();
+        Indexer fromDirectBuffer = new Indexer();
+        for (Class<?> clazz : CLASSES) {
+            byte[] data = IndexingUtil.classData(clazz);
+            fromStream.index(new ByteArrayInputStream(data));
+
+            // class file that doesn't start at the beginning of the array and is followed by other data
+            byte[] padded = new byte[data.length + 10];
+            System.arraycopy(data, 0, padded, 7, data.length);
+            fromArray.index(padded, 7, data.length);
+
+            ByteBuffer slice = ByteBuffer.wrap(padded, 5, data.length + 2).slice();
+            slice.position(2);
+            fromHeapBuffer.index(slice);
+            assertEquals(2, slice.position());
+
+            ByteBuffer direct = ByteBuffer.allocateDirect(data.length + 3);
+            direct.position(3);
+            direct.put(data);
+            direct.position(3);
+            fromDirectBuffer.index(direct);
+            assertEquals(3, direct.position());
+        }
+
+        byte[] expected = IndexingUtil.write(fromStream.complete());
+        assertArrayEquals(expected, IndexingUtil.write(verify(fromArray.complete())));
+        assertArrayEquals(expected, IndexingUtil.write(verify(fromHeapBuffer.complete())));
+        assertArrayEquals(expected, IndexingUtil.write(verify(fromDirectBuffer.complete())));
+    }
+
+    @Test
+    public void summary() throws IOException {
+        ClassSummary summary = new Indexer().indexWithSummary(ByteBuffer.wrap(IndexingUtil.classData(Annotated.class)));
+        assertEquals(Annotated.class.getName(), summary.name().toString());
+        assertEquals(Object.class.getName(), summary.superclassName().toString());
+        assertTrue(summary.annotations().contains(MyAnnotation.DOT_NAME));
+    }
+
+    @Test
+    public void truncatedData() throws IOException {
+        byte[] data = IndexingUtil.classData(Annotated.class);
+        // truncated in the constant pool and after it
+        for (int length : new int[] { 5, 20, data.length / 2, data.length - 1 }) {
+            assertThrows(IOException.class, () -> new Indexer().index(data, 0, length));
+            ByteBuffer direct = ByteBuffer.allocateDirect(length);
+            direct.put(data, 0, length).flip();
+            assertThrows(IOException.class, () -> new Indexer().index(direct));
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> new Indexer().index((ByteBuffer) null));
+        assertThrows(IllegalArgumentException.class, () -> new Indexer().index(null, 0, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> new Indexer().index(data, 1, data.length));
+    }
+
+    private static Index verify(Index index) {
+        ClassInfo clazz = index.getClassByName(Annotated.class);
+        assertNotNull(clazz);
+        assertEquals(STRING, clazz.declaredAnnotation(MyAnnotation.DOT_NAME).value().asString());
+        assertEquals("field", clazz.field("field").annotation(MyOtherAnnotation.DOT_NAME).value().asString());
+        MethodInfo method = clazz.firstMethod("method");
+        assertEquals("param", method.parameters().get(0).annotation(MyAnnotation.DOT_NAME).value().asString());
+        assertEquals(2, method.annotation(MyRepeatableAnnotation.List.DOT_NAME).value().asNestedArray().length);
+        assertNotNull(index.getClassByName(Indexer.class));
+        return index;
+    }
+}
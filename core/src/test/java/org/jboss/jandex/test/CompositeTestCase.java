@@ -19,12 +19,24 @@
 package org.jboss.jandex.test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 import org.jboss.jandex.AnnotationInstance;
 import org.jboss.jandex.AnnotationValue;
@@ -32,6 +44,10 @@ import org.jboss.jandex.ClassInfo;
 import org.jboss.jandex.CompositeIndex;
 import org.jboss.jandex.DotName;
 import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexReader;
+import org.jboss.jandex.IndexView;
+import org.jboss.jandex.IndexWriter;
+import org.jboss.jandex.StackedIndex;
 import org.junit.jupiter.api.Test;
 
 public class CompositeTestCase {
@@ -64,6 +80,78 @@ public class CompositeTestCase {
         assertEquals(7, verifyClasses(index.getAllKnownSubclasses(DotName.OBJECT_NAME)));
     }
 
+    @Test
+    public void testFlatten() {
+        Index barIndex = createIndex(BAR_NAME);
+        Index fooIndex = createIndex(FOO_NAME);
+
+        Index index = CompositeIndex.create(fooIndex, barIndex).flatten();
+        assertEquals(2, index.getAnnotations(DotName.createSimple("foo.BarAnno")).size());
+        assertEquals(7, verifyClasses(index.getAllKnownSubclasses(DotName.OBJECT_NAME)));
+        assertSame(fooIndex.getClassByName(FOO_NAME), index.getClassByName(FOO_NAME));
+        assertSame(barIndex.getClassByName(BAR_NAME), index.getClassByName(BAR_NAME));
+    }
+
+    @MyAnnotation("base")
+    static abstract class AbstractBase implements Comparable<AbstractBase> {
+        @MyOtherAnnotation("field")
+        List<String> field;
+    }
+
+    static class Impl extends AbstractBase implements Serializable {
+        @MyAnnotation("method")
+        public int compareTo(AbstractBase o) {
+            return new ArrayList<>(field).size();
+        }
+    }
+
+    interface Extended extends Comparable<AbstractBase> {
+    }
+
+    @Test
+    public void testFlattenEquivalence() throws IOException {
+        Index first = Index.of(AbstractBase.class, MyAnnotation.class, ArrayList.class, AbstractList.class);
+        Index second = Index.of(Impl.class, Extended.class, MyOtherAnnotation.class, List.class, Collection.class);
+        // a class of the same name in multiple indices
+        Index third = Index.of(Impl.class, HashMap.class, Map.class);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new IndexWriter(out).write(third);
+        IndexView lazy = IndexReader.readLazily(ByteBuffer.wrap(out.toByteArray()));
+
+        CompositeIndex composite = CompositeIndex.create(first, CompositeIndex.create(StackedIndex.create(second)), lazy);
+        Index flattened = composite.flatten();
+
+        for (DotName name : Arrays.asList(MyAnnotation.DOT_NAME, MyOtherAnnotation.DOT_NAME)) {
+            assertEquals(composite.getAnnotations(name).size(), flattened.getAnnotations(name).size());
+            assertTrue(flattened.getAnnotations(name).containsAll(composite.getAnnotations(name)));
+        }
+        for (Class<?> clazz : Arrays.asList(Object.class, AbstractBase.class, AbstractList.class, Comparable.class,
+                Collection.class, Serializable.class, ArrayList.class, List.class)) {
+            DotName name = DotName.createSimple(clazz.getName());
+            assertEquals(names(composite.getAllKnownSubclasses(name)), names(flattened.getAllKnownSubclasses(name)));
+            assertEquals(names(composite.getKnownDirectImplementors(name)),
+                    names(flattened.getKnownDirectImplementors(name)));
+            assertEquals(names(composite.getAllKnownImplementors(name)), names(flattened.getAllKnownImplementors(name)));
+            assertEquals(names(composite.getAllKnownSubinterfaces(name)),
+                    names(flattened.getAllKnownSubinterfaces(name)));
+            assertEquals(names(composite.getKnownUsers(name)), names(flattened.getKnownUsers(name)));
+            assertSame(composite.getClassByName(name), flattened.getClassByName(name));
+        }
+        assertFalse(flattened.getKnownUsers(ArrayList.class).isEmpty());
+        assertSame(second.getClassByName(Impl.class), flattened.getClassByName(Impl.class));
+        assertEquals(names(composite.getKnownClasses()), names(flattened.getKnownClasses()));
+        assertEquals(composite.getKnownClasses().size() - 1, flattened.getKnownClasses().size());
+        assertEquals(names(composite.getClassesInPackage("java.util")), names(flattened.getClassesInPackage("java.util")));
+    }
+
+    private static Set<String> names(Collection<ClassInfo> classes) {
+        Set<String> result = new TreeSet<>();
+        for (ClassInfo clazz : classes) {
+            result.add(clazz.name().toString());
+        }
+        return result;
+    }
+
     private int verifyClasses(Collection<ClassInfo> allKnownSubclasses) {
         int hit;
         hit = 0;
@@ -0,0 +1,89 @@
+package org.jboss.jandex.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexReader;
+import org.jboss.jandex.IndexView;
+import org.jboss.jandex.UnsupportedVersion;
+import org.jboss.jandex.test.util.IndexingUtil;
+import org.junit.jupiter.api.Test;
+
+public class CompressedIndexTest {
+    @MyAnnotation("compressed")
+    static class Annotated {
+        @MyOtherAnnotation("field")
+        List<String> field;
+
+        void method(@MyAnnotation("param") int param) {
+        }
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        Index index = Index.of(Annotated.class, MyAnnotation.class, Map.class, List.class);
+        byte[] compressed = IndexingUtil.write(index, true, 14);
+        assertTrue(compressed.length < IndexingUtil.write(index, false, 14).length);
+        // reading and writing again doesn't necessarily yield the same data, so compare with a read index
+        Index read = new IndexReader(new ByteArrayInputStream(IndexingUtil.write(index, false, 14))).read();
+        byte[] plain = IndexingUtil.write(read, false, 14);
+
+        IndexReader reader = new IndexReader(new ByteArrayInputStream(compressed));
+        assertTrue(reader.isCompressed());
+        assertEquals(14, reader.getIndexVersion());
+        assertArrayEquals(plain, IndexingUtil.write(verify(reader.read()), false, 14));
+
+        assertArrayEquals(plain, IndexingUtil.write(verify(IndexReader.fromBytes(compressed).read()), false, 14));
+        assertArrayEquals(plain,
+                IndexingUtil.write(verify(IndexReader.fromBytes(compressed).read(ForkJoinPool.commonPool())), false, 14));
+        verify(IndexReader.readLazily(ByteBuffer.wrap(compressed)));
+
+        assertFalse(IndexReader.fromBytes(plain).isCompressed());
+    }
+
+    @Test
+    public void olderVersions() throws IOException {
+        Index index = Index.of(Annotated.class, MyAnnotation.class);
+        for (int version = 6; version < 14; version++) {
+            byte[] plain = IndexingUtil.write(index, false, version);
+            byte[] compressed = IndexingUtil.write(index, true, version);
+            // older versions don't preserve everything, so compare with reading the plain index
+            Index expected = new IndexReader(new ByteArrayInputStream(plain)).read();
+            Index actual = new IndexReader(new ByteArrayInputStream(compressed)).read();
+            assertArrayEquals(IndexingUtil.write(expected, false, version), IndexingUtil.write(actual, false, version));
+            assertNotNull(actual.getClassByName(Annotated.class));
+        }
+
+        assertThrows(UnsupportedVersion.class, () -> IndexingUtil.write(index, true, 3));
+    }
+
+    @Test
+    public void truncatedData() throws IOException {
+        byte[] compressed = IndexingUtil.write(Index.of(Annotated.class), true, 14);
+        byte[] truncated = Arrays.copyOf(compressed, compressed.length / 2);
+        assertThrows(IOException.class, () -> new IndexReader(new ByteArrayInputStream(truncated)).read());
+        assertThrows(IOException.class, () -> IndexReader.fromBytes(truncated).read());
+    }
+
+    private static <T extends IndexView> T verify(T index) {
+        ClassInfo clazz = index.getClassByName(Annotated.class);
+        assertNotNull(clazz);
+        assertEquals("compressed", clazz.declaredAnnotation(MyAnnotation.DOT_NAME).value().asString());
+        assertEquals("field", clazz.field("field").annotation(MyOtherAnnotation.DOT_NAME).value().asString());
+        return index;
+    }
+}
@@ -0,0 +1,100 @@
+package org.jboss.jandex.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.junit.jupiter.api.Test;
+
+public class IndexLookupTest {
+    private static final Class<?>[] CLASSES = { String.class, Integer.class, Long.class, Short.class, Byte.class,
+            Character.class, Boolean.class, Double.class, Float.class, Number.class, Object.class, Enum.class,
+            Thread.class, Thread.State.class, Runnable.class, Comparable.class, CharSequence.class, Iterable.class,
+            java.util.Map.class, java.util.Map.Entry.class, java.util.Collection.class, java.util.List.class,
+            java.util.ArrayList.class, java.util.HashMap.class, java.util.AbstractMap.class,
+            java.util.AbstractMap.SimpleEntry.class, MyAnnotation.class, MyOtherAnnotation.class };
+
+    @Test
+    public void lookupBySimpleAndComponentizedNames() throws IOException {
+        Index index = Index.of(CLASSES);
+        assertEquals(CLASSES.length, index.getKnownClasses().size());
+
+        Set<DotName> seen = new HashSet<>();
+        for (ClassInfo clazz : index.getKnownClasses()) {
+            assertTrue(seen.add(clazz.name()));
+        }
+
+        for (Class<?> clazz : CLASSES) {
+            DotName simple = DotName.createSimple(clazz.getName());
+            ClassInfo classInfo = index.getClassByName(simple);
+            assertEquals(simple, classInfo.name());
+            assertSame(classInfo, index.getClassByName(classInfo.name()));
+            assertSame(classInfo, index.getClassByName(clazz));
+            assertSame(classInfo, index.getClassByName(clazz.getName()));
+        }
+
+        assertNull(index.getClassByName(DotName.createSimple("java.lang.Missing")));
+        DotName javaLang = DotName.createComponentized(DotName.createComponentized(null, "java"), "lang");
+        assertNull(index.getClassByName(DotName.createComponentized(javaLang, "Missing")));
+        assertNull(index.getClassByName((DotName) null));
+    }
+
+    @Test
+    public void lookupOfHierarchy() throws IOException {
+        Index index = Index.of(CLASSES);
+
+        Set<String> subclasses = new HashSet<>();
+        for (ClassInfo clazz : index.getKnownDirectSubclasses(DotName.createSimple(Number.class.getName()))) {
+            subclasses.add(clazz.name().toString());
+        }
+        assertEquals(6, subclasses.size());
+        assertTrue(subclasses.contains(Integer.class.getName()));
+
+        assertEquals(1, index.getKnownDirectImplementors(DotName.createSimple(Runnable.class.getName())).size());
+        assertTrue(index.getKnownDirectSubclasses(DotName.createSimple("java.lang.Missing")).isEmpty());
+    }
+
+    @Test
+    public void transitiveClosures() throws IOException {
+        Index index = Index.of(CLASSES);
+
+        DotName object = DotName.createSimple(Object.class.getName());
+        Collection<ClassInfo> allSubclasses = index.getAllKnownSubclasses(object);
+        assertTrue(allSubclasses.contains(index.getClassByName(Integer.class)));
+        assertTrue(allSubclasses.contains(index.getClassByName(Thread.State.class)));
+        assertFalse(allSubclasses.contains(index.getClassByName(Object.class)));
+        assertEquals(6, index.getAllKnownSubclasses(Number.class).size());
+        assertSame(allSubclasses, index.getAllKnownSubclasses(object));
+        assertSame(allSubclasses, index.getAllKnownSubclasses(Object.class));
+        assertThrows(UnsupportedOperationException.class, () -> allSubclasses.remove(index.getClassByName(Long.class)));
+
+        DotName map = DotName.createSimple(java.util.Map.class.getName());
+        Collection<ClassInfo> allImplementors = index.getAllKnownImplementors(map);
+        assertEquals(2, allImplementors.size());
+        assertTrue(allImplementors.contains(index.getClassByName(java.util.HashMap.class)));
+        assertSame(allImplementors, index.getAllKnownImplementors(map));
+        assertSame(allImplementors, index.getAllKnownImplementations(map));
+
+        DotName iterable = DotName.createSimple(Iterable.class.getName());
+        Collection<ClassInfo> allSubinterfaces = index.getAllKnownSubinterfaces(iterable);
+        assertEquals(2, allSubinterfaces.size());
+        assertTrue(allSubinterfaces.contains(index.getClassByName(java.util.Collection.class)));
+        assertTrue(allSubinterfaces.contains(index.getClassByName(java.util.List.class)));
+        assertSame(allSubinterfaces, index.getAllKnownSubinterfaces(iterable));
+
+        assertTrue(index.getAllKnownSubclasses(DotName.createSimple("java.lang.Missing")).isEmpty());
+        assertTrue(index.getAllKnownImplementors(DotName.createSimple("java.lang.Missing")).isEmpty());
+        assertTrue(index.getAllKnownSubinterfaces(DotName.createSimple("java.lang.Missing")).isEmpty());
+    }
+}
@@ -3,14 +3,23 @@ package org.jboss.jandex.test;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.lang.reflect.Modifier;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.jboss.jandex.ClassInfo;
 import org.jboss.jandex.CompositeIndex;
 import org.jboss.jandex.DotName;
 import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexReader;
 import org.jboss.jandex.IndexView;
+import org.jboss.jandex.IndexWriter;
 import org.jboss.jandex.StackedIndex;
 import org.jboss.jandex.test.util.IndexingUtil;
 import org.junit.jupiter.api.Test;
@@ -107,6 +116,36 @@ public class IndexNavigationTest {
         doTestOverlappingCompositeIndex(index);
     }
 
+    @Test
+    public void testNullKeys() throws IOException {
+        // classes without a superclass are kept under the `null` key by some callers
+        ClassInfo object = ClassInfo.create(DotName.OBJECT_NAME, null, (short) Modifier.PUBLIC, new DotName[0],
+                Collections.emptyMap(), true);
+        ClassInfo grandparent = ClassInfo.create(DotName.createSimple(CGrandparent.class), DotName.OBJECT_NAME,
+                (short) 0, new DotName[0], Collections.emptyMap(), true);
+
+        Map<DotName, List<ClassInfo>> subclasses = new HashMap<>();
+        subclasses.put(null, Collections.singletonList(object));
+        subclasses.put(DotName.createSimple(Object.class), Collections.singletonList(grandparent));
+        Map<DotName, ClassInfo> classes = new HashMap<>();
+        classes.put(object.name(), object);
+        classes.put(grandparent.name(), grandparent);
+        Index index = Index.create(Collections.emptyMap(), subclasses, Collections.emptyMap(), classes);
+        assertCollection(index.getKnownClasses(), Object.class, CGrandparent.class);
+        assertCollection(index.getKnownDirectSubclasses(Object.class), CGrandparent.class);
+
+        index = IndexingUtil.roundtrip(index);
+        assertCollection(index.getKnownClasses(), Object.class, CGrandparent.class);
+        assertCollection(index.getKnownDirectSubclasses(Object.class), CGrandparent.class);
+
+        // versions 1-3 are read by a different reader
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new IndexWriter(bytes).write(index, 3);
+        index = new IndexReader(new ByteArrayInputStream(bytes.toByteArray())).read();
+        assertCollection(index.getKnownClasses(), Object.class, CGrandparent.class);
+        assertCollection(index.getKnownDirectSubclasses(Object.class), CGrandparent.class);
+    }
+
     private void doTestOverlappingCompositeIndex(IndexView index) {
         assertCollection(index.getKnownDirectSubclasses(Object.class), IGrandparent.class, IParent.class, IChild.class,
                 IGrandchild1.class, CGrandparent.class, IChild.class, ISibling.class, IGrandchild1.class, IGrandchild2.class);
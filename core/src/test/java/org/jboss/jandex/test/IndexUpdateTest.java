@@ -0,0 +1,154 @@
+package org.jboss.jandex.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.jboss.jandex.AnnotationInstance;
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.Indexer;
+import org.jboss.jandex.Type;
+import org.jboss.jandex.TypeVariable;
+import org.junit.jupiter.api.Test;
+
+public class IndexUpdateTest {
+    interface Iface {
+    }
+
+    interface SubIface extends Iface {
+    }
+
+    @MyAnnotation("a")
+    static class A<T extends Number> implements SubIface {
+        @MyAnnotation("a.field")
+        T field;
+
+        class Inner<U extends T> {
+            U inner;
+        }
+    }
+
+    @MyAnnotation("b")
+    static class B extends A<Integer> {
+        @MyOtherAnnotation("b.method")
+        C method(@MyAnnotation("b.param") String param) {
+            return null;
+        }
+    }
+
+    @MyAnnotation("c")
+    static class C extends B implements Iface {
+    }
+
+    @MyOtherAnnotation("d")
+    static class D extends A<Long> implements SubIface {
+        @MyAnnotation("d.field")
+        B field;
+    }
+
+    @Test
+    public void addModifyRemove() throws IOException {
+        Index previous = Index.of(Iface.class, SubIface.class, A.class, B.class, C.class);
+
+        Indexer indexer = new Indexer();
+        indexer.indexClass(B.class);
+        indexer.indexClass(D.class);
+        Index updated = indexer.completeUpdate(previous, Collections.singleton(DotName.createSimple(C.class.getName())));
+
+        verify(Index.of(Iface.class, SubIface.class, A.class, B.class, D.class), updated);
+
+        // unchanged classes are reused
+        assertSame(previous.getClassByName(A.class), updated.getClassByName(A.class));
+        assertSame(previous.getClassByName(Iface.class), updated.getClassByName(Iface.class));
+        assertNotSame(previous.getClassByName(B.class), updated.getClassByName(B.class));
+        assertNull(updated.getClassByName(C.class));
+
+        // the previous index is not modified
+        verify(Index.of(Iface.class, SubIface.class, A.class, B.class, C.class), previous);
+    }
+
+    @Test
+    public void removeOnly() throws IOException {
+        Index previous = Index.of(Iface.class, SubIface.class, A.class, B.class, C.class, D.class);
+
+        Index updated = new Indexer().completeUpdate(previous, Arrays.asList(DotName.createSimple(B.class.getName()),
+                DotName.createSimple(SubIface.class.getName()), DotName.createSimple("com.example.Unknown")));
+
+        verify(Index.of(Iface.class, A.class, C.class, D.class), updated);
+    }
+
+    @Test
+    public void noChanges() throws IOException {
+        Index previous = Index.of(Iface.class, SubIface.class, A.class, B.class);
+        Index updated = new Indexer().completeUpdate(previous, Collections.emptySet());
+        verify(previous, updated);
+        for (ClassInfo clazz : previous.getKnownClasses()) {
+            assertSame(clazz, updated.getClassByName(clazz.name()));
+        }
+    }
+
+    @Test
+    public void typeVariablesResolvedAgainstPreviousIndex() throws IOException {
+        Index previous = Index.of(A.class, A.Inner.class);
+
+        Indexer indexer = new Indexer();
+        indexer.indexClass(A.Inner.class);
+        Index updated = indexer.completeUpdate(previous, Collections.emptySet());
+
+        ClassInfo inner = updated.getClassByName(A.Inner.class);
+        assertNotNull(inner);
+        Type bound = inner.typeParameters().get(0).bounds().get(0);
+        assertEquals(Type.Kind.TYPE_VARIABLE, bound.kind());
+        TypeVariable t = bound.asTypeVariable();
+        assertEquals("T", t.identifier());
+        assertEquals(DotName.createSimple(Number.class.getName()), t.bounds().get(0).name());
+    }
+
+    @Test
+    public void nullArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new Indexer().completeUpdate(null, Collections.emptySet()));
+        assertThrows(IllegalArgumentException.class, () -> new Indexer().completeUpdate(Index.of(A.class), null));
+    }
+
+    private static void verify(Index expected, Index actual) {
+        assertEquals(names(expected.getKnownClasses()), names(actual.getKnownClasses()));
+        for (ClassInfo expectedClass : expected.getKnownClasses()) {
+            DotName name = expectedClass.name();
+            ClassInfo actualClass = actual.getClassByName(name);
+            assertNotNull(actualClass);
+            assertEquals(expectedClass.toString(), actualClass.toString());
+            assertEquals(expectedClass.methods().toString(), actualClass.methods().toString());
+
+            assertEquals(names(expected.getKnownDirectSubclasses(name)), names(actual.getKnownDirectSubclasses(name)));
+            assertEquals(names(expected.getKnownDirectSubinterfaces(name)), names(actual.getKnownDirectSubinterfaces(name)));
+            assertEquals(names(expected.getKnownDirectImplementors(name)), names(actual.getKnownDirectImplementors(name)));
+            assertEquals(names(expected.getAllKnownImplementors(name)), names(actual.getAllKnownImplementors(name)));
+            assertEquals(names(expected.getKnownUsers(name)), names(actual.getKnownUsers(name)));
+        }
+        for (DotName annotationName : new DotName[] { MyAnnotation.DOT_NAME,
+                DotName.createSimple(MyOtherAnnotation.class.getName()) }) {
+            assertEquals(annotations(expected.getAnnotations(annotationName)),
+                    annotations(actual.getAnnotations(annotationName)));
+        }
+    }
+
+    private static List<String> names(Collection<ClassInfo> classes) {
+        return classes.stream().map(it -> it.name().toString()).sorted().collect(Collectors.toList());
+    }
+
+    private static List<String> annotations(Collection<AnnotationInstance> annotations) {
+        return annotations.stream().map(it -> it + " on " + it.target().kind()).sorted().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,159 @@
+package org.jboss.jandex.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.jboss.jandex.AnnotationInstance;
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.FieldInfo;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexReader;
+import org.jboss.jandex.IndexVisitor;
+import org.jboss.jandex.MethodInfo;
+import org.jboss.jandex.test.util.IndexingUtil;
+import org.junit.jupiter.api.Test;
+
+public class IndexVisitorTest {
+    @MyRepeatableAnnotation("a")
+    @MyRepeatableAnnotation("b")
+    static class Annotated {
+        @MyOtherAnnotation("field")
+        List<@MyAnnotation("type") String> field;
+
+        @MyAnnotation("method")
+        void method(@MyOtherAnnotation("param") int param) {
+        }
+    }
+
+    static class Skipped {
+        @MyAnnotation("skipped")
+        void skipped() {
+        }
+    }
+
+    static class AlsoSkipped extends Skipped {
+        @MyOtherAnnotation("also skipped")
+        int field;
+    }
+
+    private static final DotName ANNOTATED = DotName.createSimple(Annotated.class.getName());
+
+    @Test
+    public void visitAll() throws IOException {
+        Index index = Index.of(Skipped.class, Annotated.class, AlsoSkipped.class, MyAnnotation.class);
+        for (int version : new int[] { 10, 13, 14 }) {
+            byte[] data = IndexingUtil.write(index, version);
+
+            RecordingVisitor fromStream = new RecordingVisitor(null);
+            new IndexReader(new ByteArrayInputStream(data)).accept(fromStream);
+            RecordingVisitor fromBytes = new RecordingVisitor(null);
+            IndexReader.fromBytes(data).accept(fromBytes);
+
+            for (RecordingVisitor visitor : new RecordingVisitor[] { fromStream, fromBytes }) {
+                assertEquals(index.getKnownClasses().size(), visitor.classes.size());
+                assertEquals(visitor.classes, visitor.completedClasses);
+                assertEquals(annotations(index), visitor.annotations);
+                assertEquals(3, visitor.fields.size()); // including MyAnnotation.DOT_NAME
+                assertTrue(visitor.methods.contains("skipped"));
+            }
+        }
+    }
+
+    @Test
+    public void skipClasses() throws IOException {
+        Index index = Index.of(Skipped.class, Annotated.class, AlsoSkipped.class, MyAnnotation.class);
+        for (int version : new int[] { 10, 13, 14 }) {
+            byte[] data = IndexingUtil.write(index, version);
+
+            for (IndexReader reader : new IndexReader[] { new IndexReader(new ByteArrayInputStream(data)),
+                    IndexReader.fromBytes(data) }) {
+                RecordingVisitor visitor = new RecordingVisitor(ANNOTATED);
+                reader.accept(visitor);
+
+                assertEquals(index.getKnownClasses().size(), visitor.classes.size());
+                assertEquals(1, visitor.completedClasses.size());
+                assertEquals(1, visitor.fields.size());
+                assertEquals(2, visitor.methods.size()); // including the constructor
+                assertEquals(annotations(index.getClassByName(ANNOTATED).annotations()), visitor.annotations);
+
+                ClassInfo clazz = visitor.completedClasses.get(0);
+                MethodInfo method = clazz.firstMethod("method");
+                assertEquals("method", method.annotation(MyAnnotation.DOT_NAME).value().asString());
+                AnnotationInstance param = method.parameters().get(0).annotation(MyOtherAnnotation.DOT_NAME);
+                assertEquals(clazz, param.target().asMethodParameter().method().declaringClass());
+                FieldInfo field = clazz.field("field");
+                assertEquals("field", field.annotation(MyOtherAnnotation.DOT_NAME).value().asString());
+                assertEquals(2, clazz.declaredAnnotation(MyRepeatableAnnotation.List.DOT_NAME).value()
+                        .asNestedArray().length);
+            }
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> IndexReader.fromBytes(IndexingUtil.write(index, 10)).accept(null));
+    }
+
+    private static Set<String> annotations(Index index) {
+        List<AnnotationInstance> result = new ArrayList<>();
+        for (ClassInfo clazz : index.getKnownClasses()) {
+            result.addAll(clazz.annotations());
+        }
+        return annotations(result);
+    }
+
+    private static Set<String> annotations(List<AnnotationInstance> annotations) {
+        Set<String> result = new TreeSet<>();
+        for (AnnotationInstance annotation : annotations) {
+            result.add(annotation + " on " + annotation.target().kind());
+        }
+        return result;
+    }
+
+    static class RecordingVisitor implements IndexVisitor {
+        // when not `null`, only this class is visited
+        private final DotName onlyClass;
+
+        final List<ClassInfo> classes = new ArrayList<>();
+        final List<ClassInfo> completedClasses = new ArrayList<>();
+        final List<String> fields = new ArrayList<>();
+        final List<String> methods = new ArrayList<>();
+        final Set<String> annotations = new TreeSet<>();
+
+        RecordingVisitor(DotName onlyClass) {
+            this.onlyClass = onlyClass;
+        }
+
+        @Override
+        public boolean visitClass(ClassInfo clazz) {
+            classes.add(clazz);
+            return onlyClass == null || onlyClass.equals(clazz.name());
+        }
+
+        @Override
+        public void visitField(FieldInfo field) {
+            fields.add(field.name());
+        }
+
+        @Override
+        public void visitMethod(MethodInfo method) {
+            methods.add(method.name());
+        }
+
+        @Override
+        public void visitAnnotation(AnnotationInstance annotation) {
+            annotations.add(annotation + " on " + annotation.target().kind());
+        }
+
+        @Override
+        public void visitClassEnd(ClassInfo clazz) {
+            completedClasses.add(clazz);
+        }
+    }
+}
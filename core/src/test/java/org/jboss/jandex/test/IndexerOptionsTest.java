@@ -0,0 +1,226 @@
+package org.jboss.jandex.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.Indexer;
+import org.jboss.jandex.IndexerOptions;
+import org.jboss.jandex.MethodInfo;
+import org.jboss.jandex.ParallelIndexer;
+import org.jboss.jandex.Type;
+import org.jboss.jandex.test.util.IndexingUtil;
+import org.junit.jupiter.api.Test;
+
+public class IndexerOptionsTest {
+    @Retention(RetentionPolicy.CLASS)
+    @interface Invisible {
+    }
+
+    @MyAnnotation("class")
+    @Invisible
+    static class Annotated<T extends Number> {
+        @MyOtherAnnotation("field")
+        List<@MyAnnotation("type") T> field;
+
+        @MyAnnotation("method")
+        String method(@Invisible @MyOtherAnnotation("param") int param) {
+            StringBuilder builder = new StringBuilder();
+            return builder.toString();
+        }
+    }
+
+    static class Subclass extends Annotated<Integer> {
+    }
+
+    static class NotAnnotated implements Comparable<NotAnnotated> {
+        String field;
+
+        @Override
+        public int compareTo(NotAnnotated o) {
+            return 0;
+        }
+    }
+
+    static class GenericOuter<T> {
+        class Inner {
+            @MyOtherAnnotation("inner")
+            T get() {
+                return null;
+            }
+        }
+    }
+
+    private static final DotName INVISIBLE = DotName.createSimple(Invisible.class.getName());
+    private static final DotName STRING_BUILDER = DotName.createSimple(StringBuilder.class.getName());
+
+    @Test
+    public void defaults() throws IOException {
+        Index index = index(IndexerOptions.defaults());
+        verifyCommon(index);
+        ClassInfo clazz = index.getClassByName(Annotated.class);
+        assertEquals(1, clazz.typeParameters().size());
+        assertEquals(Type.Kind.PARAMETERIZED_TYPE, clazz.field("field").type().kind());
+        assertTrue(clazz.field("field").type().asParameterizedType().arguments().get(0).hasAnnotation(MyAnnotation.DOT_NAME));
+        assertNotNull(clazz.declaredAnnotation(INVISIBLE));
+        assertEquals("param", clazz.firstMethod("method").parameterName(0));
+        assertFalse(index.getKnownUsers(STRING_BUILDER).isEmpty());
+
+        assertArrayEquals(IndexingUtil.write(index), IndexingUtil.write(index(IndexerOptions.builder().build())));
+    }
+
+    @Test
+    public void skipEverything() throws IOException {
+        IndexerOptions options = IndexerOptions.builder()
+                .skipUsers()
+                .skipParameterNames()
+                .skipGenericSignatures()
+                .skipInvisibleAnnotations()
+                .build();
+        assertFalse(options.indexesTypeAnnotations());
+
+        Index index = index(options);
+        verifyCommon(index);
+        ClassInfo clazz = index.getClassByName(Annotated.class);
+        assertTrue(clazz.typeParameters().isEmpty());
+        assertEquals(Type.Kind.CLASS, clazz.field("field").type().kind());
+        assertEquals(Type.Kind.CLASS, index.getClassByName(Subclass.class).superClassType().kind());
+        assertNull(clazz.declaredAnnotation(INVISIBLE));
+        assertTrue(index.getAnnotations(INVISIBLE).isEmpty());
+        assertNull(clazz.firstMethod("method").parameterName(0));
+        assertTrue(index.getKnownUsers(STRING_BUILDER).isEmpty());
+
+        assertTrue(IndexingUtil.write(index).length < IndexingUtil.write(index(IndexerOptions.defaults())).length);
+    }
+
+    @Test
+    public void skipTypeAnnotations() throws IOException {
+        Index index = index(IndexerOptions.builder().skipTypeAnnotations().build());
+        verifyCommon(index);
+        ClassInfo clazz = index.getClassByName(Annotated.class);
+        Type fieldType = clazz.field("field").type();
+        assertEquals(Type.Kind.PARAMETERIZED_TYPE, fieldType.kind());
+        assertFalse(fieldType.asParameterizedType().arguments().get(0).hasAnnotation(MyAnnotation.DOT_NAME));
+        // on the class and on the method, but not on the type argument
+        assertEquals(2, index.getAnnotations(MyAnnotation.DOT_NAME).size());
+        assertNotNull(clazz.declaredAnnotation(INVISIBLE));
+    }
+
+    @Test
+    public void parallelIndexer() throws IOException {
+        IndexerOptions options = IndexerOptions.builder().skipUsers().skipGenericSignatures().build();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            ParallelIndexer indexer = new ParallelIndexer(executor, 1, null, options);
+            indexer.indexClass(Annotated.class);
+            indexer.indexClass(Subclass.class);
+            indexer.indexClass(MyAnnotation.class);
+            Index index = indexer.complete();
+            verifyCommon(index);
+            assertTrue(index.getClassByName(Annotated.class).typeParameters().isEmpty());
+            assertTrue(index.getKnownUsers(STRING_BUILDER).isEmpty());
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> new Indexer(null, null));
+        assertThrows(IllegalArgumentException.class, () -> new ParallelIndexer(executor, 1, null, null));
+    }
+
+    @Test
+    public void prefilterAnnotations() throws IOException {
+        IndexerOptions options = IndexerOptions.builder()
+                .prefilterAnnotations(Collections.singleton(MyOtherAnnotation.DOT_NAME))
+                .build();
+        assertEquals(Collections.singleton(MyOtherAnnotation.DOT_NAME), options.prefilterAnnotations());
+        assertNull(IndexerOptions.defaults().prefilterAnnotations());
+
+        Indexer indexer = new Indexer(null, options);
+        indexer.indexClass(Annotated.class);
+        indexer.indexClass(Subclass.class);
+        indexer.indexClass(NotAnnotated.class);
+        indexer.indexClass(MyAnnotation.class);
+        Index index = indexer.complete();
+
+        // refers to the interesting annotation, fully indexed
+        verifyCommon(index);
+        assertEquals(1, index.getClassByName(Annotated.class).typeParameters().size());
+
+        // doesn't refer to the interesting annotation, only the class hierarchy is present
+        ClassInfo subclass = index.getClassByName(Subclass.class);
+        assertEquals(DotName.createSimple(Annotated.class.getName()), subclass.superName());
+        assertTrue(subclass.methods().isEmpty());
+        assertTrue(subclass.annotations().isEmpty());
+        ClassInfo notAnnotated = index.getClassByName(NotAnnotated.class);
+        assertEquals(1, notAnnotated.interfaceNames().size());
+        assertEquals(1, index.getAllKnownImplementors(Comparable.class).size());
+        assertTrue(notAnnotated.fields().isEmpty());
+        assertTrue(notAnnotated.methods().isEmpty());
+        assertTrue(index.getKnownUsers(NotAnnotated.class).isEmpty());
+
+        // annotation types are always fully indexed
+        assertNotNull(index.getClassByName(MyAnnotation.class).method("value"));
+
+        assertThrows(IllegalArgumentException.class, () -> IndexerOptions.builder().prefilterAnnotations(null));
+    }
+
+    @Test
+    public void prefilterAnnotationsOnNestedClass() throws IOException {
+        Indexer indexer = new Indexer(null, IndexerOptions.builder()
+                .prefilterAnnotations(Collections.singleton(MyOtherAnnotation.DOT_NAME))
+                .build());
+        indexer.indexClass(GenericOuter.class);
+        indexer.indexClass(GenericOuter.Inner.class);
+        Index index = indexer.complete();
+
+        // the stub still knows its type parameters and where it is nested
+        ClassInfo outer = index.getClassByName(GenericOuter.class);
+        assertTrue(outer.methods().isEmpty());
+        assertEquals(1, outer.typeParameters().size());
+        assertEquals(ClassInfo.NestingType.INNER, outer.nestingType());
+        assertEquals(DotName.createSimple(IndexerOptionsTest.class.getName()), outer.enclosingClass());
+
+        // so type variables of the outer class can be resolved in a fully analyzed inner class
+        ClassInfo inner = index.getClassByName(GenericOuter.Inner.class);
+        assertEquals(outer.name(), inner.enclosingClass());
+        Type returnType = inner.firstMethod("get").returnType();
+        assertEquals(Type.Kind.TYPE_VARIABLE, returnType.kind());
+        assertEquals("T", returnType.asTypeVariable().identifier());
+        assertEquals("inner", inner.firstMethod("get").annotation(MyOtherAnnotation.DOT_NAME).value().asString());
+    }
+
+    // the class hierarchy and declaration annotations are always indexed
+    private static void verifyCommon(Index index) {
+        ClassInfo clazz = index.getClassByName(Annotated.class);
+        assertNotNull(clazz);
+        assertEquals("class", clazz.declaredAnnotation(MyAnnotation.DOT_NAME).value().asString());
+        assertEquals("field", clazz.field("field").annotation(MyOtherAnnotation.DOT_NAME).value().asString());
+        MethodInfo method = clazz.firstMethod("method");
+        assertEquals("method", method.annotation(MyAnnotation.DOT_NAME).value().asString());
+        assertEquals("param", method.parameters().get(0).annotation(MyOtherAnnotation.DOT_NAME).value().asString());
+        assertEquals(1, index.getKnownDirectSubclasses(Annotated.class).size());
+    }
+
+    private static Index index(IndexerOptions options) throws IOException {
+        Indexer indexer = new Indexer(null, options);
+        indexer.indexClass(Annotated.class);
+        indexer.indexClass(Subclass.class);
+        indexer.indexClass(MyAnnotation.class);
+        return indexer.complete();
+    }
+}
@@ -0,0 +1,131 @@
+package org.jboss.jandex.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.Indexer;
+import org.jboss.jandex.JarIndexer;
+import org.jboss.jandex.Result;
+import org.jboss.jandex.test.util.IndexingUtil;
+import org.junit.jupiter.api.Test;
+
+public class JarIndexTest {
+    @MyAnnotation("jar")
+    static class Annotated {
+        @MyOtherAnnotation("field")
+        List<String> field;
+    }
+
+    private static final Class<?>[] CLASSES = { Annotated.class, MyAnnotation.class, Indexer.class, Map.class };
+
+    @Test
+    public void storedAndDeflatedEntries() throws IOException {
+        File jar = File.createTempFile("jandex", ".jar");
+        try {
+            writeJar(jar, new byte[0], null);
+            Index index = verify(Index.of(jar));
+            assertArrayEquals(IndexingUtil.write(indexFromStreams()), IndexingUtil.write(index));
+            // the file is closed after indexing, even on platforms that don't allow deleting open files
+            assertTrue(jar.delete());
+        } finally {
+            jar.delete();
+        }
+    }
+
+    @Test
+    public void archiveWithPrefix() throws IOException {
+        File jar = File.createTempFile("jandex", ".jar");
+        try {
+            writeJar(jar, "#!/bin/sh\nexec java -jar \"$0\"\n".getBytes(StandardCharsets.US_ASCII), null);
+            assertArrayEquals(IndexingUtil.write(indexFromStreams()), IndexingUtil.write(verify(Index.of(jar))));
+        } finally {
+            jar.delete();
+        }
+    }
+
+    @Test
+    public void corruptClassFile() throws IOException {
+        File jar = File.createTempFile("jandex", ".jar");
+        File idx = File.createTempFile("jandex", ".idx");
+        try {
+            writeJar(jar, new byte[0], "com/example/Corrupt.class");
+            ByteArrayOutputStream err = new ByteArrayOutputStream();
+            Result result = JarIndexer.createJarIndex(jar, new Indexer(), idx, false, false, false,
+                    new PrintStream(new ByteArrayOutputStream()), new PrintStream(err, true));
+            assertTrue(err.toString().contains("ERROR: Could not index com/example/Corrupt.class"), err.toString());
+            verify(result.getIndex());
+            assertNull(result.getIndex().getClassByName("com.example.Corrupt"));
+        } finally {
+            jar.delete();
+            idx.delete();
+        }
+    }
+
+    private static Index verify(Index index) {
+        ClassInfo clazz = index.getClassByName(Annotated.class);
+        assertNotNull(clazz);
+        assertEquals("jar", clazz.declaredAnnotation(MyAnnotation.DOT_NAME).value().asString());
+        assertEquals("field", clazz.field("field").annotation(MyOtherAnnotation.DOT_NAME).value().asString());
+        assertEquals(CLASSES.length, index.getKnownClasses().size());
+        return index;
+    }
+
+    private static Index indexFromStreams() throws IOException {
+        Indexer indexer = new Indexer();
+        for (Class<?> clazz : CLASSES) {
+            indexer.index(new ByteArrayInputStream(IndexingUtil.classData(clazz)));
+        }
+        return indexer.complete();
+    }
+
+    // every other class file is stored, the others are deflated
+    private static void writeJar(File file, byte[] prefix, String corruptClass) throws IOException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(prefix);
+            ZipOutputStream zip = new ZipOutputStream(out);
+            zip.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+            zip.write("Manifest-Version: 1.0\n".getBytes(StandardCharsets.US_ASCII));
+            zip.putNextEntry(new ZipEntry("META-INF/"));
+            boolean stored = false;
+            for (Class<?> clazz : CLASSES) {
+                byte[] data = IndexingUtil.classData(clazz);
+                ZipEntry entry = new ZipEntry(clazz.getName().replace('.', '/') + ".class");
+                if (stored) {
+                    CRC32 crc = new CRC32();
+                    crc.update(data);
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(data.length);
+                    entry.setCompressedSize(data.length);
+                    entry.setCrc(crc.getValue());
+                }
+                stored = !stored;
+                zip.putNextEntry(entry);
+                zip.write(data);
+            }
+            if (corruptClass != null) {
+                zip.putNextEntry(new ZipEntry(corruptClass));
+                zip.write(new byte[] { (byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 0, 0 });
+            }
+            zip.finish();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.jboss.jandex.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.CompositeIndex;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexView;
+import org.junit.jupiter.api.Test;
+
+public class KnownClassesWithAnnotationsTest {
+    @MyAnnotation("a")
+    static class A {
+    }
+
+    static class B {
+        @MyOtherAnnotation("b")
+        int field;
+    }
+
+    @MyAnnotation("c")
+    static class C {
+        void method(@MyOtherAnnotation("c") int param) {
+        }
+    }
+
+    static class D {
+        List<@MyAnnotation("d") String> field;
+    }
+
+    static class E {
+    }
+
+    private static final DotName MISSING = DotName.createSimple("com.example.Missing");
+
+    @Test
+    public void index() throws IOException {
+        Index index = Index.of(manyClasses());
+        test(index);
+    }
+
+    @Test
+    public void compositeIndex() throws IOException {
+        test(CompositeIndex.create(Index.of(A.class, B.class, C.class), Index.of(D.class, E.class)));
+    }
+
+    private static void test(IndexView index) {
+        assertEquals(names("A", "C", "D"), names(index.getKnownClassesWithAnyAnnotation(
+                Collections.singleton(MyAnnotation.DOT_NAME))));
+        assertEquals(names("A", "B", "C", "D"), names(index.getKnownClassesWithAnyAnnotation(
+                Arrays.asList(MyAnnotation.DOT_NAME, MyOtherAnnotation.DOT_NAME, MISSING))));
+        assertEquals(names(), names(index.getKnownClassesWithAnyAnnotation(Collections.singleton(MISSING))));
+        assertEquals(names(), names(index.getKnownClassesWithAnyAnnotation(Collections.emptyList())));
+
+        assertEquals(names("C"), names(index.getKnownClassesWithAllAnnotations(
+                Arrays.asList(MyAnnotation.DOT_NAME, MyOtherAnnotation.DOT_NAME))));
+        assertEquals(names("B", "C"), names(index.getKnownClassesWithAllAnnotations(
+                Collections.singleton(MyOtherAnnotation.DOT_NAME))));
+        assertEquals(names(), names(index.getKnownClassesWithAllAnnotations(
+                Arrays.asList(MyAnnotation.DOT_NAME, MISSING))));
+        assertEquals(index.getKnownClasses().size(),
+                index.getKnownClassesWithAllAnnotations(Collections.emptyList()).size());
+
+        assertThrows(IllegalArgumentException.class, () -> index.getKnownClassesWithAnyAnnotation(null));
+        assertThrows(IllegalArgumentException.class, () -> index.getKnownClassesWithAllAnnotations(null));
+    }
+
+    // more than 64 classes, so that the bitmaps span multiple words
+    private static Class<?>[] manyClasses() {
+        List<Class<?>> result = new ArrayList<>();
+        Collections.addAll(result, Object.class, String.class, Integer.class, Long.class, Short.class, Byte.class,
+                Character.class, Boolean.class, Double.class, Float.class, Number.class, Enum.class, Thread.class,
+                Runnable.class, Comparable.class, CharSequence.class, Iterable.class, Math.class, System.class,
+                StringBuilder.class, Void.class, Class.class, ClassLoader.class, Throwable.class, Exception.class,
+                RuntimeException.class, Error.class, IllegalStateException.class, IllegalArgumentException.class,
+                NullPointerException.class, IndexOutOfBoundsException.class, ArithmeticException.class,
+                ClassCastException.class, UnsupportedOperationException.class, Process.class, Runtime.class,
+                ThreadLocal.class, StackTraceElement.class, AutoCloseable.class, Appendable.class, Readable.class,
+                Cloneable.class, Override.class, Deprecated.class, SuppressWarnings.class, FunctionalInterface.class,
+                SafeVarargs.class, java.util.List.class, java.util.Map.class, java.util.Set.class,
+                java.util.ArrayList.class, java.util.HashMap.class, java.util.HashSet.class,
+                java.util.LinkedList.class, java.util.TreeMap.class, java.util.TreeSet.class,
+                java.util.Collection.class, java.util.Iterator.class, java.util.Optional.class,
+                java.util.Objects.class, java.util.Arrays.class, java.util.Collections.class,
+                java.util.Comparator.class, java.util.Deque.class, java.util.Queue.class);
+        Collections.addAll(result, A.class, B.class, C.class, D.class, E.class);
+        return result.toArray(new Class<?>[0]);
+    }
+
+    private static Set<String> names(String... simpleNames) {
+        Set<String> result = new TreeSet<>();
+        for (String simpleName : simpleNames) {
+            result.add(KnownClassesWithAnnotationsTest.class.getName() + "$" + simpleName);
+        }
+        return result;
+    }
+
+    private static Set<String> names(Collection<ClassInfo> classes) {
+        Set<String> result = new TreeSet<>();
+        for (ClassInfo clazz : classes) {
+            result.add(clazz.name().toString());
+        }
+        assertEquals(classes.size(), result.size());
+        return result;
+    }
+}
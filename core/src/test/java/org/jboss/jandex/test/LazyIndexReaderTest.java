@@ -0,0 +1,198 @@
+package org.jboss.jandex.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.jboss.jandex.AnnotationInstance;
+import org.jboss.jandex.AnnotationTarget;
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.FieldInfo;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexReader;
+import org.jboss.jandex.IndexView;
+import org.jboss.jandex.IndexWriter;
+import org.jboss.jandex.MethodInfo;
+import org.jboss.jandex.test.util.IndexingUtil;
+import org.junit.jupiter.api.Test;
+
+public class LazyIndexReaderTest {
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.TYPE_USE)
+    @interface TypeAnn {
+        String value();
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Holder {
+        MyAnnotation value();
+    }
+
+    interface Iface {
+    }
+
+    interface SubIface extends Iface {
+    }
+
+    @MyAnnotation("a")
+    static class A implements SubIface {
+        @MyAnnotation("a.field")
+        @TypeAnn("a.field.type")
+        String field;
+
+        @MyAnnotation("a.method")
+        @MyOtherAnnotation("a.method")
+        @Holder(@MyAnnotation("nested"))
+        void method(@MyAnnotation("a.param") List<@TypeAnn("a.param.type") String> param) {
+        }
+    }
+
+    static class B extends A {
+        @MyAnnotation("b.method")
+        B self() {
+            return this;
+        }
+    }
+
+    @MyAnnotation("c")
+    static class C extends B implements Iface {
+    }
+
+    @Test
+    public void readFromBuffer() throws IOException {
+        Index index = Index.of(Iface.class, SubIface.class, A.class, B.class, C.class);
+        for (int version : new int[] { 6, 10, 11, 12, 13, 14 }) {
+            byte[] bytes = IndexingUtil.write(index, version);
+            Index eager = new IndexReader(new ByteArrayInputStream(bytes)).read();
+            IndexView lazy = IndexReader.readLazily(ByteBuffer.wrap(bytes));
+            verify(eager, lazy);
+        }
+    }
+
+    @Test
+    public void readFromFile() throws IOException {
+        Index index = Index.of(Iface.class, SubIface.class, A.class, B.class, C.class);
+        File file = File.createTempFile("jandex", ".idx");
+        try {
+            Files.write(file.toPath(), IndexingUtil.write(index, 14));
+            IndexView lazy = IndexReader.readLazily(file.toPath());
+            verify(index, lazy);
+        } finally {
+            // deleting a mapped file fails on some platforms, which is fine
+            file.delete();
+        }
+    }
+
+    @Test
+    public void classesReadOnce() throws IOException {
+        Index index = Index.of(A.class, B.class);
+        IndexView lazy = IndexReader.readLazily(ByteBuffer.wrap(IndexingUtil.write(index, 14)));
+
+        ClassInfo a = lazy.getClassByName(A.class);
+        assertNotNull(a);
+        assertSame(a, lazy.getClassByName(A.class));
+        assertSame(lazy.getClassByName(B.class), lazy.getKnownDirectSubclasses(A.class).iterator().next());
+        assertNull(lazy.getClassByName(C.class));
+        assertNull(lazy.getClassByName((DotName) null));
+
+        MethodInfo method = a.firstMethod("method");
+        assertNotNull(method);
+        assertSame(a, method.declaringClass());
+        FieldInfo field = a.field("field");
+        assertNotNull(field);
+        assertSame(a, field.declaringClass());
+
+        for (AnnotationInstance annotation : lazy.getAnnotations(MyAnnotation.DOT_NAME)) {
+            AnnotationTarget target = annotation.target();
+            if (target.kind() == AnnotationTarget.Kind.METHOD) {
+                assertSame(lazy.getClassByName(target.asMethod().declaringClass().name()),
+                        target.asMethod().declaringClass());
+            }
+        }
+    }
+
+    @Test
+    public void defaultVersion() throws IOException {
+        Index index = Index.of(Iface.class, SubIface.class, A.class, B.class, C.class);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new IndexWriter(out).write(index);
+        byte[] bytes = out.toByteArray();
+
+        // version 14 is only written on request, so that older Jandex versions can read the index
+        IndexReader reader = new IndexReader(new ByteArrayInputStream(bytes));
+        assertEquals(13, reader.getIndexVersion());
+        verify(index, reader.read());
+        verify(index, IndexReader.readLazily(ByteBuffer.wrap(bytes)));
+    }
+
+    @Test
+    public void buffersAtNonZeroPosition() throws IOException {
+        Index index = Index.of(A.class, B.class, C.class);
+        byte[] bytes = IndexingUtil.write(index, 14);
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length + 3);
+        buffer.put(new byte[] { 1, 2, 3 });
+        buffer.put(bytes);
+        buffer.position(3);
+
+        IndexView lazy = IndexReader.readLazily(buffer);
+        assertEquals(3, buffer.position());
+        verify(index, lazy);
+    }
+
+    private static void verify(IndexView expected, IndexView actual) {
+        assertEquals(names(expected.getKnownClasses()), names(actual.getKnownClasses()));
+        for (ClassInfo expectedClass : expected.getKnownClasses()) {
+            DotName name = expectedClass.name();
+            ClassInfo actualClass = actual.getClassByName(name);
+            assertNotNull(actualClass);
+            assertEquals(expectedClass.toString(), actualClass.toString());
+            assertEquals(expectedClass.fields().toString(), actualClass.fields().toString());
+            assertEquals(expectedClass.methods().toString(), actualClass.methods().toString());
+            assertEquals(annotations(expectedClass.annotations()), annotations(actualClass.annotations()));
+
+            assertEquals(names(expected.getKnownDirectSubclasses(name)), names(actual.getKnownDirectSubclasses(name)));
+            assertEquals(names(expected.getAllKnownSubclasses(name)), names(actual.getAllKnownSubclasses(name)));
+            assertEquals(names(expected.getKnownDirectSubinterfaces(name)), names(actual.getKnownDirectSubinterfaces(name)));
+            assertEquals(names(expected.getAllKnownSubinterfaces(name)), names(actual.getAllKnownSubinterfaces(name)));
+            assertEquals(names(expected.getKnownDirectImplementors(name)), names(actual.getKnownDirectImplementors(name)));
+            assertEquals(names(expected.getAllKnownImplementors(name)), names(actual.getAllKnownImplementors(name)));
+            assertEquals(names(expected.getKnownDirectImplementations(name)),
+                    names(actual.getKnownDirectImplementations(name)));
+            assertEquals(names(expected.getKnownUsers(name)), names(actual.getKnownUsers(name)));
+
+            DotName packageName = name.packagePrefixName();
+            assertEquals(names(expected.getClassesInPackage(packageName)), names(actual.getClassesInPackage(packageName)));
+            assertEquals(expected.getSubpackages(packageName), actual.getSubpackages(packageName));
+        }
+
+        for (DotName annotationName : new DotName[] { MyAnnotation.DOT_NAME, MyOtherAnnotation.DOT_NAME,
+                DotName.createSimple(TypeAnn.class.getName()), DotName.createSimple(Holder.class.getName()) }) {
+            assertEquals(annotations(expected.getAnnotations(annotationName)),
+                    annotations(actual.getAnnotations(annotationName)));
+        }
+    }
+
+    private static List<String> names(Collection<ClassInfo> classes) {
+        return classes.stream().map(it -> it.name().toString()).sorted().collect(Collectors.toList());
+    }
+
+    private static List<String> annotations(Collection<AnnotationInstance> annotations) {
+        return annotations.stream().map(it -> it + " on " + it.target().kind()).sorted().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,85 @@
+package org.jboss.jandex.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.jboss.jandex.AnnotationInstance;
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexReader;
+import org.jboss.jandex.MethodInfo;
+import org.jboss.jandex.test.util.IndexingUtil;
+import org.junit.jupiter.api.Test;
+
+public class ParallelIndexReaderTest {
+    // only version 14 and later is decoded in parallel, and it is not the default
+    private static final int VERSION = 14;
+
+    @MyRepeatableAnnotation("a")
+    @MyRepeatableAnnotation("b")
+    static class Annotated {
+        @MyOtherAnnotation("field")
+        List<@MyAnnotation("type") String> field;
+
+        @MyAnnotation("method")
+        void method(@MyOtherAnnotation("param") int param) {
+        }
+    }
+
+    private static final ForkJoinPool POOL = ForkJoinPool.commonPool();
+
+    @Test
+    public void sameAsSequential() throws IOException, URISyntaxException {
+        // enough methods and fields to be decoded in multiple chunks
+        Index original = Index.of(directoryOf(Index.class), directoryOf(ParallelIndexReaderTest.class));
+        byte[] data = IndexingUtil.write(original, VERSION);
+
+        Index sequential = IndexReader.fromBytes(data).read();
+        Index parallel = IndexReader.fromBytes(data).read(POOL);
+        assertArrayEquals(IndexingUtil.write(sequential, VERSION), IndexingUtil.write(parallel, VERSION));
+        assertEquals(sequential.getAnnotations(MyAnnotation.DOT_NAME).toString(),
+                parallel.getAnnotations(MyAnnotation.DOT_NAME).toString());
+        assertEquals(sequential.getKnownDirectSubclasses(Object.class).size(),
+                parallel.getKnownDirectSubclasses(Object.class).size());
+
+        verify(parallel);
+    }
+
+    @Test
+    public void sequentialFallback() throws IOException {
+        byte[] data = IndexingUtil.write(Index.of(Annotated.class, MyAnnotation.class), VERSION);
+        verify(new IndexReader(new ByteArrayInputStream(data)).read(POOL));
+
+        verify(IndexReader.fromBytes(IndexingUtil.write(Index.of(Annotated.class, MyAnnotation.class), 13)).read(POOL));
+
+        assertThrows(IllegalArgumentException.class, () -> IndexReader.fromBytes(data).read(null));
+    }
+
+    private static void verify(Index index) {
+        ClassInfo clazz = index.getClassByName(Annotated.class);
+        assertNotNull(clazz);
+        assertEquals(2, clazz.declaredAnnotation(MyRepeatableAnnotation.List.DOT_NAME).value().asNestedArray().length);
+        MethodInfo method = clazz.firstMethod("method");
+        assertEquals("method", method.annotation(MyAnnotation.DOT_NAME).value().asString());
+        AnnotationInstance param = method.parameters().get(0).annotation(MyOtherAnnotation.DOT_NAME);
+        assertEquals("param", param.value().asString());
+        // targets of annotations must refer to their declaring class
+        assertEquals(clazz, param.target().asMethodParameter().method().declaringClass());
+        AnnotationInstance field = clazz.field("field").annotation(MyOtherAnnotation.DOT_NAME);
+        assertEquals("field", field.value().asString());
+        assertEquals(clazz, field.target().asField().declaringClass());
+    }
+
+    private static File directoryOf(Class<?> clazz) throws URISyntaxException {
+        return new File(clazz.getResource(clazz.getSimpleName() + ".class").toURI()).getParentFile();
+    }
+}
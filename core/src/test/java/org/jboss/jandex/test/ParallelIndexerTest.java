@@ -0,0 +1,353 @@
+package org.jboss.jandex.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.ClassSummary;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexReader;
+import org.jboss.jandex.IndexWriter;
+import org.jboss.jandex.Indexer;
+import org.jboss.jandex.ParallelIndexer;
+import org.jboss.jandex.Type;
+import org.jboss.jandex.TypeVariable;
+import org.jboss.jandex.test.util.IndexingUtil;
+import org.junit.jupiter.api.Test;
+
+public class ParallelIndexerTest {
+    interface Foo<T> {
+    }
+
+    @MyAnnotation("a")
+    static class A<T extends Number> implements Foo<T> {
+        @MyAnnotation("a.field")
+        T field;
+
+        class Inner<U extends T> {
+            U inner;
+        }
+    }
+
+    @MyAnnotation("b")
+    static class B extends A<Integer> {
+        @MyAnnotation("b.method")
+        <V extends Comparable<V>> V method(@MyAnnotation("b.param") List<? extends V> param) {
+            return null;
+        }
+    }
+
+    static class C extends B implements Foo<Integer> {
+    }
+
+    static class D {
+        void method(List<@MyAnnotation("type") String> param) {
+        }
+    }
+
+    static class E {
+        void method(List<@MyAnnotation("type") String> param) {
+        }
+    }
+
+    static class F<T> {
+        class Inner {
+            T get() {
+                return null;
+            }
+        }
+    }
+
+    static class G<T extends Number> {
+        class Inner {
+            T get() {
+                return null;
+            }
+        }
+    }
+
+    private static final List<Class<?>> CLASSES = Arrays.asList(Foo.class, A.class, A.Inner.class, B.class, C.class,
+            MyAnnotation.class);
+
+    @Test
+    public void test() throws IOException {
+        Indexer indexer = new Indexer();
+        for (Class<?> clazz : CLASSES) {
+            indexer.indexClass(clazz);
+        }
+        Index expected = indexer.complete();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int batchSize = 1; batchSize <= CLASSES.size() + 1; batchSize++) {
+                ParallelIndexer parallelIndexer = new ParallelIndexer(executor, batchSize);
+                for (Class<?> clazz : CLASSES) {
+                    parallelIndexer.indexClass(clazz);
+                }
+                Index actual = parallelIndexer.complete();
+                verify(expected, actual);
+                assertArrayEquals(IndexingUtil.write(expected), IndexingUtil.write(actual));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void indexDirectory() throws IOException {
+        Path directory = Files.createTempDirectory("jandex");
+        try {
+            // class files in nested directories, written in an order that differs from the sorted order
+            Map<String, Class<?>> sorted = new TreeMap<>();
+            List<Class<?>> reversed = new ArrayList<>(CLASSES);
+            Collections.reverse(reversed);
+            for (Class<?> clazz : reversed) {
+                String path = clazz.getName().replace('.', '/') + ".class";
+                sorted.put(path, clazz);
+                Path file = directory.resolve(path);
+                Files.createDirectories(file.getParent());
+                Files.write(file, IndexingUtil.classData(clazz));
+            }
+            Files.write(directory.resolve("org/not-a-class.txt"), new byte[] { 1, 2, 3 });
+            try {
+                // symbolic link to a parent directory, which must not be walked into
+                Files.createSymbolicLink(directory.resolve("org/loop"), directory);
+            } catch (UnsupportedOperationException | IOException ignored) {
+            }
+
+            Indexer indexer = new Indexer();
+            for (Class<?> clazz : sorted.values()) {
+                indexer.indexClass(clazz);
+            }
+            Index expected = indexer.complete();
+
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                ParallelIndexer parallelIndexer = new ParallelIndexer(executor, 2);
+                for (Class<?> clazz : sorted.values()) {
+                    parallelIndexer.indexClass(clazz);
+                }
+                ByteArrayOutputStream expectedData = new ByteArrayOutputStream();
+                new IndexWriter(expectedData).write(parallelIndexer.complete());
+
+                assertEquals(CLASSES.size(), parallelIndexer.indexDirectory(directory));
+                Index actual = parallelIndexer.complete();
+                verify(expected, actual);
+                ByteArrayOutputStream actualData = new ByteArrayOutputStream();
+                new IndexWriter(actualData).write(actual);
+                assertArrayEquals(expectedData.toByteArray(), actualData.toByteArray());
+
+                verify(expected, Index.ofDirectory(directory, executor));
+
+                Path file = directory.resolve("org/not-a-class.txt");
+                assertThrows(IllegalArgumentException.class, () -> Index.ofDirectory(file, executor));
+                assertThrows(IllegalArgumentException.class, () -> Index.ofDirectory(directory, null));
+            } finally {
+                executor.shutdown();
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Test
+    public void reproducible() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            byte[] first = null;
+            for (int i = 0; i < 10; i++) {
+                ParallelIndexer indexer = new ParallelIndexer(executor, 2);
+                for (Class<?> clazz : CLASSES) {
+                    indexer.indexClass(clazz);
+                }
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                new IndexWriter(out).write(indexer.complete());
+                if (first == null) {
+                    first = out.toByteArray();
+                } else {
+                    assertArrayEquals(first, out.toByteArray());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void typeVariablesPropagatedAcrossBatches() throws IOException {
+        // `A` and `A.Inner` are indexed in different batches, the type variable `T` in the bound of `U`
+        // must still be resolved to the type parameter of the enclosing class
+        ParallelIndexer indexer = new ParallelIndexer(Runnable::run, 1);
+        indexer.indexClass(A.class);
+        indexer.indexClass(A.Inner.class);
+        Index index = indexer.complete();
+
+        ClassInfo inner = index.getClassByName(A.Inner.class);
+        assertNotNull(inner);
+        TypeVariable u = inner.typeParameters().get(0);
+        Type bound = u.bounds().get(0);
+        assertEquals(Type.Kind.TYPE_VARIABLE, bound.kind());
+        assertEquals("T", bound.asTypeVariable().identifier());
+        assertEquals(DotName.createSimple(Number.class.getName()), bound.asTypeVariable().bounds().get(0).name());
+    }
+
+    @Test
+    public void equalTypeAnnotationsAcrossBatches() throws IOException {
+        // `D` and `E` have equal annotated parameter types, which are interned separately in each batch;
+        // type annotation targets must still refer to the types present in the index
+        ParallelIndexer indexer = new ParallelIndexer(Runnable::run, 1);
+        indexer.indexClass(D.class);
+        indexer.indexClass(E.class);
+        Index index = indexer.complete();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new IndexWriter(out).write(index);
+        Index read = new IndexReader(new ByteArrayInputStream(out.toByteArray())).read();
+        assertEquals(2, read.getAnnotations(MyAnnotation.DOT_NAME).size());
+    }
+
+    @Test
+    public void equalMembersOfDifferentClasses() throws IOException {
+        // the methods `F.Inner.get()` and `G.Inner.get()` are equal before type variables are resolved,
+        // but `T` must only be resolved for `G.Inner`, whose enclosing class is indexed
+        List<Class<?>> classes = Arrays.asList(F.Inner.class, G.Inner.class, G.class);
+        Indexer indexer = new Indexer();
+        for (Class<?> clazz : classes) {
+            indexer.indexClass(clazz);
+        }
+        Index expected = indexer.complete();
+        assertEquals(Type.Kind.UNRESOLVED_TYPE_VARIABLE,
+                expected.getClassByName(F.Inner.class).firstMethod("get").returnType().kind());
+        assertEquals(Type.Kind.TYPE_VARIABLE,
+                expected.getClassByName(G.Inner.class).firstMethod("get").returnType().kind());
+
+        ParallelIndexer parallelIndexer = new ParallelIndexer(Runnable::run, 1);
+        for (Class<?> clazz : classes) {
+            parallelIndexer.indexClass(clazz);
+        }
+        assertArrayEquals(IndexingUtil.write(expected), IndexingUtil.write(parallelIndexer.complete()));
+    }
+
+    @Test
+    public void corruptClassFile() throws IOException {
+        ParallelIndexer indexer = new ParallelIndexer(Runnable::run, 1);
+        indexer.indexClass(A.class);
+        indexer.index(new byte[] { 1, 2, 3, 4 });
+        assertThrows(IOException.class, indexer::complete);
+    }
+
+    @Test
+    public void summaries() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ParallelIndexer indexer = new ParallelIndexer(executor, 2);
+            List<Future<ClassSummary>> summaries = new ArrayList<>();
+            for (Class<?> clazz : CLASSES) {
+                summaries.add(indexer.indexWithSummary(IndexingUtil.classData(clazz)));
+            }
+            indexer.complete();
+
+            for (int i = 0; i < CLASSES.size(); i++) {
+                assertTrue(summaries.get(i).isDone());
+                assertEquals(DotName.createSimple(CLASSES.get(i).getName()), summaries.get(i).get().name());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void summaryOfCorruptClassFile() throws IOException {
+        ParallelIndexer indexer = new ParallelIndexer(Runnable::run, 1);
+        Future<ClassSummary> summary = indexer.indexWithSummary(new byte[] { 1, 2, 3, 4 });
+        assertThrows(IOException.class, indexer::complete);
+        assertThrows(ExecutionException.class, summary::get);
+    }
+
+    @Test
+    public void completeUpdate() throws IOException {
+        Index previous = Index.of(Foo.class, A.class, A.Inner.class, B.class);
+
+        ParallelIndexer indexer = new ParallelIndexer(Runnable::run, 1);
+        indexer.indexClass(B.class);
+        indexer.indexClass(C.class);
+        Index updated = indexer.completeUpdate(previous,
+                Collections.singleton(DotName.createSimple(A.Inner.class.getName())));
+
+        verify(Index.of(Foo.class, A.class, B.class, C.class), updated);
+        assertSame(previous.getClassByName(A.class), updated.getClassByName(A.class));
+    }
+
+    @Test
+    public void emptyIndex() throws IOException {
+        Index index = new ParallelIndexer(Runnable::run).complete();
+        assertEquals(0, index.getKnownClasses().size());
+    }
+
+    private static void verify(Index expected, Index actual) {
+        assertEquals(names(expected.getKnownClasses()), names(actual.getKnownClasses()));
+        for (ClassInfo expectedClass : expected.getKnownClasses()) {
+            DotName name = expectedClass.name();
+            ClassInfo actualClass = actual.getClassByName(name);
+            assertNotNull(actualClass);
+            assertEquals(expectedClass.toString(), actualClass.toString());
+            assertEquals(expectedClass.typeParameters(), actualClass.typeParameters());
+            assertEquals(expectedClass.interfaceTypes(), actualClass.interfaceTypes());
+            assertEquals(expectedClass.fields().toString(), actualClass.fields().toString());
+            assertEquals(expectedClass.methods().toString(), actualClass.methods().toString());
+            assertEquals(expectedClass.annotations().toString(), actualClass.annotations().toString());
+
+            assertEquals(names(expected.getKnownDirectSubclasses(name)), names(actual.getKnownDirectSubclasses(name)));
+            assertEquals(names(expected.getKnownDirectImplementors(name)), names(actual.getKnownDirectImplementors(name)));
+            assertEquals(names(expected.getKnownUsers(name)), names(actual.getKnownUsers(name)));
+        }
+        DotName myAnnotation = DotName.createSimple(MyAnnotation.class.getName());
+        assertEquals(expected.getAnnotations(myAnnotation).toString(), actual.getAnnotations(myAnnotation).toString());
+    }
+
+    private static List<String> names(Collection<ClassInfo> classes) {
+        return classes.stream().map(it -> it.name().toString()).sorted().collect(Collectors.toList());
+    }
+}
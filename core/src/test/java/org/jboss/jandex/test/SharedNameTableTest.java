@@ -0,0 +1,144 @@
+package org.jboss.jandex.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexReader;
+import org.jboss.jandex.Indexer;
+import org.jboss.jandex.MethodInfo;
+import org.jboss.jandex.SharedNameTable;
+import org.jboss.jandex.Type;
+import org.jboss.jandex.test.util.IndexingUtil;
+import org.junit.jupiter.api.Test;
+
+public class SharedNameTableTest {
+    static class A {
+        Map<String, List<Integer>> method(List<String> param) {
+            return null;
+        }
+
+        void annotated(List<@MyAnnotation("a") String> param) {
+        }
+    }
+
+    static class B {
+        Map<String, List<Integer>> method(List<String> param) {
+            return null;
+        }
+
+        void annotated(List<@MyAnnotation("a") String> param) {
+        }
+    }
+
+    interface Recursive<T, S extends Recursive<T, S>> {
+        Iterator<T> iterator();
+
+        S first();
+
+        S second();
+    }
+
+    @Test
+    public void indexersShareNamesAndTypes() throws IOException {
+        SharedNameTable shared = new SharedNameTable();
+        Index a = index(new Indexer(shared), A.class);
+        Index b = index(new Indexer(shared), B.class);
+
+        assertSharedNamesAndTypes(a, b);
+    }
+
+    @Test
+    public void readersShareNamesAndTypes() throws IOException {
+        SharedNameTable shared = new SharedNameTable();
+        Index a = new IndexReader(new ByteArrayInputStream(IndexingUtil.write(index(new Indexer(), A.class))), shared).read();
+        Index b = new IndexReader(new ByteArrayInputStream(IndexingUtil.write(index(new Indexer(), B.class))), shared).read();
+
+        assertSharedNamesAndTypes(a, b);
+    }
+
+    @Test
+    public void readerAndIndexerShareNamesAndTypes() throws IOException {
+        SharedNameTable shared = new SharedNameTable();
+        Index a = index(new Indexer(shared), A.class);
+        Index b = new IndexReader(new ByteArrayInputStream(IndexingUtil.write(index(new Indexer(), B.class))), shared).read();
+
+        assertSharedNamesAndTypes(a, b);
+
+        // an index created with a shared name table can be written and read again
+        Index copy = new IndexReader(new ByteArrayInputStream(IndexingUtil.write(a))).read();
+        ClassInfo clazz = copy.getClassByName(A.class);
+        assertEquals(a.getClassByName(A.class).method("method", param()).returnType(),
+                clazz.method("method", param()).returnType());
+    }
+
+    @Test
+    public void namesAndTypesNotSharedByDefault() throws IOException {
+        Index a = index(new Indexer(), A.class);
+        Index b = index(new Indexer(), B.class);
+
+        MethodInfo methodA = a.getClassByName(A.class).method("method", param());
+        MethodInfo methodB = b.getClassByName(B.class).method("method", param());
+        assertEquals(methodA.returnType(), methodB.returnType());
+        assertNotSame(methodA.returnType(), methodB.returnType());
+    }
+
+    @Test
+    public void sharedNamesDontAffectWrittenIndex() throws IOException {
+        byte[] expected = IndexingUtil.write(index(new Indexer(), Recursive.class));
+
+        // the second indexer finds equal types in the shared name table, some of which are shared
+        // and some of which are not (those that contain type variable references)
+        SharedNameTable shared = new SharedNameTable();
+        index(new Indexer(shared), Recursive.class);
+        assertArrayEquals(expected, IndexingUtil.write(index(new Indexer(shared), Recursive.class)));
+    }
+
+    @Test
+    public void nullArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new Indexer(null));
+        assertThrows(IllegalArgumentException.class,
+                () -> new IndexReader(new ByteArrayInputStream(new byte[0]), null));
+    }
+
+    private static void assertSharedNamesAndTypes(Index a, Index b) {
+        ClassInfo classA = a.getClassByName(A.class);
+        ClassInfo classB = b.getClassByName(B.class);
+        assertSame(classA.superName(), classB.superName());
+        assertSame(classA.name().prefix(), classB.name().prefix());
+
+        MethodInfo methodA = classA.method("method", param());
+        MethodInfo methodB = classB.method("method", param());
+        assertSame(methodA.returnType(), methodB.returnType());
+        assertSame(methodA.parameterType(0), methodB.parameterType(0));
+        assertSame(methodA.returnType().name(), methodB.returnType().name());
+
+        // annotated types are tied to their declaration
+        MethodInfo annotatedA = classA.firstMethod("annotated");
+        MethodInfo annotatedB = classB.firstMethod("annotated");
+        assertEquals(annotatedA.parameterType(0), annotatedB.parameterType(0));
+        assertNotSame(annotatedA.parameterType(0), annotatedB.parameterType(0));
+        Type annotatedArgument = annotatedA.parameterType(0).asParameterizedType().arguments().get(0);
+        assertTrue(annotatedArgument.hasAnnotation(MyAnnotation.DOT_NAME));
+    }
+
+    private static Type param() {
+        return Type.parse("java.util.List<java.lang.String>");
+    }
+
+    private static Index index(Indexer indexer, Class<?> clazz) throws IOException {
+        indexer.indexClass(clazz);
+        return indexer.complete();
+    }
+}
@@ -2,6 +2,8 @@ package org.jboss.jandex.test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -13,6 +15,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.jboss.jandex.AnnotationInstance;
+import org.jboss.jandex.ClassInfo;
 import org.jboss.jandex.Index;
 import org.jboss.jandex.Indexer;
 import org.jboss.jandex.StackedIndex;
@@ -138,6 +141,42 @@ public class StackedIndexTest {
         }
     }
 
+    interface Iface {
+    }
+
+    interface SubIface extends Iface {
+    }
+
+    static class Base implements SubIface {
+    }
+
+    static class Sub extends Base {
+    }
+
+    static class SubSub extends Sub implements Iface {
+    }
+
+    @Test
+    public void cachedHierarchy() throws IOException {
+        StackedIndex index = StackedIndex.create(Index.of(Sub.class, SubSub.class),
+                Index.of(Iface.class, SubIface.class, Base.class));
+
+        Collection<ClassInfo> subclasses = index.getAllKnownSubclasses(Base.class);
+        assertEquals(2, subclasses.size());
+        assertSame(subclasses, index.getAllKnownSubclasses(Base.class));
+        assertEquals(1, index.getAllKnownSubinterfaces(Iface.class).size());
+        // subclasses of implementors are not included, unless they implement the interface directly
+        assertEquals(2, index.getAllKnownImplementors(Iface.class).size());
+        assertSame(index.getClassByName(Sub.class), index.getClassByName(Sub.class));
+        assertTrue(index.getAllKnownSubclasses(SubSub.class).isEmpty());
+
+        // pushing an index yields a new stacked index that doesn't share the caches
+        StackedIndex pushed = index.pushIndex(Index.of(Sub.class, SubSub.class, Base.class));
+        assertEquals(2, pushed.getAllKnownSubclasses(Base.class).size());
+        assertFalse(pushed.getClassByName(Sub.class) == index.getClassByName(Sub.class));
+        assertEquals(2, index.getAllKnownSubclasses(Base.class).size());
+    }
+
     private static byte[] annotatedClass3AsAnnotatedClass1() throws IOException {
         ByteArrayOutputStream out = new ByteArrayOutputStream();
         String path = "/" + AnnotatedClass3.class.getName().replace('.', '/') + ".class";
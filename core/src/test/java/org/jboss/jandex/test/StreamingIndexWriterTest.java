@@ -0,0 +1,219 @@
+package org.jboss.jandex.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexReader;
+import org.jboss.jandex.IndexView;
+import org.jboss.jandex.Indexer;
+import org.jboss.jandex.MethodInfo;
+import org.jboss.jandex.SharedNameTable;
+import org.jboss.jandex.StreamingIndexWriter;
+import org.jboss.jandex.test.util.IndexingUtil;
+import org.junit.jupiter.api.Test;
+
+public class StreamingIndexWriterTest {
+    @MyAnnotation("class")
+    static class Annotated<T extends Comparable<T>> {
+        @MyOtherAnnotation("field")
+        List<@MyAnnotation("type") T> field;
+
+        @MyRepeatableAnnotation("a")
+        @MyRepeatableAnnotation("b")
+        <U extends T> U method(@MyOtherAnnotation("param") Map<String, ? extends U> param) throws IOException {
+            return null;
+        }
+    }
+
+    static class Subclass extends Annotated<String> implements Serializable {
+        String field;
+
+        @MyAnnotation("subclass method")
+        void method() {
+        }
+    }
+
+    interface Interface extends Comparable<Interface> {
+    }
+
+    static abstract class Value<C extends Value<C, V>, V> {
+        final class Sub<K> extends Value<Sub<K>, V> {
+            K key;
+
+            Value<C, V> parent() {
+                return Value.this;
+            }
+        }
+    }
+
+    static final class Memoizer<C extends Value<C, V>, V> implements Supplier<V> {
+        C value;
+
+        @Override
+        public V get() {
+            return null;
+        }
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        Index index = Index.of(Annotated.class, Subclass.class, MyAnnotation.class, Interface.class, Map.class,
+                List.class, MyOtherAnnotation.class);
+        // reading and writing again doesn't necessarily yield the same data, so compare with a read index
+        byte[] expected = IndexingUtil.write(new IndexReader(new ByteArrayInputStream(IndexingUtil.write(index))).read());
+
+        Path tempDirectory = Files.createTempDirectory("jandex");
+        try {
+            for (boolean compressed : new boolean[] { false, true }) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                try (StreamingIndexWriter writer = new StreamingIndexWriter(out, compressed, tempDirectory)) {
+                    writer.addAll(index);
+                    int bytes = writer.finish();
+                    assertEquals(out.size(), bytes);
+                }
+                byte[] data = out.toByteArray();
+
+                IndexReader reader = new IndexReader(new ByteArrayInputStream(data));
+                assertEquals(14, reader.getIndexVersion());
+                assertEquals(compressed, reader.isCompressed());
+                assertArrayEquals(expected, IndexingUtil.write(verify(reader.read())));
+                assertArrayEquals(expected, IndexingUtil.write(verify(IndexReader.fromBytes(data).read())));
+                assertArrayEquals(expected,
+                        IndexingUtil.write(verify(IndexReader.fromBytes(data).read(ForkJoinPool.commonPool()))));
+                verify(IndexReader.readLazily(ByteBuffer.wrap(data)));
+            }
+
+            // all temporary files were deleted
+            try (Stream<Path> files = Files.list(tempDirectory)) {
+                assertEquals(0, files.count());
+            }
+        } finally {
+            Files.delete(tempDirectory);
+        }
+    }
+
+    @Test
+    public void batches() throws IOException {
+        SharedNameTable sharedNames = new SharedNameTable();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (StreamingIndexWriter writer = new StreamingIndexWriter(out)) {
+            writer.addAll(index(sharedNames, Annotated.class, Subclass.class, MyAnnotation.class));
+            writer.addAll(index(sharedNames, Interface.class, Map.class, List.class, MyOtherAnnotation.class));
+            writer.finish();
+        }
+        byte[] data = out.toByteArray();
+
+        for (IndexView index : new IndexView[] { IndexReader.fromBytes(data).read(),
+                IndexReader.readLazily(ByteBuffer.wrap(data)) }) {
+            verify(index);
+            assertEquals(7, index.getKnownClasses().size());
+            assertEquals(1, index.getKnownDirectImplementors(Comparable.class).size());
+            assertNotNull(index.getClassByName(Map.class).firstMethod("computeIfAbsent"));
+            assertFalse(index.getKnownUsers(Annotated.class).isEmpty());
+        }
+    }
+
+    @Test
+    public void singleClasses() throws IOException {
+        Index index = Index.of(Annotated.class, Subclass.class, MyAnnotation.class);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (StreamingIndexWriter writer = new StreamingIndexWriter(out)) {
+            for (ClassInfo clazz : index.getKnownClasses()) {
+                writer.add(clazz);
+            }
+            writer.finish();
+        }
+
+        Index read = IndexReader.fromBytes(out.toByteArray()).read();
+        verify(read);
+        assertEquals(index.getKnownClasses().size(), read.getKnownClasses().size());
+        // users are only added with a whole index
+        assertTrue(read.getKnownUsers(Annotated.class).isEmpty());
+    }
+
+    @Test
+    public void nestedClassBeforeEnclosingClass() throws IOException {
+        // the nested class refers to type variables of the enclosing class, which is added last
+        Index index = Index.of(Value.class, Value.Sub.class, Memoizer.class);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (StreamingIndexWriter writer = new StreamingIndexWriter(out)) {
+            writer.add(index.getClassByName(Value.Sub.class));
+            writer.add(index.getClassByName(Memoizer.class));
+            writer.add(index.getClassByName(Value.class));
+            writer.finish();
+        }
+
+        Index read = IndexReader.fromBytes(out.toByteArray()).read();
+        assertEquals(3, read.getKnownClasses().size());
+        assertEquals(index.getClassByName(Value.Sub.class).superClassType(),
+                read.getClassByName(Value.Sub.class).superClassType());
+        assertEquals(index.getClassByName(Memoizer.class).typeParameters(),
+                read.getClassByName(Memoizer.class).typeParameters());
+    }
+
+    @Test
+    public void invalidUsage() throws IOException {
+        Index index = Index.of(Annotated.class);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (StreamingIndexWriter writer = new StreamingIndexWriter(out)) {
+            writer.addAll(index);
+            assertThrows(IllegalArgumentException.class, () -> writer.addAll(index));
+            assertThrows(IllegalArgumentException.class, () -> writer.add((ClassInfo) null));
+            writer.finish();
+            assertThrows(IllegalStateException.class, () -> writer.add(index.getClassByName(Annotated.class)));
+            assertThrows(IllegalStateException.class, writer::finish);
+        }
+
+        StreamingIndexWriter closed = new StreamingIndexWriter(new ByteArrayOutputStream());
+        closed.close();
+        assertThrows(IllegalStateException.class, () -> closed.addAll(index));
+        assertThrows(IllegalArgumentException.class, () -> new StreamingIndexWriter(null));
+    }
+
+    private static <T extends IndexView> T verify(T index) {
+        ClassInfo clazz = index.getClassByName(Annotated.class);
+        assertNotNull(clazz);
+        assertEquals("class", clazz.declaredAnnotation(MyAnnotation.DOT_NAME).value().asString());
+        assertEquals("field", clazz.field("field").annotation(MyOtherAnnotation.DOT_NAME).value().asString());
+        assertTrue(clazz.field("field").type().asParameterizedType().arguments().get(0)
+                .hasAnnotation(MyAnnotation.DOT_NAME));
+        MethodInfo method = clazz.firstMethod("method");
+        assertEquals(2, method.declaredAnnotation(MyRepeatableAnnotation.List.DOT_NAME).value().asNestedArray().length);
+        assertEquals("param", method.parameters().get(0).annotation(MyOtherAnnotation.DOT_NAME).value().asString());
+
+        ClassInfo subclass = index.getClassByName(Subclass.class);
+        assertEquals(DotName.createSimple(Annotated.class.getName()), subclass.superName());
+        assertEquals(1, index.getKnownDirectSubclasses(Annotated.class).size());
+        assertEquals(3, index.getAnnotations(MyAnnotation.DOT_NAME).size());
+        assertFalse(index.getKnownDirectImplementors(Serializable.class).isEmpty());
+        return index;
+    }
+
+    private static Index index(SharedNameTable sharedNames, Class<?>... classes) throws IOException {
+        Indexer indexer = new Indexer(sharedNames);
+        for (Class<?> clazz : classes) {
+            indexer.indexClass(clazz);
+        }
+        return indexer.complete();
+    }
+}
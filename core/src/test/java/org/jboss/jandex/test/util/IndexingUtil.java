@@ -3,6 +3,7 @@ package org.jboss.jandex.test.util;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 
 import org.jboss.jandex.Index;
 import org.jboss.jandex.IndexReader;
@@ -14,4 +15,48 @@ public class IndexingUtil {
         new IndexWriter(bytes).write(index);
         return new IndexReader(new ByteArrayInputStream(bytes.toByteArray())).read();
     }
+
+    /**
+     * Writes given {@code index} in the default version and returns the persistent form.
+     */
+    public static byte[] write(Index index) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new IndexWriter(out).write(index);
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes given {@code index} in given {@code version} and returns the persistent form.
+     */
+    public static byte[] write(Index index, int version) throws IOException {
+        return write(index, false, version);
+    }
+
+    /**
+     * Writes given {@code index} in given {@code version}, optionally {@code compressed},
+     * and returns the persistent form.
+     */
+    public static byte[] write(Index index, boolean compressed, int version) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int written = new IndexWriter(out, compressed).write(index, version);
+        if (written != out.size()) {
+            throw new IllegalStateException("Index writer reported " + written + " bytes, but wrote " + out.size());
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Returns the content of the class file of given {@code clazz}.
+     */
+    public static byte[] classData(Class<?> clazz) throws IOException {
+        String resourceName = '/' + clazz.getName().replace('.', '/') + ".class";
+        try (InputStream in = clazz.getResourceAsStream(resourceName)) {
+            if (in == null) {
+                throw new IOException("Class file not found: " + resourceName);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            IOUtil.copy(in, out);
+            return out.toByteArray();
+        }
+    }
 }
@@ -0,0 +1,4 @@
+package org.jboss.jandex.maven.incremental;
+
+public class SomeSubclass extends SomeClass {
+}
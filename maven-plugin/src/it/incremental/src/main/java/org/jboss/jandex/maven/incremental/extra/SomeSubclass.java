@@ -0,0 +1,7 @@
+package org.jboss.jandex.maven.incremental.extra;
+
+import org.jboss.jandex.maven.incremental.SomeClass;
+
+// replaces the class file of `incremental.SomeSubclass`, which looks like a renamed class
+public class SomeSubclass extends SomeClass {
+}
@@ -0,0 +1,47 @@
+import org.jboss.jandex.DotName
+import org.jboss.jandex.IndexReader
+
+def jandexFile = new File(basedir, 'target/classes/META-INF/jandex.idx')
+assert jandexFile.exists() : "File ${jandexFile} does not exist"
+assert jandexFile.length() > 0 : "File ${jandexFile} is empty"
+
+def fingerprintsFile = new File(basedir, 'target/jandex/jandex.idx.fingerprints')
+assert fingerprintsFile.exists() : "File ${fingerprintsFile} does not exist"
+def fingerprints = fingerprintsFile.text
+assert fingerprints.contains('compressed=true')
+assert fingerprints.contains(' crc32:')
+assert !fingerprints.contains('ToBeDeleted')
+
+// the index merged by the 4th execution
+def index = new IndexReader(jandexFile.newInputStream()).read()
+def classes = index.getKnownClasses().collect { it.name().toString() } as Set
+assert classes == [
+        'org.jboss.jandex.maven.incremental.SomeClass',
+        'org.jboss.jandex.maven.incremental.extra.Added',
+        'org.jboss.jandex.maven.incremental.extra.SomeSubclass',
+        'org.jboss.jandex.MethodParameterInfo',
+        'org.jboss.jandex.MethodParameterTypeTarget',
+] as Set : "Index ${jandexFile} contains unexpected classes: ${classes}"
+def subclasses = index.getKnownDirectSubclasses(DotName.createSimple('org.jboss.jandex.maven.incremental.SomeClass'))
+assert subclasses.collect { it.name().toString() } == ['org.jboss.jandex.maven.incremental.extra.SomeSubclass']
+
+// the index created from scratch by the 5th execution
+def fullJandexFile = new File(basedir, 'target/classes/META-INF/full.idx')
+assert fullJandexFile.exists() : "File ${fullJandexFile} does not exist"
+def fullIndex = new IndexReader(fullJandexFile.newInputStream()).read()
+assert fullIndex.getKnownClasses().collect { it.name().toString() } as Set == classes
+assert fullIndex.getKnownDirectSubclasses(DotName.createSimple('org.jboss.jandex.maven.incremental.SomeClass'))
+        .collect { it.name().toString() } == ['org.jboss.jandex.maven.incremental.extra.SomeSubclass']
+
+def log = new File(basedir, 'build.log').text
+def count = { String text -> log.count(text) }
+assert count('Jandex index is up to date') == 1
+// 1st, 3rd (configuration changed), 4th (modified) and 5th (full) execution
+assert count('Indexed org.jboss.jandex.maven.incremental.SomeClass ') == 4
+// not indexed by the 4th execution, because the archive entries didn't change
+assert count('Indexed org.jboss.jandex.MethodParameterInfo ') == 3
+// 1st and 3rd execution
+assert count('Indexed org.jboss.jandex.maven.incremental.ToBeDeleted ') == 2
+// 4th and 5th execution
+assert count('Indexed org.jboss.jandex.maven.incremental.extra.Added ') == 2
+assert count('Indexed org.jboss.jandex.maven.incremental.extra.SomeSubclass ') == 2
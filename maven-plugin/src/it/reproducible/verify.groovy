@@ -8,3 +8,15 @@ byte[] idx = jandexFile.bytes
 byte[] idx2 = jandexFile2.bytes
 
 assert idx == idx2
+
+// indexed on multiple threads
+def jandexFile3 = new File(basedir, 'jandex-3.idx')
+def jandexFile4 = new File(basedir, 'jandex-4.idx')
+
+assert jandexFile3.exists() : "File does not exist: ${jandexFile3}"
+assert jandexFile4.exists() : "File does not exist: ${jandexFile4}"
+
+assert jandexFile3.bytes == jandexFile4.bytes
+
+// same as indexed on a single thread
+assert idx == jandexFile3.bytes
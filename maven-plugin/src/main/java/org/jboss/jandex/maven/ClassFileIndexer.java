@@ -0,0 +1,129 @@
+package org.jboss.jandex.maven;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import org.apache.maven.plugin.logging.Log;
+import org.jboss.jandex.ClassSummary;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.Indexer;
+import org.jboss.jandex.ParallelIndexer;
+
+/**
+ * Indexes class files either on the calling thread, using an {@link Indexer}, or on a pool of worker threads,
+ * using a {@link ParallelIndexer}. In both cases, the resulting index only depends on the order in which
+ * class files are submitted: it is the same regardless of the number of threads, and so is the index file
+ * written from it.
+ * <p>
+ * Callbacks passed to the {@code index()} methods are always invoked on the calling thread, in the order
+ * of submission. When indexing on worker threads, they are invoked when the index is completed.
+ */
+final class ClassFileIndexer implements AutoCloseable {
+    // the number of class files indexed by a single task, small enough to keep all workers busy
+    // even for modestly sized projects
+    private static final int BATCH_SIZE = 64;
+
+    private final Log log;
+    private final boolean verbose;
+
+    private final Indexer indexer;
+
+    private final ExecutorService executor;
+    private final ParallelIndexer parallelIndexer;
+    private final List<Future<ClassSummary>> pendingSummaries = new ArrayList<>();
+    private final List<Consumer<ClassSummary>> pendingCallbacks = new ArrayList<>();
+
+    ClassFileIndexer(int threads, Log log, boolean verbose) {
+        this.log = log;
+        this.verbose = verbose;
+        if (threads > 1) {
+            this.indexer = null;
+            this.executor = Executors.newFixedThreadPool(threads);
+            this.parallelIndexer = new ParallelIndexer(executor, BATCH_SIZE);
+        } else {
+            this.indexer = new Indexer();
+            this.executor = null;
+            this.parallelIndexer = null;
+        }
+    }
+
+    void index(InputStream in) throws IOException {
+        index(in, null);
+    }
+
+    void index(InputStream in, Consumer<ClassSummary> callback) throws IOException {
+        if (indexer != null) {
+            indexed(indexer.indexWithSummary(in), callback);
+        } else {
+            pendingSummaries.add(parallelIndexer.indexWithSummary(in));
+            pendingCallbacks.add(callback);
+        }
+    }
+
+    void index(byte[] classData, Consumer<ClassSummary> callback) throws IOException {
+        if (indexer != null) {
+            indexed(indexer.indexWithSummary(new ByteArrayInputStream(classData)), callback);
+        } else {
+            pendingSummaries.add(parallelIndexer.indexWithSummary(classData));
+            pendingCallbacks.add(callback);
+        }
+    }
+
+    Index complete() throws IOException {
+        if (indexer != null) {
+            return indexer.complete();
+        }
+        Index index = parallelIndexer.complete();
+        processPending();
+        return index;
+    }
+
+    Index completeUpdate(Index previous, Collection<DotName> removedClasses) throws IOException {
+        if (indexer != null) {
+            return indexer.completeUpdate(previous, removedClasses);
+        }
+        Index index = parallelIndexer.completeUpdate(previous, removedClasses);
+        processPending();
+        return index;
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void processPending() throws IOException {
+        try {
+            for (int i = 0; i < pendingSummaries.size(); i++) {
+                // all summaries are done at this point
+                indexed(pendingSummaries.get(i).get(), pendingCallbacks.get(i));
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IOException(e);
+        } finally {
+            pendingSummaries.clear();
+            pendingCallbacks.clear();
+        }
+    }
+
+    private void indexed(ClassSummary summary, Consumer<ClassSummary> callback) {
+        if (verbose && summary != null) {
+            log.info("Indexed " + summary.name() + " (" + summary.annotationsCount() + " annotations)");
+        }
+        if (callback != null) {
+            callback.accept(summary);
+        }
+    }
+}
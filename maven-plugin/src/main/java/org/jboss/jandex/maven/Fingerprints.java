@@ -0,0 +1,136 @@
+package org.jboss.jandex.maven;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Fingerprints of all files that were indexed to produce an index. Used by the incremental mode
+ * of {@link JandexGoal} to find out which files were added, modified or removed since the index
+ * was last produced.
+ * <p>
+ * Fingerprints are persisted in a simple text format. The first line is a header, the second line
+ * describes the configuration that was used to produce the index, and each following line contains
+ * a fingerprint: file size, last modification time, content hash, name of the class declared
+ * in the file ({@code -} if unknown) and the file key, separated by a single space. The content hash
+ * of a file in a directory is its SHA-256 digest. The content hash of an archive entry is its CRC-32
+ * prefixed with {@code crc32:}, which is stored in the archive, so the entry doesn't have to be decompressed.
+ */
+final class Fingerprints {
+    private static final String HEADER = "# Jandex fingerprints, version 1";
+
+    static final class Fingerprint {
+        final long size;
+        final long lastModified;
+        final String hash;
+        final String className;
+
+        Fingerprint(long size, long lastModified, String hash, String className) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+            this.className = className;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Fingerprint)) {
+                return false;
+            }
+            Fingerprint that = (Fingerprint) o;
+            return size == that.size
+                    && lastModified == that.lastModified
+                    && hash.equals(that.hash)
+                    && Objects.equals(className, that.className);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(size, lastModified, hash, className);
+        }
+    }
+
+    private final String configuration;
+    // iteration: sorted by file key, so that the persistent form is reproducible
+    private final Map<String, Fingerprint> fingerprints = new TreeMap<>();
+
+    Fingerprints(String configuration) {
+        this.configuration = configuration;
+    }
+
+    Fingerprint get(String key) {
+        return fingerprints.get(key);
+    }
+
+    void put(String key, Fingerprint fingerprint) {
+        fingerprints.put(key, fingerprint);
+    }
+
+    Set<String> keys() {
+        return fingerprints.keySet();
+    }
+
+    boolean sameAs(Fingerprints other) {
+        return other != null && configuration.equals(other.configuration) && fingerprints.equals(other.fingerprints);
+    }
+
+    /**
+     * Reads fingerprints from given {@code file}. Returns {@code null} if the file does not exist,
+     * if it is malformed, or if the fingerprints were created with a different {@code configuration}.
+     */
+    static Fingerprints read(File file, String configuration) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(reader.readLine()) || !configuration.equals(reader.readLine())) {
+                return null;
+            }
+
+            Fingerprints result = new Fingerprints(configuration);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(" ", 5);
+                if (parts.length != 5) {
+                    return null;
+                }
+                try {
+                    long size = Long.parseLong(parts[0]);
+                    long lastModified = Long.parseLong(parts[1]);
+                    String className = "-".equals(parts[3]) ? null : parts[3];
+                    result.put(parts[4], new Fingerprint(size, lastModified, parts[2], className));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            return result;
+        }
+    }
+
+    void write(File file) throws IOException {
+        Files.createDirectories(file.toPath().getParent());
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            writer.write(configuration);
+            writer.newLine();
+            for (Map.Entry<String, Fingerprint> entry : fingerprints.entrySet()) {
+                Fingerprint fingerprint = entry.getValue();
+                writer.write(fingerprint.size + " " + fingerprint.lastModified + " " + fingerprint.hash + " "
+                        + (fingerprint.className != null ? fingerprint.className : "-") + " " + entry.getKey());
+                writer.newLine();
+            }
+        }
+    }
+}
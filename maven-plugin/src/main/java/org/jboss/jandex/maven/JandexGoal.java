@@ -1,13 +1,19 @@
 package org.jboss.jandex.maven;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
 import org.apache.maven.artifact.Artifact;
@@ -21,10 +27,11 @@ import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.util.DirectoryScanner;
 import org.codehaus.plexus.util.Scanner;
 import org.codehaus.plexus.util.io.CachingOutputStream;
-import org.jboss.jandex.ClassSummary;
+import org.jboss.jandex.DotName;
 import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexReader;
 import org.jboss.jandex.IndexWriter;
-import org.jboss.jandex.Indexer;
+import org.jboss.jandex.maven.Fingerprints.Fingerprint;
 
 /**
  * Generate a Jandex index for classes compiled as part of the current project.
@@ -119,6 +126,13 @@ public class JandexGoal extends AbstractMojo {
     @Parameter
     private Integer indexVersion;
 
+    /**
+     * If true, the index data are compressed using the deflate algorithm. Compressed index files are
+     * considerably smaller, but they are slower to read and can only be read by Jandex 3.7 or later.
+     */
+    @Parameter(defaultValue = "false")
+    private boolean compressIndex;
+
     /**
      * Skip execution if set.
      */
@@ -131,6 +145,25 @@ public class JandexGoal extends AbstractMojo {
     @Parameter(defaultValue = "true")
     private boolean skipForPomPackaging;
 
+    /**
+     * If true, only classes that were added, modified or removed since the previous execution are processed,
+     * and the result is merged into the previously produced index. Fingerprints of processed files
+     * (size, modification time and content hash) are stored in the <code>jandex</code> subdirectory
+     * of the build directory. If nothing has changed, the index file is not written at all.
+     * <p>
+     * If the fingerprints or the previous index are missing or were produced with a different configuration,
+     * all classes are processed, just like in the non-incremental mode.
+     */
+    @Parameter(property = "jandex.incremental", defaultValue = "false")
+    private boolean incremental;
+
+    /**
+     * The number of threads used to process classes. Classes are processed on the current thread by default.
+     * The produced index file is identical regardless of the number of threads.
+     */
+    @Parameter(property = "jandex.threads", defaultValue = "1")
+    private int threads;
+
     public void execute() throws MojoExecutionException {
         if (skip) {
             getLog().info("Jandex execution skipped");
@@ -162,29 +195,58 @@ public class JandexGoal extends AbstractMojo {
             }
         }
 
-        Indexer indexer = new Indexer();
-        for (FileSet fileSet : fileSets) {
-            if (fileSet.getDirectory() == null && fileSet.getDependency() == null) {
-                throw new MojoExecutionException("File set must specify either directory or dependency");
-            }
-            if (fileSet.getDirectory() != null && fileSet.getDependency() != null) {
-                throw new MojoExecutionException("File set may not specify both directory and dependency");
+        if (threads < 1) {
+            throw new MojoExecutionException("Number of threads must be positive: " + threads);
+        }
+
+        File indexFile = new File(indexDir, indexName);
+
+        IncrementalState state = null;
+        if (incremental) {
+            state = loadIncrementalState(indexFile);
+        }
+
+        Index index;
+        try (ClassFileIndexer indexer = new ClassFileIndexer(threads, getLog(), isVerbose())) {
+            for (FileSet fileSet : fileSets) {
+                if (fileSet.getDirectory() == null && fileSet.getDependency() == null) {
+                    throw new MojoExecutionException("File set must specify either directory or dependency");
+                }
+                if (fileSet.getDirectory() != null && fileSet.getDependency() != null) {
+                    throw new MojoExecutionException("File set may not specify both directory and dependency");
+                }
+
+                if (fileSet.getDirectory() != null) {
+                    indexDirectory(indexer, fileSet, state);
+                } else if (fileSet.getDependency() != null) {
+                    indexDependency(indexer, fileSet, state);
+                }
             }
 
-            if (fileSet.getDirectory() != null) {
-                indexDirectory(indexer, fileSet);
-            } else if (fileSet.getDependency() != null) {
-                indexDependency(indexer, fileSet);
+            if (state != null && state.previousIndex != null) {
+                for (String key : state.previous.keys()) {
+                    if (state.current.get(key) == null) {
+                        state.removed(state.previous.get(key));
+                    }
+                }
+                if (!state.changed) {
+                    getLog().info("Jandex index is up to date: " + indexFile);
+                    saveFingerprints(state);
+                    return;
+                }
+                index = indexer.completeUpdate(state.previousIndex, state.removedClasses);
+            } else {
+                index = indexer.complete();
             }
+        } catch (IOException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
         }
-        Index index = indexer.complete();
 
-        File indexFile = new File(indexDir, indexName);
         getLog().info("Saving Jandex index: " + indexFile);
         try {
             Files.createDirectories(indexFile.toPath().getParent());
             try (OutputStream out = new CachingOutputStream(indexFile)) {
-                IndexWriter writer = new IndexWriter(out);
+                IndexWriter writer = new IndexWriter(out, compressIndex);
                 if (indexVersion != null) {
                     writer.write(index, indexVersion);
                 } else {
@@ -194,9 +256,53 @@ public class JandexGoal extends AbstractMojo {
         } catch (IOException e) {
             throw new MojoExecutionException("Could not save index " + indexFile, e);
         }
+
+        if (state != null) {
+            saveFingerprints(state);
+        }
+    }
+
+    private IncrementalState loadIncrementalState(File indexFile) {
+        String configuration = "index=" + indexFile.getAbsolutePath()
+                + ", version=" + (indexVersion != null ? indexVersion : "default")
+                + ", compressed=" + compressIndex
+                + ", jandex=" + Index.class.getPackage().getImplementationVersion();
+        File fingerprintsFile = new File(mavenProject.getBuild().getDirectory(), "jandex/" + indexName + ".fingerprints");
+        IncrementalState state = new IncrementalState(fingerprintsFile, new Fingerprints(configuration));
+        try {
+            state.previous = Fingerprints.read(fingerprintsFile, configuration);
+            if (state.previous != null && indexFile.isFile()) {
+                try (InputStream in = new BufferedInputStream(Files.newInputStream(indexFile.toPath()))) {
+                    state.previousIndex = new IndexReader(in).read();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            getLog().warn("Could not load previous Jandex index or fingerprints, processing all classes", e);
+            state.previous = null;
+            state.previousIndex = null;
+        }
+        if (state.previousIndex == null) {
+            state.previous = null;
+            if (isVerbose()) {
+                getLog().info("No usable previous Jandex index, processing all classes");
+            }
+        }
+        return state;
     }
 
-    private void indexDirectory(Indexer indexer, FileSet fileSet) throws MojoExecutionException {
+    private void saveFingerprints(IncrementalState state) throws MojoExecutionException {
+        if (state.current.sameAs(state.previous)) {
+            return;
+        }
+        try {
+            state.current.write(state.fingerprintsFile);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not save fingerprints " + state.fingerprintsFile, e);
+        }
+    }
+
+    private void indexDirectory(ClassFileIndexer indexer, FileSet fileSet, IncrementalState state)
+            throws MojoExecutionException {
         File dir = fileSet.getDirectory();
         if (!dir.exists()) {
             getLog().warn("Skipping file set, directory does not exist: " + fileSet.getDirectory());
@@ -208,11 +314,12 @@ public class JandexGoal extends AbstractMojo {
         String[] files = findFilesToIndex(fileSet, scanner);
         for (String file : files) {
             if (file.endsWith(".class")) {
+                if (state != null) {
+                    indexFileIncrementally(indexer, new File(dir, file), state);
+                    continue;
+                }
                 try (InputStream in = Files.newInputStream(new File(dir, file).toPath())) {
-                    ClassSummary info = indexer.indexWithSummary(in);
-                    if (isVerbose() && info != null) {
-                        getLog().info("Indexed " + info.name() + " (" + info.annotationsCount() + " annotations)");
-                    }
+                    indexer.index(in);
                 } catch (Exception e) {
                     throw new MojoExecutionException(e.getMessage(), e);
                 }
@@ -220,7 +327,56 @@ public class JandexGoal extends AbstractMojo {
         }
     }
 
-    private void indexDependency(Indexer indexer, FileSet fileSet) throws MojoExecutionException {
+    private void indexFileIncrementally(ClassFileIndexer indexer, File file, IncrementalState state)
+            throws MojoExecutionException {
+        String key = file.getAbsolutePath();
+        long size = file.length();
+        long lastModified = file.lastModified();
+
+        Fingerprint previous = state.previous != null ? state.previous.get(key) : null;
+        if (previous != null && previous.size == size && previous.lastModified == lastModified) {
+            state.current.put(key, previous);
+            return;
+        }
+
+        try {
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            String hash = sha256(bytes);
+            if (previous != null && previous.hash.equals(hash)) {
+                // touched, but not modified
+                state.current.put(key, new Fingerprint(size, lastModified, hash, previous.className));
+                return;
+            }
+
+            // the class name is only known once the class is indexed
+            state.current.put(key, new Fingerprint(size, lastModified, hash, null));
+            state.indexed(previous);
+            indexer.index(bytes, info -> {
+                if (info != null) {
+                    state.current.put(key, new Fingerprint(size, lastModified, hash, info.name().toString()));
+                }
+            });
+        } catch (Exception e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            StringBuilder result = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                result.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return result.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void indexDependency(ClassFileIndexer indexer, FileSet fileSet, IncrementalState state)
+            throws MojoExecutionException {
         Dependency dependency = fileSet.getDependency();
         if (dependency.getGroupId() == null) {
             throw new MojoExecutionException("Dependency in file set must specify groupId");
@@ -254,11 +410,35 @@ public class JandexGoal extends AbstractMojo {
         try (ZipFile zip = new ZipFile(archive)) {
             for (String file : files) {
                 if (file.endsWith(".class")) {
-                    try (InputStream in = zip.getInputStream(zip.getEntry(file))) {
-                        ClassSummary info = indexer.indexWithSummary(in);
-                        if (isVerbose() && info != null) {
-                            getLog().info("Indexed " + info.name() + " (" + info.annotationsCount() + " annotations)");
+                    ZipEntry entry = zip.getEntry(file);
+
+                    if (state == null) {
+                        try (InputStream in = zip.getInputStream(entry)) {
+                            indexer.index(in);
                         }
+                        continue;
+                    }
+
+                    // the CRC of an archive entry is known without decompressing the entry; it is only
+                    // a checksum, so the modification time must match as well
+                    String key = archive.getAbsolutePath() + "!/" + file;
+                    Fingerprint previous = state.previous != null ? state.previous.get(key) : null;
+                    String hash = "crc32:" + Long.toHexString(entry.getCrc());
+                    if (previous != null && previous.size == entry.getSize() && previous.lastModified == entry.getTime()
+                            && previous.hash.equals(hash)) {
+                        state.current.put(key, previous);
+                        continue;
+                    }
+
+                    state.current.put(key, new Fingerprint(entry.getSize(), entry.getTime(), hash, null));
+                    state.indexed(previous);
+                    try (InputStream in = zip.getInputStream(entry)) {
+                        indexer.index(in, info -> {
+                            if (info != null) {
+                                state.current.put(key, new Fingerprint(entry.getSize(), entry.getTime(), hash,
+                                        info.name().toString()));
+                            }
+                        });
                     }
                 }
             }
@@ -292,4 +472,34 @@ public class JandexGoal extends AbstractMojo {
     private boolean isVerbose() {
         return verbose || getLog().isDebugEnabled();
     }
+
+    private static final class IncrementalState {
+        final File fingerprintsFile;
+        final Fingerprints current;
+        Fingerprints previous;
+        Index previousIndex;
+
+        final Set<DotName> removedClasses = new HashSet<>();
+        boolean changed;
+
+        IncrementalState(File fingerprintsFile, Fingerprints current) {
+            this.fingerprintsFile = fingerprintsFile;
+            this.current = current;
+        }
+
+        void indexed(Fingerprint previous) {
+            changed = true;
+            if (previous != null && previous.className != null) {
+                // the class declared in a modified file might have been renamed
+                removedClasses.add(DotName.createSimple(previous.className));
+            }
+        }
+
+        void removed(Fingerprint previous) {
+            changed = true;
+            if (previous.className != null) {
+                removedClasses.add(DotName.createSimple(previous.className));
+            }
+        }
+    }
 }
@@ -17,10 +17,8 @@ import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
-import org.jboss.jandex.ClassSummary;
 import org.jboss.jandex.Index;
 import org.jboss.jandex.IndexWriter;
-import org.jboss.jandex.Indexer;
 
 /**
  * Generate a Jandex index inside a given JAR.
@@ -73,12 +71,23 @@ public class JandexJarGoal extends AbstractMojo {
     @Parameter(property = "jandex.skip", defaultValue = "false")
     private boolean skip;
 
+    /**
+     * The number of threads used to process classes. Classes are processed on the current thread by default.
+     * The produced index file is identical regardless of the number of threads.
+     */
+    @Parameter(property = "jandex.threads", defaultValue = "1")
+    private int threads;
+
     public void execute() throws MojoExecutionException {
         if (skip) {
             getLog().info("Jandex execution skipped");
             return;
         }
 
+        if (threads < 1) {
+            throw new MojoExecutionException("Number of threads must be positive: " + threads);
+        }
+
         if (!jar.isFile()) {
             getLog().warn("Skipping, expected JAR does not exist or is not a file: " + jar);
             return;
@@ -151,22 +160,19 @@ public class JandexJarGoal extends AbstractMojo {
         scanner.scan();
         String[] filesInJar = scanner.getIncludedFiles();
 
-        Indexer indexer = new Indexer();
-        try (ZipFile zip = new ZipFile(jar)) {
+        try (ZipFile zip = new ZipFile(jar);
+                ClassFileIndexer indexer = new ClassFileIndexer(threads, getLog(), isVerbose())) {
             for (String file : filesInJar) {
                 if (file.endsWith(".class")) {
                     try (InputStream in = zip.getInputStream(zip.getEntry(file))) {
-                        ClassSummary info = indexer.indexWithSummary(in);
-                        if (isVerbose() && info != null) {
-                            getLog().info("Indexed " + info.name() + " (" + info.annotationsCount() + " annotations)");
-                        }
+                        indexer.index(in);
                     }
                 }
             }
+            return indexer.complete();
         } catch (IOException e) {
             throw new MojoExecutionException(e.getMessage(), e);
         }
-        return indexer.complete();
     }
 
     private Path createTempFile(String suffix) throws MojoExecutionException {
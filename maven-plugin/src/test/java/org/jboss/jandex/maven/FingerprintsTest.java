@@ -0,0 +1,98 @@
+package org.jboss.jandex.maven;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.jboss.jandex.maven.Fingerprints.Fingerprint;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FingerprintsTest {
+    private static final String CONFIGURATION = "index=/tmp/jandex.idx, version=default, compressed=false";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void roundtrip() throws IOException {
+        Fingerprints fingerprints = new Fingerprints(CONFIGURATION);
+        fingerprints.put("/classes/com/example/Foo.class", new Fingerprint(123, 456, "abcdef", "com.example.Foo"));
+        fingerprints.put("/classes/com/example/Not A Class.class", new Fingerprint(0, 1, "012345", null));
+        fingerprints.put("/lib/foo.jar!/com/example/Bar.class", new Fingerprint(789, 0, "crc32:1a2b", "com.example.Bar"));
+
+        File file = tempDir.resolve("nested/jandex.idx.fingerprints").toFile();
+        fingerprints.write(file);
+
+        Fingerprints read = Fingerprints.read(file, CONFIGURATION);
+        assertNotNull(read);
+        assertTrue(read.sameAs(fingerprints));
+        assertEquals(fingerprints.keys(), read.keys());
+        assertEquals(new Fingerprint(123, 456, "abcdef", "com.example.Foo"), read.get("/classes/com/example/Foo.class"));
+        assertEquals(new Fingerprint(0, 1, "012345", null), read.get("/classes/com/example/Not A Class.class"));
+        assertEquals(new Fingerprint(789, 0, "crc32:1a2b", "com.example.Bar"),
+                read.get("/lib/foo.jar!/com/example/Bar.class"));
+
+        read.put("/classes/com/example/Foo.class", new Fingerprint(123, 457, "abcdef", "com.example.Foo"));
+        assertFalse(read.sameAs(fingerprints));
+    }
+
+    @Test
+    public void emptyRoundtrip() throws IOException {
+        File file = tempDir.resolve("jandex.idx.fingerprints").toFile();
+        new Fingerprints(CONFIGURATION).write(file);
+
+        Fingerprints read = Fingerprints.read(file, CONFIGURATION);
+        assertNotNull(read);
+        assertTrue(read.keys().isEmpty());
+        assertTrue(read.sameAs(new Fingerprints(CONFIGURATION)));
+    }
+
+    @Test
+    public void differentConfiguration() throws IOException {
+        File file = tempDir.resolve("jandex.idx.fingerprints").toFile();
+        Fingerprints fingerprints = new Fingerprints(CONFIGURATION);
+        fingerprints.put("/classes/com/example/Foo.class", new Fingerprint(123, 456, "abcdef", "com.example.Foo"));
+        fingerprints.write(file);
+
+        assertNull(Fingerprints.read(file, CONFIGURATION.replace("compressed=false", "compressed=true")));
+        assertFalse(fingerprints.sameAs(new Fingerprints(CONFIGURATION + ", verbose")));
+    }
+
+    @Test
+    public void missingFile() throws IOException {
+        assertNull(Fingerprints.read(tempDir.resolve("missing").toFile(), CONFIGURATION));
+        assertNull(Fingerprints.read(tempDir.toFile(), CONFIGURATION));
+    }
+
+    @Test
+    public void malformed() throws IOException {
+        String header = "# Jandex fingerprints, version 1\n";
+        String valid = "123 456 abcdef com.example.Foo /classes/com/example/Foo.class\n";
+
+        assertNotNull(read(header + CONFIGURATION + "\n" + valid));
+
+        assertNull(read(""));
+        assertNull(read(header));
+        assertNull(read("# Jandex fingerprints, version 0\n" + CONFIGURATION + "\n" + valid));
+        assertNull(read(CONFIGURATION + "\n" + valid));
+        assertNull(read(header + CONFIGURATION + "\n" + valid + "123 456 abcdef com.example.Bar\n"));
+        assertNull(read(header + CONFIGURATION + "\n" + valid + "\n"));
+        assertNull(read(header + CONFIGURATION + "\n" + "big 456 abcdef com.example.Foo /Foo.class\n"));
+        assertNull(read(header + CONFIGURATION + "\n" + "123 yesterday abcdef com.example.Foo /Foo.class\n"));
+    }
+
+    private Fingerprints read(String content) throws IOException {
+        File file = tempDir.resolve("jandex.idx.fingerprints").toFile();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return Fingerprints.read(file, CONFIGURATION);
+    }
+}